@@ -153,4 +153,9 @@ public class MinDist implements Distance {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
     }
 
+    @Override
+    public double measure(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+
 }
@@ -124,6 +124,14 @@ public class Chameleon<E extends Instance, C extends Cluster<E>> extends Abstrac
 
     private final KNNGraphBuilder knn;
 
+    /**
+     * Build k-NN graph approximately (NN-Descent), without computing full
+     * distance matrix.
+     */
+    public static final String APPROXIMATE_KNN = "approximate_knn";
+    @Param(name = Chameleon.APPROXIMATE_KNN, description = "Approximate k-NN graph construction", required = false)
+    private boolean approximateKnn;
+
     public static final String GRAPH_STORAGE = "graph_storage";
     @Param(name = Chameleon.GRAPH_STORAGE, description = "Structure for storing graphs")
     private String graphStorage;
@@ -179,6 +187,8 @@ public class Chameleon<E extends Instance, C extends Cluster<E>> extends Abstrac
         }
 
         knn.setDistanceMeasure(params.getDistanceMeasure());
+        approximateKnn = pref.getBoolean(APPROXIMATE_KNN, false);
+        knn.setApproximate(approximateKnn);
         k = pref.getInt(K, -1);
         int datasetK = determineK(dataset);
         maxPartitionSize = pref.getInt(MAX_PARTITION, -1);
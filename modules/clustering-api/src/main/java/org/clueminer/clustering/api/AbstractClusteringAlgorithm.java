@@ -52,6 +52,12 @@ public abstract class AbstractClusteringAlgorithm<E extends Instance, C extends
 
     public static final String OUTLIER_LABEL = "noise";
 
+    /**
+     * Algorithms which support it will return a compact, immutable clustering
+     * backed by a label vector
+     */
+    public static final String LABEL_CLUSTERING = "label-clustering";
+
     @Override
     public Distance getDistanceFunction() {
         return distanceFunction;
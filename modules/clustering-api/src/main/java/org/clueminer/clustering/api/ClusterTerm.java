@@ -0,0 +1,20 @@
+package org.clueminer.clustering.api;
+
+/**
+ * Additive per-cluster term of an incremental evaluator, computed only from
+ * sufficient statistics of the cluster.
+ *
+ * @author Tomas Barton
+ */
+public interface ClusterTerm {
+
+    /**
+     *
+     * @param size  number of instances in the cluster
+     * @param sum   sum of instances (per attribute)
+     * @param sqSum sum of squared values over all attributes
+     * @return value of the term for the cluster
+     */
+    double value(int size, double[] sum, double sqSum);
+
+}
@@ -0,0 +1,55 @@
+package org.clueminer.clustering.api;
+
+/**
+ * Aggregated statistics of a dendrogram cut (i.e. a flat clustering), all
+ * values are maintained incrementally while walking the merges.
+ *
+ * @author Tomas Barton
+ */
+public interface CutStatistics {
+
+    /**
+     * @return number of clusters
+     */
+    int numClusters();
+
+    /**
+     * @return number of clustered instances
+     */
+    int numInstances();
+
+    /**
+     * @return number of attributes
+     */
+    int dimension();
+
+    /**
+     * @return sum of squared Euclidean distances of instances to centroids of
+     *         their clusters
+     */
+    double sse();
+
+    /**
+     * @return sum of cluster centroids (unweighted)
+     */
+    double[] centroidSum();
+
+    /**
+     * @return sum of squared norms of centroids weighted by cluster size
+     */
+    double weightedCentroidNorm();
+
+    /**
+     * @return sum of all instances
+     */
+    double[] totalSum();
+
+    /**
+     * Sum of per-cluster term (see {@link IncrementalEvaluator#clusterTerm})
+     * of currently scored evaluator over all clusters
+     *
+     * @return
+     */
+    double term();
+
+}
@@ -236,6 +236,17 @@ public interface HierarchicalResult<E extends Instance, C extends Cluster<E>> ex
      */
     void setMerges(List<Merge> merges);
 
+    /**
+     * Score all cuts of the dendrogram in a single walk through the merges,
+     * scores are cached (see {@link #getScores(java.lang.String)})
+     *
+     * @param evaluator
+     * @param params
+     * @return false when incremental scoring isn't possible (e.g. the tree
+     *         isn't monotonic), scores has to be computed on clusterings
+     */
+    boolean scoreCuts(IncrementalEvaluator evaluator, Props params);
+
     /**
      * Return ID of cluster to which was item at given position in input dataset
      * assigned. In case that assignment to clusters is unknown, all items will
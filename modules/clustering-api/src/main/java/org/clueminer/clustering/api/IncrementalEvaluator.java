@@ -0,0 +1,43 @@
+package org.clueminer.clustering.api;
+
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.utils.Props;
+
+/**
+ * Internal evaluator which could be computed from sufficient statistics of
+ * clusters (sizes, sums, sum of squares). Such evaluator can score all cuts of
+ * a dendrogram within a single walk through the merges.
+ *
+ * @author Tomas Barton
+ * @param <E>
+ * @param <C>
+ */
+public interface IncrementalEvaluator<E extends Instance, C extends Cluster<E>> extends InternalEvaluator<E, C> {
+
+    /**
+     * Current settings (e.g. distance measure) might not allow incremental
+     * computation
+     *
+     * @return true when {@link #score(CutStatistics, Props)} gives the same
+     *         result as scoring a clustering
+     */
+    boolean isIncremental();
+
+    /**
+     * Additive per-cluster term which has to be maintained during the walk
+     *
+     * @param params
+     * @return term or null when not needed
+     */
+    ClusterTerm clusterTerm(Props params);
+
+    /**
+     * Score a cut from aggregated statistics
+     *
+     * @param stats
+     * @param params
+     * @return
+     */
+    double score(CutStatistics stats, Props params);
+
+}
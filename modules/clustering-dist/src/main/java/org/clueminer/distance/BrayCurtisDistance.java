@@ -62,6 +62,9 @@ public class BrayCurtisDistance extends SymmetricDistance {
 
     @Override
     public double measure(Vector<Double> x, Vector<Double> y) {
+        if (isArrayBacked(x, y)) {
+            return measureArrays(x, y);
+        }
         checkInput(x, y);
         int k = x.size();
         double numerator = 0.0;
@@ -125,7 +128,22 @@ public class BrayCurtisDistance extends SymmetricDistance {
     }
 
     @Override
-    public double measure(double[] x, double[] y) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    public double measure(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        double numerator = 0.0;
+        double denominator = 0.0;
+        double xi, yi;
+        for (int i = 0; i < length; i++) {
+            xi = x[xOffset + i];
+            yi = y[yOffset + i];
+            if ((!Double.isNaN(xi)) && (!Double.isNaN(yi))) {
+                numerator += Math.abs(xi - yi);
+                denominator += xi + yi;
+            }
+        }
+        //avoid division by zero
+        if (denominator == 0.0) {
+            return 0.0;
+        }
+        return (numerator / denominator);
     }
 }
@@ -67,6 +67,9 @@ public class CanberraDistance extends SymmetricDistance implements Distance {
 
     @Override
     public double measure(Vector<Double> x, Vector<Double> y) {
+        if (isArrayBacked(x, y)) {
+            return measureArrays(x, y);
+        }
         checkInput(x, y);
         double sum = 0.0;
         double numerator;
@@ -119,7 +122,17 @@ public class CanberraDistance extends SymmetricDistance implements Distance {
     }
 
     @Override
-    public double measure(double[] x, double[] y) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    public double measure(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        double sum = 0.0;
+        double xi, yi, denominator;
+        for (int i = 0; i < length; i++) {
+            xi = x[xOffset + i];
+            yi = y[yOffset + i];
+            denominator = Math.abs(xi) + Math.abs(yi);
+            if (denominator > 0) {
+                sum += Math.abs(xi - yi) / denominator;
+            }
+        }
+        return sum;
     }
 }
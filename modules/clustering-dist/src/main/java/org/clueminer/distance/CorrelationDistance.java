@@ -54,6 +54,9 @@ public class CorrelationDistance extends SymmetricDistance implements Distance {
      */
     @Override
     public double measure(Vector<Double> x, Vector<Double> y) {
+        if (isArrayBacked(x, y)) {
+            return measureArrays(x, y);
+        }
         checkInput(x, y);
         double sumX = 0.0, sumY = 0.0, meanX, meanY;
 
@@ -91,8 +94,29 @@ public class CorrelationDistance extends SymmetricDistance implements Distance {
     }
 
     @Override
-    public double measure(double[] x, double[] y) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    public double measure(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        double sumX = 0.0, sumY = 0.0, meanX, meanY;
+        for (int i = 0; i < length; i++) {
+            sumX += x[xOffset + i];
+            sumY += y[yOffset + i];
+        }
+        meanX = sumX / length;
+        meanY = sumY / length;
+
+        //centered vectors, rest is same as Cosine distance
+        double suv = 0.0, suu = 0.0, svv = 0.0, u, v;
+        for (int i = 0; i < length; i++) {
+            u = x[xOffset + i] - meanX;
+            v = y[yOffset + i] - meanY;
+            suv += u * v;
+            suu += u * u;
+            svv += v * v;
+        }
+        double denom = Math.sqrt(suu) * Math.sqrt(svv);
+        if (denom == 0) {
+            return 0.0;
+        }
+        return 1 - suv / denom;
     }
 
 }
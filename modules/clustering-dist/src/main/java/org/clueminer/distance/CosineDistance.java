@@ -112,6 +112,9 @@ public class CosineDistance extends SymmetricDistance {
      */
     @Override
     public double measure(Vector<Double> x, Vector<Double> y) {
+        if (isArrayBacked(x, y)) {
+            return measureArrays(x, y);
+        }
         checkInput(x, y);
 
         /*
@@ -172,7 +175,22 @@ public class CosineDistance extends SymmetricDistance {
     }
 
     @Override
-    public double measure(double[] x, double[] y) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    public double measure(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        double sxy = 0.0;
+        double sxx = 0.0;
+        double syy = 0.0;
+        double tx, ty;
+        for (int i = 0; i < length; i++) {
+            tx = x[xOffset + i];
+            ty = y[yOffset + i];
+            sxy += tx * ty;
+            sxx += tx * tx;
+            syy += ty * ty;
+        }
+        double denom = Math.sqrt(sxx) * Math.sqrt(syy);
+        if (denom == 0) {
+            return 2.0;
+        }
+        return 1 - sxy / denom;
     }
 }
@@ -97,6 +97,9 @@ public class CovarianceDistance extends AbstractDistance implements Distance {
 
     @Override
     public double measure(Vector<Double> x, Vector<Double> y) {
+        if (isArrayBacked(x, y)) {
+            return measureArrays(x, y);
+        }
         checkInput(x, y);
         double xt, yt;
         double sxy = 0.0;
@@ -165,7 +168,31 @@ public class CovarianceDistance extends AbstractDistance implements Distance {
     }
 
     @Override
-    public double measure(double[] x, double[] y) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    public double measure(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        double xt, yt;
+        double sxy = 0.0;
+        double avgX = 0.0;
+        double avgY = 0.0;
+        int n = 0;
+        int j;
+        for (j = 0; j < length; j++) {
+            xt = x[xOffset + j];
+            yt = y[yOffset + j];
+            if ((!Double.isNaN(xt)) && (!Double.isNaN(yt))) {
+                avgX += xt;
+                avgY += yt;
+                n++;
+            }
+        }
+        avgX /= n;
+        avgY /= n;
+        for (j = 0; j < length; j++) {
+            xt = x[xOffset + j];
+            yt = y[yOffset + j];
+            if ((!Double.isNaN(xt)) && (!Double.isNaN(yt))) {
+                sxy += (xt - avgX) * (yt - avgY);
+            }
+        }
+        return (sxy / ((n - 1) * 1.0));
     }
 }
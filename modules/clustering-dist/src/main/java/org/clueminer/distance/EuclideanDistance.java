@@ -1,7 +1,7 @@
 package org.clueminer.distance;
 
-import org.apache.commons.math3.util.FastMath;
 import org.clueminer.distance.api.Distance;
+import org.clueminer.math.ArrayVector;
 import org.clueminer.math.Matrix;
 import org.clueminer.math.Vector;
 import org.openide.util.lookup.ServiceProvider;
@@ -93,11 +93,15 @@ public class EuclideanDistance extends MinkowskiDistance {
 
     @Override
     public double measure(Vector<Double> x, Vector<Double> y) {
+        if (isArrayBacked(x, y)) {
+            return measureArrays(x, y);
+        }
         checkInput(x, y);
         double sum = 0;
+        double d;
         for (int i = 0; i < x.size(); i++) {
-            //should be faster
-            sum += FastMath.pow(y.get(i) - x.get(i), power);
+            d = y.get(i) - x.get(i);
+            sum += d * d;
         }
         if (sqrt) {
             return Math.sqrt(sum);
@@ -107,10 +111,16 @@ public class EuclideanDistance extends MinkowskiDistance {
 
     public double sqdist(Vector<Double> x, Vector<Double> y) {
         checkInput(x, y);
+        if (isArrayBacked(x, y)) {
+            ArrayVector a = (ArrayVector) x;
+            ArrayVector b = (ArrayVector) y;
+            return sqdist(a.array(), a.arrayOffset(), b.array(), b.arrayOffset(), a.size());
+        }
         double sum = 0;
+        double d;
         for (int i = 0; i < x.size(); i++) {
-            //should be faster
-            sum += FastMath.pow(y.get(i) - x.get(i), power);
+            d = y.get(i) - x.get(i);
+            sum += d * d;
         }
         return sum;
     }
@@ -119,8 +129,10 @@ public class EuclideanDistance extends MinkowskiDistance {
     public double measure(Vector<Double> x, Vector<Double> y, double[] weights) {
         checkInput(x, y);
         double sum = 0;
+        double d;
         for (int i = 0; i < x.size(); i++) {
-            sum += FastMath.pow(weights[i] * y.get(i) - weights[i] * x.get(i), power);
+            d = weights[i] * y.get(i) - weights[i] * x.get(i);
+            sum += d * d;
         }
 
         if (sqrt) {
@@ -130,18 +142,24 @@ public class EuclideanDistance extends MinkowskiDistance {
     }
 
     @Override
-    public double measure(double[] x, double[] y) {
-        double sum = 0;
-        for (int i = 0; i < x.length; i++) {
-            sum += FastMath.pow(y[i] - x[i], power);
-        }
-
+    public double measure(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        double sum = sqdist(x, xOffset, y, yOffset, length);
         if (sqrt) {
             return Math.sqrt(sum);
         }
         return sum;
     }
 
+    private double sqdist(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        double sum = 0;
+        double d;
+        for (int i = 0; i < length; i++) {
+            d = y[yOffset + i] - x[xOffset + i];
+            sum += d * d;
+        }
+        return sum;
+    }
+
     public boolean isSqrt() {
         return sqrt;
     }
@@ -67,6 +67,9 @@ public class HammingDistance extends SymmetricDistance implements Distance {
 
     @Override
     public double measure(Vector<Double> x, Vector<Double> y) {
+        if (isArrayBacked(x, y)) {
+            return measureArrays(x, y);
+        }
         double dist = 0;
         for (int i = 0; i < x.size(); ++i) {
             dist += Math.abs(x.get(i) - y.get(i));
@@ -96,10 +99,10 @@ public class HammingDistance extends SymmetricDistance implements Distance {
     }
 
     @Override
-    public double measure(double[] x, double[] y) {
+    public double measure(double[] x, int xOffset, double[] y, int yOffset, int length) {
         double dist = 0;
-        for (int i = 0; i < x.length; ++i) {
-            dist += Math.abs(x[i] - y[i]);
+        for (int i = 0; i < length; ++i) {
+            dist += Math.abs(x[xOffset + i] - y[yOffset + i]);
         }
         return dist;
     }
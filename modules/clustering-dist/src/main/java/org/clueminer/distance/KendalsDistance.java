@@ -101,6 +101,9 @@ public class KendalsDistance extends AbstractDistance {
 
     @Override
     public double measure(Vector<Double> x, Vector<Double> y) {
+        if (isArrayBacked(x, y)) {
+            return measureArrays(x, y);
+        }
         double TINY = Double.MIN_VALUE;
         int n = x.size();
         int n2 = 0;
@@ -192,7 +195,35 @@ public class KendalsDistance extends AbstractDistance {
     }
 
     @Override
-    public double measure(double[] x, double[] y) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    public double measure(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        double TINY = Double.MIN_VALUE;
+        int n2 = 0;
+        int n1 = 0;
+        int is = 0;
+        double aa, a2, a1;
+        for (int j = 0; j < length - 1; j++) {
+            for (int k = (j + 1); k < length; k++) {
+                a1 = x[xOffset + j] - x[xOffset + k];
+                a2 = y[yOffset + j] - y[yOffset + k];
+                aa = a1 * a2;
+                if (aa != 0.0) {
+                    ++n1;
+                    ++n2;
+                    if (aa > 0.0) {
+                        ++is;
+                    } else {
+                        --is;
+                    }
+                } else {
+                    if (a1 != 0.0) {
+                        ++n1;
+                    }
+                    if (a2 != 0.0) {
+                        ++n2;
+                    }
+                }
+            }
+        }
+        return (is / (Math.sqrt((double) n1) * Math.sqrt((double) n2) + TINY));
     }
 }
@@ -80,8 +80,12 @@ public class ManhattanDistance extends MinkowskiDistance implements Distance {
     }
 
     @Override
-    public double measure(double[] x, double[] y) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    public double measure(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += Math.abs(y[yOffset + i] - x[xOffset + i]);
+        }
+        return sum;
     }
 
 }
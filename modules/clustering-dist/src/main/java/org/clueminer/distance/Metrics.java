@@ -0,0 +1,39 @@
+package org.clueminer.distance;
+
+import org.clueminer.distance.api.Distance;
+
+/**
+ * Helper for algorithms which prune their search space using triangle
+ * inequality (metric trees, bounds in k-means etc.).
+ *
+ * {@link Distance#isSubadditive()} can't be used for that, many distances
+ * (Cosine, Correlation, squared Euclidean, ...) claim to be subadditive, yet
+ * they violate triangle inequality.
+ *
+ * @author Tomas Barton
+ */
+public final class Metrics {
+
+    private Metrics() {
+    }
+
+    /**
+     * Check whether given distance is a true metric (satisfies triangle
+     * inequality), only known metrics are accepted
+     *
+     * @param dm distance function
+     * @return true for Euclidean (with square root), Manhattan, Minkowski with
+     *         p &ge; 1, Supremum and Hamming distance
+     */
+    public static boolean isMetric(Distance dm) {
+        if (dm instanceof EuclideanDistance) {
+            return ((EuclideanDistance) dm).isSqrt();
+        }
+        if (dm instanceof MinkowskiDistance) {
+            //includes Manhattan distance
+            return ((MinkowskiDistance) dm).getPower() >= 1.0;
+        }
+        return dm instanceof SupremumDistance || dm instanceof HammingDistance;
+    }
+
+}
@@ -12,6 +12,10 @@ public class MinkowskiDistance extends SymmetricDistance {
 
     private static final long serialVersionUID = 1115253168643019620L;
     protected double power;
+    /**
+     * highest integer power computed by multiplication (instead of Math.pow)
+     */
+    private static final int MAX_INT_POWER = 8;
 
     @Override
     public String getName() {
@@ -29,8 +33,15 @@ public class MinkowskiDistance extends SymmetricDistance {
         this.power = power;
     }
 
+    public double getPower() {
+        return power;
+    }
+
     @Override
     public double measure(Vector<Double> x, Vector<Double> y) {
+        if (isArrayBacked(x, y)) {
+            return measureArrays(x, y);
+        }
         checkInput(x, y);
         double sum = 0;
         for (int i = 0; i < x.size(); i++) {
@@ -84,7 +95,26 @@ public class MinkowskiDistance extends SymmetricDistance {
     }
 
     @Override
-    public double measure(double[] x, double[] y) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    public double measure(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        double sum = 0;
+        int p = (int) power;
+        if (p == power && p > 0 && p <= MAX_INT_POWER) {
+            //integer power is much cheaper to compute by multiplication
+            double d, t;
+            for (int i = 0; i < length; i++) {
+                d = Math.abs(y[yOffset + i] - x[xOffset + i]);
+                t = d;
+                for (int k = 1; k < p; k++) {
+                    t *= d;
+                }
+                sum += t;
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                sum += Math.pow(Math.abs(y[yOffset + i] - x[xOffset + i]), power);
+            }
+        }
+
+        return Math.pow(sum, 1 / power);
     }
 }
@@ -186,6 +186,9 @@ public class PearsonDistance extends SymmetricDistance {
      */
     @Override
     public double measure(Vector<Double> x, Vector<Double> y) {
+        if (isArrayBacked(x, y)) {
+            return measureArrays(x, y);
+        }
         int n, j;
         double xt, yt;
 
@@ -304,7 +307,36 @@ public class PearsonDistance extends SymmetricDistance {
     }
 
     @Override
-    public double measure(double[] x, double[] y) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    public double measure(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        int n, j;
+        double xt, yt;
+
+        double sumX = 0.0;
+        double sumX2 = 0.0;
+        double sumY = 0.0;
+        double sumY2 = 0.0;
+        double sumXY = 0.0;
+        //number of non-zero elements
+        n = 0;
+        for (j = 0; j < length; j++) {
+            xt = x[xOffset + j];
+            yt = y[yOffset + j];
+            if ((!Double.isNaN(xt)) && (!Double.isNaN(yt))) {
+                sumXY += xt * yt;
+                sumX += xt;
+                sumX2 += xt * xt;
+                sumY += yt;
+                sumY2 += yt * yt;
+                n++;
+            }
+        }
+
+        double meanX = sumX / n;
+        double meanY = sumY / n;
+        sumXY -= meanY * sumX;
+        sumX2 -= meanX * sumX;
+        sumY2 -= meanY * sumY;
+
+        return correlation(n, sumXY, sumX2, sumY2);
     }
 }
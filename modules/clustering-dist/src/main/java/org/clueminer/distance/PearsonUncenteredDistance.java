@@ -28,6 +28,9 @@ public class PearsonUncenteredDistance extends PearsonDistance {
      */
     @Override
     public double measure(Vector<Double> x, Vector<Double> y) {
+        if (isArrayBacked(x, y)) {
+            return measureArrays(x, y);
+        }
         int n, j;
         double xt, yt;
         double sumX2 = 0.0;
@@ -76,4 +79,27 @@ public class PearsonUncenteredDistance extends PearsonDistance {
 
         return correlation(n, sumXY, sumX2, sumY2);
     }
+
+    @Override
+    public double measure(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        int n, j;
+        double xt, yt;
+        double sumX2 = 0.0;
+        double sumY2 = 0.0;
+        double sumXY = 0.0;
+        //number of non-zero elements
+        n = 0;
+        for (j = 0; j < length; j++) {
+            xt = x[xOffset + j];
+            yt = y[yOffset + j];
+            if ((!Double.isNaN(xt)) && (!Double.isNaN(yt))) {
+                sumXY += xt * yt;
+                sumX2 += xt * xt;
+                sumY2 += yt * yt;
+                n++;
+            }
+        }
+
+        return correlation(n, sumXY, sumX2, sumY2);
+    }
 }
@@ -0,0 +1,425 @@
+package org.clueminer.distance;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.distance.api.Distance;
+import org.clueminer.math.Matrix;
+import org.clueminer.math.Vector;
+import org.clueminer.math.matrix.JMatrix;
+import org.clueminer.math.matrix.SymmetricMatrix;
+
+/**
+ * Computes proximity (distance) matrices in parallel on a shared fork-join
+ * pool.
+ *
+ * The upper triangle of the n x n matrix is split into square tiles (blocks of
+ * rows times blocks of columns), the size of tile is chosen in a way that
+ * vectors of a single tile should fit into CPU cache. All tiles in one block
+ * row are processed by a single task.
+ *
+ * For symmetric distances the result is a {@link SymmetricMatrix}, for
+ * asymmetric ones a full {@link JMatrix} (both directions are computed).
+ * Optionally every computed value is converted to a queue element (see
+ * {@link PairFactory}); elements of each tile are collected in a small buffer
+ * which is flushed into the target collection as soon as the tile is finished
+ * (while holding the collection's monitor). Insertion order therefore depends
+ * on scheduling, elements should have a total order (e.g. break ties by
+ * indexes) when deterministic results are needed.
+ *
+ * @author Tomas Barton
+ */
+public class ProximityMatrixBuilder {
+
+    /**
+     * approximate number of doubles of a tile's vectors which should fit into
+     * cache
+     */
+    private static final int CACHE_DOUBLES = 16384;
+    private static final int MIN_BLOCK = 8;
+    private static final int MAX_BLOCK = 256;
+
+    private static ForkJoinPool sharedPool;
+
+    private final Distance dm;
+    private final ForkJoinPool pool;
+    private int blockSize = -1;
+
+    /**
+     * Creates queue elements from computed distances
+     *
+     * @param <T>
+     */
+    public interface PairFactory<T> {
+
+        /**
+         *
+         * @param value distance
+         * @param row index of first vector
+         * @param column index of second vector
+         * @return queue element
+         */
+        T create(double value, int row, int column);
+    }
+
+    public ProximityMatrixBuilder(Distance dm) {
+        this(dm, getPool());
+    }
+
+    public ProximityMatrixBuilder(Distance dm, ForkJoinPool pool) {
+        this.dm = dm;
+        this.pool = pool;
+    }
+
+    /**
+     * Pool shared by all proximity computations, with parallelism equal to
+     * the number of available processors
+     *
+     * @return
+     */
+    public static synchronized ForkJoinPool getPool() {
+        if (sharedPool == null) {
+            sharedPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        return sharedPool;
+    }
+
+    /**
+     * Number of rows (or columns) in one tile, by default computed from
+     * vectors dimension
+     *
+     * @param blockSize
+     */
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    public int getBlockSize(int dimension) {
+        if (blockSize > 0) {
+            return blockSize;
+        }
+        int b = CACHE_DOUBLES / Math.max(1, dimension);
+        return Math.max(MIN_BLOCK, Math.min(MAX_BLOCK, b));
+    }
+
+    /**
+     * Distances between all rows of given matrix
+     *
+     * @param m
+     * @return
+     */
+    public Matrix rows(Matrix m) {
+        return rows(m, null, null);
+    }
+
+    public <T> Matrix rows(Matrix m, Collection<? super T> queue, PairFactory<T> factory) {
+        return compute(new RowSource(m), queue, factory);
+    }
+
+    /**
+     * Distances between all columns of given matrix
+     *
+     * @param m
+     * @return
+     */
+    public Matrix columns(Matrix m) {
+        return columns(m, null, null);
+    }
+
+    public <T> Matrix columns(Matrix m, Collection<? super T> queue, PairFactory<T> factory) {
+        return compute(new ColumnSource(m), queue, factory);
+    }
+
+    /**
+     * Distances between all instances of given dataset
+     *
+     * @param dataset
+     * @return
+     */
+    public Matrix instances(Dataset<? extends Instance> dataset) {
+        return instances(dataset, null, null);
+    }
+
+    public <T> Matrix instances(Dataset<? extends Instance> dataset, Collection<? super T> queue, PairFactory<T> factory) {
+        return compute(new InstanceSource(dataset), queue, factory);
+    }
+
+    /**
+     * Distances between rows stored in a flat lower triangular array, distance
+     * between i and j (i &lt; j) is stored at index j * (j - 1) / 2 + i (same
+     * layout as {@link SymmetricMatrix}). For non-symmetric distances the
+     * distance from i to j is used.
+     *
+     * @param m
+     * @return
+     */
+    public double[] rowsTriangle(Matrix m) {
+        return triangle(new RowSource(m));
+    }
+
+    public double[] columnsTriangle(Matrix m) {
+        return triangle(new ColumnSource(m));
+    }
+
+    private double[] triangle(Source src) {
+        int n = src.size();
+        double[] tri = new double[(int) (((long) n * (n - 1)) >>> 1)];
+        Tiles<Object> tiles = new Tiles<>(src, null, tri, false, null, null);
+        tiles.run();
+        return tiles.tri;
+    }
+
+    private <T> Matrix compute(Source src, Collection<? super T> queue, PairFactory<T> factory) {
+        int n = src.size();
+        Matrix res;
+        boolean symmetric = dm.isSymmetric();
+        if (symmetric) {
+            res = new SymmetricMatrix(n, n);
+        } else {
+            res = new JMatrix(n, n);
+        }
+        Tiles<T> tiles = new Tiles<>(src, res, null, !symmetric, queue, (queue != null) ? factory : null);
+        tiles.run();
+        return res;
+    }
+
+    /**
+     * Tiling of the upper triangle, a task processes all tiles in one block
+     * row
+     *
+     * @param <T>
+     */
+    private class Tiles<T> {
+
+        private final Source src;
+        private final Matrix out;
+        private final double[] tri;
+        private final boolean both;
+        private final Collection<? super T> queue;
+        private final PairFactory<T> factory;
+        private final int n;
+        private final int block;
+        private final int blocks;
+
+        Tiles(Source src, Matrix out, double[] tri, boolean both, Collection<? super T> queue, PairFactory<T> factory) {
+            this.src = src;
+            this.out = out;
+            this.tri = tri;
+            this.both = both;
+            this.queue = queue;
+            this.factory = factory;
+            this.n = src.size();
+            this.block = getBlockSize(src.dimension());
+            this.blocks = (n + block - 1) / block;
+        }
+
+        void run() {
+            if (n < 2) {
+                return;
+            }
+            pool.invoke(new TileTask(0, blocks));
+        }
+
+        /**
+         * Compute all tiles in the block row bi
+         *
+         * @param bi
+         */
+        void blockRow(int bi) {
+            int rowStart = bi * block;
+            int rowEnd = Math.min(n, rowStart + block);
+            Vector[] rows = new Vector[rowEnd - rowStart];
+            for (int i = rowStart; i < rowEnd; i++) {
+                rows[i - rowStart] = src.get(i);
+            }
+            List<T> buffer = null;
+            if (factory != null) {
+                //elements of a single tile, reused for all tiles in the row
+                int r = rowEnd - rowStart;
+                buffer = new ArrayList<>(both ? 2 * r * block : r * block);
+            }
+            Vector[] cols;
+            int colStart, colEnd;
+            //vectors of the block row are reused for all tiles in the row
+            for (int bj = bi; bj < blocks; bj++) {
+                colStart = bj * block;
+                colEnd = Math.min(n, colStart + block);
+                if (bj == bi) {
+                    cols = rows;
+                } else {
+                    cols = new Vector[colEnd - colStart];
+                    for (int j = colStart; j < colEnd; j++) {
+                        cols[j - colStart] = src.get(j);
+                    }
+                }
+                tile(rows, rowStart, rowEnd, cols, colStart, colEnd, bi == bj, buffer);
+                if (buffer != null) {
+                    flush(buffer);
+                }
+            }
+        }
+
+        /**
+         * Move elements of a finished tile into the target queue, which
+         * doesn't have to be thread-safe
+         *
+         * @param buffer
+         */
+        private void flush(List<T> buffer) {
+            synchronized (queue) {
+                queue.addAll(buffer);
+            }
+            buffer.clear();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void tile(Vector[] rows, int rowStart, int rowEnd, Vector[] cols, int colStart, int colEnd,
+                boolean diagonal, List<T> buffer) {
+            double dist, dist2;
+            Vector vi, vj;
+            for (int i = rowStart; i < rowEnd; i++) {
+                vi = rows[i - rowStart];
+                for (int j = diagonal ? i + 1 : colStart; j < colEnd; j++) {
+                    vj = cols[j - colStart];
+                    dist = dm.measure(vi, vj);
+                    if (tri != null) {
+                        tri[(int) (((long) j * (j - 1)) >>> 1) + i] = dist;
+                    } else {
+                        out.set(i, j, dist);
+                    }
+                    if (buffer != null) {
+                        buffer.add(factory.create(dist, i, j));
+                    }
+                    if (both) {
+                        /**
+                         * measure is not symmetrical, we have to compute
+                         * distance from A to B and from B to A
+                         */
+                        dist2 = dm.measure(vj, vi);
+                        out.set(j, i, dist2);
+                        if (buffer != null) {
+                            buffer.add(factory.create(dist2, j, i));
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Recursively splits block rows, block rows with lower index contain
+         * more tiles
+         */
+        private class TileTask extends RecursiveAction {
+
+            private static final long serialVersionUID = 8061584316271829640L;
+            private final int from;
+            private final int to;
+
+            TileTask(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from <= 1) {
+                    for (int bi = from; bi < to; bi++) {
+                        blockRow(bi);
+                    }
+                } else {
+                    int mid = (from + to) >>> 1;
+                    invokeAll(new TileTask(from, mid), new TileTask(mid, to));
+                }
+            }
+        }
+    }
+
+    /**
+     * Provider of vectors which are being compared
+     */
+    private static abstract class Source {
+
+        abstract int size();
+
+        abstract int dimension();
+
+        abstract Vector get(int i);
+    }
+
+    private static class RowSource extends Source {
+
+        private final Matrix m;
+
+        RowSource(Matrix m) {
+            this.m = m;
+        }
+
+        @Override
+        int size() {
+            return m.rowsCount();
+        }
+
+        @Override
+        int dimension() {
+            return m.columnsCount();
+        }
+
+        @Override
+        Vector get(int i) {
+            return m.getRowVector(i);
+        }
+    }
+
+    private static class ColumnSource extends Source {
+
+        private final Matrix m;
+
+        ColumnSource(Matrix m) {
+            this.m = m;
+        }
+
+        @Override
+        int size() {
+            return m.columnsCount();
+        }
+
+        @Override
+        int dimension() {
+            return m.rowsCount();
+        }
+
+        @Override
+        Vector get(int i) {
+            return m.getColumnVector(i);
+        }
+    }
+
+    private static class InstanceSource extends Source {
+
+        private final Dataset<? extends Instance> dataset;
+
+        InstanceSource(Dataset<? extends Instance> dataset) {
+            this.dataset = dataset;
+        }
+
+        @Override
+        int size() {
+            return dataset.size();
+        }
+
+        @Override
+        int dimension() {
+            return dataset.attributeCount();
+        }
+
+        @Override
+        Vector get(int i) {
+            return dataset.get(i);
+        }
+    }
+
+}
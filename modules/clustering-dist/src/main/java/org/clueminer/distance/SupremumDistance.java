@@ -67,6 +67,9 @@ public class SupremumDistance extends AbstractDistance {
 
     @Override
     public double measure(Vector<Double> x, Vector<Double> y) {
+        if (isArrayBacked(x, y)) {
+            return measureArrays(x, y);
+        }
         checkInput(x, y);
         int k = x.size();
         double max = 0.0;
@@ -128,7 +131,16 @@ public class SupremumDistance extends AbstractDistance {
     }
 
     @Override
-    public double measure(double[] x, double[] y) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    public double measure(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        double max = 0.0;
+        double diff;
+        for (int i = 0; i < length; i++) {
+            diff = Math.abs(x[xOffset + i] - y[yOffset + i]);
+            //comparison with NaN is always false
+            if (diff > max) {
+                max = diff;
+            }
+        }
+        return max;
     }
 }
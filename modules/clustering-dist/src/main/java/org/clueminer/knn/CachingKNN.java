@@ -29,6 +29,7 @@ import org.clueminer.utils.Props;
 import org.openide.util.lookup.ServiceProvider;
 
 /**
+ * Linear k-NN search which stores results in shared {@link KnnCache}.
  *
  * @author Tomas Barton
  * @param <T>
@@ -62,7 +63,7 @@ public class CachingKNN<T extends Instance> implements KNNSearch<T> {
 
     @Override
     public Neighbor<T>[] knn(T q, int k) {
-        KnnCache<Neighbor<T>> cache = KnnCache.getInstance();
+        KnnCache cache = KnnCache.getInstance();
         Neighbor<T>[] res;
         if (dataset == null) {
             throw new RuntimeException("dataset not set");
@@ -70,23 +71,14 @@ public class CachingKNN<T extends Instance> implements KNNSearch<T> {
         if (q == null) {
             throw new RuntimeException("q not set");
         }
-        if (cache.contains(dataset, q.getIndex())) {
-            res = cache.get(dataset, q.getIndex());
-            if (res.length < k) {
-                res = updateNN(q.getIndex(), k, cache);
-            }
-        } else {
-            res = updateNN(q.getIndex(), k, cache);
+        res = cache.get(dataset, dm, identicalExcluded, q.getIndex(), k);
+        if (res == null) {
+            res = computeNN(q.getIndex(), k, dm);
+            cache.put(dataset, dm, identicalExcluded, q.getIndex(), res);
         }
         return res;
     }
 
-    private Neighbor<T>[] updateNN(int idx, int k, KnnCache cache) {
-        Neighbor<T>[] res = computeNN(idx, k, dm);
-        cache.put(dataset, idx, res);
-        return res;
-    }
-
     private Neighbor<T>[] computeNN(int idx, int k, Distance dm) {
         Instance q = dataset.get(idx);
         double dist;
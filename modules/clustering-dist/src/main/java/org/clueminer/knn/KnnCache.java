@@ -16,54 +16,247 @@
  */
 package org.clueminer.knn;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import org.clueminer.dataset.api.Dataset;
 import org.clueminer.dataset.api.Instance;
+import org.clueminer.distance.api.Distance;
+import org.clueminer.neighbor.Neighbor;
 
 /**
- * A distance matrix implemented using HashMap
+ * Thread-safe cache of k-nearest neighbors. Results are keyed by dataset
+ * (identity), distance function, whether the query object itself is excluded
+ * and index of query object. For each key the cache keeps the longest computed
+ * neighborhood, queries with smaller k are answered by its prefix.
+ *
+ * Size of the cache is limited by total number of stored neighbors, least
+ * recently used entries are evicted first. Datasets are referenced weakly
+ * (cached entries keep just indexes and distances), so that entries of
+ * garbage collected datasets are purged.
  *
  * @author Tomas Barton
- * @param <T>
  */
-public class KnnCache<T> {
+public class KnnCache {
+
+    /**
+     * default maximum number of neighbors stored in cache
+     */
+    public static final long DEFAULT_CAPACITY = 1 << 22;
 
     private static KnnCache instance;
 
-    private final Table<Dataset, Integer, T[]> cache;
+    private final Cache<Key, Entry> cache;
+    /**
+     * canonical weak references to datasets (compared by identity)
+     */
+    private final Cache<Dataset<? extends Instance>, DatasetRef> refs;
+    private final ReferenceQueue<Dataset<? extends Instance>> queue = new ReferenceQueue<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param capacity maximum number of neighbors stored in cache
+     */
+    public KnnCache(long capacity) {
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(capacity)
+                .weigher(new Weigher<Key, Entry>() {
 
-    private KnnCache() {
-        cache = HashBasedTable.create();
+                    @Override
+                    public int weigh(Key key, Entry value) {
+                        return value.index.length;
+                    }
+                })
+                .recordStats()
+                .build();
+        refs = CacheBuilder.newBuilder().weakKeys().build();
     }
 
-    public static KnnCache getInstance() {
+    public static synchronized KnnCache getInstance() {
         if (instance == null) {
-            instance = new KnnCache();
+            instance = new KnnCache(DEFAULT_CAPACITY);
         }
         return instance;
     }
 
-    public boolean containsKey(Dataset<? extends Instance> dataset) {
-        return cache.containsRow(dataset);
+    /**
+     * Cached neighbors of given instance
+     *
+     * @param <T>
+     * @param dataset
+     * @param dm
+     * @param identicalExcluded whether the query was excluded from results
+     * @param id                index of query instance
+     * @param k
+     * @return k nearest neighbors or null when not enough neighbors is cached
+     */
+    public <T extends Instance> Neighbor<T>[] get(Dataset<T> dataset, Distance dm, boolean identicalExcluded, int id, int k) {
+        purge();
+        Entry e = cache.getIfPresent(new Key(ref(dataset), dm, identicalExcluded, id));
+        if (e == null || e.index.length < k) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        Neighbor<T>[] res = new Neighbor[k];
+        for (int i = 0; i < k; i++) {
+            res[i] = new Neighbor<>(e.index[i] < 0 ? null : dataset.get(e.index[i]),
+                    Math.max(e.index[i], 0), e.distance[i]);
+        }
+        return res;
+    }
+
+    /**
+     * Store k-nn result to cache
+     *
+     * @param dataset
+     * @param dm
+     * @param identicalExcluded whether the query was excluded from results
+     * @param id                index of query instance
+     * @param nn                neighbors sorted by distance
+     */
+    public void put(Dataset<? extends Instance> dataset, Distance dm, boolean identicalExcluded, int id, Neighbor[] nn) {
+        purge();
+        Entry e = new Entry(nn.length);
+        for (int i = 0; i < nn.length; i++) {
+            //placeholder when there's not enough instances
+            e.index[i] = nn[i].key == null ? -1 : nn[i].index;
+            e.distance[i] = nn[i].distance;
+        }
+        cache.put(new Key(ref(dataset), dm, identicalExcluded, id), e);
     }
 
-    public boolean contains(Dataset<? extends Instance> dataset, int id) {
-        return cache.contains(dataset, id);
+    /**
+     * Remove all entries of given dataset (e.g. after modification of the
+     * dataset)
+     *
+     * @param dataset
+     */
+    public void invalidate(Dataset<? extends Instance> dataset) {
+        DatasetRef ref = refs.getIfPresent(dataset);
+        if (ref != null) {
+            refs.invalidate(dataset);
+            remove(ref);
+        }
     }
 
-    public T[] get(Dataset<? extends Instance> dataset, int id) {
-        return cache.get(dataset, id);
+    public void clear() {
+        cache.invalidateAll();
+        refs.invalidateAll();
     }
 
     /**
-     * Store k-nn result to cache
+     * Number of cached neighborhoods
      *
-     * @param dataset
-     * @param id
-     * @param inst
+     * @return
      */
-    public void put(Dataset<? extends Instance> dataset, int id, T[] inst) {
-        cache.put(dataset, id, inst);
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Hit, miss and eviction counts (entry with less than k neighbors is
+     * considered as a miss)
+     *
+     * @return
+     */
+    public CacheStats stats() {
+        return new CacheStats(hits.get(), misses.get(), 0, 0, 0, cache.stats().evictionCount());
+    }
+
+    private DatasetRef ref(final Dataset<? extends Instance> dataset) {
+        try {
+            return refs.get(dataset, new Callable<DatasetRef>() {
+
+                @Override
+                public DatasetRef call() throws Exception {
+                    return new DatasetRef(dataset, queue);
+                }
+            });
+        } catch (ExecutionException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Remove entries of garbage collected datasets
+     */
+    private void purge() {
+        Reference<? extends Dataset<? extends Instance>> ref;
+        while ((ref = queue.poll()) != null) {
+            remove((DatasetRef) ref);
+        }
+    }
+
+    private void remove(DatasetRef ref) {
+        Iterator<Key> it = cache.asMap().keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().dataset == ref) {
+                it.remove();
+            }
+        }
+    }
+
+    private static class DatasetRef extends WeakReference<Dataset<? extends Instance>> {
+
+        DatasetRef(Dataset<? extends Instance> referent, ReferenceQueue<? super Dataset<? extends Instance>> q) {
+            super(referent, q);
+        }
+    }
+
+    private static class Key {
+
+        private final DatasetRef dataset;
+        private final Distance dm;
+        private final boolean identicalExcluded;
+        private final int id;
+
+        Key(DatasetRef dataset, Distance dm, boolean identicalExcluded, int id) {
+            this.dataset = dataset;
+            this.dm = dm;
+            this.identicalExcluded = identicalExcluded;
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(dataset);
+            hash = 31 * hash + dm.hashCode();
+            hash = 31 * hash + (identicalExcluded ? 1 : 0);
+            return 31 * hash + id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return dataset == other.dataset && id == other.id
+                    && identicalExcluded == other.identicalExcluded && dm.equals(other.dm);
+        }
+    }
+
+    /**
+     * Sorted neighbors, stored without references to instances
+     */
+    private static class Entry {
+
+        private final int[] index;
+        private final double[] distance;
+
+        Entry(int k) {
+            index = new int[k];
+            distance = new double[k];
+        }
     }
 }
@@ -0,0 +1,383 @@
+package org.clueminer.knn;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.clueminer.clustering.api.AbstractClusteringAlgorithm;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.distance.EuclideanDistance;
+import org.clueminer.distance.Metrics;
+import org.clueminer.distance.ProximityMatrixBuilder;
+import org.clueminer.distance.api.Distance;
+import org.clueminer.distance.api.DistanceFactory;
+import org.clueminer.neighbor.KNNSearch;
+import org.clueminer.neighbor.NearestNeighborSearch;
+import org.clueminer.neighbor.Neighbor;
+import org.clueminer.neighbor.RNNSearch;
+import org.clueminer.utils.Props;
+import org.openide.util.lookup.ServiceProvider;
+import org.openide.util.lookup.ServiceProviders;
+
+/**
+ * Vantage-point tree - a metric tree which works with any distance satisfying
+ * triangle inequality. Each node picks a vantage point and splits remaining
+ * points by median distance to the vantage point into an inner ball and an
+ * outer shell, branches which can't contain results are pruned using the
+ * triangle inequality. Queries take approximately O(log n) distance
+ * computations on low dimensional data (instead of O(n) with linear search).
+ *
+ * The tree is built lazily on first query after the dataset or distance
+ * function has changed, subtrees of large nodes are built in parallel. Pruning
+ * is used only for known metrics (see {@link Metrics#isMetric(Distance)}),
+ * for other distances queries fall back to linear scan.
+ *
+ * Yianilos, Peter N. "Data structures and algorithms for nearest neighbor
+ * search in general metric spaces." SODA. Vol. 93. No. 194. 1993.
+ *
+ * @author deric
+ * @param <T>
+ */
+@ServiceProviders({
+    @ServiceProvider(service = KNNSearch.class),
+    @ServiceProvider(service = RNNSearch.class)
+})
+public class VPTree<T extends Instance> extends AbstractKNN<T> implements NearestNeighborSearch<T>, KNNSearch<T>, RNNSearch<T> {
+
+    public static final String name = "VP-tree";
+
+    /**
+     * nodes with at most this number of points are searched linearly
+     */
+    private static final int LEAF_SIZE = 8;
+    /**
+     * nodes smaller than this are built in the current thread
+     */
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    /**
+     * dataset indexes ordered by the tree, node over range [lo, hi) has its
+     * vantage point at position lo
+     */
+    private int[] index;
+    /**
+     * median distance to vantage point of node starting at given position
+     */
+    private double[] mu;
+    private boolean metric;
+    private ForkJoinPool pool;
+
+    public VPTree() {
+        this.dm = EuclideanDistance.getInstance();
+    }
+
+    public VPTree(Dataset<T> dataset) {
+        this.dataset = dataset;
+        this.dm = EuclideanDistance.getInstance();
+    }
+
+    public VPTree(Dataset<T> dataset, Distance dm) {
+        this.dataset = dataset;
+        this.dm = dm;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void setDataset(Dataset<T> dataset) {
+        super.setDataset(dataset);
+        index = null;
+    }
+
+    @Override
+    public void setDistanceMeasure(Distance dm) {
+        super.setDistanceMeasure(dm);
+        index = null;
+    }
+
+    /**
+     * Pool used for building large trees, by default {@link ProximityMatrixBuilder#getPool()}
+     *
+     * @param pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    private synchronized void ensureBuilt() {
+        if (dataset == null) {
+            throw new RuntimeException("dataset not set");
+        }
+        if (index != null) {
+            return;
+        }
+        int n = dataset.size();
+        int[] idx = new int[n];
+        for (int i = 0; i < n; i++) {
+            idx[i] = i;
+        }
+        mu = new double[n];
+        metric = Metrics.isMetric(dm);
+        if (metric) {
+            double[] dist = new double[n];
+            BuildTask task = new BuildTask(idx, dist, 0, n);
+            if (n > PARALLEL_THRESHOLD) {
+                if (pool == null) {
+                    pool = ProximityMatrixBuilder.getPool();
+                }
+                pool.invoke(task);
+            } else {
+                task.compute();
+            }
+        }
+        index = idx;
+    }
+
+    /**
+     * Builds subtree over range [lo, hi) of the index
+     */
+    private class BuildTask extends RecursiveAction {
+
+        private static final long serialVersionUID = -4683216707413069722L;
+        private final int[] idx;
+        private final double[] dist;
+        private final int lo;
+        private final int hi;
+
+        BuildTask(int[] idx, double[] dist, int lo, int hi) {
+            this.idx = idx;
+            this.dist = dist;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= LEAF_SIZE) {
+                return;
+            }
+            //middle element as vantage point (avoids worst case on sorted data)
+            swap(idx, dist, lo, (lo + hi) >>> 1);
+            Instance vp = dataset.get(idx[lo]);
+            for (int i = lo + 1; i < hi; i++) {
+                dist[i] = dm.measure(vp, dataset.get(idx[i]));
+            }
+            int mid = (lo + 1 + hi) >>> 1;
+            select(idx, dist, lo + 1, hi - 1, mid);
+            mu[lo] = dist[mid];
+            BuildTask inner = new BuildTask(idx, dist, lo + 1, mid);
+            BuildTask outer = new BuildTask(idx, dist, mid, hi);
+            if (hi - lo > PARALLEL_THRESHOLD && inForkJoinPool()) {
+                invokeAll(inner, outer);
+            } else {
+                inner.compute();
+                outer.compute();
+            }
+        }
+    }
+
+    /**
+     * Partially sorts range [left, right] by distance so that k-th element is
+     * at its final position (quickselect)
+     */
+    private static void select(int[] idx, double[] dist, int left, int right, int k) {
+        //Wirth's selection, handles many equal distances well
+        int i, j;
+        double x;
+        while (left < right) {
+            x = dist[k];
+            i = left;
+            j = right;
+            do {
+                while (dist[i] < x) {
+                    i++;
+                }
+                while (x < dist[j]) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(idx, dist, i++, j--);
+                }
+            } while (i <= j);
+            if (j < k) {
+                left = i;
+            }
+            if (k < i) {
+                right = j;
+            }
+        }
+    }
+
+    private static void swap(int[] idx, double[] dist, int i, int j) {
+        int t = idx[i];
+        idx[i] = idx[j];
+        idx[j] = t;
+        double d = dist[i];
+        dist[i] = dist[j];
+        dist[j] = d;
+    }
+
+    private boolean excluded(T q, int i) {
+        return identicalExcluded && q.getIndex() == dataset.get(i).getIndex();
+    }
+
+    @Override
+    public void range(T q, double radius, List<Neighbor<T>> neighbors) {
+        if (radius <= 0.0) {
+            throw new IllegalArgumentException("Invalid radius: " + radius);
+        }
+        ensureBuilt();
+        if (metric) {
+            range(q, radius, neighbors, 0, index.length);
+        } else {
+            scan(q, radius, neighbors, 0, index.length);
+        }
+    }
+
+    private void range(T q, double radius, List<Neighbor<T>> neighbors, int lo, int hi) {
+        if (hi - lo <= LEAF_SIZE) {
+            scan(q, radius, neighbors, lo, hi);
+            return;
+        }
+        int vp = index[lo];
+        double d = dm.measure(q, dataset.get(vp));
+        if (d <= radius && !excluded(q, vp)) {
+            neighbors.add(new Neighbor<>((T) dataset.get(vp), vp, d));
+        }
+        int mid = (lo + 1 + hi) >>> 1;
+        if (d - radius <= mu[lo]) {
+            range(q, radius, neighbors, lo + 1, mid);
+        }
+        if (d + radius >= mu[lo]) {
+            range(q, radius, neighbors, mid, hi);
+        }
+    }
+
+    private void scan(T q, double radius, List<Neighbor<T>> neighbors, int lo, int hi) {
+        double d;
+        for (int i = lo; i < hi; i++) {
+            int j = index[i];
+            if (excluded(q, j)) {
+                continue;
+            }
+            d = dm.measure(q, dataset.get(j));
+            if (d <= radius) {
+                neighbors.add(new Neighbor<>((T) dataset.get(j), j, d));
+            }
+        }
+    }
+
+    @Override
+    public Neighbor[] knn(T q, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("Invalid k: " + k);
+        }
+        if (k > dataset.size()) {
+            throw new IllegalArgumentException("Neighbor array length is larger than the dataset size");
+        }
+        ensureBuilt();
+        KBest best = new KBest(k);
+        if (metric) {
+            knn(q, best, 0, index.length);
+        } else {
+            scan(q, best, 0, index.length);
+        }
+        Neighbor<T>[] res = new Neighbor[k];
+        for (int i = 0; i < k; i++) {
+            if (i < best.size) {
+                res[i] = new Neighbor<>((T) dataset.get(best.idx[i]), best.idx[i], best.dist[i]);
+            } else {
+                res[i] = new Neighbor<>(null, 0, Double.MAX_VALUE);
+            }
+        }
+        return res;
+    }
+
+    private void knn(T q, KBest best, int lo, int hi) {
+        if (hi - lo <= LEAF_SIZE) {
+            scan(q, best, lo, hi);
+            return;
+        }
+        int vp = index[lo];
+        double d = dm.measure(q, dataset.get(vp));
+        if (!excluded(q, vp)) {
+            best.offer(vp, d);
+        }
+        int mid = (lo + 1 + hi) >>> 1;
+        //search more promising branch first, radius shrinks meanwhile
+        if (d < mu[lo]) {
+            knn(q, best, lo + 1, mid);
+            if (d + best.radius() >= mu[lo]) {
+                knn(q, best, mid, hi);
+            }
+        } else {
+            knn(q, best, mid, hi);
+            if (d - best.radius() <= mu[lo]) {
+                knn(q, best, lo + 1, mid);
+            }
+        }
+    }
+
+    private void scan(T q, KBest best, int lo, int hi) {
+        for (int i = lo; i < hi; i++) {
+            int j = index[i];
+            if (!excluded(q, j)) {
+                best.offer(j, dm.measure(q, dataset.get(j)));
+            }
+        }
+    }
+
+    @Override
+    public Neighbor[] knn(T q, int k, Props params) {
+        String dmProvider = params.get(AbstractClusteringAlgorithm.DISTANCE, "Euclidean");
+        Distance dist = DistanceFactory.getInstance().getProvider(dmProvider);
+        if (dist != dm) {
+            setDistanceMeasure(dist);
+        }
+        return knn(q, k);
+    }
+
+    @Override
+    public Neighbor<T> nearest(T q) {
+        return knn(q, 1)[0];
+    }
+
+    /**
+     * k smallest distances found so far, sorted in ascending order
+     */
+    private static class KBest {
+
+        private final int[] idx;
+        private final double[] dist;
+        private int size = 0;
+
+        KBest(int k) {
+            idx = new int[k];
+            dist = new double[k];
+        }
+
+        double radius() {
+            return size < idx.length ? Double.POSITIVE_INFINITY : dist[size - 1];
+        }
+
+        void offer(int i, double d) {
+            if (size == idx.length) {
+                if (d >= dist[size - 1]) {
+                    return;
+                }
+                size--;
+            }
+            int pos = size++;
+            while (pos > 0 && dist[pos - 1] > d) {
+                dist[pos] = dist[pos - 1];
+                idx[pos] = idx[pos - 1];
+                pos--;
+            }
+            dist[pos] = d;
+            idx[pos] = i;
+        }
+    }
+}
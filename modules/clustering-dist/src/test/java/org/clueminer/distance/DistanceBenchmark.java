@@ -0,0 +1,80 @@
+package org.clueminer.distance;
+
+import java.util.Random;
+import org.clueminer.distance.api.Distance;
+import org.clueminer.math.Matrix;
+import org.clueminer.math.Vector;
+import org.clueminer.math.matrix.JMatrix;
+import org.clueminer.math.matrix.MatrixRowVector;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Compares speed of distance computation via generic {@link Vector} interface
+ * (values are accessed by virtual calls) and via primitive kernel (values are
+ * read directly from backing arrays).
+ *
+ * @author deric
+ */
+public class DistanceBenchmark {
+
+    private static final int n = 300;
+    private static final int dim = 64;
+    private static final int repeat = 5;
+
+    private double all(Distance dm, Vector[] rows) {
+        double sum = 0;
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = i + 1; j < rows.length; j++) {
+                sum += dm.measure(rows[i], rows[j]);
+            }
+        }
+        return sum;
+    }
+
+    private long time(Distance dm, Vector[] rows, double[] res) {
+        long best = Long.MAX_VALUE;
+        long start;
+        for (int r = 0; r < repeat; r++) {
+            start = System.nanoTime();
+            res[0] = all(dm, rows);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    @Test
+    public void benchmark() {
+        Random rand = new Random(42);
+        Matrix m = new JMatrix(n, dim);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < dim; j++) {
+                m.set(i, j, rand.nextGaussian());
+            }
+        }
+        Vector[] generic = new Vector[n];
+        Vector[] backed = new Vector[n];
+        for (int i = 0; i < n; i++) {
+            generic[i] = new MatrixRowVector(m, i);
+            backed[i] = m.getRowVector(i);
+        }
+        Distance[] distances = new Distance[]{
+            new EuclideanDistance(), new ManhattanDistance(), new CosineDistance(),
+            new PearsonDistance(), new MinkowskiDistance(3)
+        };
+        double[] a = new double[1];
+        double[] b = new double[1];
+        long tg, tb;
+        for (Distance dm : distances) {
+            //warm up
+            time(dm, generic, a);
+            time(dm, backed, b);
+
+            tg = time(dm, generic, a);
+            tb = time(dm, backed, b);
+            assertEquals(a[0], b[0], 1e-6 * Math.abs(a[0]));
+            System.out.println(String.format("%-25s vector: %8.2f ms, array: %8.2f ms, speedup: %.2fx",
+                    dm.getName(), tg / 1e6, tb / 1e6, tg / (double) tb));
+        }
+    }
+}
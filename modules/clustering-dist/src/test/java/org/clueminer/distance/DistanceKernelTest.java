@@ -0,0 +1,90 @@
+package org.clueminer.distance;
+
+import java.util.Random;
+import org.clueminer.distance.api.Distance;
+import org.clueminer.math.Matrix;
+import org.clueminer.math.Vector;
+import org.clueminer.math.matrix.JMatrix;
+import org.clueminer.math.matrix.MatrixRowVector;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Primitive kernels must return same results as generic (Vector based)
+ * implementation.
+ *
+ * @author deric
+ */
+public class DistanceKernelTest {
+
+    private static final double delta = 1e-9;
+
+    private Distance[] distances() {
+        return new Distance[]{
+            new EuclideanDistance(), new ManhattanDistance(), new MinkowskiDistance(3),
+            new CosineDistance(), new CorrelationDistance(), new CovarianceDistance(),
+            new PearsonDistance(), new PearsonUncenteredDistance(), new KendalsDistance(),
+            new CanberraDistance(), new BrayCurtisDistance(), new SupremumDistance(),
+            new HammingDistance()
+        };
+    }
+
+    private Matrix randomMatrix(int n, int dim, long seed) {
+        Random rand = new Random(seed);
+        Matrix m = new JMatrix(n, dim);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < dim; j++) {
+                m.set(i, j, rand.nextDouble() * 10 - 2);
+            }
+        }
+        return m;
+    }
+
+    @Test
+    public void testArrayBackedRows() {
+        Matrix m = randomMatrix(6, 9, 42);
+        Vector<Double> x, y, gx, gy;
+        Matrix g;
+        for (Distance dm : distances()) {
+            for (int i = 0; i < m.rowsCount(); i++) {
+                for (int j = 0; j < m.rowsCount(); j++) {
+                    //JMatrix rows are backed by arrays
+                    x = m.getRowVector(i);
+                    y = m.getRowVector(j);
+                    //generic proxy (some distances modify proxied matrix)
+                    g = m.copy();
+                    gx = new MatrixRowVector(g, i);
+                    gy = new MatrixRowVector(g, j);
+                    assertEquals(dm.getName(), dm.measure(gx, gy), dm.measure(x, y), delta);
+                    assertEquals(dm.getName(), dm.measure(gx, gy), dm.measure(m.getRowVector(i).toArray(), m.getRowVector(j).toArray()), delta);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOffset() {
+        int dim = 5;
+        Matrix m = randomMatrix(2, dim, 7);
+        //both vectors in single flat array
+        double[] flat = new double[2 * dim + 3];
+        for (int j = 0; j < dim; j++) {
+            flat[1 + j] = m.get(0, j);
+            flat[3 + dim + j] = m.get(1, j);
+        }
+        for (Distance dm : distances()) {
+            Matrix g = m.copy();
+            assertEquals(dm.getName(), dm.measure(new MatrixRowVector(g, 0), new MatrixRowVector(g, 1)),
+                    dm.measure(flat, 1, flat, 3 + dim, dim), delta);
+        }
+    }
+
+    @Test
+    public void testEuclideanSqDist() {
+        Matrix m = randomMatrix(2, 4, 3);
+        EuclideanDistance dm = new EuclideanDistance();
+        double sq = dm.sqdist(m.getRowVector(0), m.getRowVector(1));
+        assertEquals(dm.sqdist(new MatrixRowVector(m, 0), new MatrixRowVector(m, 1)), sq, delta);
+        assertEquals(dm.measure(m.getRowVector(0), m.getRowVector(1)), Math.sqrt(sq), delta);
+    }
+}
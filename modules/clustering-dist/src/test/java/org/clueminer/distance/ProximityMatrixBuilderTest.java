@@ -0,0 +1,188 @@
+package org.clueminer.distance;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.clueminer.attributes.BasicAttrType;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import org.clueminer.math.Matrix;
+import org.clueminer.math.Vector;
+import org.clueminer.math.matrix.JMatrix;
+import org.clueminer.math.matrix.SymmetricMatrix;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class ProximityMatrixBuilderTest {
+
+    private static final double delta = 1e-9;
+
+    private static final ProximityMatrixBuilder.PairFactory<double[]> PAIRS = new ProximityMatrixBuilder.PairFactory<double[]>() {
+
+        @Override
+        public double[] create(double value, int row, int column) {
+            return new double[]{value, row, column};
+        }
+    };
+
+    private static final Comparator<double[]> BY_PAIR = new Comparator<double[]>() {
+
+        @Override
+        public int compare(double[] a, double[] b) {
+            for (int i = 0; i < a.length; i++) {
+                int c = Double.compare(a[i], b[i]);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return 0;
+        }
+    };
+
+    /**
+     * Non-symmetric "distance" for testing purposes
+     */
+    private static class DirectedDistance extends EuclideanDistance {
+
+        private static final long serialVersionUID = -2711408458126339432L;
+
+        @Override
+        public double measure(Vector<Double> x, Vector<Double> y) {
+            double sum = 0;
+            for (int i = 0; i < x.size(); i++) {
+                sum += y.get(i) - x.get(i);
+            }
+            return sum;
+        }
+
+        @Override
+        public boolean isSymmetric() {
+            return false;
+        }
+    }
+
+    private Dataset<? extends Instance> randomData(int n, int d) {
+        Random rand = new Random(42);
+        Dataset<Instance> data = new ArrayDataset<>(n, d);
+        for (int j = 0; j < d; j++) {
+            data.attributeBuilder().create("attr" + j, BasicAttrType.NUMERIC);
+        }
+        double[] values;
+        for (int i = 0; i < n; i++) {
+            values = new double[d];
+            for (int j = 0; j < d; j++) {
+                values[j] = rand.nextDouble();
+            }
+            data.builder().create(values, "c");
+        }
+        return data;
+    }
+
+    @Test
+    public void testRows() {
+        Dataset<? extends Instance> data = randomData(53, 4);
+        EuclideanDistance dm = new EuclideanDistance();
+        ProximityMatrixBuilder subject = new ProximityMatrixBuilder(dm);
+        //force multiple tiles
+        subject.setBlockSize(8);
+        Matrix input = data.asMatrix();
+        List<double[]> queue = new ArrayList<>();
+        Matrix res = subject.rows(input, queue, PAIRS);
+        assertTrue(res instanceof SymmetricMatrix);
+        for (int i = 0; i < data.size(); i++) {
+            for (int j = i + 1; j < data.size(); j++) {
+                assertEquals(dm.measure(input.getRowVector(i), input.getRowVector(j)), res.get(i, j), delta);
+            }
+        }
+        assertEquals((53 * 52) / 2, queue.size());
+        for (double[] pair : queue) {
+            assertTrue(pair[1] < pair[2]);
+            assertEquals(res.get((int) pair[1], (int) pair[2]), pair[0], delta);
+        }
+    }
+
+    @Test
+    public void testRowsTriangle() {
+        Dataset<? extends Instance> data = randomData(40, 3);
+        EuclideanDistance dm = new EuclideanDistance();
+        ProximityMatrixBuilder subject = new ProximityMatrixBuilder(dm);
+        subject.setBlockSize(7);
+        Matrix input = data.asMatrix();
+        double[] tri = subject.rowsTriangle(input);
+        assertEquals((40 * 39) / 2, tri.length);
+        int k = 0;
+        for (int j = 1; j < data.size(); j++) {
+            for (int i = 0; i < j; i++) {
+                assertEquals(dm.measure(input.getRowVector(i), input.getRowVector(j)), tri[k++], delta);
+            }
+        }
+    }
+
+    @Test
+    public void testColumns() {
+        Dataset<? extends Instance> data = randomData(20, 12);
+        EuclideanDistance dm = new EuclideanDistance();
+        ProximityMatrixBuilder subject = new ProximityMatrixBuilder(dm);
+        subject.setBlockSize(5);
+        Matrix input = data.asMatrix();
+        Matrix res = subject.columns(input);
+        assertEquals(12, res.rowsCount());
+        for (int i = 0; i < 12; i++) {
+            for (int j = i + 1; j < 12; j++) {
+                assertEquals(dm.measure(input.getColumnVector(i), input.getColumnVector(j)), res.get(i, j), delta);
+            }
+        }
+    }
+
+    @Test
+    public void testAsymmetric() {
+        Dataset<? extends Instance> data = randomData(30, 3);
+        DirectedDistance dm = new DirectedDistance();
+        ProximityMatrixBuilder subject = new ProximityMatrixBuilder(dm);
+        subject.setBlockSize(8);
+        List<double[]> queue = new ArrayList<>();
+        Matrix res = subject.instances(data, queue, PAIRS);
+        assertTrue(res instanceof JMatrix);
+        for (int i = 0; i < data.size(); i++) {
+            for (int j = 0; j < data.size(); j++) {
+                if (i != j) {
+                    assertEquals(dm.measure(data.get(i), data.get(j)), res.get(i, j), delta);
+                }
+            }
+        }
+        assertEquals(30 * 29, queue.size());
+    }
+
+    @Test
+    public void testStreamedQueue() {
+        Dataset<? extends Instance> data = randomData(35, 2);
+        EuclideanDistance dm = new EuclideanDistance();
+        ProximityMatrixBuilder subject = new ProximityMatrixBuilder(dm, new ForkJoinPool(4));
+        subject.setBlockSize(4);
+        //insertion order depends on scheduling, content must be the same
+        PriorityQueue<double[]> q1 = new PriorityQueue<>(11, BY_PAIR);
+        PriorityQueue<double[]> q2 = new PriorityQueue<>(11, BY_PAIR);
+        subject.instances(data, q1, PAIRS);
+        subject.instances(data, q2, PAIRS);
+        assertEquals(35 * 34 / 2, q1.size());
+        assertEquals(q1.size(), q2.size());
+        double[] prev = null, curr;
+        while (!q1.isEmpty()) {
+            curr = q1.poll();
+            assertArrayEquals(curr, q2.poll(), delta);
+            if (prev != null) {
+                assertTrue(BY_PAIR.compare(prev, curr) < 0);
+            }
+            prev = curr;
+        }
+    }
+
+}
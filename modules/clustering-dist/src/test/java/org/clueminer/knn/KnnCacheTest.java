@@ -0,0 +1,111 @@
+package org.clueminer.knn;
+
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import org.clueminer.distance.EuclideanDistance;
+import org.clueminer.distance.ManhattanDistance;
+import org.clueminer.neighbor.Neighbor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class KnnCacheTest {
+
+    private static final double delta = 1e-9;
+
+    private Dataset<Instance> dataset() {
+        Dataset<Instance> d = new ArrayDataset<>(new double[][]{
+            {0, 0}, {1, 1}, {2, 0}, {3, 3}, {5, 5}
+        });
+        return d;
+    }
+
+    private Neighbor[] search(Dataset<Instance> d, int q, int k, boolean manhattan) {
+        CachingKNN<Instance> knn = new CachingKNN<>(manhattan ? new ManhattanDistance() : EuclideanDistance.getInstance());
+        knn.setDataset(d);
+        return knn.knn(d.get(q), k);
+    }
+
+    @Test
+    public void testPrefix() {
+        KnnCache cache = new KnnCache(100);
+        Dataset<Instance> d = dataset();
+        EuclideanDistance dm = EuclideanDistance.getInstance();
+        Neighbor[] nn = search(d, 0, 3, false);
+        cache.put(d, dm, true, 0, nn);
+
+        Neighbor<Instance>[] res = cache.get(d, dm, true, 0, 2);
+        assertEquals(2, res.length);
+        for (int i = 0; i < res.length; i++) {
+            assertSame(d.get(nn[i].index), res[i].key);
+            assertEquals(nn[i].distance, res[i].distance, delta);
+        }
+        //not enough neighbors stored
+        assertNull(cache.get(d, dm, true, 0, 4));
+        //different keys
+        assertNull(cache.get(d, dm, false, 0, 2));
+        assertNull(cache.get(d, new ManhattanDistance(), true, 0, 2));
+        assertNull(cache.get(dataset(), dm, true, 0, 2));
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(4, cache.stats().missCount());
+    }
+
+    @Test
+    public void testDistanceKey() {
+        Dataset<Instance> d = dataset();
+        //Euclidean: (2,0) is closer to (1,1) than (3,3); same for Manhattan but
+        //distances differ
+        Neighbor[] e = search(d, 1, 1, false);
+        Neighbor[] m = search(d, 1, 1, true);
+        assertEquals(Math.sqrt(2), e[0].distance, delta);
+        assertEquals(2.0, m[0].distance, delta);
+    }
+
+    @Test
+    public void testEviction() {
+        KnnCache cache = new KnnCache(4);
+        Dataset<Instance> d = dataset();
+        EuclideanDistance dm = EuclideanDistance.getInstance();
+        for (int i = 0; i < d.size(); i++) {
+            cache.put(d, dm, true, i, search(d, i, 2, false));
+        }
+        assertTrue(cache.size() <= 2);
+        assertTrue(cache.stats().evictionCount() >= 3);
+        //most recent entry is kept
+        assertNotNull(cache.get(d, dm, true, d.size() - 1, 2));
+    }
+
+    @Test
+    public void testInvalidate() {
+        KnnCache cache = new KnnCache(100);
+        Dataset<Instance> d = dataset();
+        EuclideanDistance dm = EuclideanDistance.getInstance();
+        cache.put(d, dm, true, 0, search(d, 0, 2, false));
+        cache.put(d, dm, true, 1, search(d, 1, 2, false));
+        assertEquals(2, cache.size());
+        cache.invalidate(d);
+        assertEquals(0, cache.size());
+        assertNull(cache.get(d, dm, true, 0, 2));
+    }
+
+    @Test
+    public void testMissingNeighbors() {
+        KnnCache cache = new KnnCache(100);
+        Dataset<Instance> d = dataset();
+        EuclideanDistance dm = EuclideanDistance.getInstance();
+        //dataset is smaller than k
+        Neighbor[] nn = search(d, 0, 6, false);
+        cache.put(d, dm, true, 0, nn);
+        Neighbor<Instance>[] res = cache.get(d, dm, true, 0, 6);
+        assertNull(res[5].key);
+        assertNotNull(res[0].key);
+    }
+}
@@ -0,0 +1,131 @@
+package org.clueminer.knn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import org.clueminer.distance.CosineDistance;
+import org.clueminer.distance.EuclideanDistance;
+import org.clueminer.distance.ManhattanDistance;
+import org.clueminer.distance.api.Distance;
+import org.clueminer.neighbor.Neighbor;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class VPTreeTest {
+
+    private static final double delta = 1e-9;
+
+    private Dataset<Instance> randomData(int n, int d, long seed) {
+        Random rand = new Random(seed);
+        double[][] data = new double[n][d];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < d; j++) {
+                //rounded values produce many equal distances
+                data[i][j] = Math.round(rand.nextGaussian() * 20) / 2.0;
+            }
+        }
+        return new ArrayDataset<>(data);
+    }
+
+    private void sortByIndex(List<Neighbor<Instance>> list) {
+        Collections.sort(list, new Comparator<Neighbor<Instance>>() {
+
+            @Override
+            public int compare(Neighbor<Instance> o1, Neighbor<Instance> o2) {
+                return Integer.compare(o1.index, o2.index);
+            }
+        });
+    }
+
+    private void checkRange(Dataset<Instance> data, Distance dm, double radius) {
+        VPTree<Instance> tree = new VPTree<>(data, dm);
+        LinearRNN<Instance> linear = new LinearRNN<>(data);
+        linear.setDistanceMeasure(dm);
+        for (int i = 0; i < data.size(); i += 7) {
+            List<Neighbor<Instance>> expected = new ArrayList<>();
+            List<Neighbor<Instance>> actual = new ArrayList<>();
+            linear.range(data.get(i), radius, expected);
+            tree.range(data.get(i), radius, actual);
+            assertEquals(expected.size(), actual.size());
+            sortByIndex(actual);
+            for (int j = 0; j < expected.size(); j++) {
+                assertEquals(expected.get(j).index, actual.get(j).index);
+                assertEquals(expected.get(j).distance, actual.get(j).distance, delta);
+            }
+        }
+    }
+
+    private void checkKnn(Dataset<Instance> data, Distance dm, int k) {
+        VPTree<Instance> tree = new VPTree<>(data, dm);
+        LinearSearch<Instance> linear = new LinearSearch<>(data);
+        linear.setDistanceMeasure(dm);
+        for (int i = 0; i < data.size(); i += 7) {
+            Neighbor[] expected = linear.knn(data.get(i), k);
+            Neighbor[] actual = tree.knn(data.get(i), k);
+            assertEquals(k, actual.length);
+            for (int j = 0; j < k; j++) {
+                //indexes might differ for equal distances
+                assertEquals(expected[j].distance, actual[j].distance, delta);
+            }
+        }
+    }
+
+    @Test
+    public void testRangeEuclidean() {
+        checkRange(randomData(500, 2, 42), EuclideanDistance.getInstance(), 3.0);
+    }
+
+    @Test
+    public void testRangeManhattan() {
+        checkRange(randomData(500, 5, 7), new ManhattanDistance(), 20.0);
+    }
+
+    @Test
+    public void testKnn() {
+        Dataset<Instance> data = randomData(400, 3, 11);
+        checkKnn(data, EuclideanDistance.getInstance(), 1);
+        checkKnn(data, EuclideanDistance.getInstance(), 10);
+        checkKnn(data, new ManhattanDistance(), 5);
+    }
+
+    @Test
+    public void testNonMetric() {
+        Dataset<Instance> data = randomData(400, 3, 5);
+        //avoid zero vectors
+        for (Instance inst : data) {
+            inst.set(0, inst.get(0) + 0.25);
+        }
+        CosineDistance cos = new CosineDistance();
+        checkKnn(data, cos, 10);
+        checkRange(data, cos, 0.05);
+        EuclideanDistance squared = new EuclideanDistance();
+        squared.setSqrt(false);
+        checkKnn(data, squared, 10);
+        checkRange(data, squared, 25.0);
+    }
+
+    @Test
+    public void testParallelBuild() {
+        //large enough to build subtrees in parallel
+        Dataset<Instance> data = randomData(10000, 2, 3);
+        checkRange(data, EuclideanDistance.getInstance(), 1.5);
+    }
+
+    @Test
+    public void testNearest() {
+        Dataset<Instance> data = new ArrayDataset<>(new double[][]{{0, 0}, {1, 1}, {5, 5}});
+        VPTree<Instance> tree = new VPTree<>(data);
+        Neighbor<Instance> nn = tree.nearest(data.get(0));
+        assertEquals(1, nn.index);
+        assertEquals(Math.sqrt(2), nn.distance, delta);
+    }
+}
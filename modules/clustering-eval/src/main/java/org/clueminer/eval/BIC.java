@@ -1,7 +1,10 @@
 package org.clueminer.eval;
 
 import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.ClusterTerm;
 import org.clueminer.clustering.api.Clustering;
+import org.clueminer.clustering.api.CutStatistics;
+import org.clueminer.clustering.api.IncrementalEvaluator;
 import org.clueminer.clustering.api.InternalEvaluator;
 import org.clueminer.dataset.api.Instance;
 import org.clueminer.eval.utils.LogLikelihoodFunction;
@@ -19,7 +22,8 @@ import org.openide.util.lookup.ServiceProvider;
  * @param <C>
  */
 @ServiceProvider(service = InternalEvaluator.class)
-public class BIC<E extends Instance, C extends Cluster<E>> extends AbstractEvaluator<E, C> {
+public class BIC<E extends Instance, C extends Cluster<E>> extends AbstractEvaluator<E, C>
+        implements IncrementalEvaluator<E, C> {
 
     private static final String NAME = "BIC";
     private static final long serialVersionUID = -8771446315217152042L;
@@ -48,6 +52,42 @@ public class BIC<E extends Instance, C extends Cluster<E>> extends AbstractEvalu
         return bic;
     }
 
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
+    @Override
+    public ClusterTerm clusterTerm(Props params) {
+        final LogLikelihoodFunction f = new LogLikelihoodFunction();
+        f.setAlpha0(params.getDouble("likelihood.alpha", 0.1));
+        f.setBeta0(params.getDouble("likelihood.beta", 0.1));
+        f.setLambda0(params.getDouble("likelihood.lambda", 0.1));
+        f.setMu0(params.getDouble("likelihood.mu", 0.0));
+        return new ClusterTerm() {
+
+            @Override
+            public double value(int size, double[] sum, double sqSum) {
+                //same as LogLikelihoodFunction.logLikelihoodC
+                double s = 0.0;
+                for (double v : sum) {
+                    s += v;
+                }
+                double l = f.logLikelihoodFunction(sum.length * size, s, sqSum);
+                if (Double.isInfinite(l)) {
+                    l = 0;
+                }
+                return sum.length * l;
+            }
+        };
+    }
+
+    @Override
+    public double score(CutStatistics stats, Props params) {
+        double k = 1;
+        return -2 * stats.term() + Math.log10(stats.numInstances()) * k;
+    }
+
     @Override
     public boolean isBetter(double score1, double score2) {
         // should be minimzed.
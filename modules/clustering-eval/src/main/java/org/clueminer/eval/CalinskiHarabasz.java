@@ -2,6 +2,9 @@ package org.clueminer.eval;
 
 import org.apache.commons.math3.util.FastMath;
 import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.ClusterTerm;
+import org.clueminer.clustering.api.CutStatistics;
+import org.clueminer.clustering.api.IncrementalEvaluator;
 import org.clueminer.clustering.api.Clustering;
 import org.clueminer.clustering.api.InternalEvaluator;
 import org.clueminer.dataset.api.Instance;
@@ -32,7 +35,8 @@ import org.openide.util.lookup.ServiceProvider;
  * @author Tomas Barton
  */
 @ServiceProvider(service = InternalEvaluator.class)
-public class CalinskiHarabasz<E extends Instance, C extends Cluster<E>> extends AbstractEvaluator<E, C> {
+public class CalinskiHarabasz<E extends Instance, C extends Cluster<E>> extends AbstractEvaluator<E, C>
+        implements IncrementalEvaluator<E, C> {
 
     private static final long serialVersionUID = -2699019526373205522L;
     private static final String name = "Calinski-Harabasz";
@@ -77,6 +81,50 @@ public class CalinskiHarabasz<E extends Instance, C extends Cluster<E>> extends
         }
     }
 
+    @Override
+    public boolean isIncremental() {
+        //incremental formulas assume (non-squared) Euclidean distance
+        return dm instanceof EuclideanDistance && ((EuclideanDistance) dm).isSqrt();
+    }
+
+    @Override
+    public ClusterTerm clusterTerm(Props params) {
+        return null;
+    }
+
+    @Override
+    public double score(CutStatistics stats, Props params) {
+        int k = stats.numClusters();
+        if (k > 1) {
+            double denom = stats.sse() / (stats.numInstances() - k);
+            if (denom == 0.0) {
+                return 0.0;
+            }
+            return (betweenSS(stats) / (k - 1)) / denom;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Between-group sum of squares, sum of n_i * ||g - c_i||^2
+     *
+     * @param stats
+     * @return
+     */
+    protected double betweenSS(CutStatistics stats) {
+        int k = stats.numClusters();
+        //centroid of all data is an average of clusters' centroids
+        double[] g = stats.centroidSum();
+        double[] t = stats.totalSum();
+        double gg = 0.0, gt = 0.0, c;
+        for (int j = 0; j < g.length; j++) {
+            c = g[j] / k;
+            gg += c * c;
+            gt += c * t[j];
+        }
+        return stats.weightedCentroidNorm() - 2 * gt + stats.numInstances() * gg;
+    }
+
     /**
      * Should be maximized
      *
@@ -19,6 +19,7 @@ package org.clueminer.eval;
 import org.apache.commons.math3.util.FastMath;
 import org.clueminer.clustering.api.Cluster;
 import org.clueminer.clustering.api.Clustering;
+import org.clueminer.clustering.api.CutStatistics;
 import org.clueminer.clustering.api.InternalEvaluator;
 import org.clueminer.dataset.api.Instance;
 import org.clueminer.distance.EuclideanDistance;
@@ -79,4 +80,16 @@ public class LogSSRatio<E extends Instance, C extends Cluster<E>> extends Calins
         }
     }
 
+    @Override
+    public double score(CutStatistics stats, Props params) {
+        if (stats.numClusters() > 1) {
+            double w = stats.sse();
+            if (w == 0.0) {
+                return 0.0;
+            }
+            return Math.log(betweenSS(stats) / w);
+        }
+        return Double.NaN;
+    }
+
 }
@@ -0,0 +1,454 @@
+package org.clueminer.eval;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.clueminer.clustering.api.AgglParams;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.Clustering;
+import org.clueminer.clustering.api.HierarchicalResult;
+import org.clueminer.clustering.api.InternalEvaluator;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.distance.EuclideanDistance;
+import org.clueminer.distance.ProximityMatrixBuilder;
+import org.clueminer.distance.api.Distance;
+import org.clueminer.distance.api.DistanceFactory;
+import org.clueminer.math.Matrix;
+import org.clueminer.utils.Props;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Silhouette score computed in parallel. Results are equal to
+ * {@link Silhouette} (with the same distance function) up to floating-point
+ * rounding, but:
+ * <ul>
+ * <li>instances are evaluated by tasks of a fork-join pool</li>
+ * <li>proximity matrix is reused when provided or when clustering comes from
+ * a {@link HierarchicalResult} which keeps proximity matrix computed with the
+ * same distance</li>
+ * <li>summing distances to a neighboring cluster is abandoned as soon as the
+ * cluster can't be the nearest one (for non-negative distances)</li>
+ * </ul>
+ *
+ * For very large clusterings the score might be estimated from a stratified
+ * random sample of instances (see {@link #SAMPLE_SIZE}), the estimate comes
+ * with 95% confidence interval, see {@link #estimate(Clustering, Props)}.
+ *
+ * @author Tomas Barton
+ * @param <E>
+ * @param <C>
+ */
+@ServiceProvider(service = InternalEvaluator.class)
+public class SilhouetteParallel<E extends Instance, C extends Cluster<E>> extends Silhouette<E, C> {
+
+    private static final long serialVersionUID = 4420131569416617232L;
+    private static final String name = "Silhouette-parallel";
+    /**
+     * number of sampled instances, exact score is computed when not set (or
+     * when clustering is not larger than the sample)
+     */
+    public static final String SAMPLE_SIZE = "silhouette_sample";
+    /**
+     * seed of random generator used for sampling, when not set a random seed
+     * is stored into params (sampled score could be reproduced)
+     */
+    public static final String SEED = "seed";
+    /**
+     * 97.5% quantile of standard normal distribution
+     */
+    private static final double Z = 1.959963984540054;
+    /**
+     * number of instances evaluated by a single task
+     */
+    private static final int CHUNK = 32;
+
+    private transient ForkJoinPool pool;
+
+    public SilhouetteParallel() {
+        super();
+    }
+
+    public SilhouetteParallel(Distance dist) {
+        super(dist);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Pool used for evaluation, by default
+     * {@link ProximityMatrixBuilder#getPool()}
+     *
+     * @param pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public double score(Clustering<E, C> clusters, Props params) {
+        return estimate(clusters, null, params).getScore();
+    }
+
+    /**
+     * Given proximity matrix has to be computed with the same distance
+     * function as this evaluator uses, rows are indexed by
+     * {@link Instance#getIndex()}.
+     *
+     * @param clusters
+     * @param proximity
+     * @param params
+     * @return
+     */
+    @Override
+    public double score(Clustering<E, C> clusters, Matrix proximity, Props params) {
+        return estimate(clusters, proximity, params).getScore();
+    }
+
+    /**
+     * Silhouette score with confidence interval (which has zero width when all
+     * instances were evaluated)
+     *
+     * @param clusters
+     * @param params
+     * @return
+     */
+    public Estimate estimate(Clustering<E, C> clusters, Props params) {
+        return estimate(clusters, null, params);
+    }
+
+    private Estimate estimate(Clustering<E, C> clusters, Matrix proximity, Props params) {
+        int k = clusters.size();
+        int n = clusters.instancesCount();
+        if (k == 1 || k >= n) {
+            return new Estimate(Double.NaN, 0.0, 0, n);
+        }
+        Context ctx = new Context(clusters);
+        if (proximity != null) {
+            ctx.proximity = proximity;
+        } else {
+            attachedProximity(clusters, ctx);
+        }
+        int sample = params.getInt(SAMPLE_SIZE, 0);
+        int[] eval;
+        if (sample > 0 && sample < n) {
+            if (!params.containsKey(SEED)) {
+                params.putLong(SEED, System.currentTimeMillis());
+            }
+            eval = ctx.sample(sample, new Random(params.getLong(SEED)));
+        } else {
+            eval = new int[n];
+            for (int i = 0; i < n; i++) {
+                eval[i] = i;
+            }
+        }
+        double[] s = new double[n];
+        EvalTask task = new EvalTask(ctx, eval, s, 0, eval.length);
+        if (eval.length > CHUNK) {
+            if (pool == null) {
+                pool = ProximityMatrixBuilder.getPool();
+            }
+            pool.invoke(task);
+        } else {
+            task.compute();
+        }
+        return ctx.aggregate(eval, s);
+    }
+
+    /**
+     * Finds out whether clustering comes from hierarchical result with
+     * proximity matrix computed by the same distance function
+     *
+     * @param clusters
+     * @param ctx
+     */
+    private void attachedProximity(Clustering<E, C> clusters, Context ctx) {
+        HierarchicalResult hres = clusters.getLookup().lookup(HierarchicalResult.class);
+        if (hres == null || hres.getProximityMatrix() == null || hres.getParams() == null) {
+            return;
+        }
+        Matrix m = hres.getProximityMatrix();
+        AgglParams ap = new AgglParams(hres.getParams());
+        if (!ap.clusterRows() || hres.getDataset() == null || m.rowsCount() != hres.getDataset().size()) {
+            return;
+        }
+        Distance hdm = DistanceFactory.getInstance().getProvider(
+                hres.getParams().get(AgglParams.DIST, AgglParams.DEFAULT_DISTANCE_FUNCTION));
+        if (hdm == null || hdm.getClass() != dm.getClass()) {
+            return;
+        }
+        if (dm instanceof EuclideanDistance) {
+            boolean sqrt = ((EuclideanDistance) dm).isSqrt();
+            boolean hsqrt = ((EuclideanDistance) hdm).isSqrt();
+            if (sqrt && !hsqrt) {
+                return;
+            }
+            ctx.square = hsqrt && !sqrt;
+        }
+        ctx.proximity = m;
+    }
+
+    /**
+     * Flattened clustering
+     */
+    private class Context {
+
+        private final int k;
+        private final Instance[] inst;
+        private final int[] index;
+        private final int[] label;
+        /**
+         * first position of each cluster (and total size at the end)
+         */
+        private final int[] start;
+        private final boolean abandon;
+        private Matrix proximity;
+        private boolean square = false;
+
+        Context(Clustering<E, C> clusters) {
+            k = clusters.size();
+            int n = clusters.instancesCount();
+            inst = new Instance[n];
+            index = new int[n];
+            label = new int[n];
+            start = new int[k + 1];
+            int p = 0;
+            for (int c = 0; c < k; c++) {
+                start[c] = p;
+                C clust = clusters.get(c);
+                for (int j = 0; j < clust.size(); j++) {
+                    inst[p] = clust.instance(j);
+                    index[p] = inst[p].getIndex();
+                    label[p++] = c;
+                }
+            }
+            start[k] = p;
+            //partial sums of non-negative distances never decrease
+            abandon = dm.getMinValue() >= 0.0;
+        }
+
+        int size(int c) {
+            return start[c + 1] - start[c];
+        }
+
+        double dist(int p, int q) {
+            if (proximity != null) {
+                double d = proximity.get(index[p], index[q]);
+                return square ? d * d : d;
+            }
+            return dm.measure(inst[p], inst[q]);
+        }
+
+        /**
+         * Stratified sample - each cluster is represented proportionally (at
+         * least 2 instances from each cluster, if possible)
+         *
+         * @param m
+         * @param rand
+         * @return sorted positions of sampled instances
+         */
+        int[] sample(int m, Random rand) {
+            int n = inst.length;
+            int[] res = new int[n];
+            int cnt = 0;
+            for (int c = 0; c < k; c++) {
+                int size = size(c);
+                int mc = Math.min(size, Math.max(2, (int) Math.round((double) m * size / n)));
+                int[] perm = new int[size];
+                for (int i = 0; i < size; i++) {
+                    perm[i] = start[c] + i;
+                }
+                //partial Fisher-Yates shuffle
+                for (int i = 0; i < mc; i++) {
+                    int j = i + rand.nextInt(size - i);
+                    int t = perm[i];
+                    perm[i] = perm[j];
+                    perm[j] = t;
+                }
+                java.util.Arrays.sort(perm, 0, mc);
+                System.arraycopy(perm, 0, res, cnt, mc);
+                cnt += mc;
+            }
+            return java.util.Arrays.copyOf(res, cnt);
+        }
+
+        /**
+         * Silhouette of instance at position p, see
+         * {@link Silhouette#instanceScore}
+         *
+         * @param p
+         * @param hint cluster which is probably nearest
+         * @return index of the nearest cluster
+         */
+        int instance(int p, int hint, double[] s) {
+            int c = label[p];
+            double a = 0.0;
+            if (size(c) > 1) {
+                for (int q = start[c]; q < start[c + 1]; q++) {
+                    if (q != p) {
+                        a += dist(p, q);
+                    }
+                }
+                a /= (size(c) - 1.0);
+            }
+            double b = Double.MAX_VALUE;
+            int nearest = hint;
+            if (hint >= 0 && hint != c) {
+                b = clusterDist(p, hint, b);
+            }
+            for (int o = 0; o < k; o++) {
+                if (o != c && o != hint) {
+                    double d = clusterDist(p, o, b);
+                    if (d < b) {
+                        b = d;
+                        nearest = o;
+                    }
+                }
+            }
+            double denom = Math.max(b, a);
+            if (denom == 0.0 || a == b) {
+                s[p] = 0.0;
+            } else {
+                s[p] = (b - a) / denom;
+            }
+            return nearest;
+        }
+
+        /**
+         * Average distance to cluster o, computation is abandoned when the
+         * result would be larger than current minimum
+         *
+         * @return average distance or infinity when abandoned
+         */
+        private double clusterDist(int p, int o, double min) {
+            double sum = 0.0;
+            //small slack, so that rounding can't change the result
+            double bound = abandon ? min * size(o) * (1.0 + 1e-9) : Double.POSITIVE_INFINITY;
+            for (int q = start[o]; q < start[o + 1]; q++) {
+                sum += dist(p, q);
+                if (sum > bound) {
+                    return Double.POSITIVE_INFINITY;
+                }
+            }
+            return sum / size(o);
+        }
+
+        /**
+         * Average of clusters' average silhouettes
+         */
+        Estimate aggregate(int[] eval, double[] s) {
+            double[] sum = new double[k];
+            double[] sqSum = new double[k];
+            int[] cnt = new int[k];
+            for (int p : eval) {
+                sum[label[p]] += s[p];
+                sqSum[label[p]] += s[p] * s[p];
+                cnt[label[p]]++;
+            }
+            double score = 0.0, var = 0.0, mean, sc;
+            for (int c = 0; c < k; c++) {
+                mean = sum[c] / cnt[c];
+                score += mean;
+                if (cnt[c] < size(c) && cnt[c] > 1) {
+                    //sample variance with finite population correction
+                    sc = (sqSum[c] - cnt[c] * mean * mean) / (cnt[c] - 1);
+                    var += Math.max(sc, 0.0) / cnt[c] * (1.0 - (double) cnt[c] / size(c));
+                }
+            }
+            return new Estimate(score / k, Math.sqrt(var) / k, eval.length, inst.length);
+        }
+    }
+
+    private class EvalTask extends RecursiveAction {
+
+        private static final long serialVersionUID = -7180744155569211617L;
+        private final Context ctx;
+        private final int[] eval;
+        private final double[] s;
+        private final int from;
+        private final int to;
+
+        EvalTask(Context ctx, int[] eval, double[] s, int from, int to) {
+            this.ctx = ctx;
+            this.eval = eval;
+            this.s = s;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                int hint = -1;
+                for (int i = from; i < to; i++) {
+                    hint = ctx.instance(eval[i], hint, s);
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new EvalTask(ctx, eval, s, from, mid), new EvalTask(ctx, eval, s, mid, to));
+            }
+        }
+    }
+
+    /**
+     * Silhouette score with its standard error
+     */
+    public static class Estimate {
+
+        private final double score;
+        private final double stdError;
+        private final int evaluated;
+        private final int total;
+
+        public Estimate(double score, double stdError, int evaluated, int total) {
+            this.score = score;
+            this.stdError = stdError;
+            this.evaluated = evaluated;
+            this.total = total;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public double getStdError() {
+            return stdError;
+        }
+
+        /**
+         * @return lower bound of 95% confidence interval
+         */
+        public double getLower() {
+            return Math.max(-1.0, score - Z * stdError);
+        }
+
+        /**
+         * @return upper bound of 95% confidence interval
+         */
+        public double getUpper() {
+            return Math.min(1.0, score + Z * stdError);
+        }
+
+        /**
+         * @return number of instances used for computing the score
+         */
+        public int getEvaluated() {
+            return evaluated;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public boolean isExact() {
+            return evaluated == total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.4f [%.4f, %.4f] (%d/%d)", score, getLower(), getUpper(), evaluated, total);
+        }
+    }
+}
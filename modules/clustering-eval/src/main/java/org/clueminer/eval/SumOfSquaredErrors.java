@@ -1,6 +1,9 @@
 package org.clueminer.eval;
 
 import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.ClusterTerm;
+import org.clueminer.clustering.api.CutStatistics;
+import org.clueminer.clustering.api.IncrementalEvaluator;
 import org.clueminer.clustering.api.InternalEvaluator;
 import org.clueminer.clustering.api.Clustering;
 import org.clueminer.dataset.api.Instance;
@@ -19,7 +22,8 @@ import org.openide.util.lookup.ServiceProvider;
  * @param <C>
  */
 @ServiceProvider(service = InternalEvaluator.class)
-public class SumOfSquaredErrors<E extends Instance, C extends Cluster<E>> extends AbstractEvaluator<E, C> {
+public class SumOfSquaredErrors<E extends Instance, C extends Cluster<E>> extends AbstractEvaluator<E, C>
+        implements IncrementalEvaluator<E, C> {
 
     private static String NAME = "Sum of squared errors";
     private static final long serialVersionUID = 7246192305561714193L;
@@ -56,6 +60,24 @@ public class SumOfSquaredErrors<E extends Instance, C extends Cluster<E>> extend
         return sum;
     }
 
+    @Override
+    public boolean isIncremental() {
+        //incremental formulas assume (non-squared) Euclidean distance
+        return dm instanceof EuclideanDistance && ((EuclideanDistance) dm).isSqrt();
+    }
+
+    @Override
+    public ClusterTerm clusterTerm(Props params) {
+        return null;
+    }
+
+    @Override
+    public double score(CutStatistics stats, Props params) {
+        //sum of all squared pairwise distances in a cluster divided by its size
+        //is twice the sum of squared distances to the centroid
+        return 2 * stats.sse();
+    }
+
     @Override
     public boolean isBetter(double score1, double score2) {
         // TODO solve bug: score is NaN when clusters with 0 instances
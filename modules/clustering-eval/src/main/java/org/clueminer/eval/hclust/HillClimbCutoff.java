@@ -4,6 +4,7 @@ import org.clueminer.clustering.api.InternalEvaluator;
 import org.clueminer.clustering.api.Clustering;
 import org.clueminer.clustering.api.CutoffStrategy;
 import org.clueminer.clustering.api.HierarchicalResult;
+import org.clueminer.clustering.api.IncrementalEvaluator;
 import org.clueminer.utils.Props;
 import org.openide.util.lookup.ServiceProvider;
 
@@ -33,6 +34,7 @@ public class HillClimbCutoff implements CutoffStrategy {
     @Override
     public double findCutoff(HierarchicalResult hclust, Props params) {
         check();
+        scoreCuts(hclust, params);
         double cutoff;
         Clustering clust, prevClust = null;
         double score, prev = Double.NaN, oldcut = 0;
@@ -79,6 +81,19 @@ public class HillClimbCutoff implements CutoffStrategy {
         this.evaluator = evaluator;
     }
 
+    /**
+     * Incremental evaluators can score all cuts at once, scores are then read
+     * from the cache
+     *
+     * @param hclust
+     * @param params
+     */
+    protected void scoreCuts(HierarchicalResult hclust, Props params) {
+        if (evaluator instanceof IncrementalEvaluator && hclust.getScores(evaluator.getName()) == null) {
+            hclust.scoreCuts((IncrementalEvaluator) evaluator, params);
+        }
+    }
+
     protected void check() {
         if (evaluator == null) {
             throw new RuntimeException("evaluator method must be set!");
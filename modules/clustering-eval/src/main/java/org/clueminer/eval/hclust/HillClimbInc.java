@@ -25,6 +25,7 @@ public class HillClimbInc extends HillClimbCutoff implements CutoffStrategy {
     @Override
     public double findCutoff(HierarchicalResult hclust, Props params) {
         check();
+        scoreCuts(hclust, params);
         Clustering clust, prevClust = null;
         double cutoff;
         double score, prev = Double.NaN, oldcut = 0;
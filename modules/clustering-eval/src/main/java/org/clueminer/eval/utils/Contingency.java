@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2011-2015 clueminer.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.clueminer.eval.utils;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.Clustering;
+import org.clueminer.clustering.api.InvalidClustering;
+import org.clueminer.dataset.api.Instance;
+
+/**
+ * Contingency table with clusters and classes (or clusters of a reference
+ * clustering) mapped to dense integer ids. Rows correspond to clusters (in
+ * the same order as in the clustering), columns to classes in order of their
+ * first occurrence (or to clusters of the reference clustering).
+ *
+ * The table is built in a single pass over instances, all pair-counting and
+ * information theoretic external measures can be derived from it in
+ * O(rows * columns) time.
+ *
+ * @author Tomas Barton
+ */
+public class Contingency {
+
+    private final int[][] table;
+    private final int[] rowSums;
+    private final int[] colSums;
+    private final int total;
+    /**
+     * class value for each column (null when comparing two clusterings)
+     */
+    private final Object[] labels;
+    /**
+     * reference clustering (null when comparing against classes)
+     */
+    private final WeakReference<Clustering> reference;
+
+    private Contingency(int[][] table, Object[] labels, Clustering reference) {
+        this.table = table;
+        this.labels = labels;
+        this.reference = reference == null ? null : new WeakReference<>(reference);
+        rowSums = new int[table.length];
+        colSums = new int[table.length > 0 ? table[0].length : 0];
+        int sum = 0;
+        for (int i = 0; i < table.length; i++) {
+            for (int j = 0; j < colSums.length; j++) {
+                rowSums[i] += table[i][j];
+                colSums[j] += table[i][j];
+            }
+            sum += rowSums[i];
+        }
+        total = sum;
+    }
+
+    /**
+     * Count instances of each class in each cluster, missing class value is
+     * considered to be a separate class.
+     *
+     * @param clustering
+     * @return table clusters x classes
+     */
+    public static Contingency fromClasses(Clustering<? extends Instance, ? extends Cluster> clustering) {
+        HashMap<Object, Integer> ids = new HashMap<>();
+        List<Object> klasses = new ArrayList<>();
+        int k = clustering.size();
+        //assignment of instances to class ids, row by row
+        int[][] assign = new int[k][];
+        Cluster<? extends Instance> clust;
+        Object klass;
+        Integer id;
+        for (int i = 0; i < k; i++) {
+            clust = clustering.get(i);
+            assign[i] = new int[clust.size()];
+            for (int j = 0; j < clust.size(); j++) {
+                klass = clust.instance(j).classValue();
+                id = ids.get(klass);
+                if (id == null) {
+                    id = klasses.size();
+                    ids.put(klass, id);
+                    klasses.add(klass);
+                }
+                assign[i][j] = id;
+            }
+        }
+        int[][] table = new int[k][klasses.size()];
+        for (int i = 0; i < k; i++) {
+            for (int j : assign[i]) {
+                table[i][j]++;
+            }
+        }
+        return new Contingency(table, klasses.toArray(), null);
+    }
+
+    /**
+     * Count common instances of each pair of clusters. Instances are matched
+     * by their index.
+     *
+     * @param c1 clustering in rows
+     * @param c2 reference clustering in columns
+     * @return table c1 clusters x c2 clusters
+     */
+    public static Contingency fromClusterings(Clustering<? extends Instance, ? extends Cluster> c1,
+            Clustering<? extends Instance, ? extends Cluster> c2) {
+        int maxIdx = -1;
+        Cluster<? extends Instance> clust;
+        for (int j = 0; j < c2.size(); j++) {
+            clust = c2.get(j);
+            for (int l = 0; l < clust.size(); l++) {
+                maxIdx = Math.max(maxIdx, clust.instance(l).getIndex());
+            }
+        }
+        int[] colOf = new int[maxIdx + 1];
+        Arrays.fill(colOf, -1);
+        for (int j = 0; j < c2.size(); j++) {
+            clust = c2.get(j);
+            for (int l = 0; l < clust.size(); l++) {
+                colOf[clust.instance(l).getIndex()] = j;
+            }
+        }
+        int[][] table = new int[c1.size()][c2.size()];
+        int idx;
+        for (int i = 0; i < c1.size(); i++) {
+            clust = c1.get(i);
+            for (int l = 0; l < clust.size(); l++) {
+                idx = clust.instance(l).getIndex();
+                if (idx < 0 || idx > maxIdx || colOf[idx] < 0) {
+                    throw new InvalidClustering("instance " + idx + " is not assigned to any cluster in the reference clustering");
+                }
+                table[i][colOf[idx]]++;
+            }
+        }
+        return new Contingency(table, null, c2);
+    }
+
+    /**
+     * Checks whether this table was computed from given clustering(s) and
+     * the clustering hasn't changed its size since then.
+     *
+     * @param clustering
+     * @param ref        reference clustering or null for class labels
+     * @return
+     */
+    public boolean isValid(Clustering<? extends Instance, ? extends Cluster> clustering, Clustering ref) {
+        return isFor(ref) && clustering.size() == rowSums.length && clustering.instancesCount() == total;
+    }
+
+    /**
+     * @param ref reference clustering or null for class labels
+     * @return true when columns of the table are clusters of the very same
+     *         reference (or classes when {@code ref} is null)
+     */
+    public boolean isFor(Clustering ref) {
+        if (ref == null) {
+            return reference == null;
+        }
+        return reference != null && reference.get() == ref;
+    }
+
+    /**
+     * @return true when the reference clustering was garbage collected, such
+     *         table can't be ever used again
+     */
+    public boolean isOrphan() {
+        return reference != null && reference.get() == null;
+    }
+
+    /**
+     * Number of pairs of instances which are/aren't in the same row group and
+     * same column group. For clusters vs. classes {@code tp} are pairs with
+     * same class in the same cluster, {@code fp} pairs with same class in
+     * different clusters and {@code fn} pairs with different classes in the
+     * same cluster. For two clusterings {@code fn} are pairs in the same
+     * cluster of the first one and different clusters of the reference one.
+     *
+     * @return
+     */
+    public PairMatch pairs() {
+        PairMatch pm = new PairMatch();
+        long same = 0, sameRow = 0, sameCol = 0;
+        for (int i = 0; i < table.length; i++) {
+            for (int j = 0; j < colSums.length; j++) {
+                same += combinationOfTwo(table[i][j]);
+            }
+            sameRow += combinationOfTwo(rowSums[i]);
+        }
+        for (int j = 0; j < colSums.length; j++) {
+            sameCol += combinationOfTwo(colSums[j]);
+        }
+        pm.tp = same;
+        pm.fn = sameRow - same;
+        pm.fp = sameCol - same;
+        pm.tn = combinationOfTwo(total) - sameRow - sameCol + same;
+        return pm;
+    }
+
+    private static long combinationOfTwo(int n) {
+        return ((long) n * (n - 1)) >>> 1;
+    }
+
+    /**
+     * Mutual information (natural logarithm) of rows and columns
+     *
+     * @return
+     */
+    public double mutualInformation() {
+        double mi = 0.0;
+        int common;
+        for (int j = 0; j < colSums.length; j++) {
+            for (int i = 0; i < table.length; i++) {
+                common = table[i][j];
+                if (common > 0) {
+                    mi += (common / (double) total)
+                            * Math.log(total * (double) common / ((double) colSums[j] * rowSums[i]));
+                }
+            }
+        }
+        return mi;
+    }
+
+    public int get(int row, int col) {
+        return table[row][col];
+    }
+
+    /**
+     * Raw table, should not be modified
+     *
+     * @return
+     */
+    public int[][] getTable() {
+        return table;
+    }
+
+    public int rowsCount() {
+        return rowSums.length;
+    }
+
+    public int columnsCount() {
+        return colSums.length;
+    }
+
+    /**
+     * @return sizes of clusters (rows)
+     */
+    public int[] getRowSums() {
+        return rowSums;
+    }
+
+    /**
+     * @return sizes of classes or reference clusters (columns)
+     */
+    public int[] getColumnSums() {
+        return colSums;
+    }
+
+    /**
+     * @return total number of instances
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Class value of given column
+     *
+     * @param col
+     * @return class value or null when comparing two clusterings
+     */
+    public Object getLabel(int col) {
+        return labels == null ? null : labels[col];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int[] row : table) {
+            for (int j = 0; j < row.length; j++) {
+                sb.append(row[j]).append(j < row.length - 1 ? "\t" : "\n");
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -10,6 +10,7 @@ import com.google.common.collect.Tables;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
@@ -343,6 +344,49 @@ public class CountingPairs<E extends Instance, C extends Cluster<E>> {
         System.out.println(sb.toString());
     }
 
+    /**
+     * Contingency table of clusters and classes, the table is cached in
+     * clustering's lookup (until number of clusters or instances changes)
+     *
+     * @param clustering
+     * @return
+     */
+    public static Contingency contingency(Clustering<? extends Instance, ? extends Cluster> clustering) {
+        return contingency(clustering, null);
+    }
+
+    /**
+     * Contingency table of clusters in {@code c1} and {@code ref}, the table
+     * is cached in lookup of {@code c1}. At most one table per reference is
+     * kept, outdated tables and tables of collected references are removed.
+     *
+     * @param c1
+     * @param ref reference clustering, if null class labels are used
+     * @return
+     */
+    public static Contingency contingency(Clustering<? extends Instance, ? extends Cluster> c1,
+            Clustering<? extends Instance, ? extends Cluster> ref) {
+        List<Contingency> stale = new LinkedList<>();
+        for (Contingency ct : c1.getLookup().lookupAll(Contingency.class)) {
+            if (ct.isValid(c1, ref)) {
+                return ct;
+            } else if (ct.isFor(ref) || ct.isOrphan()) {
+                stale.add(ct);
+            }
+        }
+        for (Contingency ct : stale) {
+            c1.lookupRemove(ct);
+        }
+        Contingency ct;
+        if (ref == null) {
+            ct = Contingency.fromClasses(c1);
+        } else {
+            ct = Contingency.fromClusterings(c1, ref);
+        }
+        c1.lookupAdd(ct);
+        return ct;
+    }
+
     /**
      * Match instances in two clusterings of the same dataset. From resulting
      * table we can tell how close the {@code curr} clustering is to the
@@ -354,35 +398,7 @@ public class CountingPairs<E extends Instance, C extends Cluster<E>> {
      * @return
      */
     public PairMatch matchPairs(Clustering<E, C> ref, Clustering<E, C> curr) {
-        PairMatch pm = new PairMatch();
-
-        E x, y;
-        Cluster<E> cx1, cx2, cy1, cy2;
-        for (int i = 0; i < ref.instancesCount(); i++) {
-            x = ref.instance(i);
-            cx1 = ref.assignedCluster(x);
-            cx2 = curr.assignedCluster(x);
-            for (int j = 0; j < i; j++) {
-                y = ref.instance(j);
-                cy1 = ref.assignedCluster(y);
-                cy2 = curr.assignedCluster(y);
-                //in C1 both are in the same cluster
-                if (cx1.getClusterId() == cy1.getClusterId()) {
-                    if (cx2.getClusterId() == cy2.getClusterId()) {
-                        pm.tp++;
-                    } else {
-                        pm.fn++;
-                    }
-                } else {
-                    if (cx2.getClusterId() == cy2.getClusterId()) {
-                        pm.fp++;
-                    } else {
-                        pm.tn++;
-                    }
-                }
-            }
-        }
-        return pm;
+        return contingency(ref, curr).pairs();
     }
 
     /**
@@ -392,51 +408,15 @@ public class CountingPairs<E extends Instance, C extends Cluster<E>> {
      * @return
      */
     public PairMatch matchPairs(Clustering<E, C> clust) {
-        PairMatch pm = new PairMatch();
-
         Dataset<E> dataset = clust.getLookup().lookup(Dataset.class);
         if (dataset == null) {
             throw new RuntimeException("missing reference dataset");
         }
-
-        E x, y;
-        Cluster<E> cx2, cy2;
-        //class labels
-        Object cx1, cy1;
-        for (int i = 0; i < dataset.size() - 1; i++) {
-            x = dataset.get(i);
-            cx2 = clust.assignedCluster(x);
-            if (cx2 == null) {
-                throw new InvalidClustering("instance " + x.getIndex()
-                        + " from dataset " + dataset.getName() + " is not assigned to any cluster");
-            }
-            cx1 = x.classValue();
-            for (int j = i + 1; j < dataset.size(); j++) {
-                y = dataset.get(j);
-                cy1 = y.classValue();
-                cy2 = clust.assignedCluster(y);
-                if (cy2 == null) {
-                    System.out.println("params: " + clust.getParams().toString());
-                    throw new InvalidClustering("instance " + y.getIndex()
-                            + " from dataset " + dataset.getName() + " is not assigned to any cluster");
-                }
-                //in both instances have the same label
-                if (cx1.equals(cy1)) {
-                    //both instances are assigned to the same cluster
-                    if (cx2.getClusterId() == cy2.getClusterId()) {
-                        pm.tp++;
-                    } else {
-                        pm.fp++;
-                    }
-                } else {
-                    if (cx2.getClusterId() == cy2.getClusterId()) {
-                        pm.fn++;
-                    } else {
-                        pm.tn++;
-                    }
-                }
-            }
+        Contingency ct = contingency(clust);
+        if (ct.getTotal() != dataset.size()) {
+            throw new InvalidClustering((dataset.size() - ct.getTotal()) + " instances"
+                    + " from dataset " + dataset.getName() + " are not assigned to any cluster");
         }
-        return pm;
+        return ct.pairs();
     }
 }
@@ -0,0 +1,143 @@
+package org.clueminer.eval;
+
+import java.util.Random;
+import org.clueminer.clustering.aggl.HAC;
+import org.clueminer.clustering.api.AgglParams;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.Clustering;
+import org.clueminer.clustering.api.ClusteringType;
+import org.clueminer.clustering.api.HierarchicalResult;
+import org.clueminer.clustering.struct.ClusterList;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import org.clueminer.distance.EuclideanDistance;
+import org.clueminer.distance.ManhattanDistance;
+import org.clueminer.math.matrix.SymmetricMatrix;
+import org.clueminer.utils.PropType;
+import org.clueminer.utils.Props;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class SilhouetteParallelTest {
+
+    private static final double delta = 1e-9;
+
+    /**
+     * k gaussian blobs, cluster assignment by generating blob
+     */
+    private Clustering<Instance, Cluster<Instance>> blobs(int n, int k, long seed) {
+        Random rand = new Random(seed);
+        double[][] data = new double[n][2];
+        for (int i = 0; i < n; i++) {
+            data[i][0] = 5 * (i % k) + rand.nextGaussian();
+            data[i][1] = 3 * (i % k) + rand.nextGaussian();
+        }
+        Dataset<Instance> dataset = new ArrayDataset<>(data);
+        Clustering<Instance, Cluster<Instance>> clustering = new ClusterList(k);
+        for (int i = 0; i < k; i++) {
+            clustering.createCluster(i);
+        }
+        for (int i = 0; i < n; i++) {
+            clustering.get(i % k).add(dataset.get(i));
+        }
+        clustering.lookupAdd(dataset);
+        return clustering;
+    }
+
+    @Test
+    public void testSameAsSilhouette() {
+        Props p = new Props();
+        //large enough to be evaluated in parallel
+        Clustering<Instance, Cluster<Instance>> c = blobs(500, 4, 1);
+        assertEquals(new Silhouette().score(c, p), new SilhouetteParallel().score(c, p), 0.0);
+
+        ManhattanDistance dm = new ManhattanDistance();
+        assertEquals(new Silhouette(dm).score(c, p), new SilhouetteParallel(dm).score(c, p), 0.0);
+
+        //singleton cluster
+        c = blobs(7, 6, 2);
+        assertEquals(new Silhouette().score(c, p), new SilhouetteParallel().score(c, p), 0.0);
+    }
+
+    @Test
+    public void testUndefined() {
+        Clustering<Instance, Cluster<Instance>> c = blobs(10, 1, 3);
+        assertTrue(Double.isNaN(new SilhouetteParallel().score(c, new Props())));
+    }
+
+    @Test
+    public void testProximityMatrix() {
+        Clustering<Instance, Cluster<Instance>> c = blobs(200, 3, 4);
+        Dataset<? extends Instance> dataset = c.getLookup().lookup(Dataset.class);
+        ManhattanDistance dm = new ManhattanDistance();
+        SymmetricMatrix m = new SymmetricMatrix(dataset.size(), dataset.size());
+        for (int i = 0; i < dataset.size(); i++) {
+            for (int j = 0; j < i; j++) {
+                m.set(i, j, dm.measure(dataset.get(i), dataset.get(j)));
+            }
+        }
+        SilhouetteParallel subject = new SilhouetteParallel(dm);
+        Props p = new Props();
+        assertEquals(new Silhouette(dm).score(c, p), subject.score(c, m, p), delta);
+    }
+
+    @Test
+    public void testHierarchicalResult() {
+        Clustering<Instance, Cluster<Instance>> c = blobs(120, 3, 5);
+        Dataset<Instance> dataset = c.getLookup().lookup(Dataset.class);
+        Props pref = new Props();
+        pref.put(AgglParams.CLUSTERING_TYPE, ClusteringType.ROWS_CLUSTERING);
+        pref.put(PropType.PERFORMANCE, AgglParams.KEEP_PROXIMITY, true);
+        HierarchicalResult result = new HAC().hierarchy(dataset, pref);
+        assertNotNull(result.getProximityMatrix());
+        Clustering hc = result.updateCutoff(result.getTreeData().getRoot().getHeight() * 0.5);
+        assertTrue(hc.size() > 1);
+
+        Props p = new Props();
+        //matrix has sqrt distances, squared are used by default
+        assertEquals(new Silhouette().score(hc, p), new SilhouetteParallel().score(hc, p), delta);
+        EuclideanDistance dm = new EuclideanDistance();
+        assertEquals(new Silhouette(dm).score(hc, p), new SilhouetteParallel(dm).score(hc, p), delta);
+    }
+
+    @Test
+    public void testSampled() {
+        Clustering<Instance, Cluster<Instance>> c = blobs(3000, 3, 6);
+        double exact = new Silhouette().score(c, new Props());
+        SilhouetteParallel subject = new SilhouetteParallel();
+
+        Props p = new Props();
+        p.putInt(SilhouetteParallel.SAMPLE_SIZE, 600);
+        p.putLong(SilhouetteParallel.SEED, 42);
+        SilhouetteParallel.Estimate est = subject.estimate(c, p);
+        assertFalse(est.isExact());
+        assertEquals(600, est.getEvaluated());
+        assertEquals(3000, est.getTotal());
+        assertTrue(est.getStdError() > 0.0);
+        assertTrue(est.getLower() <= exact && exact <= est.getUpper());
+        //same seed, same estimate
+        assertEquals(est.getScore(), subject.score(c, p), 0.0);
+
+        //used seed is stored, score is reproducible
+        Props q = new Props();
+        q.putInt(SilhouetteParallel.SAMPLE_SIZE, 600);
+        double score = subject.score(c, q);
+        assertTrue(q.containsKey(SilhouetteParallel.SEED));
+        assertEquals(score, subject.score(c, q), 0.0);
+
+        //sample larger than the clustering
+        p.putInt(SilhouetteParallel.SAMPLE_SIZE, 5000);
+        est = subject.estimate(c, p);
+        assertTrue(est.isExact());
+        assertEquals(exact, est.getScore(), 0.0);
+        assertEquals(exact, est.getLower(), 0.0);
+    }
+}
@@ -0,0 +1,151 @@
+package org.clueminer.eval.hclust;
+
+import java.util.Random;
+import org.clueminer.attributes.BasicAttrType;
+import org.clueminer.clustering.aggl.HACLW;
+import org.clueminer.clustering.aggl.linkage.AverageLinkage;
+import org.clueminer.clustering.aggl.linkage.CompleteLinkage;
+import org.clueminer.clustering.api.AgglParams;
+import org.clueminer.clustering.api.Clustering;
+import org.clueminer.clustering.api.ClusteringType;
+import org.clueminer.clustering.api.HierarchicalResult;
+import org.clueminer.clustering.api.IncrementalEvaluator;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import org.clueminer.distance.EuclideanDistance;
+import org.clueminer.distance.ManhattanDistance;
+import org.clueminer.eval.BIC;
+import org.clueminer.eval.CalinskiHarabasz;
+import org.clueminer.eval.LogSSRatio;
+import org.clueminer.eval.SumOfSquaredErrors;
+import org.clueminer.utils.Props;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class IncrementalCutTest {
+
+    private Dataset<? extends Instance> blobs(int n, long seed) {
+        Random rand = new Random(seed);
+        Dataset<Instance> data = new ArrayDataset<>(n, 2);
+        data.attributeBuilder().create("x", BasicAttrType.NUMERIC);
+        data.attributeBuilder().create("y", BasicAttrType.NUMERIC);
+        for (int i = 0; i < n; i++) {
+            data.builder().create(new double[]{8 * (i % 4) + rand.nextGaussian(), 3 * (i % 2) + rand.nextGaussian()});
+        }
+        return data;
+    }
+
+    private HierarchicalResult hierarchy(Dataset<? extends Instance> data, String linkage) {
+        Props pref = new Props();
+        pref.put(AgglParams.LINKAGE, linkage);
+        pref.put(AgglParams.CLUSTERING_TYPE, ClusteringType.ROWS_CLUSTERING);
+        return new HACLW().hierarchy(data, pref);
+    }
+
+    /**
+     * Incremental scores must match scores computed on clusterings
+     *
+     * @param eval
+     * @param linkage
+     */
+    private void compare(IncrementalEvaluator eval, String linkage) {
+        Props params = new Props();
+        HierarchicalResult result = hierarchy(blobs(60, 1), linkage);
+        assertTrue(result.scoreCuts(eval, params));
+        Clustering clust;
+        double expected, actual;
+        int checked = 0;
+        for (int level = 1; level < result.treeLevels() - 1; level++) {
+            result.cutTreeByLevel(level);
+            clust = result.getClustering();
+            expected = eval.score(clust, params);
+            actual = result.getScore(eval.getName(), clust.size());
+            if (Double.isNaN(expected)) {
+                assertTrue(Double.isNaN(actual));
+            } else {
+                assertEquals(eval.getName() + " k = " + clust.size(), expected, actual, 1e-6 * Math.max(1.0, Math.abs(expected)));
+            }
+            checked++;
+        }
+        assertTrue(checked > 0);
+    }
+
+    @Test
+    public void testSSE() {
+        compare(new SumOfSquaredErrors(), CompleteLinkage.name);
+    }
+
+    @Test
+    public void testCalinskiHarabasz() {
+        compare(new CalinskiHarabasz(), AverageLinkage.name);
+    }
+
+    @Test
+    public void testLogSSRatio() {
+        compare(new LogSSRatio(), AverageLinkage.name);
+    }
+
+    @Test
+    public void testBIC() {
+        compare(new BIC(), CompleteLinkage.name);
+    }
+
+    @Test
+    public void testNotIncremental() {
+        HierarchicalResult result = hierarchy(blobs(20, 2), CompleteLinkage.name);
+        SumOfSquaredErrors eval = new SumOfSquaredErrors(new ManhattanDistance());
+        assertFalse(eval.isIncremental());
+        assertFalse(result.scoreCuts(eval, new Props()));
+        assertEquals(null, result.getScores(eval.getName()));
+    }
+
+    @Test
+    public void testSquaredEuclideanNotIncremental() {
+        EuclideanDistance squared = new EuclideanDistance();
+        squared.setSqrt(false);
+        assertFalse(new SumOfSquaredErrors(squared).isIncremental());
+        assertFalse(new CalinskiHarabasz(squared).isIncremental());
+        assertFalse(new LogSSRatio(squared).isIncremental());
+        assertTrue(new SumOfSquaredErrors(new EuclideanDistance()).isIncremental());
+    }
+
+    @Test
+    public void testColumnsNotScored() {
+        Props pref = new Props();
+        pref.put(AgglParams.LINKAGE, CompleteLinkage.name);
+        pref.put(AgglParams.CLUSTERING_TYPE, ClusteringType.COLUMNS_CLUSTERING);
+        HierarchicalResult result = new HACLW().hierarchy(blobs(20, 4), pref);
+        //leaves are attributes, rows must not be used instead
+        assertFalse(result.scoreCuts(new SumOfSquaredErrors(), new Props()));
+        assertEquals(null, result.getScores(new SumOfSquaredErrors().getName()));
+    }
+
+    @Test
+    public void testHillClimb() {
+        Dataset<? extends Instance> data = blobs(80, 3);
+        //reference run without incremental scoring
+        HillClimbCutoff subject = new HillClimbCutoff(new BIC() {
+            @Override
+            public boolean isIncremental() {
+                return false;
+            }
+        });
+        HierarchicalResult result = hierarchy(data, CompleteLinkage.name);
+        double expected = subject.findCutoff(result, new Props());
+        int k = result.getClustering().size();
+
+        subject.setEvaluator(new BIC());
+        result = hierarchy(data, CompleteLinkage.name);
+        assertEquals(expected, subject.findCutoff(result, new Props()), 1e-9);
+        assertEquals(k, result.getClustering().size());
+        //all cuts were scored at once
+        assertEquals(80, result.getScores(new BIC().getName()).size());
+    }
+}
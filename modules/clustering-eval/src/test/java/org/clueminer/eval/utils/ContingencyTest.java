@@ -0,0 +1,175 @@
+package org.clueminer.eval.utils;
+
+import java.util.Random;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.Clustering;
+import org.clueminer.clustering.api.InvalidClustering;
+import org.clueminer.clustering.struct.ClusterList;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class ContingencyTest {
+
+    private static final double delta = 1e-9;
+
+    private Dataset<Instance> dataset(int n, int classes, Random rand) {
+        Dataset<Instance> dataset = new ArrayDataset<>(n, 1);
+        dataset.attributeBuilder().create("x", "NUMERIC");
+        for (int i = 0; i < n; i++) {
+            dataset.builder().create(new double[]{i}, "c" + rand.nextInt(classes));
+        }
+        return dataset;
+    }
+
+    private Clustering<Instance, Cluster<Instance>> randomClustering(Dataset<Instance> dataset, int k, Random rand) {
+        Clustering<Instance, Cluster<Instance>> clustering = new ClusterList(k);
+        for (int i = 0; i < k; i++) {
+            clustering.createCluster(i);
+        }
+        for (Instance inst : dataset) {
+            clustering.get(rand.nextInt(k)).add(inst);
+        }
+        clustering.lookupAdd(dataset);
+        return clustering;
+    }
+
+    private int[] assignment(Clustering<Instance, Cluster<Instance>> clustering, int n) {
+        int[] res = new int[n];
+        for (int i = 0; i < clustering.size(); i++) {
+            for (Instance inst : clustering.get(i)) {
+                res[inst.getIndex()] = i;
+            }
+        }
+        return res;
+    }
+
+    @Test
+    public void testPairsAgainstClasses() {
+        Random rand = new Random(13);
+        Dataset<Instance> dataset = dataset(200, 4, rand);
+        Clustering<Instance, Cluster<Instance>> clustering = randomClustering(dataset, 5, rand);
+        int[] assign = assignment(clustering, dataset.size());
+
+        PairMatch expected = new PairMatch();
+        for (int i = 0; i < dataset.size(); i++) {
+            for (int j = i + 1; j < dataset.size(); j++) {
+                boolean sameClass = dataset.get(i).classValue().equals(dataset.get(j).classValue());
+                boolean sameCluster = assign[i] == assign[j];
+                if (sameClass) {
+                    if (sameCluster) {
+                        expected.tp++;
+                    } else {
+                        expected.fp++;
+                    }
+                } else if (sameCluster) {
+                    expected.fn++;
+                } else {
+                    expected.tn++;
+                }
+            }
+        }
+        PairMatch pm = CountingPairs.getInstance().matchPairs(clustering);
+        assertEquals(expected.tp, pm.tp, delta);
+        assertEquals(expected.fp, pm.fp, delta);
+        assertEquals(expected.fn, pm.fn, delta);
+        assertEquals(expected.tn, pm.tn, delta);
+    }
+
+    @Test
+    public void testPairsTwoClusterings() {
+        Random rand = new Random(17);
+        Dataset<Instance> dataset = dataset(150, 3, rand);
+        Clustering<Instance, Cluster<Instance>> ref = randomClustering(dataset, 3, rand);
+        Clustering<Instance, Cluster<Instance>> curr = randomClustering(dataset, 4, rand);
+        int[] a = assignment(ref, dataset.size());
+        int[] b = assignment(curr, dataset.size());
+
+        PairMatch expected = new PairMatch();
+        for (int i = 0; i < dataset.size(); i++) {
+            for (int j = 0; j < i; j++) {
+                if (a[i] == a[j]) {
+                    if (b[i] == b[j]) {
+                        expected.tp++;
+                    } else {
+                        expected.fn++;
+                    }
+                } else if (b[i] == b[j]) {
+                    expected.fp++;
+                } else {
+                    expected.tn++;
+                }
+            }
+        }
+        PairMatch pm = CountingPairs.getInstance().matchPairs(ref, curr);
+        assertEquals(expected.tp, pm.tp, delta);
+        assertEquals(expected.fp, pm.fp, delta);
+        assertEquals(expected.fn, pm.fn, delta);
+        assertEquals(expected.tn, pm.tn, delta);
+    }
+
+    @Test
+    public void testTable() {
+        Random rand = new Random(3);
+        Dataset<Instance> dataset = dataset(100, 3, rand);
+        Clustering<Instance, Cluster<Instance>> clustering = randomClustering(dataset, 4, rand);
+        Contingency ct = CountingPairs.contingency(clustering);
+        assertEquals(4, ct.rowsCount());
+        assertEquals(3, ct.columnsCount());
+        assertEquals(100, ct.getTotal());
+        assertArrayEquals(clustering.clusterSizes(), ct.getRowSums());
+        for (int i = 0; i < ct.rowsCount(); i++) {
+            for (int j = 0; j < ct.columnsCount(); j++) {
+                int cnt = 0;
+                for (Instance inst : clustering.get(i)) {
+                    if (inst.classValue().equals(ct.getLabel(j))) {
+                        cnt++;
+                    }
+                }
+                assertEquals(cnt, ct.get(i, j));
+            }
+        }
+    }
+
+    @Test
+    public void testCaching() {
+        Random rand = new Random(5);
+        Dataset<Instance> dataset = dataset(50, 2, rand);
+        Clustering<Instance, Cluster<Instance>> c1 = randomClustering(dataset, 3, rand);
+        Clustering<Instance, Cluster<Instance>> c2 = randomClustering(dataset, 2, rand);
+        Contingency classes = CountingPairs.contingency(c1);
+        assertSame(classes, CountingPairs.contingency(c1));
+        Contingency ref = CountingPairs.contingency(c1, c2);
+        assertNotSame(classes, ref);
+        assertSame(ref, CountingPairs.contingency(c1, c2));
+        assertSame(classes, CountingPairs.contingency(c1));
+
+        //modified clustering
+        Instance added = dataset.builder().create(new double[]{-1}, "c0");
+        c1.createCluster(3).add(added);
+        c2.get(0).add(added);
+        assertNotSame(classes, CountingPairs.contingency(c1));
+        assertNotSame(ref, CountingPairs.contingency(c1, c2));
+        //outdated tables are replaced, one per reference
+        assertEquals(2, c1.getLookup().lookupAll(Contingency.class).size());
+    }
+
+    @Test(expected = InvalidClustering.class)
+    public void testUnassigned() {
+        Random rand = new Random(7);
+        Dataset<Instance> dataset = dataset(20, 2, rand);
+        Clustering<Instance, Cluster<Instance>> clustering = randomClustering(dataset, 2, rand);
+        Cluster<Instance> c = clustering.get(0);
+        c.remove((Object) c.get(0));
+        CountingPairs.getInstance().matchPairs(clustering);
+    }
+}
@@ -1,11 +1,21 @@
 package org.clueminer.evolution;
 
 import it.unimi.dsi.fastutil.objects.ObjectOpenCustomHashSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.clueminer.clustering.api.Cluster;
 import org.clueminer.clustering.api.Clustering;
 import org.clueminer.clustering.api.ClusteringAlgorithm;
 import org.clueminer.colors.ColorBrewer;
 import org.clueminer.dataset.api.ColorGenerator;
+import org.clueminer.dataset.api.Dataset;
 import org.clueminer.dataset.api.Instance;
 import org.clueminer.events.ListenerList;
 import org.clueminer.evolution.api.AbstractEvolution;
@@ -35,6 +45,16 @@ public abstract class BaseEvolution<I extends Individual<I, E, C>, E extends Ins
      * for storing meta-data
      */
     protected int runId;
+    /**
+     * number of threads used for evaluating fitness of individuals
+     */
+    protected int threads = Runtime.getRuntime().availableProcessors();
+    private transient ExecutorService workers;
+    /**
+     * when enabled, duplicate genomes are not evaluated again
+     */
+    protected boolean cacheFitness = true;
+    private transient FitnessCache<E, C> fitnessCache;
 
     /**
      * Hook that should be called when evolution starts
@@ -45,6 +65,13 @@ public abstract class BaseEvolution<I extends Individual<I, E, C>, E extends Ins
         fireEvolutionStarts(e);
     }
 
+    /**
+     * Hook that should be called when evolution finishes
+     */
+    protected void evolutionFinished() {
+        fireEvolutionFinished();
+    }
+
     @Override
     public void setAlgorithm(ClusteringAlgorithm<E, C> algorithm) {
         this.algorithm = algorithm;
@@ -100,6 +127,14 @@ public abstract class BaseEvolution<I extends Individual<I, E, C>, E extends Ins
         }
     }
 
+    protected void fireEvolutionFinished() {
+        for (UpdateFeed listener : metaListeners) {
+            if (listener != null) {
+                listener.finished(runId);
+            }
+        }
+    }
+
     protected void fireBestIndividual(int generationNum, Population<I> population) {
         I best = population.getBestIndividual();
         if (best != null) {
@@ -143,4 +178,154 @@ public abstract class BaseEvolution<I extends Individual<I, E, C>, E extends Ins
         return individual != null;
     }
 
+    public boolean isCacheFitness() {
+        return cacheFitness;
+    }
+
+    public void setCacheFitness(boolean cacheFitness) {
+        this.cacheFitness = cacheFitness;
+    }
+
+    /**
+     * Cache of evaluated genomes. Unless set explicitly, the cache is shared
+     * by all evolutions running on the same dataset.
+     *
+     * @return cache or null when caching is disabled
+     */
+    public synchronized FitnessCache<E, C> getFitnessCache() {
+        if (!cacheFitness || dataset == null) {
+            return null;
+        }
+        if (fitnessCache == null) {
+            fitnessCache = FitnessCache.getInstance(dataset);
+        }
+        return fitnessCache;
+    }
+
+    public synchronized void setFitnessCache(FitnessCache<E, C> fitnessCache) {
+        this.fitnessCache = fitnessCache;
+    }
+
+    @Override
+    public synchronized void setDataset(Dataset<E> dataset) {
+        if (this.dataset != dataset) {
+            //cached fitness is valid only for the same data
+            fitnessCache = null;
+        }
+        super.setDataset(dataset);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Number of workers used for evaluating fitness, with 1 all individuals
+     * are evaluated in the calling thread
+     *
+     * @param threads
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("at least one thread is required, got " + threads);
+        }
+        if (threads != this.threads) {
+            shutdownWorkers();
+            this.threads = threads;
+        }
+    }
+
+    /**
+     * Run tasks on worker pool and wait for all of them. Results are returned
+     * in the same order as tasks, so that callbacks might be fired in the same
+     * order as with sequential evaluation.
+     *
+     * @param <T>
+     * @param tasks
+     * @return results of tasks
+     */
+    protected <T> List<T> evaluate(List<? extends Callable<T>> tasks) {
+        List<T> res = new ArrayList<>(tasks.size());
+        try {
+            if (threads <= 1 || tasks.size() <= 1) {
+                for (Callable<T> task : tasks) {
+                    res.add(task.call());
+                }
+            } else {
+                for (Future<T> f : workers().invokeAll(tasks)) {
+                    res.add(f.get());
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            throw rethrow(ex.getCause());
+        } catch (Exception ex) {
+            throw rethrow(ex);
+        }
+        return res;
+    }
+
+    private RuntimeException rethrow(Throwable ex) {
+        if (ex instanceof Error) {
+            throw (Error) ex;
+        }
+        if (ex instanceof RuntimeException) {
+            return (RuntimeException) ex;
+        }
+        return new RuntimeException(ex);
+    }
+
+    /**
+     * Compute fitness of all individuals (in parallel)
+     *
+     * @param individuals
+     * @return fitness in the same order as individuals
+     */
+    public double[] countFitness(List<? extends Individual> individuals) {
+        List<Callable<Double>> tasks = new ArrayList<>(individuals.size());
+        for (final Individual ind : individuals) {
+            tasks.add(new Callable<Double>() {
+
+                @Override
+                public Double call() throws Exception {
+                    return ind.countFitness();
+                }
+            });
+        }
+        List<Double> fitness = evaluate(tasks);
+        double[] res = new double[fitness.size()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = fitness.get(i);
+        }
+        return res;
+    }
+
+    private synchronized ExecutorService workers() {
+        if (workers == null) {
+            final AtomicInteger cnt = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, getName() + "-worker-" + cnt.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        return workers;
+    }
+
+    /**
+     * Release worker threads, should be called when evolution finishes
+     */
+    protected synchronized void shutdownWorkers() {
+        if (workers != null) {
+            workers.shutdown();
+            workers = null;
+        }
+    }
+
 }
@@ -0,0 +1,244 @@
+package org.clueminer.evolution;
+
+import com.google.common.collect.MapMaker;
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.Clustering;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+
+/**
+ * Bounded (LRU) cache of fitness values and resulting clusterings keyed by
+ * canonical genome of an individual, so that duplicate individuals don't have
+ * to be clustered and evaluated again. One cache is shared by all evolutions
+ * running on the same dataset (instance).
+ *
+ * Clusterings are referenced softly, when a clustering is garbage collected
+ * the entry is considered as missing. When the same genome is requested
+ * concurrently, it is computed just once.
+ *
+ * @author Tomas Barton
+ * @param <E>
+ * @param <C>
+ */
+public class FitnessCache<E extends Instance, C extends Cluster<E>> {
+
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    /**
+     * caches for datasets (compared by identity, weak keys)
+     */
+    private static final ConcurrentMap<Dataset<? extends Instance>, FitnessCache> INSTANCES
+            = new MapMaker().weakKeys().makeMap();
+
+    /**
+     * access-ordered map, guarded by this
+     */
+    private final LinkedHashMap<String, FutureTask<Result<E, C>>> cache;
+    private int capacity;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public FitnessCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public FitnessCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive, got " + capacity);
+        }
+        this.capacity = capacity;
+        cache = new LinkedHashMap<String, FutureTask<Result<E, C>>>(64, 0.75f, true) {
+
+            private static final long serialVersionUID = -1852375683496124731L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FutureTask<Result<E, C>>> eldest) {
+                if (size() > FitnessCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Cache shared by all evolutions on given dataset
+     *
+     * @param dataset
+     * @return
+     */
+    public static FitnessCache getInstance(Dataset<? extends Instance> dataset) {
+        FitnessCache fc = INSTANCES.get(dataset);
+        if (fc == null) {
+            fc = new FitnessCache();
+            FitnessCache other = INSTANCES.putIfAbsent(dataset, fc);
+            if (other != null) {
+                fc = other;
+            }
+        }
+        return fc;
+    }
+
+    /**
+     * Return cached result or compute it using given loader
+     *
+     * @param key    canonical genome (including everything that affects
+     *               fitness, e.g. evaluator)
+     * @param loader computes fitness when not cached
+     * @return
+     */
+    public Result<E, C> get(String key, Callable<Result<E, C>> loader) {
+        FutureTask<Result<E, C>> task;
+        boolean owner = false;
+        synchronized (this) {
+            task = cache.get(key);
+            if (task != null && task.isDone() && isCollected(task)) {
+                cache.remove(key);
+                task = null;
+            }
+            if (task == null) {
+                task = new FutureTask<>(loader);
+                cache.put(key, task);
+                owner = true;
+                misses++;
+            } else {
+                hits++;
+            }
+        }
+        if (owner) {
+            task.run();
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            synchronized (this) {
+                //don't cache failures
+                if (cache.get(key) == task) {
+                    cache.remove(key);
+                }
+            }
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    private boolean isCollected(FutureTask<Result<E, C>> task) {
+        try {
+            return task.get().isCollected();
+        } catch (InterruptedException | ExecutionException ex) {
+            return true;
+        }
+    }
+
+    public synchronized boolean contains(String key) {
+        return cache.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Change maximum number of entries, least recently used entries are
+     * evicted on next insertion
+     *
+     * @param capacity
+     */
+    public synchronized void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive, got " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return fraction of requests served from the cache
+     */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : hits / (double) total;
+    }
+
+    public synchronized void resetStats() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FitnessCache{size=" + cache.size() + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + ", hitRate=" + String.format("%.3f", getHitRate()) + "}";
+    }
+
+    /**
+     * Evaluated genome
+     *
+     * @param <E>
+     * @param <C>
+     */
+    public static class Result<E extends Instance, C extends Cluster<E>> {
+
+        private final double fitness;
+        private final SoftReference<Clustering<E, C>> clustering;
+
+        /**
+         *
+         * @param fitness
+         * @param clustering resulting clustering, might be null
+         */
+        public Result(double fitness, Clustering<E, C> clustering) {
+            this.fitness = fitness;
+            this.clustering = clustering == null ? null : new SoftReference<>(clustering);
+        }
+
+        public double getFitness() {
+            return fitness;
+        }
+
+        public Clustering<E, C> getClustering() {
+            return clustering == null ? null : clustering.get();
+        }
+
+        /**
+         * @return true when clustering was garbage collected
+         */
+        public boolean isCollected() {
+            return clustering != null && clustering.get() == null;
+        }
+    }
+}
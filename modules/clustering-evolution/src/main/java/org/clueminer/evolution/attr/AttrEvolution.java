@@ -121,16 +121,13 @@ public class AttrEvolution<E extends Instance, C extends Cluster<E>> extends Bas
                 children.add(current);
             }
             double fitness;
-            for (Individual child : children) {
-                child.countFitness();
-            }
+            countFitness(children);
             selected.clear();
             // merge new and old individuals
             for (int i = children.size(); i < pop.size(); i++) {
-                Individual tmpi = pop.getIndividual(i).deepCopy();
-                tmpi.countFitness();
-                selected.add(tmpi);
+                selected.add(pop.getIndividual(i).deepCopy());
             }
+            countFitness(selected);
 
             for (Individual ind : children) {
                 fitness = ind.getFitness();
@@ -188,6 +185,8 @@ public class AttrEvolution<E extends Instance, C extends Cluster<E>> extends Bas
 
         // System.out.println("evolution took " + (end - start) + " ms");
         fireFinalResult(generations, best, time, bestFitness, avgFitness);
+        shutdownWorkers();
+        evolutionFinished();
         if (ph != null) {
             ph.finish();
         }
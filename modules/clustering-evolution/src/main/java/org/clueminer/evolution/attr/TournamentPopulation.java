@@ -2,9 +2,11 @@ package org.clueminer.evolution.attr;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.clueminer.clustering.api.Cluster;
 import org.clueminer.dataset.api.Instance;
+import org.clueminer.evolution.BaseEvolution;
 import org.clueminer.evolution.api.Population;
 import org.clueminer.evolution.api.AbstractIndividual;
 import org.clueminer.evolution.api.AbstractPopulation;
@@ -26,7 +28,13 @@ public class TournamentPopulation<I extends AbstractIndividual<I, E, C>, E exten
         individuals = (I[]) Array.newInstance(klass, size);
         for (int i = 0; i < individuals.length; i++) {
             individuals[i] = evolution.createIndividual();
-            individuals[i].countFitness();
+        }
+        if (evolution instanceof BaseEvolution) {
+            ((BaseEvolution) evolution).countFitness(Arrays.asList(individuals));
+        } else {
+            for (I individual : individuals) {
+                individual.countFitness();
+            }
         }
         getAvgFitness();
     }
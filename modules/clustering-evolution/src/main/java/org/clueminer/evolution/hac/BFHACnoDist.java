@@ -1,5 +1,6 @@
 package org.clueminer.evolution.hac;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -7,7 +8,6 @@ import org.clueminer.clustering.api.AgglParams;
 import org.clueminer.clustering.api.AgglomerativeClustering;
 import org.clueminer.clustering.api.Cluster;
 import org.clueminer.clustering.api.ClusterLinkage;
-import org.clueminer.clustering.api.Clustering;
 import org.clueminer.clustering.api.ClusteringAlgorithm;
 import org.clueminer.clustering.api.ClusteringType;
 import org.clueminer.clustering.api.CutoffStrategy;
@@ -96,7 +96,6 @@ public class BFHACnoDist<I extends Individual<I, E, C>, E extends Instance, C ex
     @Override
     protected void makeClusters(String std, boolean logscale, ClusterLinkage link) {
         Props params = new Props();
-        Clustering<E, C> clustering;
         //for cophenetic correlation we need proximity matrix
         params.put(PropType.PERFORMANCE, AgglParams.KEEP_PROXIMITY, true);
         params.put(AgglParams.ALG, exec.getAlgorithm().getName());
@@ -107,21 +106,15 @@ public class BFHACnoDist<I extends Individual<I, E, C>, E extends Instance, C ex
         params.put(AgglParams.LINKAGE, link.getName());
         params.put(AgglParams.DIST, DistanceFactory.getInstance().getProvider("Euclidean").getName());
 
+        List<Props> configs = new ArrayList<>();
         for (CutoffStrategy cut : cutoff) {
             params.put(AgglParams.CUTOFF_STRATEGY, cut.getName());
             for (InternalEvaluator ie : evaluators) {
                 params.put(AgglParams.CUTOFF_SCORE, ie.getName());
-                clustering = exec.clusterRows(dataset, params);
-                //make sure the clustering is valid
-                if (clustering.instancesCount() == dataset.size()) {
-                    clustering.setName("#" + cnt);
-                    individualCreated(clustering);
-                }
-                if (ph != null) {
-                    ph.progress(cnt++);
-                }
+                configs.add(params.copy());
             }
         }
+        clusterAll(configs);
     }
 
 }
@@ -1,6 +1,8 @@
 package org.clueminer.evolution.hac;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.clueminer.clustering.ClusteringExecutorCached;
@@ -130,7 +132,6 @@ public class BruteForceHacEvolution<I extends Individual<I, E, C>, E extends Ins
      */
     protected void makeClusters(String std, boolean logscale, ClusterLinkage link) {
         Props params = new Props();
-        Clustering<E, C> clustering;
         //for cophenetic correlation we need proximity matrix
         params.put(PropType.PERFORMANCE, AgglParams.KEEP_PROXIMITY, true);
         params.put(AgglParams.ALG, exec.getAlgorithm().getName());
@@ -139,24 +140,47 @@ public class BruteForceHacEvolution<I extends Individual<I, E, C>, E extends Ins
         params.put(AgglParams.CLUSTERING_TYPE, ClusteringType.ROWS_CLUSTERING);
         params.put(AgglParams.LINKAGE, link.getName());
 
+        List<Props> configs = new ArrayList<>();
         for (CutoffStrategy cut : cutoff) {
             params.put(AgglParams.CUTOFF_STRATEGY, cut.getName());
             for (Distance dm : dist) {
                 params.put(AgglParams.DIST, dm.getName());
                 for (InternalEvaluator ie : evaluators) {
                     params.put(AgglParams.CUTOFF_SCORE, ie.getName());
-                    clustering = exec.clusterRows(dataset, params);
-                    //make sure the clustering is valid
-                    if (clustering.instancesCount() == dataset.size()) {
-                        clustering.setName("#" + cnt);
-                        individualCreated(clustering);
-                    }
-                    if (ph != null) {
-                        ph.progress(cnt++);
-                    }
+                    configs.add(params.copy());
                 }
             }
         }
+        clusterAll(configs);
+    }
+
+    /**
+     * Compute clusterings for all configurations on worker pool, results are
+     * processed in the same order as configurations
+     *
+     * @param configs
+     */
+    protected void clusterAll(List<Props> configs) {
+        List<Callable<Clustering<E, C>>> tasks = new ArrayList<>(configs.size());
+        for (final Props conf : configs) {
+            tasks.add(new Callable<Clustering<E, C>>() {
+
+                @Override
+                public Clustering<E, C> call() throws Exception {
+                    return exec.clusterRows(dataset, conf);
+                }
+            });
+        }
+        for (Clustering<E, C> clustering : evaluate(tasks)) {
+            //make sure the clustering is valid
+            if (clustering.instancesCount() == dataset.size()) {
+                clustering.setName("#" + cnt);
+                individualCreated(clustering);
+            }
+            if (ph != null) {
+                ph.progress(cnt++);
+            }
+        }
     }
 
     public Matrix standartize(Dataset<? extends Instance> data, String method, boolean logScale) {
@@ -164,6 +188,8 @@ public class BruteForceHacEvolution<I extends Individual<I, E, C>, E extends Ins
     }
 
     protected void finish() {
+        shutdownWorkers();
+        evolutionFinished();
         if (ph != null) {
             ph.finish();
         }
@@ -149,37 +149,42 @@ public class MultiMuteEvolution<I extends Individual<I, E, C>, E extends Instanc
         Individual best = population.getBestIndividual();
         bestFitness.a = best.getFitness();
         ArrayList<I> selected = new ArrayList<>(populationSize);
+        ArrayList<I> mutated = new ArrayList<>(populationSize);
         double fitness;
         for (int g = 0; g < generations && !isFinished; g++) {
 
             // clear collection for new individuals
             children.clear();
 
-            // apply mutate operator
+            // apply mutate operator (sequentially, mutation is random)
+            mutated.clear();
             for (int i = 0; i < population.size(); i++) {
                 I current = population.getIndividual(i).deepCopy();
                 current.mutate();
                 if (this.isValid(current) && current.isValid()) {
                     if (!isItTabu(current.toString())) {
-                        // put mutated individual to the list of new individuals
-                        fitness = current.countFitness();
-                        if (!Double.isNaN(fitness)) {
-                            children.add(current);
-                            //update meta-database
-                            fireIndividualCreated(current);
-                        }
+                        mutated.add(current);
                     }
                 }
             }
+            // evaluate on worker pool, results are processed in original order
+            double[] fit = countFitness(mutated);
+            for (int i = 0; i < fit.length; i++) {
+                if (!Double.isNaN(fit[i])) {
+                    // put mutated individual to the list of new individuals
+                    children.add(mutated.get(i));
+                    //update meta-database
+                    fireIndividualCreated(mutated.get(i));
+                }
+            }
 
             logger.log(Level.INFO, "gen: {0}, num children: {1}", new Object[]{g, children.size()});
             selected.clear();
             // merge new and old individuals
             for (int i = children.size(); i < population.size(); i++) {
-                I tmpi = population.getIndividual(i).deepCopy();
-                tmpi.countFitness();
-                selected.add(tmpi);
+                selected.add(population.getIndividual(i).deepCopy());
             }
+            countFitness(selected);
 
             for (I ind : children) {
                 fitness = ind.getFitness();
@@ -244,6 +249,11 @@ public class MultiMuteEvolution<I extends Individual<I, E, C>, E extends Instanc
     }
 
     protected void finish() {
+        shutdownWorkers();
+        evolutionFinished();
+        if (getFitnessCache() != null) {
+            logger.log(Level.INFO, "fitness cache: {0}", getFitnessCache());
+        }
         if (ph != null) {
             ph.finish();
         }
@@ -2,6 +2,7 @@ package org.clueminer.evolution.multim;
 
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.clueminer.clustering.aggl.linkage.CompleteLinkage;
@@ -18,7 +19,9 @@ import org.clueminer.clustering.api.factory.InternalEvaluatorFactory;
 import org.clueminer.dataset.api.Dataset;
 import org.clueminer.dataset.api.Instance;
 import org.clueminer.distance.api.Distance;
+import org.clueminer.evolution.BaseEvolution;
 import org.clueminer.evolution.BaseIndividual;
+import org.clueminer.evolution.FitnessCache;
 import org.clueminer.evolution.api.EvolutionSO;
 import org.clueminer.evolution.api.Individual;
 import org.clueminer.utils.Props;
@@ -124,6 +127,36 @@ public class MultiMuteIndividual<I extends Individual<I, E, C>, E extends Instan
                 genom.put(AgglParams.LINKAGE, linkage(rand));
             }
         }
+        FitnessCache<E, C> cache = fitnessCache();
+        if (cache == null) {
+            return evaluate();
+        }
+        //identical genomes (also from previous generations or runs) are not clustered again
+        FitnessCache.Result<E, C> res = cache.get(cacheKey(), new Callable<FitnessCache.Result<E, C>>() {
+
+            @Override
+            public FitnessCache.Result<E, C> call() throws Exception {
+                double f = evaluate();
+                return new FitnessCache.Result<>(f, clustering);
+            }
+        });
+        if (res.getClustering() == null && !Double.isNaN(res.getFitness())) {
+            //clustering was garbage collected meanwhile
+            return evaluate();
+        }
+        clustering = res.getClustering();
+        if (!Double.isNaN(res.getFitness())) {
+            fitness = res.getFitness();
+        }
+        return res.getFitness();
+    }
+
+    /**
+     * Cluster data and compute fitness
+     *
+     * @return fitness or NaN when resulting clustering is not valid
+     */
+    protected double evaluate() {
         clustering = updateCustering();
         if (!isValid()) {
             return Double.NaN;
@@ -136,6 +169,23 @@ public class MultiMuteIndividual<I extends Individual<I, E, C>, E extends Instan
         return fitness;
     }
 
+    private FitnessCache<E, C> fitnessCache() {
+        if (evolution instanceof BaseEvolution) {
+            return ((BaseEvolution<I, E, C>) evolution).getFitnessCache();
+        }
+        return null;
+    }
+
+    /**
+     * Canonical representation of everything that affects fitness
+     *
+     * @return
+     */
+    protected String cacheKey() {
+        //main properties are sorted by key
+        return evolution.getEvaluator().getName() + "|" + genom.toString();
+    }
+
     /**
      * Clustering should be updated after each mutation
      *
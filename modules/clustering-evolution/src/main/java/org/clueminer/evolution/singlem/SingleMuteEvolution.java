@@ -1,8 +1,12 @@
 package org.clueminer.evolution.singlem;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.clueminer.clustering.ClusteringExecutorCached;
@@ -72,26 +76,15 @@ public class SingleMuteEvolution<I extends Individual<I, E, C>, E extends Instan
         for (int g = 0; g < generations && !isFinished; g++) {
             // clear collection for new individuals
             children.clear();
-            double fitness;
-            // apply mutate operator
-            for (int i = 0; i < population.size(); i++) {
-                I current = (I) population.getIndividual(i).deepCopy();
-
-                do {
-                    do {
-                        current.mutate();
-                    } while (isItTabu(current.toString()));
-                    fitness = current.countFitness();
-                    System.out.println("curr| " + current.getClustering().size() + ": " + fitness);
-                    System.out.println(Arrays.toString(current.getClustering().clusterSizes()));
-                    if (!Double.isNaN(fitness)) {
-                        // put mutated individual to the list of new individuals
-                        children.add(current);
-                        tabu.add(current.toString());
-                        //update meta-database
-                        fireIndividualCreated(current);
-                    }
-                } while (!current.isValid() && !this.isValid(current));
+            //process results in the same order as population
+            for (List<I> created : mutateAndEvaluate(population)) {
+                for (I current : created) {
+                    // put mutated individual to the list of new individuals
+                    children.add(current);
+                    tabu.add(current.toString());
+                    //update meta-database
+                    fireIndividualCreated(current);
+                }
             }
             logger.log(Level.INFO, "gen: {0}, num children: {1}", new Object[]{g, children.size()});
 
@@ -155,4 +148,72 @@ public class SingleMuteEvolution<I extends Individual<I, E, C>, E extends Instan
         finish();
     }
 
+    /**
+     * Mutate copy of each parent until a valid individual is found. Mutations
+     * are applied in the calling thread (they consume shared random
+     * generator), only fitness of mutated individuals is computed on the
+     * worker pool. Tabu list is only read here, it's updated after whole
+     * generation is evaluated.
+     *
+     * @param parents
+     * @return for each parent individuals with defined fitness
+     */
+    protected List<List<I>> mutateAndEvaluate(Population<I> parents) {
+        int n = parents.size();
+        List<List<I>> created = new ArrayList<>(n);
+        List<Set<String>> seen = new ArrayList<>(n);
+        List<I> current = new ArrayList<>(n);
+        List<Integer> active = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            created.add(new LinkedList<I>());
+            seen.add(new HashSet<String>());
+            current.add(mutate(parents.getIndividual(i).deepCopy(), seen.get(i)));
+            active.add(i);
+        }
+        List<I> batch = new ArrayList<>(n);
+        List<Integer> retry = new ArrayList<>(n);
+        while (!active.isEmpty()) {
+            batch.clear();
+            for (int i : active) {
+                batch.add(current.get(i));
+            }
+            double[] fitness = countFitness(batch);
+            retry.clear();
+            for (int k = 0; k < batch.size(); k++) {
+                int i = active.get(k);
+                I ind = batch.get(k);
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.log(Level.FINE, "curr| {0}: {1} {2}", new Object[]{ind.getClustering().size(), fitness[k],
+                        Arrays.toString(ind.getClustering().clusterSizes())});
+                }
+                if (!Double.isNaN(fitness[k])) {
+                    created.get(i).add(ind);
+                    seen.get(i).add(ind.toString());
+                }
+                if (!ind.isValid() && !this.isValid(ind)) {
+                    //continue from current genom, created individuals stay untouched
+                    current.set(i, mutate(ind.deepCopy(), seen.get(i)));
+                    retry.add(i);
+                }
+            }
+            active.clear();
+            active.addAll(retry);
+        }
+        return created;
+    }
+
+    /**
+     * Mutate individual until it's not in the tabu list
+     *
+     * @param current
+     * @param seen    individuals already created from the same parent
+     * @return mutated individual
+     */
+    private I mutate(I current, Set<String> seen) {
+        do {
+            current.mutate();
+        } while (isItTabu(current.toString()) || seen.contains(current.toString()));
+        return current;
+    }
+
 }
@@ -0,0 +1,132 @@
+package org.clueminer.evolution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class FitnessCacheTest {
+
+    private static final double delta = 1e-9;
+
+    private Callable<FitnessCache.Result<Instance, Cluster<Instance>>> loader(final double fitness, final AtomicInteger calls) {
+        return new Callable<FitnessCache.Result<Instance, Cluster<Instance>>>() {
+
+            @Override
+            public FitnessCache.Result<Instance, Cluster<Instance>> call() throws Exception {
+                calls.incrementAndGet();
+                return new FitnessCache.Result<>(fitness, null);
+            }
+        };
+    }
+
+    @Test
+    public void testHits() {
+        FitnessCache<Instance, Cluster<Instance>> subject = new FitnessCache<>();
+        AtomicInteger calls = new AtomicInteger();
+        assertEquals(1.0, subject.get("a", loader(1.0, calls)).getFitness(), delta);
+        assertEquals(1.0, subject.get("a", loader(2.0, calls)).getFitness(), delta);
+        assertEquals(2.0, subject.get("b", loader(2.0, calls)).getFitness(), delta);
+        assertEquals(2, calls.get());
+        assertEquals(1, subject.getHits());
+        assertEquals(2, subject.getMisses());
+        assertEquals(1.0 / 3, subject.getHitRate(), delta);
+
+        subject.resetStats();
+        assertEquals(0.0, subject.getHitRate(), delta);
+    }
+
+    @Test
+    public void testEviction() {
+        FitnessCache<Instance, Cluster<Instance>> subject = new FitnessCache<>(2);
+        AtomicInteger calls = new AtomicInteger();
+        subject.get("a", loader(1.0, calls));
+        subject.get("b", loader(2.0, calls));
+        //a is the most recently used
+        subject.get("a", loader(1.0, calls));
+        subject.get("c", loader(3.0, calls));
+        assertEquals(2, subject.size());
+        assertEquals(1, subject.getEvictions());
+        assertTrue(subject.contains("a"));
+        assertFalse(subject.contains("b"));
+        assertTrue(subject.contains("c"));
+    }
+
+    @Test
+    public void testFailureNotCached() {
+        FitnessCache<Instance, Cluster<Instance>> subject = new FitnessCache<>();
+        try {
+            subject.get("a", new Callable<FitnessCache.Result<Instance, Cluster<Instance>>>() {
+
+                @Override
+                public FitnessCache.Result<Instance, Cluster<Instance>> call() throws Exception {
+                    throw new IllegalStateException("failed");
+                }
+            });
+            fail("exception expected");
+        } catch (IllegalStateException ex) {
+            assertEquals("failed", ex.getMessage());
+        }
+        assertFalse(subject.contains("a"));
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        final FitnessCache<Instance, Cluster<Instance>> subject = new FitnessCache<>();
+        final AtomicInteger calls = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Callable<Double>> tasks = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            final String key = "k" + (i % 4);
+            tasks.add(new Callable<Double>() {
+
+                @Override
+                public Double call() throws Exception {
+                    return subject.get(key, new Callable<FitnessCache.Result<Instance, Cluster<Instance>>>() {
+
+                        @Override
+                        public FitnessCache.Result<Instance, Cluster<Instance>> call() throws Exception {
+                            calls.incrementAndGet();
+                            Thread.sleep(20);
+                            return new FitnessCache.Result<>(key.hashCode(), null);
+                        }
+                    }).getFitness();
+                }
+            });
+        }
+        List<Future<Double>> res = pool.invokeAll(tasks);
+        pool.shutdown();
+        for (int i = 0; i < res.size(); i++) {
+            assertEquals(("k" + (i % 4)).hashCode(), res.get(i).get(), delta);
+        }
+        //each genome is evaluated just once
+        assertEquals(4, calls.get());
+        assertEquals(60, subject.getHits());
+    }
+
+    @Test
+    public void testInstance() {
+        Dataset<Instance> d1 = new ArrayDataset<>(2, 1);
+        Dataset<Instance> d2 = new ArrayDataset<>(2, 1);
+        assertSame(FitnessCache.getInstance(d1), FitnessCache.getInstance(d1));
+        assertNotSame(FitnessCache.getInstance(d1), FitnessCache.getInstance(d2));
+    }
+}
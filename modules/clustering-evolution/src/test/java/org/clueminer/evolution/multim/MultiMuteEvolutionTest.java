@@ -1,14 +1,26 @@
 package org.clueminer.evolution.multim;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import org.clueminer.clustering.ClusteringExecutorCached;
 import org.clueminer.clustering.api.AgglParams;
 import org.clueminer.clustering.api.ExternalEvaluator;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
 import org.clueminer.eval.AIC;
 import org.clueminer.eval.external.Precision;
+import org.clueminer.evolution.api.Evolution;
+import org.clueminer.evolution.api.Individual;
+import org.clueminer.evolution.api.UpdateFeed;
 import org.clueminer.fixtures.clustering.FakeDatasets;
 import org.clueminer.report.MemInfo;
 import org.clueminer.utils.PropType;
 import org.clueminer.utils.Props;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -56,6 +68,111 @@ public class MultiMuteEvolutionTest {
         mem.report();
     }
 
+    private Dataset<Instance> blobs() {
+        Random rand = new Random(42);
+        Dataset<Instance> dataset = new ArrayDataset<>(60, 2);
+        dataset.attributeBuilder().create("x", "NUMERIC");
+        dataset.attributeBuilder().create("y", "NUMERIC");
+        for (int i = 0; i < 60; i++) {
+            dataset.builder().create(new double[]{5 * (i % 3) + rand.nextGaussian(), rand.nextGaussian()});
+        }
+        return dataset;
+    }
+
+    @Test
+    public void testParallel() {
+        subject.setDataset(blobs());
+        subject.setEvaluator(new AIC());
+        subject.setGenerations(3);
+        subject.setThreads(4);
+        final Thread caller = Thread.currentThread();
+        final List<Individual> created = new ArrayList<>();
+        final List<Integer> finished = new ArrayList<>();
+        subject.addUpdateListener(new UpdateFeed() {
+
+            @Override
+            public String getName() {
+                return "test";
+            }
+
+            @Override
+            public int started(Evolution evolution) {
+                return 1;
+            }
+
+            @Override
+            public void individualCreated(int runId, Individual individual) {
+                //callbacks are not called from worker threads
+                assertEquals(caller, Thread.currentThread());
+                created.add(individual);
+            }
+
+            @Override
+            public void finished(int runId) {
+                finished.add(runId);
+            }
+        });
+        subject.run();
+        assertFalse(created.isEmpty());
+        assertEquals(1, finished.size());
+        assertEquals(1, (int) finished.get(0));
+        for (Individual ind : created) {
+            assertFalse(Double.isNaN(ind.getFitness()));
+        }
+        //second run on the same data reuses evaluated genomes
+        long hits = subject.getFitnessCache().getHits();
+        subject.run();
+        assertTrue(subject.getFitnessCache().getHits() > hits);
+    }
+
+    /**
+     * Run evolution with seeded mutations and record all callbacks
+     *
+     * @param threads
+     * @return created individuals (genom and fitness) and finished runs
+     */
+    private List<String> record(int threads) {
+        MultiMuteEvolution evolution = new MultiMuteEvolution(new ClusteringExecutorCached());
+        evolution.setDataset(blobs());
+        evolution.setEvaluator(new AIC());
+        evolution.setGenerations(3);
+        evolution.setThreads(threads);
+        final List<String> events = new ArrayList<>();
+        evolution.addUpdateListener(new UpdateFeed() {
+
+            @Override
+            public String getName() {
+                return "test";
+            }
+
+            @Override
+            public int started(Evolution evolution) {
+                return 1;
+            }
+
+            @Override
+            public void individualCreated(int runId, Individual individual) {
+                events.add(individual.toString() + ": " + individual.getFitness());
+            }
+
+            @Override
+            public void finished(int runId) {
+                events.add("finished " + runId);
+            }
+        });
+        MultiMuteIndividual.rand.setSeed(7);
+        evolution.run();
+        return events;
+    }
+
+    @Test
+    public void testThreadsDeterministic() {
+        List<String> sequential = record(1);
+        List<String> parallel = record(4);
+        assertTrue(sequential.size() > 1);
+        assertEquals(sequential, parallel);
+    }
+
     @Test
     public void testMakeClusters() {
     }
@@ -31,21 +31,40 @@ public abstract class AbstractExecutor<E extends Instance, C extends Cluster<E>>
         this.algorithm = algorithm;
     }
 
+    /**
+     * Strategy with evaluator configured according to given parameters.
+     * Strategies are shared instances, callers running in parallel should
+     * rather use {@link #lookupCutoffStrategy(Props)} and set the evaluator
+     * while holding strategy's lock.
+     *
+     * @param params
+     * @return
+     */
     protected CutoffStrategy<E, C> getCutoffStrategy(Props params) {
-        CutoffStrategy<E, C> strategy;
+        CutoffStrategy<E, C> strategy = lookupCutoffStrategy(params);
+        strategy.setEvaluator(getCutoffEvaluator(params));
+        return strategy;
+    }
+
+    /**
+     * Find cutoff strategy without modifying it
+     *
+     * @param params
+     * @return shared strategy instance
+     */
+    protected CutoffStrategy<E, C> lookupCutoffStrategy(Props params) {
         String cutoffAlg = params.get(AgglParams.CUTOFF_STRATEGY, "hill-climb inc");
 
         if (cutoffAlg.equals("-- naive --")) {
-            strategy = CutoffStrategyFactory.getInstance().getDefault();
-        } else {
-            strategy = CutoffStrategyFactory.getInstance().getProvider(cutoffAlg);
+            return CutoffStrategyFactory.getInstance().getDefault();
         }
+        return CutoffStrategyFactory.getInstance().getProvider(cutoffAlg);
+    }
+
+    protected InternalEvaluator<E, C> getCutoffEvaluator(Props params) {
         String evalAlg = params.get(AgglParams.CUTOFF_SCORE, "AIC");
         InternalEvaluatorFactory<E, C> ief = InternalEvaluatorFactory.getInstance();
-        InternalEvaluator<E, C> eval = ief.getProvider(evalAlg);
-        strategy.setEvaluator(eval);
-
-        return strategy;
+        return ief.getProvider(evalAlg);
     }
 
 }
@@ -1,7 +1,7 @@
 package org.clueminer.clustering;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.clueminer.clustering.aggl.HACLW;
@@ -13,6 +13,7 @@ import org.clueminer.clustering.api.ClusteringAlgorithm;
 import org.clueminer.clustering.api.CutoffStrategy;
 import org.clueminer.clustering.api.Executor;
 import org.clueminer.clustering.api.HierarchicalResult;
+import org.clueminer.clustering.api.InternalEvaluator;
 import org.clueminer.clustering.api.ClusteringType;
 import org.clueminer.clustering.api.dendrogram.DendrogramMapping;
 import org.clueminer.clustering.api.dendrogram.OptimalTreeOrder;
@@ -38,7 +39,7 @@ import org.clueminer.utils.Props;
 public class ClusteringExecutorCached<E extends Instance, C extends Cluster<E>> extends AbstractExecutor<E, C> implements Executor<E, C> {
 
     private static final Logger logger = Logger.getLogger(ClusteringExecutorCached.class.getName());
-    private Map<Dataset<? extends Instance>, StdStorage> storage;
+    private final ConcurrentMap<Dataset<? extends Instance>, StdStorage> storage = new ConcurrentHashMap<>(2);
     private OptimalTreeOrder treeOrder = new MOLO();
 
     public ClusteringExecutorCached() {
@@ -84,16 +85,13 @@ public class ClusteringExecutorCached<E extends Instance, C extends Cluster<E>>
 
     private StdStorage getStorage(Dataset<? extends Instance> dataset) {
         checkInput(dataset);
-        StdStorage stdStore;
-
-        if (storage == null) {
-            storage = new HashMap<>(2);
-        }
-        if (storage.containsKey(dataset)) {
-            stdStore = storage.get(dataset);
-        } else {
+        StdStorage stdStore = storage.get(dataset);
+        if (stdStore == null) {
             stdStore = new StdStorage(dataset);
-            storage.put(dataset, stdStore);
+            StdStorage other = storage.putIfAbsent(dataset, stdStore);
+            if (other != null) {
+                stdStore = other;
+            }
         }
         return stdStore;
     }
@@ -118,9 +116,16 @@ public class ClusteringExecutorCached<E extends Instance, C extends Cluster<E>>
     }
 
     public void findCutoff(HierarchicalResult result, Props params) {
-        CutoffStrategy strategy = getCutoffStrategy(params);
+        CutoffStrategy strategy = lookupCutoffStrategy(params);
+        InternalEvaluator eval = getCutoffEvaluator(params);
         logger.log(Level.FINER, "cutting dendrogram with {0}", strategy.getName());
-        double cut = result.findCutoff(strategy);
+        double cut;
+        //strategies are shared instances, evaluator must not be replaced by
+        //another thread while cutting the tree
+        synchronized (strategy) {
+            strategy.setEvaluator(eval);
+            cut = result.findCutoff(strategy);
+        }
         logger.log(Level.FINER, "found cutoff {0}, resulting clusters {1}", new Object[]{cut, result.getClustering().size()});
     }
 
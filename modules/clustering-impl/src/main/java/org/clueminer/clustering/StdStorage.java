@@ -1,10 +1,10 @@
 package org.clueminer.clustering;
 
-import com.google.common.base.Supplier;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Table;
-import com.google.common.collect.Tables;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import org.clueminer.dataset.api.Dataset;
 import org.clueminer.dataset.api.Instance;
 import org.clueminer.dataset.std.DataScaler;
@@ -13,13 +13,16 @@ import org.clueminer.dataset.std.DataScaler;
  * Simple storage for standardized data, stores references to data, not deep
  * copies of the data.
  *
+ * Storage is safe for concurrent use, each standardization is computed just
+ * once (other threads requesting the same one wait for the result).
+ *
  * @author Tomas Barton
  */
 public class StdStorage {
 
     private final Dataset<? extends Instance> dataset;
-    private final Table<String, Boolean, Dataset<? extends Instance>> cache;
-    private DataScaler ds;
+    private final ConcurrentMap<String, FutureTask<Dataset<? extends Instance>>> cache;
+    private final DataScaler ds = new DataScaler();
 
     /**
      * Currently it is storage only for one dataset
@@ -28,22 +31,47 @@ public class StdStorage {
      */
     public StdStorage(Dataset<? extends Instance> dataset) {
         this.dataset = dataset;
-        cache = newTable();
+        cache = new ConcurrentHashMap<>();
     }
 
-    public Dataset<? extends Instance> get(String method, boolean logscale) {
-        if (!isCached(method, logscale)) {
-            if (ds == null) {
-                ds = new DataScaler();
+    public Dataset<? extends Instance> get(final String method, final boolean logscale) {
+        String key = key(method, logscale);
+        FutureTask<Dataset<? extends Instance>> task = cache.get(key);
+        if (task == null) {
+            FutureTask<Dataset<? extends Instance>> created = new FutureTask<>(new Callable<Dataset<? extends Instance>>() {
+
+                @Override
+                public Dataset<? extends Instance> call() throws Exception {
+                    return ds.standartize(dataset, method, logscale);
+                }
+            });
+            task = cache.putIfAbsent(key, created);
+            if (task == null) {
+                task = created;
+                task.run();
+            }
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            //don't cache failures
+            cache.remove(key, task);
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
             }
-            Dataset<? extends Instance> norm = ds.standartize(dataset, method, logscale);
-            cache.put(method, logscale, norm);
+            throw new RuntimeException(ex.getCause());
         }
-        return cache.get(method, logscale);
+    }
+
+    private String key(String method, boolean logscale) {
+        return logscale ? method + "|log" : method;
     }
 
     public boolean isCached(String method, boolean logscale) {
-        return cache.contains(method, logscale);
+        return cache.containsKey(key(method, logscale));
     }
 
     /**
@@ -59,15 +87,4 @@ public class StdStorage {
     public Dataset<? extends Instance> getDataset() {
         return dataset;
     }
-
-    public static Table<String, Boolean, Dataset<? extends Instance>> newTable() {
-        return Tables.newCustomTable(
-                Maps.<String, Map<Boolean, Dataset<? extends Instance>>>newHashMap(),
-                new Supplier<Map<Boolean, Dataset<? extends Instance>>>() {
-                    @Override
-                    public Map<Boolean, Dataset<? extends Instance>> get() {
-                        return Maps.newHashMap();
-                    }
-                });
-    }
 }
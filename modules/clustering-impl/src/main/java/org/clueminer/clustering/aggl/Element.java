@@ -16,6 +16,13 @@ public class Element implements Comparable {
         this.column = column;
     }
 
+    /**
+     * Elements are ordered by value, ties are broken by row and column index
+     * so that the order doesn't depend on order of insertion into a queue
+     *
+     * @param o
+     * @return
+     */
     @Override
     public int compareTo(Object o) {
         Element other = (Element) o;
@@ -25,6 +32,12 @@ public class Element implements Comparable {
         } else if (diff < 0) {
             return -1;
         }
+        if (row != other.row) {
+            return row < other.row ? -1 : 1;
+        }
+        if (column != other.column) {
+            return column < other.column ? -1 : 1;
+        }
         return 0;
     }
 
@@ -25,6 +25,7 @@ import org.clueminer.clustering.api.dendrogram.DendroNode;
 import org.clueminer.clustering.api.dendrogram.DendroTreeData;
 import org.clueminer.dataset.api.Dataset;
 import org.clueminer.dataset.api.Instance;
+import org.clueminer.distance.api.Distance;
 import org.clueminer.hclust.DLeaf;
 import org.clueminer.hclust.DTreeNode;
 import org.clueminer.hclust.DynamicTreeData;
@@ -114,12 +115,14 @@ public class HAC<E extends Instance, C extends Cluster<E>> extends AbstractClust
         //TODO: we might track clustering by estimated time (instead of counters)
         AbstractQueue<Element> pq = initQueue(items, pref);
         Matrix similarityMatrix;
+        //don't read the field, algorithm instance might be shared by multiple threads
+        Distance dm = params.getDistanceMeasure();
 
         if (params.clusterRows()) {
-            similarityMatrix = AgglClustering.rowSimilarityMatrix(input, distanceFunction, pq);
+            similarityMatrix = AgglClustering.rowSimilarityMatrix(input, dm, pq);
         } else {
             logger.log(Level.INFO, "matrix columns: {0}", input.columnsCount());
-            similarityMatrix = AgglClustering.columnSimilarityMatrix(input, distanceFunction, pq);
+            similarityMatrix = AgglClustering.columnSimilarityMatrix(input, dm, pq);
         }
         //whether to keep reference to proximity matrix (could be memory exhausting)
         if (pref.getBoolean(PropType.PERFORMANCE, AgglParams.KEEP_PROXIMITY, false)) {
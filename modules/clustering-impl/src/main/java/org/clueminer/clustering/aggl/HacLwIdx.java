@@ -0,0 +1,288 @@
+package org.clueminer.clustering.aggl;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.clueminer.clustering.aggl.linkage.CompleteLinkageInv;
+import org.clueminer.clustering.aggl.linkage.MedianLinkage;
+import org.clueminer.clustering.algorithm.HClustResult;
+import org.clueminer.clustering.api.AgglParams;
+import org.clueminer.clustering.api.AgglomerativeClustering;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.ClusterLinkage;
+import org.clueminer.clustering.api.ClusteringAlgorithm;
+import org.clueminer.clustering.api.HierarchicalResult;
+import org.clueminer.clustering.api.dendrogram.DendroNode;
+import org.clueminer.clustering.api.dendrogram.DendroTreeData;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.distance.ProximityMatrixBuilder;
+import org.clueminer.distance.api.Distance;
+import org.clueminer.hclust.DLeaf;
+import org.clueminer.hclust.DTreeNode;
+import org.clueminer.hclust.DynamicTreeData;
+import org.clueminer.math.Matrix;
+import org.clueminer.math.matrix.SymmetricMatrix;
+import org.clueminer.utils.PropType;
+import org.clueminer.utils.Props;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Hierarchical clustering - updating distances using Lance-Williams update
+ * formula, proximities are kept in a flat (lower triangular) double array and
+ * candidates for merging in an indexed heap.
+ *
+ * Each cluster keeps a (lazily updated) pointer to its nearest neighbor, the
+ * heap contains at most n items - one per cluster. Thus there are no dead pairs
+ * in the queue and no boxing of distances.
+ *
+ * memory complexity:
+ * <li>
+ * <ul>double array (n - 1) * n / 2 - for storing similarity matrix</ul>
+ * <ul>heap and nearest neighbor pointers O(n)</ul>
+ * <ul>tree structure (2 * n - 1 objects)</ul>
+ * </li>
+ * time complexity - O(n^2) best case, O(n^3) worst case
+ *
+ * Müllner, Daniel. "Modern hierarchical, agglomerative clustering algorithms."
+ * arXiv preprint arXiv:1109.2378 (2011).
+ *
+ * @author Tomas Barton
+ * @param <E>
+ * @param <C>
+ */
+@ServiceProvider(service = ClusteringAlgorithm.class)
+public class HacLwIdx<E extends Instance, C extends Cluster<E>> extends HAC<E, C> implements AgglomerativeClustering<E, C> {
+
+    private final static String name = "HAC-LW-IDX";
+    private static final Logger logger = Logger.getLogger(HacLwIdx.class.getName());
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public HierarchicalResult hierarchy(Dataset<E> dataset, Props pref) {
+        return hierarchy(dataset.asMatrix(), dataset, pref);
+    }
+
+    @Override
+    public HierarchicalResult hierarchy(Matrix input, Dataset<? extends Instance> dataset, Props pref) {
+        int n;
+        HierarchicalResult result = new HClustResult(dataset, pref);
+        pref.put(AgglParams.ALG, getName());
+        checkParams(pref);
+        AgglParams params = new AgglParams(pref);
+        Distance dm = params.getDistanceMeasure();
+        if (params.clusterRows()) {
+            n = input.rowsCount();
+        } else {
+            //columns clustering
+            n = input.columnsCount();
+        }
+        logger.log(Level.FINE, "{0} clustering: {1}", new Object[]{getName(), pref.toString()});
+        double[] dist = proximity(input, dm, params.clusterRows());
+        //whether to keep reference to proximity matrix (could be memory exhausting)
+        if (n > 1 && pref.getBoolean(PropType.PERFORMANCE, AgglParams.KEEP_PROXIMITY, false)) {
+            Matrix similarityMatrix = new SymmetricMatrix(n, n);
+            for (int j = 1; j < n; j++) {
+                for (int i = 0; i < j; i++) {
+                    similarityMatrix.set(i, j, dist[idx(i, j)]);
+                }
+            }
+            result.setProximityMatrix(similarityMatrix);
+        }
+        boolean smallestFirst = pref.getBoolean(AgglParams.SMALLEST_FIRST, true);
+        DendroTreeData treeData = computeLinkage(dist, dataset, params, n, smallestFirst);
+        treeData.createMapping(n, treeData.getRoot());
+        result.setTreeData(treeData);
+        return result;
+    }
+
+    /**
+     * Computes pairwise distances and stores them in lower triangular array,
+     * distance between i and j (i &lt; j) is stored at {@link #idx(int, int)}.
+     * For non-symmetric distance functions the distance from i to j is used.
+     *
+     * @param input
+     * @param dm
+     * @param rows
+     * @return
+     */
+    protected double[] proximity(Matrix input, Distance dm, boolean rows) {
+        ProximityMatrixBuilder builder = new ProximityMatrixBuilder(dm);
+        if (rows) {
+            return builder.rowsTriangle(input);
+        }
+        return builder.columnsTriangle(input);
+    }
+
+    /**
+     * Position of pair (i, j) in lower triangular array, i &lt; j
+     *
+     * @param i
+     * @param j
+     * @return
+     */
+    protected int idx(int i, int j) {
+        return (int) (((long) j * (j - 1)) >>> 1) + i;
+    }
+
+    /**
+     * Merges clusters in order given by the heap of nearest neighbors. Merged
+     * cluster always takes place of the cluster with higher index, therefore
+     * all nearest neighbor pointers point to higher indexes.
+     *
+     * @param dist flat proximity array (will be overwritten)
+     * @param dataset
+     * @param params
+     * @param n
+     * @param smallestFirst
+     * @return
+     */
+    protected DendroTreeData computeLinkage(double[] dist, Dataset<? extends Instance> dataset,
+            AgglParams params, int n, boolean smallestFirst) {
+        //merged nodes are stored at index of merged cluster
+        DendroNode[] nodes = new DendroNode[n];
+        ClusterLinkage linkage = params.getLinkage();
+        //heap is always min-heap, for reversed order we negate distances
+        double sign = smallestFirst ? 1.0 : -1.0;
+        int[] size = new int[n];
+        int[] nghbr = new int[n];
+        //doubly linked list of active clusters, n is a sentinel
+        int[] succ = new int[n + 1];
+        int[] pred = new int[n + 1];
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+
+        for (int i = 0; i < n; i++) {
+            size[i] = 1;
+            succ[i] = i + 1;
+            pred[i + 1] = i;
+            if (params.clusterRows()) {
+                nodes[i] = new DLeaf(i, dataset.get(i));
+            } else {
+                nodes[i] = new DLeaf(i, dataset.getAttribute(i));
+            }
+        }
+        succ[n] = 0;
+        pred[0] = n;
+        for (int i = 0; i < n - 1; i++) {
+            nearest(i, dist, succ, nghbr, heap, sign, n);
+        }
+
+        DendroNode node = null;
+        int a, b, x, ma, mb;
+        double dab, daq, dbq, d;
+        int nodeId = n;
+        while (!heap.isEmpty()) {
+            a = heap.peek();
+            b = nghbr[a];
+            //lazy update - neighbor pointer might be outdated
+            while (key(sign, dist[idx(a, b)]) != heap.key(a)) {
+                nearest(a, dist, succ, nghbr, heap, sign, n);
+                a = heap.peek();
+                b = nghbr[a];
+            }
+            dab = dist[idx(a, b)];
+            heap.remove(a);
+
+            node = new DTreeNode(nodeId++);
+            node.setLeft(nodes[a]);
+            node.setRight(nodes[b]);
+            node.setHeight(dab);
+            nodes[b] = node;
+            nodes[a] = null;
+
+            //remove cluster A from active clusters
+            succ[pred[a]] = succ[a];
+            pred[succ[a]] = pred[a];
+            ma = size[a];
+            mb = size[b];
+            //update distances to new cluster R which is stored at position B
+            for (x = succ[n]; x < n; x = succ[x]) {
+                if (x == b) {
+                    continue;
+                }
+                daq = dist[x < a ? idx(x, a) : idx(a, x)];
+                dbq = dist[x < b ? idx(x, b) : idx(b, x)];
+                d = linkage.alphaA(ma, mb, size[x]) * daq + linkage.alphaB(ma, mb, size[x]) * dbq;
+                if (linkage.beta(ma, mb, size[x]) != 0) {
+                    d += linkage.beta(ma, mb, size[x]) * dab;
+                }
+                if (linkage.gamma() != 0) {
+                    d += linkage.gamma() * Math.abs(daq - dbq);
+                }
+                if (x < b) {
+                    dist[idx(x, b)] = d;
+                    if (x < a && nghbr[x] == a) {
+                        //A doesn't exist anymore, its successor is R (B)
+                        nghbr[x] = b;
+                    }
+                    if (key(sign, d) < heap.key(x)) {
+                        nghbr[x] = b;
+                        heap.update(x, key(sign, d));
+                    }
+                } else {
+                    dist[idx(b, x)] = d;
+                }
+            }
+            size[b] = ma + mb;
+            if (succ[b] < n) {
+                nearest(b, dist, succ, nghbr, heap, sign, n);
+            } else {
+                heap.remove(b);
+            }
+        }
+        if (node == null && n > 0) {
+            //single item, the tree is just a leaf
+            node = nodes[0];
+        }
+        //last node is the root
+        return new DynamicTreeData(node);
+    }
+
+    /**
+     * Find nearest neighbor of cluster i among active clusters with higher
+     * index and update heap
+     */
+    private void nearest(int i, double[] dist, int[] succ, int[] nghbr,
+            IndexedMinHeap heap, double sign, int n) {
+        int j = succ[i];
+        int best = j;
+        double min = key(sign, dist[idx(i, j)]);
+        double d;
+        for (j = succ[j]; j < n; j = succ[j]) {
+            d = key(sign, dist[idx(i, j)]);
+            if (d < min) {
+                min = d;
+                best = j;
+            }
+        }
+        nghbr[i] = best;
+        heap.put(i, min);
+    }
+
+    /**
+     * Heap key of given distance, undefined distances (NaN) are merged last
+     *
+     * @param sign
+     * @param d
+     * @return
+     */
+    private static double key(double sign, double d) {
+        double key = sign * d;
+        return Double.isNaN(key) ? Double.POSITIVE_INFINITY : key;
+    }
+
+    @Override
+    public boolean isLinkageSupported(String linkage) {
+        switch (linkage) {
+            case MedianLinkage.name:
+            case CompleteLinkageInv.name:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+}
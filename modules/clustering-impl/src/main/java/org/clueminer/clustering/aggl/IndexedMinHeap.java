@@ -0,0 +1,186 @@
+package org.clueminer.clustering.aggl;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary min-heap over integer IDs (0 ... capacity - 1) with priorities stored
+ * in primitive arrays. Unlike {@link java.util.PriorityQueue} each ID is
+ * present at most once, therefore a priority could be decreased, increased or
+ * removed without leaving stale entries in the queue.
+ *
+ * Ties are broken by lower ID, which makes the order of polled items
+ * deterministic.
+ *
+ * @author Tomas Barton
+ */
+public class IndexedMinHeap {
+
+    /**
+     * heap ordered IDs
+     */
+    private final int[] heap;
+    /**
+     * position of ID in the heap, -1 when ID is not present
+     */
+    private final int[] pos;
+    /**
+     * priority of each ID
+     */
+    private final double[] keys;
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        pos = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(pos, -1);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return pos[id] >= 0;
+    }
+
+    /**
+     * Priority of given ID, undefined when ID is not in the heap
+     *
+     * @param id
+     * @return
+     */
+    public double key(int id) {
+        return keys[id];
+    }
+
+    /**
+     * Insert ID or update its priority when already present
+     *
+     * @param id
+     * @param key
+     */
+    public void put(int id, double key) {
+        if (contains(id)) {
+            update(id, key);
+        } else {
+            keys[id] = key;
+            heap[size] = id;
+            pos[id] = size;
+            size++;
+            siftUp(size - 1);
+        }
+    }
+
+    /**
+     * Change priority of ID which is already in the heap
+     *
+     * @param id
+     * @param key
+     */
+    public void update(int id, double key) {
+        double old = keys[id];
+        keys[id] = key;
+        if (key < old) {
+            siftUp(pos[id]);
+        } else if (key > old) {
+            siftDown(pos[id]);
+        }
+    }
+
+    /**
+     * ID with lowest priority
+     *
+     * @return
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException("heap is empty");
+        }
+        return heap[0];
+    }
+
+    /**
+     * Removes and returns ID with lowest priority
+     *
+     * @return
+     */
+    public int poll() {
+        int id = peek();
+        remove(id);
+        return id;
+    }
+
+    /**
+     * Remove ID from the heap, does nothing when ID is not present
+     *
+     * @param id
+     */
+    public void remove(int id) {
+        int i = pos[id];
+        if (i < 0) {
+            return;
+        }
+        size--;
+        pos[id] = -1;
+        if (i < size) {
+            int last = heap[size];
+            heap[i] = last;
+            pos[last] = i;
+            siftUp(i);
+            siftDown(pos[last]);
+        }
+    }
+
+    private boolean less(int a, int b) {
+        double ka = keys[a];
+        double kb = keys[b];
+        if (ka < kb) {
+            return true;
+        } else if (ka > kb) {
+            return false;
+        }
+        return a < b;
+    }
+
+    private void siftUp(int i) {
+        int id = heap[i];
+        int parent;
+        while (i > 0) {
+            parent = (i - 1) >>> 1;
+            if (!less(id, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            pos[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = id;
+        pos[id] = i;
+    }
+
+    private void siftDown(int i) {
+        int id = heap[i];
+        int child;
+        while ((child = (i << 1) + 1) < size) {
+            if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(heap[child], id)) {
+                break;
+            }
+            heap[i] = heap[child];
+            pos[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = id;
+        pos[id] = i;
+    }
+
+}
@@ -0,0 +1,320 @@
+package org.clueminer.clustering.aggl;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.clueminer.clustering.aggl.linkage.AverageLinkage;
+import org.clueminer.clustering.aggl.linkage.CompleteLinkage;
+import org.clueminer.clustering.aggl.linkage.SingleLinkage;
+import org.clueminer.clustering.aggl.linkage.WardsLinkage;
+import org.clueminer.clustering.algorithm.HClustResult;
+import org.clueminer.clustering.api.AgglParams;
+import org.clueminer.clustering.api.AgglomerativeClustering;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.ClusterLinkage;
+import org.clueminer.clustering.api.ClusteringAlgorithm;
+import org.clueminer.clustering.api.HierarchicalResult;
+import org.clueminer.clustering.api.dendrogram.DendroNode;
+import org.clueminer.clustering.api.dendrogram.DendroTreeData;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.distance.api.Distance;
+import org.clueminer.hclust.DLeaf;
+import org.clueminer.hclust.DTreeNode;
+import org.clueminer.hclust.DynamicTreeData;
+import org.clueminer.math.Matrix;
+import org.clueminer.utils.PropType;
+import org.clueminer.utils.Props;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Hierarchical clustering using nearest-neighbor chain. Works only with
+ * reducible linkages (single, complete, average, Ward's), for those it
+ * produces the same dendrogram as HAC while the only working memory is the
+ * proximity matrix (no priority queue).
+ *
+ * memory complexity:
+ * <li>
+ * <ul>double array (n - 1) * n / 2 - for storing similarity matrix</ul>
+ * <ul>chain, merges and tree structure O(n)</ul>
+ * </li>
+ * time complexity - O(n^2)
+ *
+ * Murtagh, Fionn. "A survey of recent advances in hierarchical clustering
+ * algorithms." The Computer Journal 26, no. 4 (1983): 354-359.
+ *
+ * @author Tomas Barton
+ * @param <E>
+ * @param <C>
+ */
+@ServiceProvider(service = ClusteringAlgorithm.class)
+public class NNChain<E extends Instance, C extends Cluster<E>> extends HAC<E, C> implements AgglomerativeClustering<E, C> {
+
+    private final static String name = "NN-chain";
+    private static final Logger logger = Logger.getLogger(NNChain.class.getName());
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public HierarchicalResult hierarchy(Dataset<E> dataset, Props pref) {
+        return hierarchy(dataset.asMatrix(), dataset, pref);
+    }
+
+    @Override
+    public HierarchicalResult hierarchy(Matrix input, Dataset<? extends Instance> dataset, Props pref) {
+        int n;
+        HierarchicalResult result = new HClustResult(dataset, pref);
+        pref.put(AgglParams.ALG, getName());
+        checkParams(pref);
+        AgglParams params = new AgglParams(pref);
+        Distance dm = params.getDistanceMeasure();
+        logger.log(Level.FINE, "{0} clustering: {1}", new Object[]{getName(), pref.toString()});
+        Matrix similarityMatrix = null;
+        if (params.clusterRows()) {
+            n = input.rowsCount();
+            if (n > 1) {
+                similarityMatrix = AgglClustering.rowSimilarityMatrix(input, dm);
+            }
+        } else {
+            //columns clustering
+            n = input.columnsCount();
+            if (n > 1) {
+                similarityMatrix = AgglClustering.columnSimilarityMatrix(input, dm);
+            }
+        }
+        //whether to keep reference to proximity matrix (could be memory exhausting)
+        if (n > 1 && pref.getBoolean(PropType.PERFORMANCE, AgglParams.KEEP_PROXIMITY, false)) {
+            result.setProximityMatrix(similarityMatrix);
+            //proximity matrix is overwritten during clustering
+            similarityMatrix = similarityMatrix.copy();
+        }
+        boolean smallestFirst = pref.getBoolean(AgglParams.SMALLEST_FIRST, true);
+        DendroTreeData treeData = computeLinkage(similarityMatrix, dataset, params, n, smallestFirst);
+        treeData.createMapping(n, treeData.getRoot());
+        result.setTreeData(treeData);
+        return result;
+    }
+
+    /**
+     * Linkage must be reducible, otherwise we would get different results
+     * than with standard HAC
+     *
+     * @param props
+     */
+    @Override
+    protected void checkParams(Props props) {
+        String linkage = props.get(AgglParams.LINKAGE, AgglParams.DEFAULT_LINKAGE);
+        if (!isLinkageSupported(linkage)) {
+            throw new RuntimeException(getName() + " doesn't support linkage " + linkage);
+        }
+    }
+
+    /**
+     * Grow a chain of nearest neighbors until two reciprocal nearest
+     * neighbors are found, those are merged immediately. Merges are sorted by
+     * height afterwards in order to build a dendrogram.
+     *
+     * @param sim proximity matrix, values are overwritten by updated distances
+     *            (might be null for less than 2 items)
+     * @param dataset
+     * @param params
+     * @param n
+     * @param smallestFirst
+     * @return
+     */
+    protected DendroTreeData computeLinkage(Matrix sim, Dataset<? extends Instance> dataset,
+            AgglParams params, int n, boolean smallestFirst) {
+        if (n <= 1) {
+            //nothing to merge, the tree is a single leaf (or empty)
+            return new DynamicTreeData(n == 1 ? leaf(0, dataset, params) : null);
+        }
+        ClusterLinkage linkage = params.getLinkage();
+        double sign = smallestFirst ? 1.0 : -1.0;
+        int[] size = new int[n];
+        //doubly linked list of active clusters, n is a sentinel
+        int[] succ = new int[n + 1];
+        int[] pred = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            size[i] = 1;
+            succ[i] = i + 1;
+            pred[i + 1] = i;
+        }
+        succ[n] = 0;
+        pred[0] = n;
+
+        int[] chain = new int[n];
+        int top = 0;
+        final int[] mergeA = new int[n - 1];
+        final int[] mergeB = new int[n - 1];
+        final double[] height = new double[n - 1];
+        int merges = 0;
+        int a, b, x, ma, mb;
+        double min, d, dab, daq, dbq;
+        while (merges < n - 1) {
+            if (top == 0) {
+                chain[top++] = succ[n];
+            }
+            a = chain[top - 1];
+            //prefer previous item in chain in case of ties
+            if (top > 1) {
+                b = chain[top - 2];
+                min = sign * get(sim, a, b);
+            } else {
+                b = -1;
+                min = Double.POSITIVE_INFINITY;
+            }
+            for (x = succ[n]; x < n; x = succ[x]) {
+                if (x != a) {
+                    d = sign * get(sim, a, x);
+                    if (d < min) {
+                        min = d;
+                        b = x;
+                    }
+                }
+            }
+            if (top > 1 && b == chain[top - 2]) {
+                //reciprocal nearest neighbors
+                top -= 2;
+                if (a > b) {
+                    x = a;
+                    a = b;
+                    b = x;
+                }
+                dab = get(sim, a, b);
+                mergeA[merges] = a;
+                mergeB[merges] = b;
+                height[merges] = dab;
+                merges++;
+                //cluster A is removed, merged cluster is stored at B
+                succ[pred[a]] = succ[a];
+                pred[succ[a]] = pred[a];
+                ma = size[a];
+                mb = size[b];
+                for (x = succ[n]; x < n; x = succ[x]) {
+                    if (x != b) {
+                        daq = get(sim, a, x);
+                        dbq = get(sim, b, x);
+                        d = linkage.alphaA(ma, mb, size[x]) * daq + linkage.alphaB(ma, mb, size[x]) * dbq;
+                        if (linkage.beta(ma, mb, size[x]) != 0) {
+                            d += linkage.beta(ma, mb, size[x]) * dab;
+                        }
+                        if (linkage.gamma() != 0) {
+                            d += linkage.gamma() * Math.abs(daq - dbq);
+                        }
+                        set(sim, b, x, d);
+                    }
+                }
+                size[b] = ma + mb;
+            } else {
+                chain[top++] = b;
+            }
+        }
+        return buildTree(mergeA, mergeB, height, dataset, params, n, sign);
+    }
+
+    /**
+     * Build dendrogram from merges sorted by height
+     *
+     * @param mergeA
+     * @param mergeB
+     * @param height
+     * @param dataset
+     * @param params
+     * @param n
+     * @param sign
+     * @return
+     */
+    private DendroTreeData buildTree(int[] mergeA, int[] mergeB, final double[] height,
+            Dataset<? extends Instance> dataset, AgglParams params, int n, final double sign) {
+        Integer[] order = new Integer[n - 1];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        //stable sort, preserves order of merges with equal height
+        Arrays.sort(order, new Comparator<Integer>() {
+
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(sign * height[o1], sign * height[o2]);
+            }
+        });
+        DendroNode[] nodes = new DendroNode[n];
+        //union-find structure, each set is represented by its current node
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            nodes[i] = leaf(i, dataset, params);
+        }
+        DendroNode node = null;
+        int ra, rb;
+        int nodeId = n;
+        for (int k : order) {
+            ra = find(parent, mergeA[k]);
+            rb = find(parent, mergeB[k]);
+            node = new DTreeNode(nodeId++);
+            node.setLeft(nodes[ra]);
+            node.setRight(nodes[rb]);
+            node.setHeight(height[k]);
+            parent[ra] = rb;
+            nodes[rb] = node;
+            nodes[ra] = null;
+        }
+        //last node is the root
+        return new DynamicTreeData(node);
+    }
+
+    private DendroNode leaf(int i, Dataset<? extends Instance> dataset, AgglParams params) {
+        if (params.clusterRows()) {
+            return new DLeaf(i, dataset.get(i));
+        }
+        return new DLeaf(i, dataset.getAttribute(i));
+    }
+
+    private int find(int[] parent, int i) {
+        int root = i;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        //path compression
+        int next;
+        while (parent[i] != root) {
+            next = parent[i];
+            parent[i] = root;
+            i = next;
+        }
+        return root;
+    }
+
+    /**
+     * Matrix might not be symmetrical, we always use upper triangle
+     */
+    private double get(Matrix sim, int i, int j) {
+        return i < j ? sim.get(i, j) : sim.get(j, i);
+    }
+
+    private void set(Matrix sim, int i, int j, double value) {
+        if (i < j) {
+            sim.set(i, j, value);
+        } else {
+            sim.set(j, i, value);
+        }
+    }
+
+    @Override
+    public boolean isLinkageSupported(String linkage) {
+        switch (linkage) {
+            case SingleLinkage.name:
+            case CompleteLinkage.name:
+            case AverageLinkage.name:
+            case WardsLinkage.name:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+}
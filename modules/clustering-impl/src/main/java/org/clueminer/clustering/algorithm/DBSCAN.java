@@ -26,6 +26,7 @@ import org.clueminer.clustering.api.Clustering;
 import org.clueminer.clustering.api.ClusteringAlgorithm;
 import org.clueminer.clustering.api.config.annotation.Param;
 import org.clueminer.clustering.api.factory.Clusterings;
+import org.clueminer.clustering.struct.LabelClustering;
 import org.clueminer.dataset.api.Dataset;
 import org.clueminer.dataset.api.Instance;
 import org.clueminer.neighbor.Neighbor;
@@ -53,6 +54,10 @@ public class DBSCAN<E extends Instance, C extends Cluster<E>> extends AbstractCl
     public static final String MIN_PTS = "minPts";
     public static final String EPS = "eps";
 
+    /**
+     * name of {@link RNNSearch} provider, e.g. "linear RNN" (default) or
+     * "VP-tree" which is much faster on large datasets
+     */
     public static final String RNN_ALG = "rnnAlg";
 
     /**
@@ -87,6 +92,9 @@ public class DBSCAN<E extends Instance, C extends Cluster<E>> extends AbstractCl
     public Clustering<E, C> cluster(Dataset<E> dataset, Props props) {
         int[] y = scan(dataset, props);
         int n = dataset.size();
+        if (props.getBoolean(LABEL_CLUSTERING, false)) {
+            return labelClustering(dataset, props, y);
+        }
         Clustering res = Clusterings.newList();
         int avgSize = (int) Math.sqrt(dataset.size());
         Cluster curr;
@@ -118,6 +126,32 @@ public class DBSCAN<E extends Instance, C extends Cluster<E>> extends AbstractCl
         return res;
     }
 
+    /**
+     * Noise is stored in the last cluster
+     */
+    private Clustering<E, C> labelClustering(Dataset<E> dataset, Props props, int[] y) {
+        boolean noise = false;
+        for (int i = 0; i < y.length; i++) {
+            if (y[i] == OUTLIER) {
+                y[i] = k;
+                noise = true;
+            }
+        }
+        Clustering res = new LabelClustering(dataset, y, noise ? k + 1 : k);
+        if (colorGenerator != null) {
+            colorGenerator.reset();
+            for (int i = 0; i < res.size(); i++) {
+                res.get(i).setColor(colorGenerator.next());
+            }
+        }
+        if (noise) {
+            res.setClusterName(k, AbstractClusteringAlgorithm.OUTLIER_LABEL);
+        }
+        res.lookupAdd(dataset);
+        res.setParams(props);
+        return res;
+    }
+
     public List<Instance> findNoise(Dataset<E> dataset, Props props) {
         int[] y = scan(dataset, props);
         int n = dataset.size();
@@ -9,6 +9,7 @@ import org.clueminer.clustering.api.Cluster;
 import org.clueminer.clustering.api.Clustering;
 import org.clueminer.clustering.api.CutoffStrategy;
 import org.clueminer.clustering.api.HierarchicalResult;
+import org.clueminer.clustering.api.IncrementalEvaluator;
 import org.clueminer.clustering.api.Merge;
 import org.clueminer.clustering.api.ClusteringType;
 import org.clueminer.clustering.api.dendrogram.DendroTreeData;
@@ -198,6 +199,12 @@ public class HCLResult<E extends Instance, C extends Cluster<E>> implements Hier
         }
     }
 
+    @Override
+    public boolean scoreCuts(IncrementalEvaluator evaluator, Props params) {
+        //tree is cut by TreeDataImpl
+        return false;
+    }
+
     @Override
     public boolean isScoreCached(String evaluator, int clustNum) {
         if (this.scores.containsKey(evaluator)) {
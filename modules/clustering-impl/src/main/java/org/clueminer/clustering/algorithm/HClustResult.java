@@ -1,6 +1,8 @@
 package org.clueminer.clustering.algorithm;
 
 import com.google.common.primitives.Ints;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -9,6 +11,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.clueminer.clustering.AssigmentsImpl;
 import org.clueminer.clustering.HardAssignment;
+import org.clueminer.clustering.api.AbstractClusteringAlgorithm;
 import org.clueminer.clustering.api.AgglParams;
 import org.clueminer.clustering.api.Assignment;
 import org.clueminer.clustering.api.Assignments;
@@ -16,6 +19,7 @@ import org.clueminer.clustering.api.Cluster;
 import org.clueminer.clustering.api.Clustering;
 import org.clueminer.clustering.api.CutoffStrategy;
 import org.clueminer.clustering.api.HierarchicalResult;
+import org.clueminer.clustering.api.IncrementalEvaluator;
 import org.clueminer.clustering.api.Merge;
 import org.clueminer.clustering.api.ClusteringType;
 import org.clueminer.clustering.api.dendrogram.DendroLeaf;
@@ -26,6 +30,7 @@ import org.clueminer.clustering.api.factory.CutoffStrategyFactory;
 import org.clueminer.clustering.api.factory.InternalEvaluatorFactory;
 import org.clueminer.clustering.struct.BaseCluster;
 import org.clueminer.clustering.struct.ClusterList;
+import org.clueminer.clustering.struct.LabelClustering;
 import org.clueminer.colors.ColorBrewer;
 import org.clueminer.dataset.api.ColorGenerator;
 import org.clueminer.dataset.api.Dataset;
@@ -33,6 +38,7 @@ import org.clueminer.dataset.api.Instance;
 import org.clueminer.hclust.DClusterLeaf;
 import org.clueminer.hclust.DTreeNode;
 import org.clueminer.hclust.DynamicTreeData;
+import org.clueminer.hclust.IncrementalCut;
 import org.clueminer.math.Matrix;
 import org.clueminer.utils.Props;
 
@@ -239,18 +245,39 @@ public class HClustResult<E extends Instance, C extends Cluster<E>> implements H
         int estClusters = (int) Math.sqrt(dataset.size());
         colorGenerator.reset();
         num = 0; //human readable
-        Clustering clusters = new ClusterList(estClusters);
+        //label clustering is built once all instances are labeled, leaves of
+        //columns tree are attributes which can't be labeled
+        boolean labels = props != null && resultType != ClusteringType.COLUMNS_CLUSTERING
+                && props.getBoolean(AbstractClusteringAlgorithm.LABEL_CLUSTERING, false);
+        Clustering clusters = labels ? null : new ClusterList(estClusters);
+        if (labels) {
+            Arrays.fill(assign, LabelClustering.UNASSIGNED);
+        }
         DendroNode root = treeData.getRoot();
         if (root != null) {
             checkCutoff(root, cutoff, clusters, assign);
-            if (clusters.size() > 0) {
+            if (num > 0) {
                 mapping = assign;
             } else {
                 logger.log(Level.SEVERE, "failed to cutoff dendrogram, cut = {0}", cutoff);
             }
         }
-        //add input dataset to clustering lookup
-        if (noise != null) {
+        if (labels) {
+            if (noise != null) {
+                for (Instance ins : noise) {
+                    assign[ins.getIndex()] = num;
+                }
+                num++;
+            }
+            clusters = new LabelClustering(dataset, assign, num);
+            for (int i = 0; i < clusters.size(); i++) {
+                clusters.get(i).setColor(colorGenerator.next());
+            }
+            if (noise != null) {
+                clusters.setClusterName(num - 1, "Noise");
+            }
+        } else if (noise != null) {
+            //add input dataset to clustering lookup
             Cluster clust = new BaseCluster<>(noise.size());
             clust.setColor(colorGenerator.next());
             clust.setClusterId(num++);
@@ -268,14 +295,20 @@ public class HClustResult<E extends Instance, C extends Cluster<E>> implements H
         return clusters;
     }
 
+    /**
+     * Assign instances to clusters, when {@code clusters} is null only
+     * labels are computed
+     */
     private void checkCutoff(DendroNode node, double cutoff, Clustering clusters, int[] assign) {
         if (node.isLeaf()) {
             if (treeData.containsClusters()) {
                 DClusterLeaf leaf = (DClusterLeaf) node;
                 Cluster clust = makeCluster(clusters);
                 for (Instance instance : leaf.getInstances()) {
-                    clust.add(instance);
-                    assign[instance.getIndex()] = clust.getClusterId();
+                    if (clust != null) {
+                        clust.add(instance);
+                    }
+                    assign[instance.getIndex()] = num - 1;
                 }
             }
             return;
@@ -283,21 +316,21 @@ public class HClustResult<E extends Instance, C extends Cluster<E>> implements H
         if (node.getHeight() == cutoff) {
             //both branches goes to the same cluster
             Cluster clust = makeCluster(clusters);
-            subtreeToCluster(node, clust, assign);
+            subtreeToCluster(node, clust, num - 1, assign);
         } else if (node.getLeft().getHeight() < cutoff || node.getRight().getHeight() < cutoff) {
             Cluster clust;
             if (node.getLeft().getHeight() < cutoff && node.getRight().getHeight() < cutoff) {
                 clust = makeCluster(clusters);
-                subtreeToCluster(node.getLeft(), clust, assign);
+                subtreeToCluster(node.getLeft(), clust, num - 1, assign);
                 clust = makeCluster(clusters);
-                subtreeToCluster(node.getRight(), clust, assign);
+                subtreeToCluster(node.getRight(), clust, num - 1, assign);
             } else if (node.getRight().getHeight() < cutoff) {
                 clust = makeCluster(clusters);
-                subtreeToCluster(node.getRight(), clust, assign);
+                subtreeToCluster(node.getRight(), clust, num - 1, assign);
                 checkCutoff(node.getLeft(), cutoff, clusters, assign);
             } else if (node.getLeft().getHeight() < cutoff) {
                 clust = makeCluster(clusters);
-                subtreeToCluster(node.getLeft(), clust, assign);
+                subtreeToCluster(node.getLeft(), clust, num - 1, assign);
                 checkCutoff(node.getRight(), cutoff, clusters, assign);
             }
         } else {
@@ -307,6 +340,10 @@ public class HClustResult<E extends Instance, C extends Cluster<E>> implements H
     }
 
     private Cluster makeCluster(Clustering clusters) {
+        if (clusters == null) {
+            num++;
+            return null;
+        }
         Cluster clust = clusters.createCluster();
         clust.setColor(colorGenerator.next());
         clust.setName("cluster " + (num + 1));
@@ -316,21 +353,25 @@ public class HClustResult<E extends Instance, C extends Cluster<E>> implements H
         return clust;
     }
 
-    private void subtreeToCluster(DendroNode node, Cluster c, int[] assign) {
+    private void subtreeToCluster(DendroNode node, Cluster c, int label, int[] assign) {
         if (node.isLeaf()) {
             if (treeData.containsClusters()) {
                 DClusterLeaf leaf = (DClusterLeaf) node;
                 for (Instance instance : leaf.getInstances()) {
-                    c.add(instance);
-                    assign[instance.getIndex()] = c.getClusterId();
+                    if (c != null) {
+                        c.add(instance);
+                    }
+                    assign[instance.getIndex()] = label;
                 }
             } else {
-                c.add(((DendroLeaf) node).getData());
-                assign[node.getId()] = c.getClusterId();
+                if (c != null) {
+                    c.add(((DendroLeaf) node).getData());
+                }
+                assign[node.getId()] = label;
             }
         } else {
-            subtreeToCluster(node.getLeft(), c, assign);
-            subtreeToCluster(node.getRight(), c, assign);
+            subtreeToCluster(node.getLeft(), c, label, assign);
+            subtreeToCluster(node.getRight(), c, label, assign);
         }
     }
 
@@ -417,6 +458,31 @@ public class HClustResult<E extends Instance, C extends Cluster<E>> implements H
         }
     }
 
+    /**
+     * {@inheritDoc }
+     *
+     * Clusterings are not constructed, each cut is scored from sufficient
+     * statistics of clusters which are updated with every merge.
+     */
+    @Override
+    public boolean scoreCuts(IncrementalEvaluator evaluator, Props params) {
+        //noise forms an extra cluster which is not part of the tree, leaves
+        //of columns tree are attributes, not instances
+        if (treeData == null || noise != null || !evaluator.isIncremental()
+                || resultType == ClusteringType.COLUMNS_CLUSTERING) {
+            return false;
+        }
+        double[][] res = new IncrementalCut(treeData, dataset).score(Collections.singletonList(evaluator), params);
+        if (res == null) {
+            return false;
+        }
+        String name = evaluator.getName();
+        for (int k = 1; k < res[0].length; k++) {
+            setScores(name, k, res[0][k]);
+        }
+        return true;
+    }
+
     @Override
     public boolean isScoreCached(String evaluator, int clustNum) {
         if (this.scores.containsKey(evaluator)) {
@@ -620,7 +686,10 @@ public class HClustResult<E extends Instance, C extends Cluster<E>> implements H
     @Override
     public void setTreeData(DendroTreeData treeData) {
         this.treeData = treeData;
-        treeData.updatePositions(treeData.getRoot());
+        //tree of an empty dataset has no root
+        if (treeData.getRoot() != null) {
+            treeData.updatePositions(treeData.getRoot());
+        }
     }
 
     @Override
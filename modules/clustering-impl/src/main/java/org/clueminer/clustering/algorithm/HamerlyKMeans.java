@@ -0,0 +1,386 @@
+package org.clueminer.clustering.algorithm;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.clueminer.clustering.api.AbstractClusteringAlgorithm;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.Clustering;
+import org.clueminer.clustering.api.ClusteringAlgorithm;
+import org.clueminer.clustering.api.config.annotation.Param;
+import org.clueminer.clustering.struct.BaseCluster;
+import org.clueminer.clustering.struct.ClusterList;
+import org.clueminer.clustering.struct.LabelClustering;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.distance.EuclideanDistance;
+import org.clueminer.distance.Metrics;
+import org.clueminer.distance.api.Distance;
+import org.clueminer.distance.api.DistanceFactory;
+import org.clueminer.utils.DatasetTools;
+import org.clueminer.utils.Props;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * K-means accelerated by triangle inequality as proposed by Hamerly. Each
+ * instance keeps an upper bound of distance to its centroid and a lower bound
+ * of distance to the second closest centroid, distances to all centroids are
+ * computed only when the bounds overlap.
+ *
+ * Initialization, centroid updates and handling of empty clusters follow
+ * {@link KMeans}, thus for the same seed both algorithms produce identical
+ * assignments. Bounds are used only with true metrics (see
+ * {@link Metrics#isMetric(Distance)}), otherwise all distances are computed
+ * in every iteration (but still without allocating new buffers).
+ *
+ * @param <E>
+ * @param <C>
+ * @cite G. Hamerly (2010): "Making k-means even faster", SIAM International
+ * Conference on Data Mining, 130-140
+ *
+ * @author Tomas Barton
+ */
+@ServiceProvider(service = ClusteringAlgorithm.class)
+public class HamerlyKMeans<E extends Instance, C extends Cluster<E>> extends AbstractClusteringAlgorithm<E, C> implements ClusteringAlgorithm<E, C> {
+
+    /**
+     * relative slack of bounds which covers rounding errors, pruning must
+     * never change the assignment
+     */
+    private static final double EPS = 1e-9;
+
+    @Param(name = KMeans.ITERATIONS, description = "number of k-means iterations", required = false, min = 100, max = 105)
+    private int iterations = -1;
+
+    private Random random;
+
+    @Param(name = KMeans.K, description = "expected number of clusters", required = true, min = 2, max = 25)
+    private int k;
+
+    private int seed;
+
+    private int n;
+    private int dim;
+    /**
+     * data copied into a flat row-major array
+     */
+    private double[] x;
+    /**
+     * centroids stored in a flat row-major array
+     */
+    private double[] centroids;
+    private double[] newCentroid;
+    private double[] sums;
+    private int[] counts;
+    private int[] assignment;
+    private double[] upper;
+    private double[] lower;
+    /**
+     * half of distance to the closest other centroid
+     */
+    private double[] halfDist;
+    private double[] drift;
+    private boolean bounded;
+    private long distCount;
+
+    public HamerlyKMeans() {
+
+    }
+
+    @Override
+    public String getName() {
+        return "k-means (Hamerly)";
+    }
+
+    @Override
+    public Distance getDistanceFunction() {
+        return distanceFunction;
+    }
+
+    @Override
+    public void setDistanceFunction(Distance dm) {
+        this.distanceFunction = dm;
+    }
+
+    @Override
+    public Clustering<E, C> cluster(Dataset<E> data, Props params) {
+        if (data == null || data.isEmpty()) {
+            throw new RuntimeException("The dataset should not be empty");
+        }
+        //number of clusters is required
+        if (!params.containsKey(KMeans.K)) {
+            throw new RuntimeException("Number of clusters (\"" + KMeans.K + "\") must be specified");
+        }
+        k = params.getInt(KMeans.K);
+        if (k <= 1) {
+            throw new RuntimeException("Number of clusters should be at least 2");
+        }
+        if (k > data.size()) {
+            throw new RuntimeException("k(" + k + ") can't be larger than dataset size (" + data.size() + ")");
+        }
+
+        seed = params.getInt(KMeans.SEED, -1);
+        if (seed != -1) {
+            random = new Random(seed);
+        } else {
+            if (random == null) {
+                random = new Random(System.currentTimeMillis());
+            }
+        }
+
+        // by default use Euclidean distance
+        if (!params.containsKey(DISTANCE)) {
+            distanceFunction = EuclideanDistance.getInstance();
+        } else {
+            String dist = params.get(DISTANCE);
+            distanceFunction = DistanceFactory.getInstance().getProvider(dist);
+        }
+
+        //fallback
+        if (distanceFunction == null) {
+            distanceFunction = EuclideanDistance.getInstance();
+        }
+        //bounds are valid only under triangle inequality
+        bounded = Metrics.isMetric(distanceFunction);
+
+        iterations = params.getInt(KMeans.ITERATIONS, 100);
+        allocate(data);
+
+        for (int j = 0; j < k; j++) {
+            double[] randomInstance = DatasetTools.getRandomInstance(data, random);
+            System.arraycopy(randomInstance, 0, centroids, j * dim, dim);
+        }
+
+        Instance min = null, max = null;
+        int iterationCount = 0;
+        boolean centroidsChanged = true;
+        boolean randomCentroids = true;
+        while (randomCentroids || (iterationCount < this.iterations && centroidsChanged)) {
+            // Assign each object to the group that has the closest centroid.
+            if (iterationCount == 0 || !bounded) {
+                assignAll();
+            } else {
+                assignBounded();
+            }
+            iterationCount++;
+            // recalculate the positions of the K centroids
+            Arrays.fill(sums, 0.0);
+            Arrays.fill(counts, 0);
+            int offset;
+            for (int i = 0; i < n; i++) {
+                offset = assignment[i] * dim;
+                for (int j = 0; j < dim; j++) {
+                    sums[offset + j] += x[i * dim + j];
+                }
+                counts[assignment[i]]++;
+            }
+            centroidsChanged = false;
+            randomCentroids = false;
+            Arrays.fill(drift, 0.0);
+            for (int i = 0; i < k; i++) {
+                offset = i * dim;
+                if (counts[i] > 0) {
+                    for (int j = 0; j < dim; j++) {
+                        newCentroid[j] = (float) sums[offset + j] / counts[i];
+                    }
+                    double d = distance(newCentroid, 0, centroids, offset);
+                    if (d > 0.0001) {
+                        centroidsChanged = true;
+                        drift[i] = d;
+                        System.arraycopy(newCentroid, 0, centroids, offset, dim);
+                    }
+                } else {
+                    if (min == null) {
+                        min = DatasetTools.minAttributes(data);
+                        max = DatasetTools.maxAttributes(data);
+                    }
+                    for (int j = 0; j < dim; j++) {
+                        double dist = Math.abs(max.value(j) - min.value(j));
+                        newCentroid[j] = (float) (min.value(j) + random.nextDouble() * dist);
+                    }
+                    randomCentroids = true;
+                    drift[i] = distance(newCentroid, 0, centroids, offset);
+                    System.arraycopy(newCentroid, 0, centroids, offset, dim);
+                }
+            }
+            if (bounded) {
+                updateBounds();
+            }
+        }
+        //final assignment with current centroids
+        if (bounded) {
+            assignBounded();
+        } else {
+            assignAll();
+        }
+
+        Clustering output;
+        if (params.getBoolean(LABEL_CLUSTERING, false)) {
+            output = new LabelClustering(data, Arrays.copyOf(assignment, n), k);
+        } else {
+            output = new ClusterList(k);
+            BaseCluster cluster;
+            for (int i = 0; i < k; i++) {
+                cluster = new BaseCluster(data.size());
+                cluster.setName("cluster " + (i + 1));
+                cluster.setClusterId(i);
+                //we have to copy attributes settings
+                cluster.setAttributes(data.getAttributes());
+                output.put(cluster);
+            }
+            for (int i = 0; i < n; i++) {
+                output.get(assignment[i]).add(data.instance(i));
+            }
+        }
+        Props p = output.getParams();
+        p.put("algorithm", getName());
+        p.putInt(KMeans.ITERATIONS, iterations);
+        if (colorGenerator != null) {
+            colorGenerator.reset();
+            for (int i = 0; i < k; i++) {
+                output.get(i).setColor(colorGenerator.next());
+            }
+        }
+        output.lookupAdd(data);
+        return output;
+    }
+
+    /**
+     * Buffers are reused when dataset of the same size is clustered again
+     * (with the same number of clusters)
+     *
+     * @param data
+     */
+    private void allocate(Dataset<E> data) {
+        int size = data.size();
+        int d = data.attributeCount();
+        if (x == null || x.length != size * d || assignment.length != size) {
+            x = new double[size * d];
+            assignment = new int[size];
+            upper = new double[size];
+            lower = new double[size];
+        }
+        n = size;
+        dim = d;
+        Instance inst;
+        for (int i = 0; i < n; i++) {
+            inst = data.instance(i);
+            for (int j = 0; j < dim; j++) {
+                x[i * dim + j] = inst.value(j);
+            }
+        }
+        if (centroids == null || centroids.length != k * dim || counts.length != k) {
+            centroids = new double[k * dim];
+            sums = new double[k * dim];
+            counts = new int[k];
+            halfDist = new double[k];
+            drift = new double[k];
+        }
+        if (newCentroid == null || newCentroid.length != dim) {
+            newCentroid = new double[dim];
+        }
+        distCount = 0;
+    }
+
+    private double distance(double[] a, int aOffset, double[] b, int bOffset) {
+        distCount++;
+        return distanceFunction.measure(a, aOffset, b, bOffset, dim);
+    }
+
+    /**
+     * Compute distances to all centroids, ties are resolved in favor of lower
+     * cluster index (same as {@link KMeans})
+     *
+     * @param i instance index
+     */
+    private void assign(int i) {
+        int best = 0;
+        double minDistance = distance(centroids, 0, x, i * dim);
+        double second = Double.POSITIVE_INFINITY;
+        double dist;
+        for (int j = 1; j < k; j++) {
+            dist = distance(centroids, j * dim, x, i * dim);
+            if (distanceFunction.compare(dist, minDistance)) {
+                second = minDistance;
+                minDistance = dist;
+                best = j;
+            } else if (dist < second) {
+                second = dist;
+            }
+        }
+        assignment[i] = best;
+        upper[i] = minDistance;
+        lower[i] = second;
+    }
+
+    private void assignAll() {
+        for (int i = 0; i < n; i++) {
+            assign(i);
+        }
+    }
+
+    private void assignBounded() {
+        double d;
+        for (int a = 0; a < k; a++) {
+            halfDist[a] = Double.POSITIVE_INFINITY;
+        }
+        for (int a = 0; a < k; a++) {
+            for (int b = a + 1; b < k; b++) {
+                d = distance(centroids, a * dim, centroids, b * dim) / 2;
+                if (d < halfDist[a]) {
+                    halfDist[a] = d;
+                }
+                if (d < halfDist[b]) {
+                    halfDist[b] = d;
+                }
+            }
+        }
+        double bound;
+        int a;
+        for (int i = 0; i < n; i++) {
+            a = assignment[i];
+            bound = Math.max(halfDist[a], lower[i]);
+            if (upper[i] + EPS * (upper[i] + bound) < bound) {
+                continue;
+            }
+            //tighten upper bound
+            upper[i] = distance(centroids, a * dim, x, i * dim);
+            if (upper[i] + EPS * (upper[i] + bound) < bound) {
+                continue;
+            }
+            assign(i);
+        }
+    }
+
+    /**
+     * Move bounds by distances which centroids traveled
+     */
+    private void updateBounds() {
+        int far = 0;
+        double maxDrift = 0.0, secondDrift = 0.0;
+        for (int j = 0; j < k; j++) {
+            if (drift[j] > maxDrift) {
+                secondDrift = maxDrift;
+                maxDrift = drift[j];
+                far = j;
+            } else if (drift[j] > secondDrift) {
+                secondDrift = drift[j];
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            upper[i] += drift[assignment[i]];
+            lower[i] -= (assignment[i] == far) ? secondDrift : maxDrift;
+        }
+    }
+
+    /**
+     * @return number of distance computations in last run
+     */
+    public long getDistanceCount() {
+        return distCount;
+    }
+
+    public void setRandom(Random rand) {
+        this.random = rand;
+    }
+
+}
@@ -8,6 +8,7 @@ import org.clueminer.clustering.api.ClusteringAlgorithm;
 import org.clueminer.clustering.api.config.annotation.Param;
 import org.clueminer.clustering.struct.BaseCluster;
 import org.clueminer.clustering.struct.ClusterList;
+import org.clueminer.clustering.struct.LabelClustering;
 import org.clueminer.dataset.api.Dataset;
 import org.clueminer.dataset.api.Instance;
 import org.clueminer.dataset.row.DoubleArrayDataRow;
@@ -206,25 +207,7 @@ public class KMeans<E extends Instance, C extends Cluster<E>> extends AbstractCl
             }
 
         }
-        Clustering output = new ClusterList(centroids.length);
-        Props p = output.getParams();
-        p.put("algorithm", getName());
-        p.putInt(ITERATIONS, iterations);
-        BaseCluster cluster;
-        if (colorGenerator != null) {
-            colorGenerator.reset();
-        }
-        for (int i = 0; i < centroids.length; i++) {
-            cluster = new BaseCluster(data.size());
-            if (colorGenerator != null) {
-                cluster.setColor(colorGenerator.next());
-            }
-            cluster.setName("cluster " + (i + 1));
-            cluster.setClusterId(i);
-            //we have to copy attributes settings
-            cluster.setAttributes(data.getAttributes());
-            output.put(cluster);
-        }
+        int[] assignment = new int[data.size()];
         for (int i = 0; i < data.size(); i++) {
             int tmpCluster = 0;
             double minDistance = distanceFunction.measure(centroids[0], data.instance(i));
@@ -235,8 +218,34 @@ public class KMeans<E extends Instance, C extends Cluster<E>> extends AbstractCl
                     tmpCluster = j;
                 }
             }
-            output.get(tmpCluster).add(data.instance(i));
-
+            assignment[i] = tmpCluster;
+        }
+        Clustering output;
+        if (params.getBoolean(LABEL_CLUSTERING, false)) {
+            output = new LabelClustering(data, assignment, centroids.length);
+        } else {
+            output = new ClusterList(centroids.length);
+            BaseCluster cluster;
+            for (int i = 0; i < centroids.length; i++) {
+                cluster = new BaseCluster(data.size());
+                cluster.setName("cluster " + (i + 1));
+                cluster.setClusterId(i);
+                //we have to copy attributes settings
+                cluster.setAttributes(data.getAttributes());
+                output.put(cluster);
+            }
+            for (int i = 0; i < data.size(); i++) {
+                output.get(assignment[i]).add(data.instance(i));
+            }
+        }
+        Props p = output.getParams();
+        p.put("algorithm", getName());
+        p.putInt(ITERATIONS, iterations);
+        if (colorGenerator != null) {
+            colorGenerator.reset();
+            for (int i = 0; i < centroids.length; i++) {
+                output.get(i).setColor(colorGenerator.next());
+            }
         }
         /**
          * associate dataset which was used to create clustering with the
@@ -0,0 +1,465 @@
+package org.clueminer.clustering.algorithm;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.clueminer.clustering.api.AbstractClusteringAlgorithm;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.Clustering;
+import org.clueminer.clustering.api.ClusteringAlgorithm;
+import org.clueminer.clustering.api.config.annotation.Param;
+import org.clueminer.clustering.struct.BaseCluster;
+import org.clueminer.clustering.struct.ClusterList;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.distance.EuclideanDistance;
+import org.clueminer.distance.api.Distance;
+import org.clueminer.distance.api.DistanceFactory;
+import org.clueminer.utils.Props;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Mini-batch k-means. Centroids are updated from small batches of instances
+ * with per-centroid learning rate (1 / number of instances assigned so far),
+ * therefore the algorithm doesn't need the whole dataset in memory.
+ *
+ * Instances could be consumed either by random sampling of a {@link Dataset}
+ * or sequentially from a stream (see {@link #fit(Iterator, Props)}), where
+ * each chunk of instances is used as one mini-batch. Initial centroids are
+ * chosen from the first mini-batch by greedy k-means++ seeding. Final
+ * assignment is computed in a separate pass.
+ *
+ * @param <E>
+ * @param <C>
+ * @cite D. Sculley (2010): "Web-scale k-means clustering", Proceedings of the
+ * 19th international conference on World Wide Web, 1177-1178
+ *
+ * @author Tomas Barton
+ */
+@ServiceProvider(service = ClusteringAlgorithm.class)
+public class MiniBatchKMeans<E extends Instance, C extends Cluster<E>> extends AbstractClusteringAlgorithm<E, C> implements ClusteringAlgorithm<E, C> {
+
+    /**
+     * number of instances in one mini-batch
+     */
+    public static final String BATCH = "batch";
+
+    /**
+     * throughput of last run in rows per second (stored in result's params)
+     */
+    public static final String THROUGHPUT = "throughput";
+
+    @Param(name = KMeans.ITERATIONS, description = "number of mini-batches sampled from a dataset", required = false, min = 10, max = 1000)
+    private int iterations = 100;
+
+    @Param(name = KMeans.K, description = "expected number of clusters", required = true, min = 2, max = 25)
+    private int k;
+
+    @Param(name = MiniBatchKMeans.BATCH, description = "size of mini-batch", required = false, min = 100, max = 10000)
+    private int batch = 1000;
+
+    private Random random;
+    private int dim;
+    /**
+     * centroids stored in a flat row-major array
+     */
+    private double[] centroids;
+    private long[] counts;
+    /**
+     * buffer of current mini-batch
+     */
+    private double[] buffer;
+    private int[] nearest;
+    /**
+     * whether initial centroids were chosen
+     */
+    private boolean seeded;
+    private long rows;
+    private long nanos;
+
+    private static final Logger logger = Logger.getLogger(MiniBatchKMeans.class.getName());
+
+    public MiniBatchKMeans() {
+
+    }
+
+    @Override
+    public String getName() {
+        return "mini-batch k-means";
+    }
+
+    @Override
+    public Distance getDistanceFunction() {
+        return distanceFunction;
+    }
+
+    @Override
+    public void setDistanceFunction(Distance dm) {
+        this.distanceFunction = dm;
+    }
+
+    @Override
+    public Clustering<E, C> cluster(Dataset<E> data, Props params) {
+        if (data == null || data.isEmpty()) {
+            throw new RuntimeException("The dataset should not be empty");
+        }
+        configure(params);
+        if (k > data.size()) {
+            throw new RuntimeException("k(" + k + ") can't be larger than dataset size (" + data.size() + ")");
+        }
+        iterations = params.getInt(KMeans.ITERATIONS, 100);
+        reset(data.attributeCount());
+        long start = System.nanoTime();
+        int size = Math.min(batch, data.size());
+        for (int i = 0; i < size; i++) {
+            copy(data.instance(random.nextInt(data.size())), buffer, i * dim);
+        }
+        seed(size);
+        for (int it = 0; it < iterations; it++) {
+            for (int i = 0; i < size; i++) {
+                copy(data.instance(random.nextInt(data.size())), buffer, i * dim);
+            }
+            step(size);
+        }
+
+        Clustering output = new ClusterList(k);
+        BaseCluster cluster;
+        if (colorGenerator != null) {
+            colorGenerator.reset();
+        }
+        for (int i = 0; i < k; i++) {
+            cluster = new BaseCluster(data.size() / k + 1);
+            if (colorGenerator != null) {
+                cluster.setColor(colorGenerator.next());
+            }
+            cluster.setName("cluster " + (i + 1));
+            cluster.setClusterId(i);
+            //we have to copy attributes settings
+            cluster.setAttributes(data.getAttributes());
+            output.put(cluster);
+        }
+        for (int i = 0; i < data.size(); i++) {
+            output.get(nearest(data.instance(i))).add(data.instance(i));
+        }
+        rows += data.size();
+        nanos += System.nanoTime() - start;
+        logThroughput();
+
+        Props p = output.getParams();
+        p.put("algorithm", getName());
+        p.putInt(KMeans.ITERATIONS, iterations);
+        p.putDouble(THROUGHPUT, getThroughput());
+        output.lookupAdd(data);
+        return output;
+    }
+
+    /**
+     * Learn centroids from a stream of instances, which is read in chunks of
+     * {@link #BATCH} instances, each chunk is used as a mini-batch (instances
+     * are not kept in memory). Initial centroids are chosen from the first
+     * chunk by greedy k-means++ seeding.
+     *
+     * @param stream instances, e.g. produced by an importer
+     * @param params
+     */
+    public void fit(Iterator<? extends Instance> stream, Props params) {
+        configure(params);
+        centroids = null;
+        long start = System.nanoTime();
+        int size = 0;
+        Instance inst;
+        while (stream.hasNext()) {
+            inst = stream.next();
+            if (centroids == null) {
+                reset(inst.size());
+            }
+            copy(inst, buffer, size * dim);
+            size++;
+            if (size == batch) {
+                chunk(size);
+                size = 0;
+            }
+        }
+        if (size > 0) {
+            chunk(size);
+        }
+        nanos += System.nanoTime() - start;
+        logThroughput();
+    }
+
+    /**
+     * Update centroids with given chunk of instances, could be called
+     * repeatedly (e.g. once per imported file) after
+     * {@link #fit(Iterator, Props)}
+     *
+     * @param chunk
+     */
+    public void update(Iterable<? extends Instance> chunk) {
+        checkFitted();
+        long start = System.nanoTime();
+        int size = 0;
+        for (Instance inst : chunk) {
+            copy(inst, buffer, size * dim);
+            size++;
+            if (size == batch) {
+                step(size);
+                size = 0;
+            }
+        }
+        if (size > 0) {
+            step(size);
+        }
+        nanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Final assignment pass over a stream of instances
+     *
+     * @param stream
+     * @param callback receives each instance with index of its cluster
+     * @return number of assigned instances
+     */
+    public long assign(Iterator<? extends Instance> stream, Assignment callback) {
+        checkFitted();
+        long start = System.nanoTime();
+        long cnt = 0;
+        Instance inst;
+        while (stream.hasNext()) {
+            inst = stream.next();
+            callback.assigned(inst, nearest(inst));
+            cnt++;
+        }
+        rows += cnt;
+        nanos += System.nanoTime() - start;
+        logThroughput();
+        return cnt;
+    }
+
+    /**
+     * @param inst
+     * @return index of closest centroid
+     */
+    public int nearest(Instance inst) {
+        checkFitted();
+        copy(inst, buffer, 0);
+        return nearest(buffer, 0);
+    }
+
+    /**
+     * @return copy of current centroids
+     */
+    public double[][] getCentroids() {
+        checkFitted();
+        double[][] res = new double[k][dim];
+        for (int i = 0; i < k; i++) {
+            System.arraycopy(centroids, i * dim, res[i], 0, dim);
+        }
+        return res;
+    }
+
+    /**
+     * @return number of rows processed (in mini-batches and assignment passes)
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return rows processed per second
+     */
+    public double getThroughput() {
+        if (nanos == 0) {
+            return 0.0;
+        }
+        return rows / (nanos / 1e9);
+    }
+
+    public void setRandom(Random rand) {
+        this.random = rand;
+    }
+
+    private void configure(Props params) {
+        //number of clusters is required
+        if (!params.containsKey(KMeans.K)) {
+            throw new RuntimeException("Number of clusters (\"" + KMeans.K + "\") must be specified");
+        }
+        k = params.getInt(KMeans.K);
+        if (k <= 1) {
+            throw new RuntimeException("Number of clusters should be at least 2");
+        }
+        batch = params.getInt(BATCH, 1000);
+        if (batch < 1) {
+            throw new RuntimeException("Batch size must be positive, got " + batch);
+        }
+        int seed = params.getInt(KMeans.SEED, -1);
+        if (seed != -1) {
+            random = new Random(seed);
+        } else if (random == null) {
+            random = new Random(System.currentTimeMillis());
+        }
+        // by default use Euclidean distance
+        if (!params.containsKey(DISTANCE)) {
+            distanceFunction = EuclideanDistance.getInstance();
+        } else {
+            distanceFunction = DistanceFactory.getInstance().getProvider(params.get(DISTANCE));
+        }
+        //fallback
+        if (distanceFunction == null) {
+            distanceFunction = EuclideanDistance.getInstance();
+        }
+        rows = 0;
+        nanos = 0;
+    }
+
+    private void reset(int d) {
+        dim = d;
+        centroids = new double[k * dim];
+        counts = new long[k];
+        seeded = false;
+        if (buffer == null || buffer.length != batch * dim) {
+            buffer = new double[batch * dim];
+        }
+        if (nearest == null || nearest.length != batch) {
+            nearest = new int[batch];
+        }
+    }
+
+    private void checkFitted() {
+        if (centroids == null) {
+            throw new IllegalStateException("centroids are not initialized, call fit() first");
+        }
+    }
+
+    /**
+     * Process a chunk read from stream, the first one initializes centroids
+     *
+     * @param size
+     */
+    private void chunk(int size) {
+        if (!seeded) {
+            if (size < k) {
+                throw new RuntimeException("first chunk (" + size + ") must contain at least k(" + k + ") instances");
+            }
+            seed(size);
+        }
+        step(size);
+    }
+
+    /**
+     * Choose initial centroids from instances in the buffer using greedy
+     * k-means++ seeding: several candidates are sampled proportionally to
+     * squared distance from already chosen centroids, the one which reduces
+     * the potential most is kept
+     *
+     * @param size number of instances in buffer
+     */
+    private void seed(int size) {
+        double[] dist = new double[size];
+        double[] candDist = new double[size];
+        double[] bestDist = new double[size];
+        int trials = 2 + (int) Math.log(k);
+        int idx = random.nextInt(size);
+        System.arraycopy(buffer, idx * dim, centroids, 0, dim);
+        double d, total, potential, bestPotential;
+        total = 0.0;
+        for (int i = 0; i < size; i++) {
+            d = distanceFunction.measure(centroids, 0, buffer, i * dim, dim);
+            dist[i] = d * d;
+            total += dist[i];
+        }
+        int best;
+        double[] tmp;
+        for (int c = 1; c < k; c++) {
+            best = -1;
+            bestPotential = Double.POSITIVE_INFINITY;
+            for (int t = 0; t < trials; t++) {
+                if (total > 0.0) {
+                    double r = random.nextDouble() * total;
+                    idx = 0;
+                    while (idx < size - 1 && (r -= dist[idx]) > 0.0) {
+                        idx++;
+                    }
+                } else {
+                    //all instances are identical
+                    idx = random.nextInt(size);
+                }
+                potential = 0.0;
+                for (int i = 0; i < size; i++) {
+                    d = distanceFunction.measure(buffer, idx * dim, buffer, i * dim, dim);
+                    candDist[i] = Math.min(dist[i], d * d);
+                    potential += candDist[i];
+                }
+                if (potential < bestPotential) {
+                    bestPotential = potential;
+                    best = idx;
+                    tmp = bestDist;
+                    bestDist = candDist;
+                    candDist = tmp;
+                }
+            }
+            System.arraycopy(buffer, best * dim, centroids, c * dim, dim);
+            tmp = dist;
+            dist = bestDist;
+            bestDist = tmp;
+            total = bestPotential;
+        }
+        seeded = true;
+    }
+
+    /**
+     * One mini-batch update, instances are stored in the buffer
+     *
+     * @param size number of instances in buffer
+     */
+    private void step(int size) {
+        for (int i = 0; i < size; i++) {
+            nearest[i] = nearest(buffer, i * dim);
+        }
+        int c, offset;
+        double eta;
+        for (int i = 0; i < size; i++) {
+            c = nearest[i];
+            counts[c]++;
+            eta = 1.0 / counts[c];
+            offset = c * dim;
+            for (int j = 0; j < dim; j++) {
+                centroids[offset + j] += eta * (buffer[i * dim + j] - centroids[offset + j]);
+            }
+        }
+        rows += size;
+    }
+
+    private int nearest(double[] x, int offset) {
+        int best = 0;
+        double minDistance = distanceFunction.measure(centroids, 0, x, offset, dim);
+        double dist;
+        for (int j = 1; j < k; j++) {
+            dist = distanceFunction.measure(centroids, j * dim, x, offset, dim);
+            if (distanceFunction.compare(dist, minDistance)) {
+                minDistance = dist;
+                best = j;
+            }
+        }
+        return best;
+    }
+
+    private void copy(Instance inst, double[] target, int offset) {
+        for (int j = 0; j < dim; j++) {
+            target[offset + j] = inst.value(j);
+        }
+    }
+
+    private void logThroughput() {
+        logger.log(Level.INFO, "{0}: {1} rows, {2} rows/s", new Object[]{getName(), rows, Math.round(getThroughput())});
+    }
+
+    /**
+     * Receives result of final assignment pass
+     */
+    public interface Assignment {
+
+        void assigned(Instance inst, int cluster);
+    }
+
+}
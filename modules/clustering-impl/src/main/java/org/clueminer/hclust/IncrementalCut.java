@@ -0,0 +1,315 @@
+package org.clueminer.hclust;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.clueminer.clustering.api.ClusterTerm;
+import org.clueminer.clustering.api.CutStatistics;
+import org.clueminer.clustering.api.IncrementalEvaluator;
+import org.clueminer.clustering.api.dendrogram.DendroLeaf;
+import org.clueminer.clustering.api.dendrogram.DendroNode;
+import org.clueminer.clustering.api.dendrogram.DendroTreeData;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.utils.Props;
+
+/**
+ * Scores all cuts of a dendrogram in a single bottom-up walk. Each cluster is
+ * represented just by its sufficient statistics (size, sum of instances and
+ * sum of squares), merging two clusters is O(d) and aggregated statistics of
+ * the cut are updated in O(1) (per attribute).
+ *
+ * Cuts with k clusters are produced by applying merges in order of increasing
+ * height, thus the tree must be monotonic (parent is never lower than its
+ * children), otherwise cutting by height would give different clusterings.
+ *
+ * @author Tomas Barton
+ */
+public class IncrementalCut implements CutStatistics {
+
+    private final DendroTreeData treeData;
+    private final Dataset<? extends Instance> dataset;
+    private int dim;
+    private int n;
+    private int k;
+    private double sse;
+    private double weightedNorm;
+    private double[] centroidSum;
+    private double[] totalSum;
+    private ClusterTerm[] terms;
+    private double[] termSums;
+    /**
+     * index of evaluator being scored
+     */
+    private int current;
+
+    public IncrementalCut(DendroTreeData treeData, Dataset<? extends Instance> dataset) {
+        this.treeData = treeData;
+        this.dataset = dataset;
+    }
+
+    /**
+     * Scores every cut of the tree
+     *
+     * @param evaluators
+     * @param params
+     * @return score[e][k] score of e-th evaluator for cut with k clusters, null
+     *         when the tree can't be cut incrementally
+     */
+    public double[][] score(List<? extends IncrementalEvaluator> evaluators, Props params) {
+        DendroNode root = treeData.getRoot();
+        if (root == null) {
+            return null;
+        }
+        List<DendroNode> leaves = new ArrayList<>();
+        Map<DendroNode, DendroNode> parents = new IdentityHashMap<>();
+        Map<DendroNode, Integer> pending = new IdentityHashMap<>();
+        if (!collect(root, leaves, parents, pending)) {
+            return null;
+        }
+
+        terms = new ClusterTerm[evaluators.size()];
+        termSums = new double[evaluators.size()];
+        for (int e = 0; e < terms.length; e++) {
+            terms[e] = evaluators.get(e).clusterTerm(params);
+        }
+
+        Map<DendroNode, Stats> stats = new IdentityHashMap<>();
+        dim = -1;
+        n = 0;
+        k = 0;
+        sse = 0.0;
+        weightedNorm = 0.0;
+        for (DendroNode leaf : leaves) {
+            Stats s = leafStats(leaf);
+            if (s == null) {
+                return null;
+            }
+            stats.put(leaf, s);
+            add(s, 1);
+        }
+        if (n == 0) {
+            return null;
+        }
+
+        double[][] scores = new double[evaluators.size()][k + 1];
+        for (double[] row : scores) {
+            Arrays.fill(row, Double.NaN);
+        }
+        record(evaluators, params, scores);
+
+        //internal nodes are merged in order of height, once both children are merged
+        PriorityQueue<DendroNode> ready = new PriorityQueue<>(Math.max(1, pending.size()), new HeightComparator());
+        for (DendroNode leaf : leaves) {
+            release(leaf, parents, pending, ready);
+        }
+        DendroNode node;
+        Stats left, right, merged;
+        while (!ready.isEmpty()) {
+            node = ready.poll();
+            left = stats.remove(node.getLeft());
+            right = stats.remove(node.getRight());
+            if (node.getHeight() < Math.max(node.getLeft().getHeight(), node.getRight().getHeight())) {
+                //non-monotonic tree
+                return null;
+            }
+            merged = left.merge(right);
+            add(left, -1);
+            add(right, -1);
+            add(merged, 1);
+            stats.put(node, merged);
+            record(evaluators, params, scores);
+            release(node, parents, pending, ready);
+        }
+        return scores;
+    }
+
+    /**
+     * Collect leaves and count children of internal nodes, only binary trees
+     * are supported
+     */
+    private boolean collect(DendroNode root, List<DendroNode> leaves,
+            Map<DendroNode, DendroNode> parents, Map<DendroNode, Integer> pending) {
+        Deque<DendroNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        DendroNode node;
+        while (!stack.isEmpty()) {
+            node = stack.pop();
+            if (node.isLeaf()) {
+                leaves.add(node);
+            } else {
+                if (!node.hasLeft() || !node.hasRight()) {
+                    return false;
+                }
+                pending.put(node, 2);
+                parents.put(node.getLeft(), node);
+                parents.put(node.getRight(), node);
+                stack.push(node.getRight());
+                stack.push(node.getLeft());
+            }
+        }
+        return true;
+    }
+
+    private void release(DendroNode child, Map<DendroNode, DendroNode> parents,
+            Map<DendroNode, Integer> pending, PriorityQueue<DendroNode> ready) {
+        DendroNode parent = parents.get(child);
+        if (parent != null) {
+            int cnt = pending.get(parent) - 1;
+            pending.put(parent, cnt);
+            if (cnt == 0) {
+                ready.add(parent);
+            }
+        }
+    }
+
+    private Stats leafStats(DendroNode leaf) {
+        List<Instance> instances;
+        if (treeData.containsClusters() && leaf instanceof DClusterLeaf) {
+            instances = ((DClusterLeaf) leaf).getInstances();
+        } else {
+            Object data = ((DendroLeaf) leaf).getData();
+            Instance inst;
+            if (data instanceof Instance) {
+                inst = (Instance) data;
+            } else if (data == null && dataset != null && leaf.getId() < dataset.size()) {
+                inst = dataset.get(leaf.getId());
+            } else {
+                //e.g. attributes in a tree of columns, such tree can't be
+                //scored incrementally
+                return null;
+            }
+            instances = new ArrayList<>(1);
+            instances.add(inst);
+        }
+        if (instances.isEmpty()) {
+            return null;
+        }
+        if (dim < 0) {
+            dim = instances.get(0).size();
+            centroidSum = new double[dim];
+            totalSum = new double[dim];
+        }
+        Stats s = new Stats(dim);
+        double v;
+        for (Instance inst : instances) {
+            for (int j = 0; j < dim; j++) {
+                v = inst.value(j);
+                s.sum[j] += v;
+                s.sqSum += v * v;
+                totalSum[j] += v;
+            }
+            s.size++;
+        }
+        n += s.size;
+        return s;
+    }
+
+    /**
+     * Add (sign = 1) or remove (sign = -1) cluster from aggregates
+     */
+    private void add(Stats s, int sign) {
+        k += sign;
+        double norm = 0.0;
+        for (int j = 0; j < dim; j++) {
+            norm += s.sum[j] * s.sum[j];
+            centroidSum[j] += sign * s.sum[j] / s.size;
+        }
+        norm /= s.size;
+        weightedNorm += sign * norm;
+        sse += sign * (s.sqSum - norm);
+        for (int e = 0; e < terms.length; e++) {
+            if (terms[e] != null) {
+                termSums[e] += sign * terms[e].value(s.size, s.sum, s.sqSum);
+            }
+        }
+    }
+
+    private void record(List<? extends IncrementalEvaluator> evaluators, Props params, double[][] scores) {
+        for (current = 0; current < scores.length; current++) {
+            scores[current][k] = evaluators.get(current).score(this, params);
+        }
+    }
+
+    @Override
+    public int numClusters() {
+        return k;
+    }
+
+    @Override
+    public int numInstances() {
+        return n;
+    }
+
+    @Override
+    public int dimension() {
+        return dim;
+    }
+
+    @Override
+    public double sse() {
+        //singletons have exactly zero error
+        return k == n ? 0.0 : Math.max(0.0, sse);
+    }
+
+    @Override
+    public double[] centroidSum() {
+        return centroidSum;
+    }
+
+    @Override
+    public double weightedCentroidNorm() {
+        return weightedNorm;
+    }
+
+    @Override
+    public double[] totalSum() {
+        return totalSum;
+    }
+
+    @Override
+    public double term() {
+        if (terms[current] == null) {
+            throw new IllegalStateException("evaluator doesn't define any cluster term");
+        }
+        return termSums[current];
+    }
+
+    /**
+     * Sufficient statistics of a cluster
+     */
+    private static class Stats {
+
+        private int size;
+        private final double[] sum;
+        private double sqSum;
+
+        Stats(int dim) {
+            sum = new double[dim];
+        }
+
+        Stats merge(Stats other) {
+            Stats res = new Stats(sum.length);
+            res.size = size + other.size;
+            res.sqSum = sqSum + other.sqSum;
+            for (int j = 0; j < sum.length; j++) {
+                res.sum[j] = sum[j] + other.sum[j];
+            }
+            return res;
+        }
+    }
+
+    private static class HeightComparator implements Comparator<DendroNode> {
+
+        @Override
+        public int compare(DendroNode o1, DendroNode o2) {
+            return Double.compare(o1.getHeight(), o2.getHeight());
+        }
+    }
+}
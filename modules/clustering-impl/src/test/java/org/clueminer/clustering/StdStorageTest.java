@@ -1,11 +1,21 @@
 package org.clueminer.clustering;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.clueminer.cluster.FakeClustering;
 import org.clueminer.dataset.api.Dataset;
 import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
 import org.clueminer.report.MemInfo;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
 /**
@@ -38,6 +48,42 @@ public class StdStorageTest {
         assertEquals(false, subject.isCached("Min-Max", false));
     }
 
+    @Test
+    public void testConcurrent() throws Exception {
+        Random rand = new Random(42);
+        Dataset<Instance> dataset = new ArrayDataset<>(50, 3);
+        for (int j = 0; j < 3; j++) {
+            dataset.attributeBuilder().create("a" + j, "NUMERIC");
+        }
+        for (int i = 0; i < 50; i++) {
+            dataset.builder().create(new double[]{rand.nextDouble(), rand.nextDouble(), rand.nextDouble()});
+        }
+        final StdStorage storage = new StdStorage(dataset);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Callable<Dataset<? extends Instance>>> tasks = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            tasks.add(new Callable<Dataset<? extends Instance>>() {
+
+                @Override
+                public Dataset<? extends Instance> call() throws Exception {
+                    return storage.get("Min-Max", true);
+                }
+            });
+        }
+        Dataset<? extends Instance> first = null;
+        for (Future<Dataset<? extends Instance>> f : pool.invokeAll(tasks)) {
+            if (first == null) {
+                first = f.get();
+            }
+            //standardization is computed just once
+            assertSame(first, f.get());
+        }
+        pool.shutdown();
+        assertTrue(storage.isCached("Min-Max", true));
+        assertEquals(false, storage.isCached("Min-Max", false));
+        assertEquals(50, first.size());
+    }
+
     /*    @Test
      public void testGc() {
      }
@@ -41,10 +41,17 @@ public class ElementTest {
     @Test
     public void testCompareTo() {
         Element e1 = new Element(1.0, 0, 0);
-        Element e2 = new Element(1.0, 0, 1);
+        Element e2 = new Element(1.0, 0, 0);
         //should be identical
         assertEquals(0, e1.compareTo(e2));
 
+        //same value, ties are broken by row and column
+        e2 = new Element(1.0, 0, 1);
+        assertEquals(-1, e1.compareTo(e2));
+        assertEquals(1, e2.compareTo(e1));
+        e2 = new Element(1.0, 1, 0);
+        assertEquals(-1, e1.compareTo(e2));
+
         e2 = new Element(3.0, 0, 1);
         //e2 is bigger
         assertEquals(-1, e1.compareTo(e2));
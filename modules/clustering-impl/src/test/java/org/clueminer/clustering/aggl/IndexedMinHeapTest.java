@@ -0,0 +1,79 @@
+package org.clueminer.clustering.aggl;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class IndexedMinHeapTest {
+
+    private static final double delta = 1e-9;
+
+    @Test
+    public void testPoll() {
+        IndexedMinHeap subject = new IndexedMinHeap(5);
+        subject.put(0, 3.0);
+        subject.put(1, 1.0);
+        subject.put(2, 4.0);
+        subject.put(3, 1.5);
+        subject.put(4, 0.5);
+        assertEquals(5, subject.size());
+        assertEquals(4, subject.poll());
+        assertEquals(1, subject.poll());
+        assertEquals(3, subject.poll());
+        assertEquals(0, subject.poll());
+        assertEquals(2, subject.poll());
+        assertTrue(subject.isEmpty());
+    }
+
+    @Test
+    public void testUpdate() {
+        IndexedMinHeap subject = new IndexedMinHeap(4);
+        subject.put(0, 3.0);
+        subject.put(1, 1.0);
+        subject.put(2, 4.0);
+        subject.put(3, 2.0);
+        //decrease key
+        subject.update(2, 0.5);
+        assertEquals(2, subject.peek());
+        //increase key
+        subject.update(2, 10.0);
+        assertEquals(1, subject.peek());
+        subject.put(1, 5.0);
+        assertEquals(3, subject.peek());
+        assertEquals(5.0, subject.key(1), delta);
+        assertEquals(4, subject.size());
+    }
+
+    @Test
+    public void testRemove() {
+        IndexedMinHeap subject = new IndexedMinHeap(4);
+        subject.put(0, 3.0);
+        subject.put(1, 1.0);
+        subject.put(2, 4.0);
+        subject.put(3, 2.0);
+        subject.remove(1);
+        assertFalse(subject.contains(1));
+        assertEquals(3, subject.size());
+        //removing missing item is no-op
+        subject.remove(1);
+        assertEquals(3, subject.size());
+        assertEquals(3, subject.poll());
+        assertEquals(0, subject.poll());
+        assertEquals(2, subject.poll());
+    }
+
+    @Test
+    public void testTies() {
+        IndexedMinHeap subject = new IndexedMinHeap(3);
+        subject.put(2, 1.0);
+        subject.put(1, 1.0);
+        subject.put(0, 1.0);
+        assertEquals(0, subject.poll());
+        assertEquals(1, subject.poll());
+        assertEquals(2, subject.poll());
+    }
+
+}
@@ -0,0 +1,184 @@
+package org.clueminer.clustering.aggl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.clueminer.attributes.BasicAttrType;
+import org.clueminer.cluster.FakeClustering;
+import org.clueminer.clustering.aggl.linkage.AverageLinkage;
+import org.clueminer.clustering.aggl.linkage.CompleteLinkage;
+import org.clueminer.clustering.aggl.linkage.CompleteLinkageInv;
+import org.clueminer.clustering.aggl.linkage.MedianLinkage;
+import org.clueminer.clustering.aggl.linkage.SingleLinkage;
+import org.clueminer.clustering.aggl.linkage.WardsLinkage;
+import org.clueminer.clustering.api.AgglParams;
+import org.clueminer.clustering.api.ClusteringType;
+import org.clueminer.clustering.api.HierarchicalResult;
+import org.clueminer.clustering.api.dendrogram.DendroNode;
+import org.clueminer.clustering.api.dendrogram.DendroTreeData;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import org.clueminer.distance.EuclideanDistance;
+import org.clueminer.math.Matrix;
+import org.clueminer.utils.PropType;
+import org.clueminer.utils.Props;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class NNChainTest {
+
+    private final NNChain subject = new NNChain();
+    private static final double delta = 1e-9;
+
+    private Props linkage(String linkage) {
+        Props pref = new Props();
+        pref.put(AgglParams.LINKAGE, linkage);
+        pref.put(AgglParams.CLUSTERING_TYPE, ClusteringType.ROWS_CLUSTERING);
+        pref.put(PropType.PERFORMANCE, AgglParams.KEEP_PROXIMITY, true);
+        return pref;
+    }
+
+    private Dataset<? extends Instance> randomData(int n, int d, long seed) {
+        Random rand = new Random(seed);
+        Dataset<Instance> data = new ArrayDataset<>(n, d);
+        for (int j = 0; j < d; j++) {
+            data.attributeBuilder().create("attr" + j, BasicAttrType.NUMERIC);
+        }
+        double[] values;
+        for (int i = 0; i < n; i++) {
+            values = new double[d];
+            for (int j = 0; j < d; j++) {
+                values[j] = rand.nextDouble();
+            }
+            data.builder().create(values, "c" + (i % 3));
+        }
+        return data;
+    }
+
+    private List<Double> heights(DendroTreeData tree) {
+        List<Double> heights = new ArrayList<>();
+        collect(tree.getRoot(), heights);
+        Collections.sort(heights);
+        return heights;
+    }
+
+    private void collect(DendroNode node, List<Double> heights) {
+        if (!node.isLeaf()) {
+            heights.add(node.getHeight());
+            collect(node.getLeft(), heights);
+            collect(node.getRight(), heights);
+        }
+    }
+
+    @Test
+    public void testSingleLinkage() {
+        Dataset<? extends Instance> dataset = FakeClustering.kumarData();
+        HierarchicalResult result = subject.hierarchy(dataset, linkage(SingleLinkage.name));
+        Matrix similarityMatrix = result.getProximityMatrix();
+        assertNotNull(similarityMatrix);
+        assertEquals(dataset.size(), similarityMatrix.rowsCount());
+        DendroTreeData tree = result.getTreeData();
+        assertEquals(dataset.size(), tree.numLeaves());
+        assertEquals(0.21587033144922907, tree.getRoot().getHeight(), delta);
+    }
+
+    @Test
+    public void testCompleteLinkage() {
+        Dataset<? extends Instance> dataset = FakeClustering.kumarData();
+        HierarchicalResult result = subject.hierarchy(dataset, linkage(CompleteLinkage.name));
+        DendroTreeData tree = result.getTreeData();
+        assertEquals(dataset.size(), tree.numLeaves());
+        assertEquals(0.38600518131237566, tree.getRoot().getHeight(), delta);
+    }
+
+    @Test
+    public void testAverageLinkage() {
+        Dataset<? extends Instance> dataset = FakeClustering.kumarData();
+        HierarchicalResult result = subject.hierarchy(dataset, linkage(AverageLinkage.name));
+        DendroTreeData tree = result.getTreeData();
+        assertEquals(dataset.size(), tree.numLeaves());
+        assertEquals(0.27900110873498624, tree.getRoot().getHeight(), delta);
+    }
+
+    /**
+     * For reducible linkages the dendrogram must have same merge heights as
+     * HAC with Lance-Williams updates
+     */
+    @Test
+    public void testSameAsHACLW() {
+        HACLW haclw = new HACLW();
+        Dataset<? extends Instance> dataset = randomData(60, 3, 42);
+        for (String linkage : new String[]{SingleLinkage.name, CompleteLinkage.name, AverageLinkage.name, WardsLinkage.name}) {
+            List<Double> expected = heights(haclw.hierarchy(dataset, linkage(linkage)).getTreeData());
+            DendroTreeData tree = subject.hierarchy(dataset, linkage(linkage)).getTreeData();
+            assertEquals(dataset.size(), tree.numLeaves());
+            List<Double> actual = heights(tree);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(linkage, expected.get(i), actual.get(i), delta);
+            }
+        }
+    }
+
+    @Test
+    public void testProximityMatrixUnchanged() {
+        Dataset<? extends Instance> dataset = FakeClustering.kumarData();
+        HierarchicalResult result = subject.hierarchy(dataset, linkage(CompleteLinkage.name));
+        Matrix similarityMatrix = result.getProximityMatrix();
+        Matrix expected = AgglClustering.rowSimilarityMatrix(dataset.asMatrix(), new EuclideanDistance());
+        for (int i = 0; i < dataset.size(); i++) {
+            for (int j = 0; j < i; j++) {
+                assertEquals(expected.get(i, j), similarityMatrix.get(i, j), delta);
+            }
+        }
+    }
+
+    @Test
+    public void testColumnClustering() {
+        Dataset<? extends Instance> dataset = randomData(10, 6, 7);
+        Props pref = linkage(SingleLinkage.name);
+        pref.put(AgglParams.CLUSTERING_TYPE, ClusteringType.COLUMNS_CLUSTERING);
+        HierarchicalResult result = subject.hierarchy(dataset, pref);
+        assertEquals(dataset.attributeCount(), result.getTreeData().numLeaves());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testNonReducibleLinkage() {
+        Dataset<? extends Instance> dataset = FakeClustering.kumarData();
+        subject.hierarchy(dataset, linkage(MedianLinkage.name));
+    }
+
+    @Test
+    public void testSingleItem() {
+        Dataset<? extends Instance> dataset = randomData(1, 3, 42);
+        HierarchicalResult result = subject.hierarchy(dataset, linkage(SingleLinkage.name));
+        DendroTreeData tree = result.getTreeData();
+        assertEquals(1, tree.numLeaves());
+        assertTrue(tree.getRoot().isLeaf());
+        assertEquals(0, tree.getRoot().getIndex());
+    }
+
+    @Test
+    public void testEmpty() {
+        Dataset<? extends Instance> dataset = randomData(0, 3, 42);
+        HierarchicalResult result = subject.hierarchy(dataset, linkage(SingleLinkage.name));
+        DendroTreeData tree = result.getTreeData();
+        assertNull(tree.getRoot());
+        assertEquals(0, tree.numLeaves());
+    }
+
+    @Test
+    public void testLinkageSupported() {
+        assertTrue(subject.isLinkageSupported(WardsLinkage.name));
+        assertTrue(subject.isLinkageSupported(AverageLinkage.name));
+        assertFalse(subject.isLinkageSupported(MedianLinkage.name));
+        assertFalse(subject.isLinkageSupported(CompleteLinkageInv.name));
+    }
+
+}
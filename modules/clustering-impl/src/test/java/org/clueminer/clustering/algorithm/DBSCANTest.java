@@ -27,6 +27,7 @@ import org.clueminer.dataset.api.Instance;
 import org.clueminer.dataset.api.InstanceBuilder;
 import org.clueminer.dataset.plugin.ArrayDataset;
 import org.clueminer.knn.LinearRNN;
+import org.clueminer.knn.VPTree;
 import org.clueminer.neighbor.Neighbor;
 import org.clueminer.neighbor.RNNSearch;
 import org.clueminer.utils.Props;
@@ -135,4 +136,16 @@ public class DBSCANTest {
         assertEquals(2, seeds.size());
     }
 
+    @Test
+    public void testVPTree() {
+        Dataset dataset = basicData();
+        Props pref = new Props();
+        pref.putInt(DBSCAN.MIN_PTS, 2);
+        pref.putDouble(DBSCAN.EPS, 5);
+        pref.put(DBSCAN.RNN_ALG, VPTree.name);
+        Clustering<Instance, Cluster<Instance>> c = subject.cluster(dataset, pref);
+        assertEquals(4, c.size());
+        assertEquals(VPTree.name, subject.getNns().getName());
+    }
+
 }
@@ -0,0 +1,141 @@
+package org.clueminer.clustering.algorithm;
+
+import java.util.Random;
+import org.clueminer.attributes.BasicAttrType;
+import org.clueminer.clustering.api.AbstractClusteringAlgorithm;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.Clustering;
+import org.clueminer.clustering.struct.LabelClustering;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import org.clueminer.distance.CosineDistance;
+import org.clueminer.distance.ManhattanDistance;
+import org.clueminer.utils.Props;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class HamerlyKMeansTest {
+
+    private Dataset<Instance> blobs(int n, int dim, long seed) {
+        Random rand = new Random(seed);
+        Dataset<Instance> data = new ArrayDataset<>(n, dim);
+        for (int j = 0; j < dim; j++) {
+            data.attributeBuilder().create("a" + j, BasicAttrType.NUMERIC);
+        }
+        double[] row;
+        for (int i = 0; i < n; i++) {
+            row = new double[dim];
+            for (int j = 0; j < dim; j++) {
+                row[j] = 5 * ((i + j) % 5) + rand.nextGaussian();
+            }
+            data.builder().create(row);
+        }
+        return data;
+    }
+
+    private void assertSameAssignment(Clustering<Instance, Cluster<Instance>> expected,
+            Clustering<Instance, Cluster<Instance>> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).size(), actual.get(i).size());
+            for (int j = 0; j < expected.get(i).size(); j++) {
+                assertEquals(expected.get(i).get(j).getIndex(), actual.get(i).get(j).getIndex());
+            }
+        }
+    }
+
+    @Test
+    public void testSameAsKMeans() {
+        KMeans<Instance, Cluster<Instance>> km = new KMeans<>();
+        HamerlyKMeans<Instance, Cluster<Instance>> hamerly = new HamerlyKMeans<>();
+        Dataset<Instance> data = blobs(300, 3, 7);
+        Props params = new Props();
+        for (int k = 2; k < 9; k++) {
+            for (int seed = 1; seed < 6; seed++) {
+                params.putInt(KMeans.K, k);
+                params.putInt(KMeans.SEED, seed);
+                assertSameAssignment(km.cluster(data, params), hamerly.cluster(data, params));
+            }
+        }
+    }
+
+    @Test
+    public void testPruning() {
+        HamerlyKMeans<Instance, Cluster<Instance>> hamerly = new HamerlyKMeans<>();
+        Dataset<Instance> data = blobs(500, 4, 3);
+        Props params = new Props();
+        params.putInt(KMeans.K, 5);
+        params.putInt(KMeans.SEED, 42);
+        params.putInt(KMeans.ITERATIONS, 1000);
+        Clustering<Instance, Cluster<Instance>> clust = hamerly.cluster(data, params);
+        assertEquals(5, clust.size());
+        //initial assignment computes all distances, next iterations should skip most of them
+        assertTrue(hamerly.getDistanceCount() < 4 * data.size() * 5);
+    }
+
+    @Test
+    public void testNonEuclidean() {
+        KMeans<Instance, Cluster<Instance>> km = new KMeans<>();
+        HamerlyKMeans<Instance, Cluster<Instance>> hamerly = new HamerlyKMeans<>();
+        Dataset<Instance> data = blobs(200, 2, 11);
+        Props params = new Props();
+        params.putInt(KMeans.K, 4);
+        params.putInt(KMeans.SEED, 3);
+        params.put(KMeans.DISTANCE, new ManhattanDistance().getName());
+        assertSameAssignment(km.cluster(data, params), hamerly.cluster(data, params));
+    }
+
+    @Test
+    public void testCosine() {
+        KMeans<Instance, Cluster<Instance>> km = new KMeans<>();
+        HamerlyKMeans<Instance, Cluster<Instance>> hamerly = new HamerlyKMeans<>();
+        Dataset<Instance> data = blobs(300, 3, 5);
+        Props params = new Props();
+        //not a metric, bounds can't be used
+        params.put(KMeans.DISTANCE, new CosineDistance().getName());
+        for (int k = 2; k < 7; k++) {
+            for (int seed = 1; seed < 4; seed++) {
+                params.putInt(KMeans.K, k);
+                params.putInt(KMeans.SEED, seed);
+                assertSameAssignment(km.cluster(data, params), hamerly.cluster(data, params));
+            }
+        }
+    }
+
+    @Test
+    public void testLabelClustering() {
+        KMeans<Instance, Cluster<Instance>> km = new KMeans<>();
+        HamerlyKMeans<Instance, Cluster<Instance>> hamerly = new HamerlyKMeans<>();
+        Dataset<Instance> data = blobs(300, 3, 5);
+        Props params = new Props();
+        params.putInt(KMeans.K, 5);
+        params.putInt(KMeans.SEED, 2);
+        Clustering<Instance, Cluster<Instance>> expected = km.cluster(data, params);
+        params.putBoolean(AbstractClusteringAlgorithm.LABEL_CLUSTERING, true);
+        Clustering<Instance, Cluster<Instance>> labels = km.cluster(data, params);
+        assertTrue(labels instanceof LabelClustering);
+        assertSameAssignment(expected, labels);
+        assertSameAssignment(expected, hamerly.cluster(data, params));
+    }
+
+    @Test
+    public void testReuseBuffers() {
+        KMeans<Instance, Cluster<Instance>> km = new KMeans<>();
+        HamerlyKMeans<Instance, Cluster<Instance>> hamerly = new HamerlyKMeans<>();
+        Props params = new Props();
+        params.putInt(KMeans.SEED, 4);
+        //both datasets have 400 values and 12 centroid coordinates
+        Dataset<Instance> data = blobs(100, 4, 1);
+        params.putInt(KMeans.K, 3);
+        assertSameAssignment(km.cluster(data, params), hamerly.cluster(data, params));
+        data = blobs(200, 2, 2);
+        params.putInt(KMeans.K, 6);
+        assertSameAssignment(km.cluster(data, params), hamerly.cluster(data, params));
+    }
+}
@@ -0,0 +1,126 @@
+package org.clueminer.clustering.algorithm;
+
+import java.util.Random;
+import org.clueminer.attributes.BasicAttrType;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.Clustering;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import org.clueminer.utils.Props;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class MiniBatchKMeansTest {
+
+    private static final int BLOBS = 3;
+
+    /**
+     * Well separated blobs, i-th instance belongs to blob i % 3
+     */
+    private Dataset<Instance> blobs(int n, long seed) {
+        return blobs(n, 2, seed);
+    }
+
+    private Dataset<Instance> blobs(int n, int dim, long seed) {
+        Random rand = new Random(seed);
+        Dataset<Instance> data = new ArrayDataset<>(n, dim);
+        for (int j = 0; j < dim; j++) {
+            data.attributeBuilder().create("a" + j, BasicAttrType.NUMERIC);
+        }
+        double[] row;
+        for (int i = 0; i < n; i++) {
+            row = new double[dim];
+            row[0] = 20 * (i % BLOBS) + rand.nextGaussian();
+            for (int j = 1; j < dim; j++) {
+                row[j] = rand.nextGaussian();
+            }
+            data.builder().create(row);
+        }
+        return data;
+    }
+
+    private Props params() {
+        Props params = new Props();
+        params.putInt(KMeans.K, BLOBS);
+        params.putInt(KMeans.SEED, 1);
+        params.putInt(MiniBatchKMeans.BATCH, 100);
+        params.putInt(KMeans.ITERATIONS, 50);
+        return params;
+    }
+
+    @Test
+    public void testCluster() {
+        MiniBatchKMeans<Instance, Cluster<Instance>> km = new MiniBatchKMeans<>();
+        Dataset<Instance> data = blobs(3000, 2);
+        Clustering<Instance, Cluster<Instance>> clust = km.cluster(data, params());
+        assertEquals(BLOBS, clust.size());
+        for (Cluster<Instance> c : clust) {
+            assertEquals(1000, c.size());
+            int blob = c.get(0).getIndex() % BLOBS;
+            for (Instance inst : c) {
+                assertEquals(blob, inst.getIndex() % BLOBS);
+            }
+        }
+        assertTrue(clust.getParams().getDouble(MiniBatchKMeans.THROUGHPUT) > 0.0);
+    }
+
+    @Test
+    public void testStream() {
+        MiniBatchKMeans<Instance, Cluster<Instance>> km = new MiniBatchKMeans<>();
+        Dataset<Instance> data = blobs(1000, 3);
+        km.fit(data.iterator(), params());
+        assertEquals(1000, km.getRows());
+        double[][] centroids = km.getCentroids();
+        boolean[] found = new boolean[BLOBS];
+        for (double[] c : centroids) {
+            int blob = (int) Math.round(c[0] / 20);
+            assertEquals(20 * blob, c[0], 0.5);
+            assertEquals(0.0, c[1], 0.5);
+            found[blob] = true;
+        }
+        for (boolean f : found) {
+            assertTrue(f);
+        }
+
+        final int[] sizes = new int[BLOBS];
+        long cnt = km.assign(data.iterator(), new MiniBatchKMeans.Assignment() {
+
+            @Override
+            public void assigned(Instance inst, int cluster) {
+                sizes[cluster]++;
+            }
+        });
+        assertEquals(1000, cnt);
+        assertEquals(2000, km.getRows());
+        for (int s : sizes) {
+            assertTrue(s >= 333 && s <= 334);
+        }
+
+        //continue learning from another chunk
+        km.update(blobs(200, 4));
+        assertEquals(2200, km.getRows());
+        assertTrue(km.getThroughput() > 0.0);
+    }
+
+    @Test
+    public void testReuseBuffers() {
+        MiniBatchKMeans<Instance, Cluster<Instance>> km = new MiniBatchKMeans<>();
+        Props params = params();
+        params.putInt(MiniBatchKMeans.BATCH, 500);
+        assertEquals(BLOBS, km.cluster(blobs(3000, 4, 5), params).size());
+        //same size of buffer (batch * dim), but larger batch
+        params.putInt(MiniBatchKMeans.BATCH, 1000);
+        assertEquals(BLOBS, km.cluster(blobs(3000, 2, 6), params).size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNotFitted() {
+        new MiniBatchKMeans<>().getCentroids();
+    }
+}
@@ -0,0 +1,500 @@
+package org.clueminer.clustering.struct;
+
+import java.awt.Color;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import javax.swing.JComponent;
+import org.clueminer.attributes.BasicAttrType;
+import org.clueminer.clustering.api.AbstractClusteringAlgorithm;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.dataset.api.Attribute;
+import org.clueminer.dataset.api.AttributeBuilder;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.api.InstanceBuilder;
+import org.clueminer.dataset.plugin.AbstractArrayDataset;
+import org.clueminer.dataset.plugin.AttributeCollection;
+
+/**
+ * Read-only cluster of a {@link LabelClustering}. No instances are copied, the
+ * view is just a range of member indexes owned by the clustering. Attributes
+ * are shared with the clustered dataset.
+ *
+ * @author Tomas Barton
+ * @param <E>
+ */
+public class ClusterView<E extends Instance> extends AbstractArrayDataset<E> implements Cluster<E> {
+
+    private static final long serialVersionUID = 2618236508916315723L;
+    private final LabelClustering<E, ?> owner;
+    /**
+     * label of this cluster in owner's label vector
+     */
+    private final int label;
+    private int clusterId;
+    private Color color;
+    private E centroid;
+
+    ClusterView(LabelClustering<E, ?> owner, int label) {
+        this.owner = owner;
+        this.label = label;
+        this.clusterId = label;
+        this.parent = owner.getDataset();
+    }
+
+    private Dataset<E> dataset() {
+        return owner.getDataset();
+    }
+
+    @Override
+    public int size() {
+        return owner.clusterEnd(label) - owner.clusterStart(label);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public E get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new ArrayIndexOutOfBoundsException("can't get instance at position: " + index);
+        }
+        return dataset().get(owner.member(owner.clusterStart(label) + index));
+    }
+
+    @Override
+    public E instance(int index) {
+        return get(index);
+    }
+
+    @Override
+    public boolean hasIndex(int idx) {
+        return idx >= 0 && idx < size();
+    }
+
+    @Override
+    public E getRandom(Random rand) {
+        return get(rand.nextInt(size()));
+    }
+
+    @Override
+    public double get(int instanceIdx, int attributeIndex) {
+        return get(instanceIdx).value(attributeIndex);
+    }
+
+    @Override
+    public double getAttributeValue(String attributeName, int instanceIdx) {
+        return getAttributeValue(getAttribute(attributeName), instanceIdx);
+    }
+
+    @Override
+    public double getAttributeValue(Attribute attribute, int instanceIdx) {
+        return get(instanceIdx).value(attribute.getIndex());
+    }
+
+    @Override
+    public boolean contains(int origId) {
+        return owner.assignedCluster(origId) == label;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o instanceof Instance) {
+            Instance inst = (Instance) o;
+            return contains(inst.getIndex());
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        for (Object elem : c) {
+            if (!contains(elem)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new ViewIterator();
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] res = new Object[size()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = get(i);
+        }
+        return res;
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        int size = size();
+        if (a.length < size) {
+            a = (T[]) java.lang.reflect.Array.newInstance(a.getClass().getComponentType(), size);
+        }
+        for (int i = 0; i < size; i++) {
+            a[i] = (T) get(i);
+        }
+        if (a.length > size) {
+            a[size] = null;
+        }
+        return a;
+    }
+
+    @Override
+    public SortedSet<Object> getClasses() {
+        SortedSet<Object> classes = new TreeSet<>();
+        for (E inst : this) {
+            if (inst.classValue() != null) {
+                classes.add(inst.classValue());
+            }
+        }
+        return classes;
+    }
+
+    @Override
+    public int classIndex(Object clazz) {
+        if (clazz != null) {
+            return getClasses().headSet(clazz).size();
+        }
+        return -1;
+    }
+
+    @Override
+    public Object classValue(int index) {
+        int i = 0;
+        for (Object o : getClasses()) {
+            if (i == index) {
+                return o;
+            }
+            i++;
+        }
+        return null;
+    }
+
+    @Override
+    public void changedClass(Object orig, Object current, Object source) {
+        //classes are computed on demand
+    }
+
+    @Override
+    public int attributeCount() {
+        return dataset().attributeCount();
+    }
+
+    @Override
+    public Attribute[] copyAttributes() {
+        return dataset().copyAttributes();
+    }
+
+    @Override
+    public Map<Integer, Attribute> getAttributes() {
+        return dataset().getAttributes();
+    }
+
+    @Override
+    public Attribute getAttribute(int index) {
+        return dataset().getAttribute(index);
+    }
+
+    @Override
+    public Attribute getAttribute(String attributeName) {
+        return dataset().getAttribute(attributeName);
+    }
+
+    @Override
+    public InstanceBuilder<E> builder() {
+        return dataset().builder();
+    }
+
+    @Override
+    public AttributeBuilder attributeBuilder() {
+        return dataset().attributeBuilder();
+    }
+
+    @Override
+    public void setClusterId(int id) {
+        this.clusterId = id;
+    }
+
+    @Override
+    public int getClusterId() {
+        return clusterId;
+    }
+
+    @Override
+    public Color getColor() {
+        return color;
+    }
+
+    @Override
+    public void setColor(Color color) {
+        this.color = color;
+    }
+
+    /**
+     * Mean of cluster members, computed on first request
+     *
+     * @return artificial instance representing center of cluster
+     */
+    @Override
+    public E getCentroid() {
+        if (centroid == null) {
+            int attrCount = attributeCount();
+            if (attrCount == 0) {
+                throw new RuntimeException("number of attributes should not be 0");
+            }
+            double[] sum = new double[attrCount];
+            for (E inst : this) {
+                for (int i = 0; i < attrCount; i++) {
+                    sum[i] += inst.value(i);
+                }
+            }
+            Instance avg = builder().build(attrCount);
+            int n = size();
+            for (int i = 0; i < attrCount; i++) {
+                avg.set(i, sum[i] / n);
+            }
+            centroid = (E) avg;
+        }
+        return centroid;
+    }
+
+    @Override
+    public int countMutualElements(Cluster<E> c) {
+        int mutual = 0;
+        for (E inst : this) {
+            if (c.contains(inst.getIndex())) {
+                mutual++;
+            }
+        }
+        return mutual;
+    }
+
+    @Override
+    public boolean isOutlier() {
+        return AbstractClusteringAlgorithm.OUTLIER_LABEL.equals(getName());
+    }
+
+    @Override
+    public int getCapacity() {
+        return size();
+    }
+
+    @Override
+    public double min() {
+        double min = Double.POSITIVE_INFINITY;
+        for (E inst : this) {
+            for (int i = 0; i < inst.size(); i++) {
+                min = Math.min(min, inst.value(i));
+            }
+        }
+        return min;
+    }
+
+    @Override
+    public double max() {
+        double max = Double.NEGATIVE_INFINITY;
+        for (E inst : this) {
+            for (int i = 0; i < inst.size(); i++) {
+                max = Math.max(max, inst.value(i));
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public void resetStats() {
+        //no statistics are kept
+    }
+
+    @Override
+    public Collection<? extends Number> attrCollection(int index) {
+        return new AttributeCollection<>(this, index);
+    }
+
+    /**
+     * Copy of the view as a regular (mutable) cluster, instances are deep
+     * copied
+     *
+     * @return
+     */
+    @Override
+    public Cluster<E> copy() {
+        BaseCluster<E> out = (BaseCluster<E>) duplicate();
+        for (E inst : this) {
+            out.add((E) inst.copy());
+        }
+        return out;
+    }
+
+    /**
+     * Copies attributes but not data itself
+     *
+     * @return empty {@link BaseCluster} with same attributes
+     */
+    @Override
+    public Dataset<E> duplicate() {
+        BaseCluster<E> copy = new BaseCluster<>(size(), attributeCount());
+        Attribute attribute;
+        for (int i = 0; i < attributeCount(); i++) {
+            attribute = getAttribute(i);
+            copy.attributeBuilder().create(attribute.getName(), BasicAttrType.NUMERIC, attribute.getRole());
+        }
+        copy.setName(getName());
+        copy.setColor(color);
+        copy.setParent(dataset());
+        return copy;
+    }
+
+    @Override
+    public boolean add(E i) {
+        throw new UnsupportedOperationException("cluster view is read-only");
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        throw new UnsupportedOperationException("cluster view is read-only");
+    }
+
+    @Override
+    public boolean addAll(Dataset<? extends E> d) {
+        throw new UnsupportedOperationException("cluster view is read-only");
+    }
+
+    @Override
+    public E set(int instanceIdx, E inst) {
+        throw new UnsupportedOperationException("cluster view is read-only");
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException("cluster view is read-only");
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw new UnsupportedOperationException("cluster view is read-only");
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw new UnsupportedOperationException("cluster view is read-only");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("cluster view is read-only");
+    }
+
+    @Override
+    public void ensureCapacity(int size) {
+        throw new UnsupportedOperationException("cluster view is read-only");
+    }
+
+    @Override
+    public void addAttribute(Attribute attr) {
+        throw new UnsupportedOperationException("attributes are shared with the dataset");
+    }
+
+    @Override
+    public void setAttribute(int index, Attribute attr) {
+        throw new UnsupportedOperationException("attributes are shared with the dataset");
+    }
+
+    @Override
+    public void setAttributes(Map<Integer, Attribute> attributes) {
+        throw new UnsupportedOperationException("attributes are shared with the dataset");
+    }
+
+    @Override
+    public void setAttributeValue(String attributeName, int instanceIdx, double value) {
+        set(instanceIdx, getAttribute(attributeName).getIndex(), value);
+    }
+
+    @Override
+    public JComponent getPlotter() {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+
+    /**
+     * Hash code for clusters should not depend on order of elements in the
+     * cluster.
+     *
+     * @return
+     */
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (E elem : this) {
+            hash += elem.hashCode();
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final ClusterView<?> other = (ClusterView<?>) obj;
+        if (this.size() != other.size()) {
+            return false;
+        }
+        return this.hashCode() == other.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ClusterView ");
+        sb.append(getName());
+        sb.append(" (").append(size()).append(") ");
+        sb.append(" [ ");
+        for (int i = 0; i < size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(get(i).getIndex());
+        }
+        sb.append(" ]");
+        return sb.toString();
+    }
+
+    private class ViewIterator implements Iterator<E> {
+
+        private int index = 0;
+        private final int size = size();
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public E next() {
+            if (index >= size) {
+                throw new NoSuchElementException();
+            }
+            return get(index++);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("cluster view is read-only");
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package org.clueminer.clustering.struct;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+
+/**
+ * Compact clustering backed by a single label vector. Members of all clusters
+ * are stored in one array ordered by cluster (counting sort), clusters are
+ * just lightweight {@link ClusterView}s of index ranges. Lookup of an
+ * instance's cluster is O(1).
+ *
+ * Structure of the clustering is immutable, clusters can't be added and
+ * instances can't be moved between clusters. Use {@link ClusterList} when a
+ * mutable structure is needed.
+ *
+ * @author Tomas Barton
+ * @param <E>
+ * @param <C>
+ */
+public class LabelClustering<E extends Instance, C extends Cluster<E>> extends ClusterList<E, C> {
+
+    private static final long serialVersionUID = -1930429962458310167L;
+    /**
+     * label assigned to instances which don't belong to any cluster
+     */
+    public static final int UNASSIGNED = -1;
+
+    private final Dataset<E> dataset;
+    /**
+     * cluster of i-th instance in the dataset
+     */
+    private final int[] labels;
+    /**
+     * dataset positions of assigned instances, grouped by cluster
+     */
+    private final int[] members;
+    /**
+     * members of cluster c are stored in range [start[c], start[c + 1])
+     */
+    private final int[] start;
+    /**
+     * labels indexed by {@link Instance#getIndex()}, null when index of each
+     * instance matches its position in the dataset
+     */
+    private final int[] byIndex;
+
+    /**
+     *
+     * @param dataset clustered data
+     * @param labels  cluster of each instance (in order of the dataset), from
+     *                0 to k - 1 or {@link #UNASSIGNED}
+     * @param k       number of clusters
+     */
+    public LabelClustering(Dataset<E> dataset, int[] labels, int k) {
+        super(k);
+        if (labels.length != dataset.size()) {
+            throw new IllegalArgumentException("expected " + dataset.size() + " labels, got " + labels.length);
+        }
+        this.dataset = dataset;
+        this.labels = labels;
+        start = new int[k + 1];
+        int assigned = 0;
+        boolean identity = true;
+        int maxIndex = -1;
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i] != UNASSIGNED) {
+                if (labels[i] < 0 || labels[i] >= k) {
+                    throw new IllegalArgumentException("invalid label " + labels[i] + " of instance " + i);
+                }
+                start[labels[i] + 1]++;
+                assigned++;
+            }
+            int idx = dataset.get(i).getIndex();
+            if (idx != i) {
+                identity = false;
+            }
+            maxIndex = Math.max(maxIndex, idx);
+        }
+        for (int c = 0; c < k; c++) {
+            start[c + 1] += start[c];
+        }
+        members = new int[assigned];
+        int[] next = new int[k];
+        System.arraycopy(start, 0, next, 0, k);
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i] != UNASSIGNED) {
+                members[next[labels[i]]++] = i;
+            }
+        }
+        if (identity) {
+            byIndex = null;
+        } else {
+            byIndex = new int[maxIndex + 1];
+            Arrays.fill(byIndex, UNASSIGNED);
+            for (int i = 0; i < labels.length; i++) {
+                if (dataset.get(i).getIndex() >= 0) {
+                    byIndex[dataset.get(i).getIndex()] = labels[i];
+                }
+            }
+        }
+        ClusterView<E> view;
+        for (int c = 0; c < k; c++) {
+            view = new ClusterView<>(this, c);
+            view.setName("cluster " + (c + 1));
+            super.put(c, (C) view);
+        }
+    }
+
+    public Dataset<E> getDataset() {
+        return dataset;
+    }
+
+    /**
+     * Label vector, must not be modified
+     *
+     * @return cluster of each instance (in order of the dataset)
+     */
+    public int[] getLabels() {
+        return labels;
+    }
+
+    int clusterStart(int c) {
+        return start[c];
+    }
+
+    int clusterEnd(int c) {
+        return start[c + 1];
+    }
+
+    int member(int i) {
+        return members[i];
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * @param instanceId
+     * @return
+     */
+    @Override
+    public int assignedCluster(int instanceId) {
+        int[] lab = byIndex != null ? byIndex : labels;
+        if (instanceId < 0 || instanceId >= lab.length) {
+            return UNASSIGNED;
+        }
+        return lab[instanceId];
+    }
+
+    @Override
+    public C assignedCluster(E inst) {
+        int c = assignedCluster(inst.getIndex());
+        if (c == UNASSIGNED) {
+            return null;
+        }
+        return get(c);
+    }
+
+    @Override
+    public int instancesCount() {
+        return members.length;
+    }
+
+    @Override
+    public E instance(int i) {
+        return dataset.get(members[i]);
+    }
+
+    @Override
+    public int[] clusterSizes() {
+        int[] sizes = new int[size()];
+        for (int c = 0; c < sizes.length; c++) {
+            sizes[c] = start[c + 1] - start[c];
+        }
+        return sizes;
+    }
+
+    @Override
+    public Iterator<E> instancesIterator() {
+        return new MembersIterator();
+    }
+
+    @Override
+    public boolean add(C e) {
+        throw new UnsupportedOperationException("structure of label clustering is immutable");
+    }
+
+    @Override
+    public void put(C d) {
+        throw new UnsupportedOperationException("structure of label clustering is immutable");
+    }
+
+    @Override
+    public void put(int index, C x) {
+        throw new UnsupportedOperationException("structure of label clustering is immutable");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("structure of label clustering is immutable");
+    }
+
+    @Override
+    public C createCluster(int clusterId) {
+        throw new UnsupportedOperationException("structure of label clustering is immutable");
+    }
+
+    @Override
+    public C createCluster() {
+        throw new UnsupportedOperationException("structure of label clustering is immutable");
+    }
+
+    @Override
+    public C createCluster(int clusterId, int capacity, String name) {
+        throw new UnsupportedOperationException("structure of label clustering is immutable");
+    }
+
+    /**
+     * Clusters are never missing, there's nothing to compact
+     */
+    @Override
+    public void compact() {
+        //keep names and IDs
+    }
+
+    private class MembersIterator implements Iterator<E> {
+
+        private int i = 0;
+
+        @Override
+        public boolean hasNext() {
+            return i < members.length;
+        }
+
+        @Override
+        public E next() {
+            if (i >= members.length) {
+                throw new NoSuchElementException();
+            }
+            return dataset.get(members[i++]);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("structure of label clustering is immutable");
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.clueminer.clustering.struct;
+
+import java.util.Iterator;
+import org.clueminer.attributes.BasicAttrType;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class LabelClusteringTest {
+
+    private static final double DELTA = 1e-9;
+    private Dataset<Instance> data;
+    private LabelClustering<Instance, Cluster<Instance>> subject;
+
+    @Before
+    public void setUp() {
+        data = new ArrayDataset<>(6, 2);
+        data.attributeBuilder().create("x", BasicAttrType.NUMERIC);
+        data.attributeBuilder().create("y", BasicAttrType.NUMERIC);
+        data.builder().create(new double[]{0.0, 0.0});
+        data.builder().create(new double[]{10.0, 10.0});
+        data.builder().create(new double[]{2.0, 0.0});
+        data.builder().create(new double[]{12.0, 10.0});
+        data.builder().create(new double[]{5.0, 5.0});
+        data.builder().create(new double[]{1.0, 3.0});
+        subject = new LabelClustering<>(data, new int[]{0, 1, 0, 1, LabelClustering.UNASSIGNED, 0}, 2);
+    }
+
+    @Test
+    public void testStructure() {
+        assertEquals(2, subject.size());
+        assertEquals(5, subject.instancesCount());
+        assertArrayEquals(new int[]{3, 2}, subject.clusterSizes());
+        assertEquals("cluster 1", subject.get(0).getName());
+        assertEquals(0, subject.assignedCluster(2));
+        assertEquals(1, subject.assignedCluster(3));
+        assertEquals(LabelClustering.UNASSIGNED, subject.assignedCluster(4));
+        assertEquals(subject.get(1), subject.assignedCluster(data.get(1)));
+        assertNull(subject.assignedCluster(data.get(4)));
+    }
+
+    @Test
+    public void testView() {
+        Cluster<Instance> c = subject.get(0);
+        assertEquals(3, c.size());
+        assertEquals(0, c.get(0).getIndex());
+        assertEquals(2, c.get(1).getIndex());
+        assertEquals(5, c.get(2).getIndex());
+        assertTrue(c.contains(5));
+        assertFalse(c.contains(4));
+        assertTrue(c.contains(data.get(2)));
+        assertEquals(2, c.attributeCount());
+        assertEquals(data.getAttribute(0), c.getAttribute(0));
+        assertEquals(10.0, subject.get(1).get(0, 1), DELTA);
+
+        Instance centroid = c.getCentroid();
+        assertEquals(1.0, centroid.value(0), DELTA);
+        assertEquals(1.0, centroid.value(1), DELTA);
+
+        Cluster<Instance> copy = (Cluster<Instance>) c.copy();
+        assertEquals(3, copy.size());
+        copy.add(data.get(4));
+        assertEquals(3, c.size());
+    }
+
+    @Test
+    public void testInstancesIterator() {
+        Iterator<Instance> it = subject.instancesIterator();
+        int cnt = 0;
+        while (it.hasNext()) {
+            assertTrue(it.next().getIndex() != 4);
+            cnt++;
+        }
+        assertEquals(5, cnt);
+        assertEquals(data.get(1), subject.instance(3));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCreateCluster() {
+        subject.createCluster();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testViewAdd() {
+        subject.get(0).add(data.get(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLabel() {
+        new LabelClustering<>(data, new int[]{0, 1, 0, 1, 2, 0}, 2);
+    }
+}
@@ -1,5 +1,6 @@
 package org.clueminer.distance.api;
 
+import org.clueminer.math.ArrayVector;
 import org.clueminer.math.Matrix;
 import org.clueminer.math.Vector;
 
@@ -83,6 +84,47 @@ public abstract class AbstractDistance implements Distance {
         return columns(matrix, e1, e2) * factor;
     }
 
+    /**
+     * Distance between two arrays using the primitive kernel
+     * {@link #measure(double[], int, double[], int, int)}
+     *
+     * @param x
+     * @param y
+     * @return
+     */
+    @Override
+    public double measure(double[] x, double[] y) {
+        checkInput(x, y);
+        return measure(x, 0, y, 0, x.length);
+    }
+
+    /**
+     * Whether both vectors provide access to their backing arrays, in such
+     * case distance could be computed by
+     * {@link #measure(double[], int, double[], int, int)}
+     *
+     * @param x
+     * @param y
+     * @return true when primitive kernel could be used
+     */
+    protected boolean isArrayBacked(Vector<Double> x, Vector<Double> y) {
+        return x instanceof ArrayVector && y instanceof ArrayVector;
+    }
+
+    /**
+     * Computes distance between array backed vectors without copying values
+     *
+     * @param x
+     * @param y
+     * @return
+     */
+    protected double measureArrays(Vector<Double> x, Vector<Double> y) {
+        checkInput(x, y);
+        ArrayVector a = (ArrayVector) x;
+        ArrayVector b = (ArrayVector) y;
+        return measure(a.array(), a.arrayOffset(), b.array(), b.arrayOffset(), a.size());
+    }
+
     protected void checkInput(Vector<Double> x, Vector<Double> y) {
         if (x.size() != y.size()) {
             throw new ArithmeticException("Both instances should contain the same number of values! x size: " + x.size() + " != y size: " + y.size());
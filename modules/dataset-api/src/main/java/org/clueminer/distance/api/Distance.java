@@ -52,6 +52,21 @@ public interface Distance extends Serializable {
 
     double measure(double[] x, double[] y);
 
+    /**
+     * Calculates the distance between two vectors stored in primitive arrays
+     * (possibly as a part of a larger array, e.g. a row of flat matrix). No
+     * values are copied nor boxed, therefore this is the fastest way to
+     * compute a distance.
+     *
+     * @param x array containing the first vector
+     * @param xOffset index of first element of x
+     * @param y array containing the second vector
+     * @param yOffset index of first element of y
+     * @param length number of elements of both vectors
+     * @return the distance between the two vectors
+     */
+    double measure(double[] x, int xOffset, double[] y, int yOffset, int length);
+
     /**
      * Returns the value that this distance metric produces for the lowest
      * distance or highest similarity. This is mainly useful to initialize
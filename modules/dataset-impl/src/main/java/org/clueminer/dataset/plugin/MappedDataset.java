@@ -0,0 +1,462 @@
+package org.clueminer.dataset.plugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOError;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import org.clueminer.attributes.BasicAttrType;
+import org.clueminer.dataset.api.Attribute;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.api.InstanceBuilder;
+
+/**
+ * Dataset which keeps numeric values in a memory mapped file, thus it's not
+ * limited by heap size. Only metadata of instances ({@link MappedRow}) are
+ * stored in heap. The file is split into multiple mapped regions (each region
+ * must be smaller than 2GB), see {@link org.clueminer.math.matrix.OnDiskMatrix}.
+ *
+ * Binary layout of the file (little endian):
+ * <ul>
+ * <li>header ({@value #HEADER_SIZE} bytes): magic number, format version,
+ * number of attributes, number of instances</li>
+ * <li>values of instances in row-major order (doubles)</li>
+ * <li>trailer: attributes (name, type, role) and instances' metadata (id, name,
+ * class)</li>
+ * </ul>
+ * The trailer is written by {@link #flush()} (or {@link #close()}), afterwards
+ * the dataset can be reopened by {@link #open(java.io.File)} without parsing
+ * the original data. Class values are persisted as strings.
+ *
+ * Dimension of the dataset is fixed (given by number of attributes at
+ * construction time). Rows created by {@link #builder()} are copied into the
+ * file when added to the dataset.
+ *
+ * If an {@link IOException} is raised while accessing the file, it's rethrown
+ * as an {@link IOError}.
+ *
+ * @author Tomas Barton
+ * @param <E>
+ */
+public class MappedDataset<E extends Instance> extends ArrayDataset<E> implements Dataset<E>, Closeable {
+
+    private static final long serialVersionUID = 2209165931424598743L;
+    /**
+     * "CLMD"
+     */
+    private static final int MAGIC = 0x434c4d44;
+    private static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    private static final int BYTES_PER_DOUBLE = 8;
+    private static final int MAX_ELEMENTS_PER_REGION = Integer.MAX_VALUE / BYTES_PER_DOUBLE;
+    /**
+     * minimal number of rows in a single region
+     */
+    private static final int MIN_REGION_ROWS = 1024;
+    private final File file;
+    private transient RandomAccessFile raf;
+    private transient FileChannel channel;
+    private transient MappedByteBuffer[] mapped;
+    private transient DoubleBuffer[] regions;
+    /**
+     * number of columns (doubles per row)
+     */
+    private final int cols;
+    private final int rowsPerRegion;
+    /**
+     * number of rows written into the file
+     */
+    private int rows = 0;
+
+    /**
+     * Create dataset backed by a temporary file (deleted on exit)
+     *
+     * @param instancesCapacity
+     * @param attributesCnt
+     */
+    public MappedDataset(int instancesCapacity, int attributesCnt) {
+        this(createTempFile(), instancesCapacity, attributesCnt);
+    }
+
+    /**
+     * Create dataset backed by given file, existing file will be overwritten
+     *
+     * @param file
+     * @param instancesCapacity
+     * @param attributesCnt
+     */
+    public MappedDataset(File file, int instancesCapacity, int attributesCnt) {
+        this(file, instancesCapacity, attributesCnt, true);
+    }
+
+    private MappedDataset(File file, int instancesCapacity, int attributesCnt, boolean create) {
+        super(instancesCapacity, attributesCnt);
+        if (attributesCnt <= 0) {
+            throw new IllegalArgumentException("number of attributes must be positive");
+        }
+        this.file = file;
+        this.cols = attributesCnt;
+        rowsPerRegion = Math.min(MAX_ELEMENTS_PER_REGION / cols, Math.max(instancesCapacity, MIN_REGION_ROWS));
+        mapped = new MappedByteBuffer[0];
+        regions = new DoubleBuffer[0];
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            channel = raf.getChannel();
+            if (create) {
+                channel.truncate(0);
+                writeHeader();
+            }
+        } catch (IOException ex) {
+            throw new IOError(ex);
+        }
+    }
+
+    private static File createTempFile() {
+        try {
+            File f = File.createTempFile("MappedDataset", ".dataset");
+            f.deleteOnExit();
+            return f;
+        } catch (IOException ex) {
+            throw new IOError(ex);
+        }
+    }
+
+    /**
+     * Open dataset previously stored by {@link #flush()} or {@link #close()}
+     *
+     * @param file
+     * @return dataset backed by given file
+     * @throws IOException when the file is not a valid dataset
+     */
+    public static MappedDataset<? extends Instance> open(File file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.getChannel().read(header, 0);
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new IOException(file.getName() + " is not a dataset file");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported version " + version);
+        }
+        int cols = header.getInt();
+        int rows = header.getInt();
+        MappedDataset<Instance> dataset = new MappedDataset<>(file, rows, cols, false);
+        dataset.rows = rows;
+        dataset.readTrailer();
+        return dataset;
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(cols).putInt(rows);
+        header.rewind();
+        channel.write(header, 0);
+    }
+
+    private long trailerPosition() {
+        return HEADER_SIZE + (long) rows * cols * BYTES_PER_DOUBLE;
+    }
+
+    private void writeTrailer() throws IOException {
+        channel.position(trailerPosition());
+        //stream is not closed, it would close the channel
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        out.writeInt(attributeCount());
+        for (int i = 0; i < attributeCount(); i++) {
+            Attribute attr = getAttribute(i);
+            out.writeUTF(attr.getName());
+            out.writeUTF(attr.getType().toString());
+            out.writeUTF(attr.getRole().toString());
+        }
+        Instance[] meta = new Instance[rows];
+        for (int i = 0; i < size(); i++) {
+            Instance inst = get(i);
+            if (inst instanceof MappedRow && ((MappedRow) inst).storage() == this) {
+                meta[((MappedRow) inst).row()] = inst;
+            }
+        }
+        for (Instance inst : meta) {
+            writeString(out, inst != null ? inst.getId() : null);
+            writeString(out, inst != null ? inst.getName() : null);
+            writeString(out, inst != null && inst.classValue() != null ? inst.classValue().toString() : null);
+        }
+        out.flush();
+    }
+
+    private void writeString(DataOutputStream out, String str) throws IOException {
+        out.writeBoolean(str != null);
+        if (str != null) {
+            out.writeUTF(str);
+        }
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        if (in.readBoolean()) {
+            return in.readUTF();
+        }
+        return null;
+    }
+
+    private void readTrailer() throws IOException {
+        channel.position(trailerPosition());
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        int attrCnt = in.readInt();
+        for (int i = 0; i < attrCnt; i++) {
+            attributeBuilder().create(in.readUTF(), in.readUTF(), in.readUTF());
+        }
+        int cnt = rows;
+        rows = 0;
+        for (int i = 0; i < cnt; i++) {
+            MappedRow row = new MappedRow(this, allocateRow());
+            row.setId(readString(in));
+            row.setName(readString(in));
+            row.setClassValue(readString(in));
+            row.setParent(this);
+            super.add(row);
+        }
+    }
+
+    /**
+     * Writes header and metadata of instances, so that the dataset could be
+     * reopened and forces all changes to the storage device.
+     */
+    public void flush() {
+        try {
+            for (MappedByteBuffer region : mapped) {
+                region.force();
+            }
+            writeHeader();
+            writeTrailer();
+            channel.force(true);
+        } catch (IOException ex) {
+            throw new IOError(ex);
+        }
+    }
+
+    /**
+     * Flush data and release the file
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        long end = channel.position();
+        MappedByteBuffer[] release = mapped;
+        mapped = new MappedByteBuffer[0];
+        regions = new DoubleBuffer[0];
+        boolean unmapped = true;
+        for (MappedByteBuffer region : release) {
+            unmapped &= unmap(region);
+        }
+        //remove unused space of last region, file can't be shrunk while
+        //it's still mapped
+        if (unmapped) {
+            channel.truncate(end);
+        }
+        channel.close();
+        raf.close();
+    }
+
+    /**
+     * Release mapped region immediately instead of waiting for garbage
+     * collection. There's no public API for that, JDK specific cleaner is
+     * invoked via reflection.
+     *
+     * @param buffer region which must not be accessed anymore
+     * @return false when the region couldn't be released
+     */
+    private static boolean unmap(MappedByteBuffer buffer) {
+        try {
+            //Java 9+
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return true;
+        } catch (NoSuchMethodException ex) {
+            //Java 7 and 8
+            try {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+                return true;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return false;
+            }
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * File where the dataset is stored
+     *
+     * @return
+     */
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public boolean add(Instance inst) {
+        return super.add(store(allocateRow(), inst));
+    }
+
+    @Override
+    public E set(int instanceIdx, E inst) {
+        if (inst instanceof MappedRow && ((MappedRow) inst).storage() == this) {
+            return super.set(instanceIdx, inst);
+        }
+        while (rows <= instanceIdx) {
+            allocateRow();
+        }
+        return super.set(instanceIdx, (E) store(instanceIdx, inst));
+    }
+
+    /**
+     * Copy values and metadata into given row of the file
+     *
+     * @param row
+     * @param inst
+     * @return view of the row
+     */
+    private MappedRow store(int row, Instance inst) {
+        if (inst.size() > cols) {
+            throw new IllegalArgumentException("instance has " + inst.size() + " values, but dataset dimension is " + cols);
+        }
+        MappedRow view = new MappedRow(this, row);
+        for (int j = 0; j < inst.size(); j++) {
+            write(row, j, inst.value(j));
+        }
+        view.setId(inst.getId());
+        view.setName(inst.getName());
+        view.setIndex(inst.getIndex());
+        view.setClassValue(inst.classValue());
+        view.setParent(this);
+        return view;
+    }
+
+    /**
+     * Instances can't be removed, rows are persisted in order of insertion
+     *
+     * @param o
+     * @return
+     */
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException("can't remove instance from mapped dataset");
+    }
+
+    /**
+     * Reserve space for a new row, maps new region of the file when needed
+     *
+     * @return row in the file
+     */
+    private int allocateRow() {
+        int region = rows / rowsPerRegion;
+        if (region >= regions.length) {
+            long start = HEADER_SIZE + (long) region * rowsPerRegion * cols * BYTES_PER_DOUBLE;
+            long size = (long) rowsPerRegion * cols * BYTES_PER_DOUBLE;
+            try {
+                mapped = Arrays.copyOf(mapped, region + 1);
+                regions = Arrays.copyOf(regions, region + 1);
+                mapped[region] = channel.map(FileChannel.MapMode.READ_WRITE, start, size);
+                regions[region] = mapped[region].order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            } catch (IOException ex) {
+                throw new IOError(ex);
+            }
+        }
+        return rows++;
+    }
+
+    private void checkColumn(int column) {
+        if (column < 0 || column >= cols) {
+            throw new ArrayIndexOutOfBoundsException("column: " + column);
+        }
+    }
+
+    double read(int row, int column) {
+        return regions[row / rowsPerRegion].get((row % rowsPerRegion) * cols + column);
+    }
+
+    /**
+     * Read whole row into given array
+     *
+     * @param row
+     * @param dest
+     */
+    void read(int row, double[] dest) {
+        DoubleBuffer region = regions[row / rowsPerRegion].duplicate();
+        region.position((row % rowsPerRegion) * cols);
+        region.get(dest, 0, cols);
+    }
+
+    void write(int row, int column, double value) {
+        checkColumn(column);
+        regions[row / rowsPerRegion].put((row % rowsPerRegion) * cols + column, value);
+    }
+
+    /**
+     * Dimension of all rows
+     *
+     * @return
+     */
+    int width() {
+        return cols;
+    }
+
+    @Override
+    public InstanceBuilder builder() {
+        if (builder == null) {
+            builder = new PackedRowFactory(this, '.');
+        }
+        return builder;
+    }
+
+    /**
+     * Copies attributes but not data itself, the copy is backed by a temporary
+     * file
+     *
+     * @return copy of dataset structure
+     */
+    @Override
+    public Dataset<E> duplicate() {
+        MappedDataset<E> copy = new MappedDataset<>(this.size(), this.attributeCount());
+        for (int i = 0; i < attributeCount(); i++) {
+            Attribute attribute = getAttribute(i);
+            if (attribute == null) {
+                throw new RuntimeException("null attribute at position " + i);
+            }
+            copy.attributeBuilder().create(attribute.getName(), BasicAttrType.NUMERIC, attribute.getRole());
+        }
+        copy.setParent(this);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedDataset(size= " + size() + ", attrSize= " + attributeCount() + ", file= " + file.getName() + ")";
+    }
+}
@@ -0,0 +1,305 @@
+package org.clueminer.dataset.plugin;
+
+import java.util.Iterator;
+import org.clueminer.dataset.api.DataRow;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.api.Plotter;
+import org.clueminer.math.Vector;
+
+/**
+ * View of a single row of {@link MappedDataset}. Values are stored in a memory
+ * mapped file, the instance keeps just its metadata (id, name, class etc.).
+ *
+ * Dimension of the row is given by the dataset and can't be changed.
+ *
+ * @author Tomas Barton
+ */
+public class MappedRow extends DataRow<Double> implements Iterable<Double>, Vector<Double>, Instance<Double> {
+
+    private static final long serialVersionUID = -1529834003745711273L;
+    private final MappedDataset<? extends Instance> storage;
+    /**
+     * row in the mapped file
+     */
+    private final int row;
+
+    MappedRow(MappedDataset<? extends Instance> storage, int row) {
+        super(null);
+        this.storage = storage;
+        this.row = row;
+    }
+
+    @Override
+    public String getFullName() {
+        StringBuilder sb = new StringBuilder();
+        if (getId() != null) {
+            sb.append(getId()).append(" - ");
+        }
+        return sb.append(getName()).toString();
+    }
+
+    /**
+     * Row has fixed dimension, it's not possible to append values
+     *
+     * @param value
+     * @return
+     */
+    @Override
+    public int put(double value) {
+        throw new UnsupportedOperationException("dimension of mapped row can't be changed");
+    }
+
+    @Override
+    public double value(int index) {
+        return get(index);
+    }
+
+    @Override
+    protected double getValue(int index, double defaultValue) {
+        if (index < 0 || index >= size()) {
+            return defaultValue;
+        }
+        return storage.read(row, index);
+    }
+
+    @Override
+    public Double getValue(int index) {
+        return value(index);
+    }
+
+    /**
+     * For values out of bounds returns NaN
+     *
+     * @param index
+     * @return
+     */
+    @Override
+    public double get(int index) {
+        if (index < 0 || index >= size()) {
+            return Double.NaN;
+        }
+        return storage.read(row, index);
+    }
+
+    @Override
+    public void set(int index, double value) {
+        storage.write(row, index, value);
+    }
+
+    @Override
+    public void set(int index, Number value) {
+        set(index, value.doubleValue());
+    }
+
+    @Override
+    protected void setValue(int index, double value, double defaultValue) {
+        set(index, value);
+    }
+
+    @Override
+    public int size() {
+        return storage.width();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Does nothing, dimension is given by the dataset
+     *
+     * @param capacity
+     */
+    @Override
+    public void setCapacity(int capacity) {
+    }
+
+    @Override
+    public int getCapacity() {
+        return size();
+    }
+
+    /**
+     * Does nothing.
+     */
+    @Override
+    public void trim() {
+    }
+
+    @Override
+    public void remove(int i) {
+        throw new UnsupportedOperationException("dimension of mapped row can't be changed");
+    }
+
+    /**
+     * Row in the mapped file
+     *
+     * @return
+     */
+    int row() {
+        return row;
+    }
+
+    MappedDataset<? extends Instance> storage() {
+        return storage;
+    }
+
+    /**
+     * Copy is stored in heap
+     *
+     * @return
+     */
+    @Override
+    public Instance copy() {
+        PackedRow copy = new PackedRow(arrayCopy());
+        copy.setId(getId());
+        copy.setName(getName());
+        copy.setClassValue(classValue());
+        return copy;
+    }
+
+    @Override
+    public double[] arrayCopy() {
+        double[] res = new double[size()];
+        storage.read(row, res);
+        return res;
+    }
+
+    @Override
+    public Plotter getPlotter() {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+
+    @Override
+    public double magnitude() {
+        double m = 0, d;
+        for (int i = 0; i < size(); ++i) {
+            d = storage.read(row, i);
+            m += d * d;
+        }
+        return Math.sqrt(m);
+    }
+
+    private void checkForSameSize(Vector<Double> other) {
+        if (this.size() != other.size()) {
+            throw new IllegalArgumentException("Vectors of different sizes cannot be added");
+        }
+    }
+
+    @Override
+    public Vector<Double> add(Vector<Double> other) {
+        checkForSameSize(other);
+        Vector<Double> res = duplicate();
+        for (int i = 0; i < this.size(); i++) {
+            res.set(i, get(i) + other.get(i));
+        }
+        return res;
+    }
+
+    @Override
+    public Vector<Double> minus(Vector<Double> other) {
+        checkForSameSize(other);
+        Vector<Double> res = duplicate();
+        for (int i = 0; i < this.size(); i++) {
+            res.set(i, get(i) - other.get(i));
+        }
+        return res;
+    }
+
+    @Override
+    public Vector<Double> times(double scalar) {
+        Vector<Double> res = duplicate();
+        for (int i = 0; i < this.size(); i++) {
+            res.set(i, get(i) * scalar);
+        }
+        return res;
+    }
+
+    /**
+     * Results of vector operations are stored in heap
+     *
+     * @return
+     */
+    @Override
+    public Vector<Double> duplicate() {
+        return new PackedRow(this.size());
+    }
+
+    @Override
+    public Iterator<Double> iterator() {
+        return new Iterator<Double>() {
+
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+
+            @Override
+            public Double next() {
+                return value(index++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Cannot remove from instance using the iterator.");
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        //instances having same values should not be considered as the same
+        if (index >= 0) {
+            result += (index + prime);
+        }
+        long bits;
+        for (int i = 0; i < size(); i++) {
+            bits = Double.doubleToLongBits(get(i));
+            result = prime * result + (int) (bits ^ (bits >>> 32));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final MappedRow other = (MappedRow) obj;
+        if (this.getIndex() != other.getIndex() || this.size() != other.size()) {
+            return false;
+        }
+        for (int i = 0; i < size(); i++) {
+            if (Double.doubleToLongBits(get(i)) != Double.doubleToLongBits(other.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return this.toString(",");
+    }
+
+    @Override
+    public String toString(String separator) {
+        StringBuilder result = new StringBuilder("MappedRow").append("(").append(size()).append(")[");
+        for (int i = 0; i < size(); i++) {
+            result.append(i == 0 ? "" : separator).append(get(i));
+        }
+        result.append("]");
+        return result.toString();
+    }
+}
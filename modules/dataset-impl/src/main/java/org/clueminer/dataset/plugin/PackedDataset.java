@@ -0,0 +1,241 @@
+package org.clueminer.dataset.plugin;
+
+import java.util.Arrays;
+import org.clueminer.attributes.BasicAttrType;
+import org.clueminer.dataset.api.Attribute;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.api.InstanceBuilder;
+
+/**
+ * Dataset with all values stored in a single row-major array (row i starts at
+ * position i * stride). Instances are just lightweight views ({@link PackedRow})
+ * which hold metadata, thus iterating over instances or computing distances
+ * reads memory linearly.
+ *
+ * Instances added to the dataset are converted to {@link PackedRow}s: rows
+ * created by {@link #builder()} are moved into the storage, other instances are
+ * copied.
+ *
+ * @author Tomas Barton
+ * @param <E>
+ */
+public class PackedDataset<E extends Instance> extends ArrayDataset<E> implements Dataset<E> {
+
+    private static final long serialVersionUID = -3416713046588326785L;
+    /**
+     * values of all rows
+     */
+    private double[] values;
+    /**
+     * allocated space for a single row
+     */
+    private int stride;
+    /**
+     * number of columns used (dimension of rows)
+     */
+    private int width = 0;
+    /**
+     * number of rows allocated in storage
+     */
+    private int rows = 0;
+
+    public PackedDataset(int instancesCapacity, int attributesCnt) {
+        super(instancesCapacity, attributesCnt);
+        stride = Math.max(1, attributesCnt);
+        values = new double[checkedSize(Math.max(1, instancesCapacity), stride)];
+    }
+
+    /**
+     * Construct dataset from a 2D array
+     *
+     * @param inputData
+     */
+    public PackedDataset(double[][] inputData) {
+        this(inputData.length, inputData[0].length);
+        for (int j = 0; j < inputData[0].length; j++) {
+            attributeBuilder().create("attr_" + j, BasicAttrType.NUMERIC);
+        }
+        for (double[] row : inputData) {
+            builder().create(row);
+        }
+    }
+
+    @Override
+    public boolean add(Instance inst) {
+        return super.add(pack(inst, -1));
+    }
+
+    /**
+     * Replaced instance keeps its values (in its own buffer), its space in
+     * storage is reused for the new one
+     *
+     * @param instanceIdx
+     * @param inst
+     * @return
+     */
+    @Override
+    public E set(int instanceIdx, E inst) {
+        int slot = -1;
+        if (instanceIdx < size()) {
+            E prev = get(instanceIdx);
+            if (prev == inst) {
+                return inst;
+            }
+            if (prev instanceof PackedRow && ((PackedRow) prev).isStoredIn(this)) {
+                slot = ((PackedRow) prev).detach();
+                Arrays.fill(values, slot * stride, (slot + 1) * stride, 0.0);
+            }
+        }
+        return super.set(instanceIdx, (E) pack(inst, slot));
+    }
+
+    /**
+     * Make sure instance is stored in this dataset's array
+     *
+     * @param inst
+     * @param slot row in storage, negative value for a new row
+     * @return view of the row in storage
+     */
+    private PackedRow pack(Instance inst, int slot) {
+        PackedRow row;
+        if (slot < 0) {
+            slot = allocateRow();
+        }
+        if (inst instanceof PackedRow && !((PackedRow) inst).isAttached()) {
+            row = (PackedRow) inst;
+            row.attach(this, slot);
+        } else {
+            //foreign instance, copy values and metadata
+            row = new PackedRow(this, slot);
+            for (int j = 0; j < inst.size(); j++) {
+                row.set(j, inst.value(j));
+            }
+            row.setId(inst.getId());
+            row.setName(inst.getName());
+            row.setIndex(inst.getIndex());
+            row.setClassValue(inst.classValue());
+        }
+        row.setParent(this);
+        return row;
+    }
+
+    /**
+     * Reserve space for a new row
+     *
+     * @return row in storage
+     */
+    private int allocateRow() {
+        int capacity = values.length / stride;
+        if (rows >= capacity) {
+            //golden ratio
+            int req = Math.max(rows + 1, (int) (capacity * 1.618));
+            values = Arrays.copyOf(values, checkedSize(req, stride));
+        }
+        return rows++;
+    }
+
+    private int checkedSize(int numRows, int rowLength) {
+        long size = (long) numRows * rowLength;
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("dataset " + numRows + " x " + rowLength + " doesn't fit into an array");
+        }
+        return (int) size;
+    }
+
+    /**
+     * Increase space for single row, all rows have to be moved
+     *
+     * @param capacity required row length
+     */
+    void ensureStride(int capacity) {
+        if (capacity <= stride) {
+            return;
+        }
+        int newStride = Math.max(capacity, (int) (stride * 1.618));
+        double[] tmp = new double[checkedSize(values.length / stride, newStride)];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(values, i * stride, tmp, i * newStride, width);
+        }
+        values = tmp;
+        stride = newStride;
+    }
+
+    double read(int row, int column) {
+        return values[row * stride + column];
+    }
+
+    void write(int row, int column, double value) {
+        if (column >= stride) {
+            ensureStride(column + 1);
+        }
+        if (column >= width) {
+            width = column + 1;
+        }
+        values[row * stride + column] = value;
+    }
+
+    void write(int row, double[] src, int length) {
+        if (length > stride) {
+            ensureStride(length);
+        }
+        if (length > width) {
+            width = length;
+        }
+        System.arraycopy(src, 0, values, row * stride, length);
+    }
+
+    /**
+     * Backing array of all rows (the array is replaced when dataset grows)
+     *
+     * @return
+     */
+    double[] data() {
+        return values;
+    }
+
+    int offset(int row) {
+        return row * stride;
+    }
+
+    /**
+     * Dimension of all rows
+     *
+     * @return
+     */
+    int width() {
+        return width;
+    }
+
+    @Override
+    public InstanceBuilder builder() {
+        if (builder == null) {
+            builder = new PackedRowFactory(this, '.');
+        }
+        return builder;
+    }
+
+    /**
+     * Copies attributes but not data itself
+     *
+     * @return copy of dataset structure
+     */
+    @Override
+    public Dataset<E> duplicate() {
+        PackedDataset<E> copy = new PackedDataset<>(this.size(), this.attributeCount());
+        for (int i = 0; i < attributeCount(); i++) {
+            Attribute attribute = getAttribute(i);
+            if (attribute == null) {
+                throw new RuntimeException("null attribute at position " + i);
+            }
+            copy.attributeBuilder().create(attribute.getName(), BasicAttrType.NUMERIC, attribute.getRole());
+        }
+        copy.setParent(this);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "PackedDataset(size= " + size() + ", attrSize= " + attributeCount() + ")";
+    }
+}
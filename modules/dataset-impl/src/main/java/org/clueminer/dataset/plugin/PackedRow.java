@@ -0,0 +1,416 @@
+package org.clueminer.dataset.plugin;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import org.clueminer.dataset.api.DataRow;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.api.Plotter;
+import org.clueminer.math.ArrayVector;
+import org.clueminer.math.Vector;
+
+/**
+ * Lightweight view of a single row of {@link PackedDataset}. Values are not
+ * stored in the instance but in one array shared by the whole dataset, the
+ * instance keeps just its metadata (id, name, class etc.).
+ *
+ * Until the row is added to a dataset it stores values in its own buffer
+ * (detached state), after adding the values are moved into dataset's storage.
+ *
+ * @author Tomas Barton
+ */
+public class PackedRow extends DataRow<Double> implements Iterable<Double>, Vector<Double>, Instance<Double>, ArrayVector {
+
+    private static final long serialVersionUID = 5327165719386843094L;
+    /**
+     * storage of values, null while row is detached
+     */
+    private PackedDataset<? extends Instance> storage;
+    /**
+     * row in storage's array
+     */
+    private int row = -1;
+    /**
+     * values of detached row
+     */
+    private double[] buf;
+    /**
+     * number of values in detached buffer
+     */
+    private int last = 0;
+
+    public PackedRow(int capacity) {
+        super(null);
+        buf = new double[capacity];
+    }
+
+    public PackedRow(double[] values) {
+        super(null);
+        buf = values;
+        last = values.length;
+    }
+
+    /**
+     * Create row which is already stored in a dataset
+     *
+     * @param storage
+     * @param row
+     */
+    PackedRow(PackedDataset<? extends Instance> storage, int row) {
+        super(null);
+        this.storage = storage;
+        this.row = row;
+    }
+
+    /**
+     * Move values into dataset's storage
+     *
+     * @param storage
+     * @param row
+     */
+    void attach(PackedDataset<? extends Instance> storage, int row) {
+        this.storage = storage;
+        this.row = row;
+        storage.write(row, buf, last);
+        buf = null;
+        last = 0;
+    }
+
+    boolean isAttached() {
+        return storage != null;
+    }
+
+    boolean isStoredIn(PackedDataset<? extends Instance> dataset) {
+        return storage == dataset;
+    }
+
+    /**
+     * Copy values from dataset's storage into own buffer
+     *
+     * @return row in storage which is no longer used by this instance
+     */
+    int detach() {
+        int len = storage.width();
+        double[] tmp = new double[Math.max(1, len)];
+        for (int i = 0; i < len; i++) {
+            tmp[i] = storage.read(row, i);
+        }
+        int prev = row;
+        buf = tmp;
+        last = len;
+        storage = null;
+        row = -1;
+        return prev;
+    }
+
+    @Override
+    public String getFullName() {
+        StringBuilder sb = new StringBuilder();
+        if (getId() != null) {
+            sb.append(getId()).append(" - ");
+        }
+        return sb.append(getName()).toString();
+    }
+
+    @Override
+    public int put(double value) {
+        int idx = size();
+        set(idx, value);
+        return idx;
+    }
+
+    @Override
+    public double value(int index) {
+        return get(index);
+    }
+
+    @Override
+    protected double getValue(int index, double defaultValue) {
+        if (index < 0 || index >= size()) {
+            return defaultValue;
+        }
+        return get(index);
+    }
+
+    @Override
+    public Double getValue(int index) {
+        return value(index);
+    }
+
+    /**
+     * For values out of bounds returns NaN
+     *
+     * @param index
+     * @return
+     */
+    @Override
+    public double get(int index) {
+        if (index < 0 || index >= size()) {
+            return Double.NaN;
+        }
+        if (storage != null) {
+            return storage.read(row, index);
+        }
+        return buf[index];
+    }
+
+    @Override
+    public void set(int index, double value) {
+        if (storage != null) {
+            storage.write(row, index, value);
+        } else {
+            if (index >= buf.length) {
+                setCapacity(Math.max(index + 1, (int) (buf.length * 1.618)));
+            }
+            if (index >= last) {
+                last = index + 1;
+            }
+            buf[index] = value;
+        }
+    }
+
+    @Override
+    public void set(int index, Number value) {
+        set(index, value.doubleValue());
+    }
+
+    @Override
+    protected void setValue(int index, double value, double defaultValue) {
+        set(index, value);
+    }
+
+    @Override
+    public int size() {
+        if (storage != null) {
+            return storage.width();
+        }
+        return last;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void setCapacity(int capacity) {
+        if (storage != null) {
+            storage.ensureStride(capacity);
+        } else if (buf.length < capacity) {
+            buf = Arrays.copyOf(buf, capacity);
+        }
+    }
+
+    @Override
+    public int getCapacity() {
+        return size();
+    }
+
+    /**
+     * Does nothing.
+     */
+    @Override
+    public void trim() {
+    }
+
+    /**
+     * Removing attribute is supported only for detached rows, all rows in a
+     * dataset must have same dimension
+     *
+     * @param i
+     */
+    @Override
+    public void remove(int i) {
+        if (storage != null) {
+            throw new UnsupportedOperationException("can't remove value from a row stored in dataset");
+        }
+        System.arraycopy(buf, i + 1, buf, i, last - i - 1);
+        last--;
+    }
+
+    /**
+     * Backing array, shared by all rows of the dataset
+     *
+     * @return
+     */
+    @Override
+    public double[] array() {
+        if (storage != null) {
+            return storage.data();
+        }
+        return buf;
+    }
+
+    @Override
+    public int arrayOffset() {
+        if (storage != null) {
+            return storage.offset(row);
+        }
+        return 0;
+    }
+
+    @Override
+    public Instance copy() {
+        return new PackedRow(toArray());
+    }
+
+    @Override
+    public double[] arrayCopy() {
+        return toArray();
+    }
+
+    public double[] toArray() {
+        int off = arrayOffset();
+        return Arrays.copyOfRange(array(), off, off + size());
+    }
+
+    @Override
+    public Plotter getPlotter() {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+
+    @Override
+    public double magnitude() {
+        double[] a = array();
+        int off = arrayOffset();
+        int length = size();
+        double m = 0;
+        for (int i = 0; i < length; ++i) {
+            double d = a[off + i];
+            m += d * d;
+        }
+        return Math.sqrt(m);
+    }
+
+    private void checkForSameSize(Vector<Double> other) {
+        if (this.size() != other.size()) {
+            throw new IllegalArgumentException("Vectors of different sizes cannot be added");
+        }
+    }
+
+    @Override
+    public Vector<Double> add(Vector<Double> other) {
+        checkForSameSize(other);
+        Vector<Double> res = duplicate();
+        for (int i = 0; i < this.size(); i++) {
+            res.set(i, get(i) + other.get(i));
+        }
+        return res;
+    }
+
+    @Override
+    public Vector<Double> minus(Vector<Double> other) {
+        checkForSameSize(other);
+        Vector<Double> res = duplicate();
+        for (int i = 0; i < this.size(); i++) {
+            res.set(i, get(i) - other.get(i));
+        }
+        return res;
+    }
+
+    @Override
+    public Vector<Double> times(double scalar) {
+        Vector<Double> res = duplicate();
+        for (int i = 0; i < this.size(); i++) {
+            res.set(i, get(i) * scalar);
+        }
+        return res;
+    }
+
+    public double add(int index, double delta) {
+        double value = get(index) + delta;
+        set(index, value);
+        return value;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Vector<Double> duplicate() {
+        return new PackedRow(this.size());
+    }
+
+    /**
+     * Iterator is not cached, rows should stay as small as possible
+     *
+     * @return
+     */
+    @Override
+    public Iterator<Double> iterator() {
+        return new Iterator<Double>() {
+
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+
+            @Override
+            public Double next() {
+                return value(index++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Cannot remove from instance using the iterator.");
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        //instances having same values should not be considered as the same
+        if (index >= 0) {
+            result += (index + prime);
+        }
+        double[] a = array();
+        int off = arrayOffset();
+        long bits;
+        for (int i = 0; i < size(); i++) {
+            bits = Double.doubleToLongBits(a[off + i]);
+            result = prime * result + (int) (bits ^ (bits >>> 32));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final PackedRow other = (PackedRow) obj;
+        if (this.getIndex() != other.getIndex() || this.size() != other.size()) {
+            return false;
+        }
+        for (int i = 0; i < size(); i++) {
+            if (Double.doubleToLongBits(get(i)) != Double.doubleToLongBits(other.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return this.toString(",");
+    }
+
+    @Override
+    public String toString(String separator) {
+        StringBuilder result = new StringBuilder("PackedRow").append("(").append(size()).append(")[");
+        for (int i = 0; i < size(); i++) {
+            result.append(i == 0 ? "" : separator).append(get(i));
+        }
+        result.append("]");
+        return result.toString();
+    }
+}
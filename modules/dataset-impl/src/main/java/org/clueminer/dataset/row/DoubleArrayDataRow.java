@@ -5,13 +5,14 @@ import java.util.Iterator;
 import org.clueminer.dataset.api.DataRow;
 import org.clueminer.dataset.api.Instance;
 import org.clueminer.dataset.api.Plotter;
+import org.clueminer.math.ArrayVector;
 import org.clueminer.math.Vector;
 
 /**
  *
  * @author Tomas Barton
  */
-public class DoubleArrayDataRow extends DataRow<Double> implements Iterable<Double>, Vector<Double>, Instance<Double> {
+public class DoubleArrayDataRow extends DataRow<Double> implements Iterable<Double>, Vector<Double>, Instance<Double>, ArrayVector {
 
     private static final long serialVersionUID = -4054619137644952331L;
     /**
@@ -260,6 +261,21 @@ public class DoubleArrayDataRow extends DataRow<Double> implements Iterable<Doub
         return data.clone();
     }
 
+    /**
+     * Backing array, might be longer than size of this row
+     *
+     * @return
+     */
+    @Override
+    public double[] array() {
+        return data;
+    }
+
+    @Override
+    public int arrayOffset() {
+        return 0;
+    }
+
     @Override
     public Plotter getPlotter() {
         throw new UnsupportedOperationException("Not supported yet.");
@@ -2,8 +2,11 @@ package org.clueminer.utils;
 
 import org.clueminer.dataset.api.Dataset;
 import org.clueminer.dataset.api.Instance;
+import org.clueminer.math.ArrayVector;
 import org.clueminer.math.Matrix;
+import org.clueminer.math.MatrixVector;
 import org.clueminer.math.matrix.AbstractMatrix;
+import org.clueminer.math.matrix.ArrayRowVector;
 
 /**
  * Dataset matrix, a facade for accessing numerical datasets.
@@ -46,6 +49,24 @@ public class DMatrix extends AbstractMatrix implements Matrix {
         return dataset.get(i, j);
     }
 
+    /**
+     * When instance stores its values in an array, the row vector provides
+     * direct access to that array (no copying)
+     *
+     * @param i
+     * @return
+     */
+    @Override
+    public MatrixVector getRowVector(int i) {
+        Instance inst = dataset.get(i);
+        int cols = columnsCount();
+        if (inst instanceof ArrayVector && inst.size() >= cols) {
+            ArrayVector vec = (ArrayVector) inst;
+            return new ArrayRowVector(this, i, vec.array(), vec.arrayOffset());
+        }
+        return super.getRowVector(i);
+    }
+
     @Override
     public Matrix copy() {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
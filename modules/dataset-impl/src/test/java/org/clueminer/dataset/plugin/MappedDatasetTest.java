@@ -0,0 +1,119 @@
+package org.clueminer.dataset.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.row.DoubleArrayDataRow;
+import org.clueminer.math.Matrix;
+import org.clueminer.stats.AttrNumStats;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author deric
+ */
+public class MappedDatasetTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private static final double delta = 1e-9;
+    private final double[][] data2x5 = new double[][]{{1, 2, 3, 4, 5}, {6, 7, 8, 9, 10}};
+
+    private MappedDataset<Instance> createDataset(File file, int n) {
+        MappedDataset<Instance> dataset = new MappedDataset<>(file, n, 2);
+        dataset.attributeBuilder().create("a1", "NUMERIC");
+        dataset.attributeBuilder().create("a2", "NUMERIC");
+        return dataset;
+    }
+
+    @Test
+    public void testBasic() {
+        Dataset<Instance> dataset = new MappedDataset<>(2, 5);
+        for (int j = 0; j < 5; j++) {
+            dataset.attributeBuilder().create("attr_" + j, "NUMERIC");
+        }
+        for (double[] row : data2x5) {
+            dataset.builder().create(row, "foo");
+        }
+        assertEquals(2, dataset.size());
+        assertEquals(1, dataset.getClasses().size());
+        assertTrue(dataset.get(0) instanceof MappedRow);
+        assertArrayEquals(data2x5, dataset.arrayCopy());
+        assertEquals(10, dataset.getAttribute(4).statistics(AttrNumStats.MAX), delta);
+
+        Matrix m = dataset.asMatrix();
+        assertEquals(2, m.rowsCount());
+        assertEquals(5, m.columnsCount());
+        assertEquals(8, m.get(1, 2), delta);
+
+        Dataset<? extends Instance> copy = dataset.copy();
+        assertTrue(copy instanceof MappedDataset);
+        assertArrayEquals(data2x5, copy.arrayCopy());
+    }
+
+    @Test
+    public void testAddForeignInstance() throws IOException {
+        Dataset<Instance> dataset = createDataset(folder.newFile("foreign.dat"), 2);
+        Instance inst = new DoubleArrayDataRow(new double[]{3, 4});
+        inst.setClassValue("foo");
+        dataset.add(inst);
+        Instance stored = dataset.get(0);
+        assertEquals("foo", stored.classValue());
+        assertEquals(4, stored.get(1), delta);
+        //modification goes to the file
+        stored.set(1, 5.0);
+        assertEquals(5, dataset.get(0, 1), delta);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void testFixedDimension() throws IOException {
+        Dataset<Instance> dataset = createDataset(folder.newFile("fixed.dat"), 2);
+        dataset.builder().create(new double[]{1, 2});
+        dataset.get(0).set(2, 1.0);
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        File file = folder.newFile("reopen.dat");
+        //more rows than a single region
+        int n = 2500;
+        MappedDataset<Instance> dataset = createDataset(file, 10);
+        for (int i = 0; i < n; i++) {
+            Instance inst = dataset.builder().create(new double[]{i, -i}, "cls" + (i % 3));
+            inst.setId(String.valueOf(i));
+        }
+        dataset.close();
+
+        MappedDataset<? extends Instance> reopened = MappedDataset.open(file);
+        assertEquals(n, reopened.size());
+        assertEquals(2, reopened.attributeCount());
+        assertEquals("a2", reopened.getAttribute(1).getName());
+        assertEquals(3, reopened.getClasses().size());
+        for (int i = 0; i < n; i++) {
+            Instance inst = reopened.get(i);
+            assertEquals(i, inst.get(0), delta);
+            assertEquals(-i, inst.get(1), delta);
+            assertEquals("cls" + (i % 3), inst.classValue());
+            assertEquals(String.valueOf(i), inst.getId());
+            assertEquals(i, inst.getIndex());
+        }
+        //dataset can be extended after reopening
+        reopened.builder().create(new double[]{-1, -2});
+        assertEquals(n + 1, reopened.size());
+        reopened.close();
+        try (MappedDataset<? extends Instance> last = MappedDataset.open(file)) {
+            assertEquals(n + 1, last.size());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidFile() throws IOException {
+        MappedDataset.open(folder.newFile("empty.dat"));
+    }
+}
@@ -0,0 +1,152 @@
+package org.clueminer.dataset.plugin;
+
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.row.DoubleArrayDataRow;
+import org.clueminer.math.ArrayVector;
+import org.clueminer.math.Matrix;
+import org.clueminer.math.Vector;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class PackedDatasetTest {
+
+    private Dataset<Instance> dataset;
+    private static final double delta = 1e-9;
+    private final double[][] data2x5 = new double[][]{{1, 2, 3, 4, 5}, {6, 7, 8, 9, 10}};
+
+    @Before
+    public void setUp() {
+        dataset = new PackedDataset<>(2, 2);
+        dataset.attributeBuilder().create("a1", "NUMERIC");
+        dataset.attributeBuilder().create("a2", "NUMERIC");
+    }
+
+    @Test
+    public void testArrayConstructor() {
+        Dataset<? extends Instance> test = new PackedDataset<>(data2x5);
+        assertEquals(2, test.size());
+        assertEquals(5, test.attributeCount());
+        for (int i = 0; i < data2x5.length; i++) {
+            assertEquals(5, test.get(i).size());
+            for (int j = 0; j < data2x5[0].length; j++) {
+                assertEquals(data2x5[i][j], test.get(i, j), delta);
+            }
+            assertArrayEquals(data2x5[i], test.get(i).arrayCopy(), delta);
+        }
+        assertArrayEquals(data2x5, test.arrayCopy());
+    }
+
+    @Test
+    public void testContiguousStorage() {
+        //more rows than initial capacity
+        for (int i = 0; i < 10; i++) {
+            dataset.builder().create(new double[]{i, 2 * i}, "cls" + (i % 2));
+        }
+        assertEquals(10, dataset.size());
+        assertEquals(2, dataset.getClasses().size());
+        ArrayVector first = (ArrayVector) dataset.get(0);
+        for (int i = 0; i < dataset.size(); i++) {
+            ArrayVector row = (ArrayVector) dataset.get(i);
+            //all rows share the same array
+            assertSame(first.array(), row.array());
+            assertEquals(i, row.array()[row.arrayOffset()], delta);
+            assertEquals(2 * i, row.array()[row.arrayOffset() + 1], delta);
+            assertEquals(i, dataset.get(i).getIndex());
+            assertEquals("cls" + (i % 2), dataset.get(i).classValue());
+        }
+    }
+
+    @Test
+    public void testAddForeignInstance() {
+        Instance inst = new DoubleArrayDataRow(new double[]{3, 4});
+        inst.setClassValue("foo");
+        dataset.add(inst);
+        Instance stored = dataset.get(0);
+        assertTrue(stored instanceof PackedRow);
+        assertEquals("foo", stored.classValue());
+        assertEquals(3, stored.get(0), delta);
+        assertEquals(4, stored.get(1), delta);
+        //modification goes to storage
+        stored.set(1, 5.0);
+        assertEquals(5, dataset.get(0, 1), delta);
+    }
+
+    @Test
+    public void testSetReusesStorage() {
+        dataset.builder().create(new double[]{1, 2});
+        dataset.builder().create(new double[]{3, 4});
+        int capacity = ((ArrayVector) dataset.get(0)).array().length;
+        Instance prev = dataset.get(0);
+        for (int i = 0; i < 100; i++) {
+            dataset.set(0, new DoubleArrayDataRow(new double[]{i, -i}));
+        }
+        assertEquals(capacity, ((ArrayVector) dataset.get(0)).array().length);
+        assertEquals(2, dataset.size());
+        assertEquals(99, dataset.get(0, 0), delta);
+        assertEquals(-99, dataset.get(0, 1), delta);
+        assertEquals(4, dataset.get(1, 1), delta);
+        //replaced instance keeps its values
+        assertEquals(1, prev.value(0), delta);
+        assertEquals(2, prev.value(1), delta);
+        //unattached packed row is moved into the same slot
+        dataset.set(1, new PackedRow(new double[]{5}));
+        assertEquals(capacity, ((ArrayVector) dataset.get(1)).array().length);
+        assertEquals(5, dataset.get(1, 0), delta);
+        assertEquals(0, dataset.get(1, 1), delta);
+    }
+
+    @Test
+    public void testBuilderKeepsIdentity() {
+        Instance inst = dataset.builder().build(2);
+        inst.set(0, 1.0);
+        inst.set(1, 2.0);
+        dataset.add(inst);
+        assertSame(inst, dataset.get(0));
+        assertEquals(2.0, dataset.get(0, 1), delta);
+    }
+
+    @Test
+    public void testGrowDimension() {
+        dataset.builder().create(new double[]{1, 2});
+        dataset.builder().create(new double[]{3, 4});
+        //wider row forces relayout of the storage
+        dataset.get(1).set(4, 7.0);
+        assertEquals(5, dataset.get(0).size());
+        assertEquals(1, dataset.get(0, 0), delta);
+        assertEquals(2, dataset.get(0, 1), delta);
+        assertEquals(3, dataset.get(1, 0), delta);
+        assertEquals(4, dataset.get(1, 1), delta);
+        assertEquals(7, dataset.get(1, 4), delta);
+    }
+
+    @Test
+    public void testAsMatrix() {
+        Dataset<? extends Instance> test = new PackedDataset<>(data2x5);
+        Matrix m = test.asMatrix();
+        assertEquals(2, m.rowsCount());
+        assertEquals(5, m.columnsCount());
+        Vector<Double> row = m.getRowVector(1);
+        assertTrue(row instanceof ArrayVector);
+        for (int j = 0; j < 5; j++) {
+            assertEquals(data2x5[1][j], row.get(j), delta);
+        }
+    }
+
+    @Test
+    public void testCopy() {
+        Dataset<? extends Instance> test = new PackedDataset<>(data2x5);
+        Dataset<? extends Instance> copy = test.copy();
+        assertTrue(copy instanceof PackedDataset);
+        assertEquals(test.size(), copy.size());
+        assertArrayEquals(test.arrayCopy(), copy.arrayCopy());
+    }
+}
@@ -0,0 +1,307 @@
+package org.clueminer.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits a line stored in a byte array into fields and parses numbers directly
+ * from bytes. Field boundaries are kept as offsets, Strings are created only
+ * on request.
+ *
+ * Not thread-safe, each thread should use its own instance.
+ *
+ * @author Tomas Barton
+ */
+public class CsvLineParser {
+
+    /**
+     * exactly representable powers of ten
+     */
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT = 1L << 53;
+    private static final int MAX_LABELS = 1024;
+    private final byte separator;
+    private final byte quotechar;
+    private byte[] buf;
+    private int[] fieldStart = new int[16];
+    private int[] fieldEnd = new int[16];
+    private int fields;
+    private boolean invalid;
+    private boolean missing;
+    private final ArrayList<byte[]> labelBytes = new ArrayList<>();
+    private final ArrayList<String> labels = new ArrayList<>();
+
+    public CsvLineParser(char separator, char quotechar) {
+        this.separator = (byte) separator;
+        this.quotechar = (byte) quotechar;
+    }
+
+    /**
+     * Find boundaries of fields in buf[start, end), quotes and surrounding
+     * spaces are excluded. Line must not contain line separator.
+     *
+     * @param buf
+     * @param start
+     * @param end
+     * @return number of fields
+     */
+    public int split(byte[] buf, int start, int end) {
+        this.buf = buf;
+        fields = 0;
+        int i = start;
+        int s, e;
+        while (i <= end) {
+            while (i < end && buf[i] == ' ') {
+                i++;
+            }
+            if (i < end && buf[i] == quotechar) {
+                s = ++i;
+                while (i < end && !(buf[i] == quotechar && (i + 1 >= end || buf[i + 1] != quotechar))) {
+                    //doubled quote is an escaped quote
+                    i += buf[i] == quotechar ? 2 : 1;
+                }
+                e = i;
+                while (i < end && buf[i] != separator) {
+                    i++;
+                }
+            } else {
+                s = i;
+                while (i < end && buf[i] != separator) {
+                    i++;
+                }
+                e = i;
+                while (e > s && buf[e - 1] == ' ') {
+                    e--;
+                }
+            }
+            addField(s, e);
+            i++;
+        }
+        return fields;
+    }
+
+    private void addField(int s, int e) {
+        if (fields == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, fields * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, fields * 2);
+        }
+        fieldStart[fields] = s;
+        fieldEnd[fields] = e;
+        fields++;
+    }
+
+    /**
+     * @return number of fields on last split line
+     */
+    public int size() {
+        return fields;
+    }
+
+    /**
+     * Parse i-th field as a double. Result is identical to
+     * {@link Double#parseDouble(java.lang.String)}, the slow path is used only
+     * when decimal representation can't be converted exactly.
+     *
+     * @param i field index
+     * @return parsed value, NaN for missing or invalid values (see
+     *         {@link #isInvalid()})
+     */
+    public double getDouble(int i) {
+        return parseNumber(fieldStart[i], fieldEnd[i]);
+    }
+
+    private double parseNumber(int start, int end) {
+        invalid = false;
+        missing = false;
+        if (start >= end) {
+            missing = true;
+            return Double.NaN;
+        }
+        int i = start;
+        boolean neg = false;
+        if (buf[i] == '-' || buf[i] == '+') {
+            neg = buf[i] == '-';
+            i++;
+        }
+        long mant = 0;
+        int exp = 0;
+        int digits = 0;
+        boolean exact = true;
+        boolean any = false;
+        byte c;
+        while (i < end && (c = buf[i]) >= '0' && c <= '9') {
+            if (digits < 18) {
+                mant = mant * 10 + (c - '0');
+                if (mant > 0) {
+                    digits++;
+                }
+            } else {
+                exp++;
+                exact &= c == '0';
+            }
+            any = true;
+            i++;
+        }
+        if (i < end && buf[i] == '.') {
+            i++;
+            while (i < end && (c = buf[i]) >= '0' && c <= '9') {
+                if (digits < 18) {
+                    mant = mant * 10 + (c - '0');
+                    exp--;
+                    if (mant > 0) {
+                        digits++;
+                    }
+                } else {
+                    exact &= c == '0';
+                }
+                any = true;
+                i++;
+            }
+        }
+        if (any && i < end && (buf[i] == 'e' || buf[i] == 'E')) {
+            i++;
+            boolean expNeg = false;
+            if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+                expNeg = buf[i] == '-';
+                i++;
+            }
+            int e = 0;
+            boolean expDigits = false;
+            while (i < end && (c = buf[i]) >= '0' && c <= '9') {
+                if (e < 100000) {
+                    e = e * 10 + (c - '0');
+                }
+                expDigits = true;
+                i++;
+            }
+            if (!expDigits) {
+                any = false;
+            }
+            exp += expNeg ? -e : e;
+        }
+        if (!any || i != end) {
+            return slowParse(start, end);
+        }
+        if (exact && mant < MAX_EXACT && exp >= -22 && exp <= 22) {
+            double value = exp >= 0 ? mant * POW10[exp] : mant / POW10[-exp];
+            return neg ? -value : value;
+        }
+        return slowParse(start, end);
+    }
+
+    private double slowParse(int start, int end) {
+        int len = end - start;
+        if (len == 1 && buf[start] == '?') {
+            missing = true;
+            return Double.NaN;
+        }
+        String str = string(start, end);
+        if (str.equalsIgnoreCase("na") || str.equalsIgnoreCase("null")) {
+            missing = true;
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(str);
+        } catch (NumberFormatException e) {
+            invalid = true;
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * @return true when last parsed field wasn't a number nor a missing value
+     */
+    public boolean isInvalid() {
+        return invalid;
+    }
+
+    /**
+     * @return true when last parsed field was empty, '?', 'NA' or 'null'
+     */
+    public boolean isMissing() {
+        return missing;
+    }
+
+    /**
+     * @param i field index
+     * @return field as (UTF-8) String
+     */
+    public String getString(int i) {
+        return string(fieldStart[i], fieldEnd[i]);
+    }
+
+    /**
+     * Labels repeat, same String instance is returned for equal bytes
+     *
+     * @param i field index
+     * @return field as (UTF-8) String
+     */
+    public String getLabel(int i) {
+        int start = fieldStart[i];
+        int len = fieldEnd[i] - start;
+        byte[] b;
+        outer:
+        for (int k = 0; k < labelBytes.size(); k++) {
+            b = labelBytes.get(k);
+            if (b.length != len) {
+                continue;
+            }
+            for (int j = 0; j < len; j++) {
+                if (b[j] != buf[start + j]) {
+                    continue outer;
+                }
+            }
+            return labels.get(k);
+        }
+        String str = string(start, fieldEnd[i]);
+        //don't keep too many distinct labels
+        if (labels.size() < MAX_LABELS) {
+            labelBytes.add(Arrays.copyOfRange(buf, start, fieldEnd[i]));
+            labels.add(str);
+        }
+        return str;
+    }
+
+    /**
+     * Detect column types from a sample of lines, a column is numeric when all
+     * its values are numbers (or missing)
+     *
+     * @param lines sample lines (without line separators)
+     * @param cols  minimal number of columns
+     * @return true for numeric columns
+     */
+    public boolean[] numericColumns(List<byte[]> lines, int cols) {
+        for (byte[] line : lines) {
+            cols = Math.max(cols, split(line, 0, line.length));
+        }
+        boolean[] numeric = new boolean[cols];
+        Arrays.fill(numeric, true);
+        for (byte[] line : lines) {
+            split(line, 0, line.length);
+            for (int i = 0; i < fields; i++) {
+                if (numeric[i]) {
+                    getDouble(i);
+                    if (invalid) {
+                        numeric[i] = false;
+                    }
+                }
+            }
+        }
+        return numeric;
+    }
+
+    private String string(int start, int end) {
+        return new String(buf, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    public void clearLabels() {
+        labelBytes.clear();
+        labels.clear();
+    }
+
+}
@@ -0,0 +1,419 @@
+package org.clueminer.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.api.InstanceBuilder;
+import org.clueminer.utils.DatasetLoader;
+import org.openide.util.Exceptions;
+
+/**
+ * Fast loader for (mostly) numeric CSV files. File is read through a NIO
+ * channel and numbers are parsed directly from bytes, no intermediate Strings
+ * are created (except for header and class labels).
+ *
+ * Types of columns are inferred from first {@link #getSampleSize()} rows: a
+ * column is numeric when all its values are numbers (or missing), otherwise
+ * it's used as class label (the last non-numeric column, unless
+ * {@link #setClassIndex(int)} was given) or skipped. Once the schema is fixed
+ * values which can't be parsed are replaced by NaN.
+ *
+ * Quoted fields can't span multiple lines.
+ *
+ * @author Tomas Barton
+ */
+public class NumericCsvLoader implements DatasetLoader {
+
+    private static final int DEFAULT_BUFFER = 1 << 20;
+    private static final byte NUMERIC = 0;
+    private static final byte CLASS = 1;
+    private static final byte SKIP = 2;
+
+    private boolean hasHeader = true;
+    private boolean skipHeader = false;
+    private char separator = ',';
+    private char quotechar = '"';
+    private int classIndex = -1;
+    private ArrayList<Integer> skipIndex = new ArrayList<>();
+    private int sampleSize = 100;
+    private int bufferSize = DEFAULT_BUFFER;
+    private String defaultDataType = "NUMERICAL";
+    private Dataset<Instance> dataset;
+    private static final Logger logger = Logger.getLogger(NumericCsvLoader.class.getName());
+
+    //reading state
+    private FileChannel channel;
+    private CsvLineParser parser;
+    private byte[] buf;
+    private int pos;
+    private int lim;
+    private int scan;
+    private boolean eof;
+    private int lineStart;
+    private int lineEnd;
+    //schema
+    private byte[] kind;
+    private int[] target;
+    private int numeric;
+    private int classCol;
+    //statistics
+    private long bytesRead;
+    private int rows;
+    private int errors;
+    private long elapsed;
+
+    @Override
+    public boolean load(File file, Dataset output) throws FileNotFoundException {
+        setDataset(output);
+        try {
+            return load(file);
+        } catch (FileNotFoundException ex) {
+            throw ex;
+        } catch (IOException ex) {
+            Exceptions.printStackTrace(ex);
+        }
+        return false;
+    }
+
+    /**
+     *
+     * @param file input CSV file
+     * @return
+     * @throws IOException
+     */
+    public boolean load(File file) throws IOException {
+        if (dataset == null) {
+            throw new RuntimeException("dataset is null");
+        }
+        long start = System.nanoTime();
+        logger.log(Level.INFO, "loading file {0}", file.getName());
+        parser = new CsvLineParser(separator, quotechar);
+        buf = new byte[bufferSize];
+        pos = lim = scan = 0;
+        eof = false;
+        bytesRead = 0;
+        rows = 0;
+        errors = 0;
+        try (FileInputStream in = new FileInputStream(file)) {
+            channel = in.getChannel();
+            String[] header = null;
+            if (hasHeader || skipHeader) {
+                if (!nextRecord()) {
+                    return false;
+                }
+                if (!skipHeader) {
+                    header = new String[parser.size()];
+                    for (int i = 0; i < header.length; i++) {
+                        header[i] = parser.getString(i);
+                    }
+                }
+            }
+            //sample rows are kept as raw bytes
+            ArrayList<byte[]> sample = new ArrayList<>(sampleSize);
+            long sampleBytes = 0;
+            while (sample.size() < sampleSize && nextLine()) {
+                if (lineEnd > lineStart) {
+                    sample.add(Arrays.copyOfRange(buf, lineStart, lineEnd));
+                    sampleBytes += lineEnd - lineStart + 1;
+                }
+            }
+            inferSchema(sample, header);
+            if (!sample.isEmpty()) {
+                long size = channel.size();
+                long estimate = sample.size() * size / Math.max(1, sampleBytes);
+                dataset.ensureCapacity((int) Math.min(Integer.MAX_VALUE - 8, estimate + estimate / 20 + 1));
+            }
+
+            InstanceBuilder<Instance> builder = dataset.builder();
+            double[] values = new double[numeric];
+            for (byte[] line : sample) {
+                parser.split(line, 0, line.length);
+                addRow(builder, values);
+            }
+            while (nextRecord()) {
+                addRow(builder, values);
+            }
+        } finally {
+            channel = null;
+            buf = null;
+            parser = null;
+        }
+        elapsed = System.nanoTime() - start;
+        logger.log(Level.INFO, "loaded {0} rows, {1} MB/s, {2} parse errors",
+                new Object[]{rows, String.format("%.1f", getThroughput()), errors});
+        return true;
+    }
+
+    private void inferSchema(ArrayList<byte[]> sample, String[] header) {
+        boolean[] isNumeric = parser.numericColumns(sample, header != null ? header.length : 0);
+        int cols = isNumeric.length;
+        classCol = classIndex;
+        if (classCol < 0) {
+            for (int i = cols - 1; i >= 0; i--) {
+                if (!isNumeric[i] && !skipIndex.contains(i)) {
+                    classCol = i;
+                    break;
+                }
+            }
+        }
+        kind = new byte[cols];
+        target = new int[cols];
+        numeric = 0;
+        boolean createAttrs = dataset.attributeCount() == 0;
+        for (int i = 0; i < cols; i++) {
+            if (i == classCol) {
+                kind[i] = CLASS;
+            } else if (skipIndex.contains(i)) {
+                kind[i] = SKIP;
+            } else if (!isNumeric[i]) {
+                kind[i] = SKIP;
+                logger.log(Level.WARNING, "skipping non-numeric column {0}", i);
+            } else {
+                kind[i] = NUMERIC;
+                target[i] = numeric++;
+                if (createAttrs) {
+                    dataset.attributeBuilder().create(header != null && i < header.length ? header[i] : "attr_" + i, defaultDataType);
+                }
+            }
+        }
+        if (!createAttrs && dataset.attributeCount() != numeric) {
+            throw new RuntimeException("dataset has " + dataset.attributeCount() + " attributes, but file contains " + numeric + " numeric columns");
+        }
+    }
+
+    private void addRow(InstanceBuilder<Instance> builder, double[] values) {
+        String classValue = null;
+        Arrays.fill(values, Double.NaN);
+        int fields = parser.size();
+        int cols = Math.min(fields, kind.length);
+        if (fields > kind.length) {
+            errors++;
+        }
+        for (int i = 0; i < cols; i++) {
+            switch (kind[i]) {
+                case NUMERIC:
+                    values[target[i]] = parser.getDouble(i);
+                    if (parser.isInvalid()) {
+                        errors++;
+                    }
+                    break;
+                case CLASS:
+                    classValue = parser.getLabel(i);
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (classCol >= 0) {
+            builder.create(values, classValue);
+        } else {
+            builder.create(values);
+        }
+        rows++;
+    }
+
+    /**
+     * Read next non-empty line and split it into fields
+     *
+     * @return false at the end of file
+     * @throws IOException
+     */
+    private boolean nextRecord() throws IOException {
+        while (nextLine()) {
+            if (lineEnd > lineStart) {
+                parser.split(buf, lineStart, lineEnd);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean nextLine() throws IOException {
+        while (true) {
+            for (int i = scan; i < lim; i++) {
+                if (buf[i] == '\n') {
+                    setLine(pos, i);
+                    pos = scan = i + 1;
+                    return true;
+                }
+            }
+            scan = lim;
+            if (eof) {
+                if (pos < lim) {
+                    setLine(pos, lim);
+                    pos = scan = lim;
+                    return true;
+                }
+                return false;
+            }
+            fill();
+        }
+    }
+
+    private void setLine(int start, int end) {
+        if (end > start && buf[end - 1] == '\r') {
+            end--;
+        }
+        lineStart = start;
+        lineEnd = end;
+    }
+
+    /**
+     * Move unprocessed bytes to the beginning of the buffer and read more
+     */
+    private void fill() throws IOException {
+        int rem = lim - pos;
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, rem);
+            scan -= pos;
+            pos = 0;
+            lim = rem;
+        }
+        if (lim == buf.length) {
+            //line longer than buffer
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        int n = channel.read(ByteBuffer.wrap(buf, lim, buf.length - lim));
+        if (n < 0) {
+            eof = true;
+        } else {
+            lim += n;
+            bytesRead += n;
+        }
+    }
+
+    public Dataset<? extends Instance> getDataset() {
+        return dataset;
+    }
+
+    public void setDataset(Dataset<? extends Instance> dataset) {
+        this.dataset = (Dataset<Instance>) dataset;
+    }
+
+    public boolean hasHeader() {
+        return hasHeader;
+    }
+
+    public void setHasHeader(boolean header) {
+        this.hasHeader = header;
+    }
+
+    public boolean isSkipHeader() {
+        return skipHeader;
+    }
+
+    public void setSkipHeader(boolean skipHeader) {
+        this.skipHeader = skipHeader;
+    }
+
+    public char getSeparator() {
+        return separator;
+    }
+
+    public void setSeparator(char separator) {
+        this.separator = separator;
+    }
+
+    public char getQuotechar() {
+        return quotechar;
+    }
+
+    public void setQuotechar(char quotechar) {
+        this.quotechar = quotechar;
+    }
+
+    public int getClassIndex() {
+        return classIndex;
+    }
+
+    public void setClassIndex(int classIndex) {
+        this.classIndex = classIndex;
+    }
+
+    /**
+     * Skip loading column on given index
+     *
+     * @param i which index to skip
+     */
+    public void skip(int i) {
+        skipIndex.add(i);
+    }
+
+    public ArrayList<Integer> getSkipIndex() {
+        return skipIndex;
+    }
+
+    public void setSkipIndex(ArrayList<Integer> skipIndex) {
+        this.skipIndex = skipIndex;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * Number of rows used for detecting column types
+     *
+     * @param sampleSize
+     */
+    public void setSampleSize(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Initial size of read buffer in bytes (buffer grows when a line is
+     * longer)
+     *
+     * @param bufferSize
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = Math.max(16, bufferSize);
+    }
+
+    public String getDefaultDataType() {
+        return defaultDataType;
+    }
+
+    public void setDefaultDataType(String defaultDataType) {
+        this.defaultDataType = defaultDataType;
+    }
+
+    /**
+     * @return number of rows loaded by last call
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return number of values which couldn't be parsed (replaced by NaN)
+     */
+    public int getErrors() {
+        return errors;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return throughput of last load in MB/s
+     */
+    public double getThroughput() {
+        return elapsed > 0 ? bytesRead / 1e6 / (elapsed / 1e9) : 0.0;
+    }
+
+}
@@ -0,0 +1,132 @@
+package org.clueminer.io;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class NumericCsvLoaderTest {
+
+    private final NumericCsvLoader subject = new NumericCsvLoader();
+
+    private File write(String content) throws IOException {
+        File file = File.createTempFile("numeric", ".csv");
+        file.deleteOnExit();
+        try (FileWriter out = new FileWriter(file)) {
+            out.write(content);
+        }
+        return file;
+    }
+
+    @Test
+    public void testHeaderAndClass() throws IOException {
+        File file = write("\"sepal length\",x,y,class\n"
+                + "5.1,3.5,1.4,Iris-setosa\r\n"
+                + "\n"
+                + "-4.9, 3.0e1 ,?,Iris-setosa\n"
+                + "\"6.2\",,1E-3,\"Iris-virginica\"");
+        Dataset<? extends Instance> data = new ArrayDataset(5, 3);
+        assertTrue(subject.load(file, data));
+        assertEquals(3, data.size());
+        assertEquals(3, data.attributeCount());
+        assertEquals("sepal length", data.getAttribute(0).getName());
+        assertEquals("y", data.getAttribute(2).getName());
+        assertEquals(5.1, data.get(0, 0), 0.0);
+        assertEquals(-4.9, data.get(1, 0), 0.0);
+        assertEquals(30.0, data.get(1, 1), 0.0);
+        assertTrue(Double.isNaN(data.get(1, 2)));
+        assertTrue(Double.isNaN(data.get(2, 1)));
+        assertEquals(0.001, data.get(2, 2), 0.0);
+        assertEquals("Iris-setosa", data.get(1).classValue());
+        assertEquals("Iris-virginica", data.get(2).classValue());
+        assertEquals(2, data.getClasses().size());
+        assertEquals(0, subject.getErrors());
+    }
+
+    @Test
+    public void testNoHeader() throws IOException {
+        File file = write("1;2;a\n3;4;b\n");
+        Dataset<? extends Instance> data = new ArrayDataset(2, 2);
+        subject.setHasHeader(false);
+        subject.setSeparator(';');
+        subject.skip(2);
+        assertTrue(subject.load(file, data));
+        assertEquals(2, data.size());
+        assertEquals(2, data.attributeCount());
+        assertEquals(4.0, data.get(1, 1), 0.0);
+    }
+
+    @Test
+    public void testInvalidAfterSample() throws IOException {
+        File file = write("a,b\n1,2\n3,4\nfoo,5\n");
+        Dataset<? extends Instance> data = new ArrayDataset(3, 2);
+        subject.setSampleSize(2);
+        assertTrue(subject.load(file, data));
+        assertEquals(3, data.size());
+        assertTrue(Double.isNaN(data.get(2, 0)));
+        assertEquals(5.0, data.get(2, 1), 0.0);
+        assertEquals(1, subject.getErrors());
+    }
+
+    /**
+     * Parsed values must be identical to Double.parseDouble, including lines
+     * crossing buffer boundaries
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testExactValues() throws IOException {
+        Random rand = new Random(42);
+        int n = 2000, d = 5;
+        double[][] expected = new double[n][d];
+        File file = File.createTempFile("numeric", ".csv");
+        file.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < d; j++) {
+                    switch (j) {
+                        case 0:
+                            expected[i][j] = rand.nextGaussian() * 1e5;
+                            break;
+                        case 1:
+                            expected[i][j] = rand.nextInt(1000) - 500;
+                            break;
+                        case 2:
+                            expected[i][j] = Math.round(rand.nextDouble() * 1000) / 100.0;
+                            break;
+                        default:
+                            expected[i][j] = rand.nextDouble() * Math.pow(10, rand.nextInt(60) - 30);
+                    }
+                    if (j > 0) {
+                        out.print(',');
+                    }
+                    out.print(expected[i][j]);
+                }
+                out.println();
+            }
+        }
+        Dataset<? extends Instance> data = new ArrayDataset(10, d);
+        subject.setHasHeader(false);
+        subject.setBufferSize(64);
+        assertTrue(subject.load(file, data));
+        assertEquals(n, data.size());
+        assertEquals(file.length(), subject.getBytesRead());
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < d; j++) {
+                assertEquals(Double.doubleToLongBits(expected[i][j]), Double.doubleToLongBits(data.get(i, j)));
+            }
+        }
+    }
+
+}
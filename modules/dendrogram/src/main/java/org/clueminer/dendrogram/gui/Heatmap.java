@@ -6,8 +6,10 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionListener;
 import java.awt.image.BufferedImage;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.awt.image.DataBufferInt;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
 import org.clueminer.clustering.api.HierarchicalResult;
@@ -21,17 +23,24 @@ import org.clueminer.clustering.api.dendrogram.DendroPane;
 import org.clueminer.clustering.api.dendrogram.DendrogramDataEvent;
 import org.clueminer.clustering.api.dendrogram.DendrogramDataListener;
 import org.clueminer.dendrogram.tree.VerticalTree;
-import org.imgscalr.Scalr;
+import org.openide.util.RequestProcessor;
 
 /**
  * This class is used to render a heatmap of given dendroData.
  *
+ * Heatmap is split into tiles, only tiles intersecting visible area are
+ * rendered (on background threads) and shown as soon as they're ready.
  *
  * @author Tomas Barton
  */
 public class Heatmap extends JPanel implements DendrogramDataListener, TreeListener, DendroHeatmap {
 
     private static final long serialVersionUID = -676917065082387341L;
+    /**
+     * size of a tile in pixels
+     */
+    public static final int TILE_SIZE = 256;
+    private static final RequestProcessor RP = new RequestProcessor("Heatmap tiles", Runtime.getRuntime().availableProcessors());
     protected Dimension elementSize;
     private boolean isDrawBorders = false;
     private boolean isCompact = true;
@@ -55,9 +64,16 @@ public class Heatmap extends JPanel implements DendrogramDataListener, TreeListe
     private int dragRow = 0;
     private int dragColumn = 0;
     private DendrogramMapping dendroData;
-    private BufferedImage bufferedImage;
-    private Graphics2D bufferedGraphics;
     private Rectangle bounds;
+    //about 64MB of ARGB pixels
+    private final TileCache tiles = new TileCache(16 * 1024 * 1024);
+    private final Set<TileCache.Key> pending = Collections.synchronizedSet(new HashSet<TileCache.Key>());
+    /**
+     * incremented whenever rendering tasks in progress become useless
+     */
+    private volatile int generation = 0;
+    private HeatmapRenderer renderer;
+    private HeatmapRenderer.Aggregation aggregation = HeatmapRenderer.Aggregation.MEAN;
     private DendroPane panel;
     private Dimension size = new Dimension(10, 10);
     private ColorScheme colorScheme;
@@ -99,6 +115,7 @@ public class Heatmap extends JPanel implements DendrogramDataListener, TreeListe
     @Override
     public void setData(DendrogramMapping dendroData) {
         this.dendroData = dendroData;
+        invalidateTiles();
     }
 
     /**
@@ -117,6 +134,7 @@ public class Heatmap extends JPanel implements DendrogramDataListener, TreeListe
     public void selectRows(int start, int end) {
         firstSelectedRow = start;
         lastSelectedRow = end;
+        invalidateTiles();
         repaint();
     }
 
@@ -129,6 +147,7 @@ public class Heatmap extends JPanel implements DendrogramDataListener, TreeListe
     public void selectColumns(int start, int end) {
         firstSelectedColumn = start;
         lastSelectedColumn = end;
+        invalidateTiles();
         repaint();
     }
 
@@ -141,6 +160,7 @@ public class Heatmap extends JPanel implements DendrogramDataListener, TreeListe
             haveColorBar = false;
         }
         updateSize();
+        invalidateTiles();
     }
 
     /**
@@ -174,6 +194,21 @@ public class Heatmap extends JPanel implements DendrogramDataListener, TreeListe
      */
     public void setDrawBorders(boolean value) {
         this.isDrawBorders = value;
+        invalidateTiles();
+    }
+
+    public HeatmapRenderer.Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    /**
+     * How to combine values when there are more cells than pixels
+     *
+     * @param aggregation
+     */
+    public void setAggregation(HeatmapRenderer.Aggregation aggregation) {
+        this.aggregation = aggregation;
+        invalidateTiles();
     }
 
     /**
@@ -221,25 +256,9 @@ public class Heatmap extends JPanel implements DendrogramDataListener, TreeListe
     }
 
     /**
-     * Creates a BufferedImage of the actual dendroData plot.
-     *
-     * After doing some profiling, it was discovered that 90% of the drawing
-     * time was spend drawing the actual dendroData (not on the axes or tick
-     * marks). Since the Graphics2D has a drawImage method that can do scaling,
-     * we are using that instead of scaling it ourselves. We only need to draw
-     * the dendroData into the bufferedImage on startup, or if the dendroData or
-     * gradient changes. This saves us an enormous amount of time. Thanks to
-     * Josh Hayes-Sheen (grey@grevian.org) for the suggestion and initial code
-     * to use the BufferedImage technique.
-     *
-     * Since the scaling of the dendroData plot will be handled by the drawImage
-     * in paintComponent, we take the easy way out and draw our bufferedImage
-     * with 1 pixel per dendroData point. Too bad there isn't a setPixel method
-     * in the Graphics2D class, it seems a bit silly to fill a rectangle just to
-     * set a single pixel...
-     *
-     * This function should be called whenever the dendroData or the gradient
-     * changes.
+     * Creates a BufferedImage of the actual dendroData plot (whole heatmap,
+     * used for exporting). Pixels are written directly into image's raster,
+     * each cell has size of {@link #getElementSize()}.
      *
      * @param size
      */
@@ -255,36 +274,118 @@ public class Heatmap extends JPanel implements DendrogramDataListener, TreeListe
             return null;
         }
 
-        bufferedImage = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_ARGB);
-        // System.out.println("buffered image size w="+size.width+" x "+size.height);
-        bufferedGraphics = bufferedImage.createGraphics();
+        BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_ARGB);
+        int[] raster = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        HeatmapRenderer r = createRenderer(elementSize.width, elementSize.height);
+        r.render(raster, insets.top * size.width + insets.left, size.width, 0, 0,
+                size.width - insets.left, size.height - insets.top);
 
-        /*
-         * this way we would repaint just a visible part of screen TODO consider
-         * using it for partial update of buffered image final int top =
-         * getTopIndex(bounds.y); final int bottom = getBottomIndex(bounds.y +
-         * bounds.height, getCluster().length); final int left =
-         * getLeftIndex(bounds.x); final int right = getRightIndex(bounds.x +
-         * bounds.width, samples); System.out.println("top= "+top+", bottom=
-         * "+bottom+", left= "+left+", right= "+right);
-         *
-         * // draw rectangles for (int column = left; column < right; column++)
-         * { for (int row = top; row < bottom; row++) {
-         * fillRectAt(bufferedGraphics, row, column); } }
-         */
-        for (int column = 0; column < dendroData.getNumberOfColumns(); column++) {
-            for (int row = 0; row < dendroData.getNumberOfRows(); row++) {
-                fillRectAt(bufferedGraphics, row, column);
-            }
+        if (haveColorBar) {
+            Graphics2D g = image.createGraphics();
+            fillClusterColorPositions(g);
+            g.dispose();
         }
+        return image;
+    }
 
-        if (haveColorBar) {
-            if (dendroData != null) {
-                fillClusterColorPositions(bufferedGraphics);
+    private HeatmapRenderer renderer() {
+        if (renderer == null) {
+            renderer = createRenderer(elementSize.width, elementSize.height);
+        }
+        return renderer;
+    }
+
+    private HeatmapRenderer createRenderer(double cellWidth, double cellHeight) {
+        return new HeatmapRenderer(dendroData, colorScheme, cellWidth, cellHeight)
+                .setAggregation(aggregation)
+                .setDrawBorders(isDrawBorders)
+                .setSelection(firstSelectedRow, lastSelectedRow, firstSelectedColumn, lastSelectedColumn);
+    }
+
+    /**
+     * Content of the heatmap has changed, no cached tile could be reused
+     */
+    private void invalidateTiles() {
+        synchronized (tiles) {
+            tiles.clear();
+            zoomChanged();
+        }
+    }
+
+    /**
+     * Tiles of the previous zoom level stay in the cache, but unfinished tasks
+     * are abandoned
+     */
+    private void zoomChanged() {
+        synchronized (tiles) {
+            generation++;
+            pending.clear();
+            renderer = null;
+        }
+    }
+
+    /**
+     * Draws cached tiles intersecting the clip, missing tiles are scheduled for
+     * rendering
+     */
+    private void paintTiles(Graphics2D g, Rectangle clip) {
+        HeatmapRenderer r = renderer();
+        int x0 = Math.max(0, clip.x - insets.left);
+        int y0 = Math.max(0, clip.y - insets.top);
+        int x1 = Math.min(r.getWidth(), clip.x + clip.width - insets.left);
+        int y1 = Math.min(r.getHeight(), clip.y + clip.height - insets.top);
+        if (x1 <= x0 || y1 <= y0) {
+            return;
+        }
+        TileCache.Key key;
+        BufferedImage tile;
+        for (int ty = y0 / TILE_SIZE; ty <= (y1 - 1) / TILE_SIZE; ty++) {
+            for (int tx = x0 / TILE_SIZE; tx <= (x1 - 1) / TILE_SIZE; tx++) {
+                key = new TileCache.Key(tx, ty, r.getCellWidth(), r.getCellHeight());
+                tile = tiles.get(key);
+                if (tile != null) {
+                    g.drawImage(tile, insets.left + tx * TILE_SIZE, insets.top + ty * TILE_SIZE, null);
+                } else {
+                    scheduleTile(key, r);
+                }
             }
         }
-        bufferedGraphics.dispose();
-        return bufferedImage;
+    }
+
+    private void scheduleTile(final TileCache.Key key, final HeatmapRenderer r) {
+        if (!pending.add(key)) {
+            //already in queue
+            return;
+        }
+        final int gen = generation;
+        RP.post(new Runnable() {
+
+            @Override
+            public void run() {
+                if (gen != generation) {
+                    return;
+                }
+                final Rectangle area = new Rectangle(key.getColumn() * TILE_SIZE, key.getRow() * TILE_SIZE,
+                        Math.min(TILE_SIZE, r.getWidth() - key.getColumn() * TILE_SIZE),
+                        Math.min(TILE_SIZE, r.getHeight() - key.getRow() * TILE_SIZE));
+                BufferedImage tile = r.render(area);
+                synchronized (tiles) {
+                    if (gen != generation) {
+                        //data changed while rendering
+                        return;
+                    }
+                    tiles.put(key, tile);
+                    pending.remove(key);
+                }
+                SwingUtilities.invokeLater(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        repaint(insets.left + area.x, insets.top + area.y, area.width, area.height);
+                    }
+                });
+            }
+        });
     }
 
     // Always required for good double-buffering.
@@ -311,24 +412,14 @@ public class Heatmap extends JPanel implements DendrogramDataListener, TreeListe
         //g2d.fillRect(0, 0, width, height);
         //visible area
         bounds = g2d.getClipBounds();
-
-        // draw the heat map
-        if (bufferedImage == null) {
-            // Ideally, we only to call drawData in the constructor, or if we
-            // change the dendroData or gradients. We include this just to be safe.
-            bufferedImage = drawData(size);
-            // TODO bufferedImage might be still null
+        if (bounds == null) {
+            bounds = new Rectangle(0, 0, size.width, size.height);
         }
 
-        // The dendroData plot itself is drawn with 1 pixel per dendroData point, and the
-        // drawImage method scales that up to fit our current window size. This
-        // is very fast, and is much faster than the previous version, which
-        // redrew the dendroData plot each time we had to repaint the screen.
-        //draws buffered image
-        g.drawImage(bufferedImage,
-                0, 0,
-                size.width, size.height,
-                null);
+        // draw the heat map, only visible tiles are rendered
+        if (dendroData != null && elementSize.width >= 1 && elementSize.height >= 1) {
+            paintTiles(g2d, bounds);
+        }
 
         if (dendroData != null) {
             int oldWidth = colorWidth;
@@ -548,62 +639,35 @@ public class Heatmap extends JPanel implements DendrogramDataListener, TreeListe
     public void datasetChanged(DendrogramDataEvent evt, DendrogramMapping dataset) {
         this.dendroData = dataset;
         updateSize();
-        // this is the expensive function that draws the dendroData plot into a
-        // BufferedImage. The dendroData plot is then cheaply drawn to the screen when
-        // needed, saving us a lot of time in the end.
-        drawData(size);
+        invalidateTiles();
         //paints whole component
         redraw();
     }
 
     /**
-     * Drawing just buffered image, much faster than repaint
+     * Visible tiles are painted from cache, missing ones are rendered in
+     * background
      */
     public void redraw() {
-        Graphics2D g = (Graphics2D) this.getGraphics();
-        if (g != null && bufferedImage != null) {
-            g.drawImage(bufferedImage,
-                    0, 0,
-                    size.width, size.height,
-                    null);
-        } else {
-            Logger.getLogger(Heatmap.class.getName()).log(Level.SEVERE, "missing buffered image {0}", size);
-        }
-
-
-        /*
-         * g.setComposite(AlphaComposite.Src);
-         * g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
-         * RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-         * g.setRenderingHint(RenderingHints.KEY_RENDERING,
-         * RenderingHints.VALUE_RENDER_QUALITY);
-         * g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-         * RenderingHints.VALUE_ANTIALIAS_ON);
-         */
+        repaint();
     }
 
     @Override
     public void cellWidthChanged(DendrogramDataEvent evt, int width, boolean isAdjusting) {
         this.elementSize.width = width;
         updateSize();
-        if (isAdjusting) {
-            redraw();
-        } else {
-            //drawing is expensive, so we try to call it as few times as possible
-            drawData(size);
-        }
+        //tiles of previous zoom levels remain cached
+        zoomChanged();
+        redraw();
     }
 
     @Override
     public void cellHeightChanged(DendrogramDataEvent evt, int height, boolean isAdjusting) {
         this.elementSize.height = height;
         updateSize();
-        if (isAdjusting) {
-            redraw();
-        } else {
-            //drawing is expensive, so we try to call it as few times as possible
-            drawData(size);
-        }
+        //tiles of previous zoom levels remain cached
+        zoomChanged();
+        redraw();
     }
 
     @Override
@@ -614,8 +678,6 @@ public class Heatmap extends JPanel implements DendrogramDataListener, TreeListe
             //horizontal tree
             this.selectColumns(cluster.firstElem, cluster.lastElem);
         }
-
-        drawData(size);
     }
 
     @Override
@@ -624,48 +686,30 @@ public class Heatmap extends JPanel implements DendrogramDataListener, TreeListe
     }
 
     /**
-     * Generate image of given size
+     * Generate image of given size, when there are more cells than pixels
+     * values are aggregated
      *
      * @param width
      * @param height
      * @return
      */
     public Image generate(int width, int height) {
-
-        double fWidth = width / (double) dendroData.getNumberOfColumns();
-        double fHeight = height / (double) dendroData.getNumberOfRows();
-
-        //element size can't be smaller than 1px
-        elementSize.width = (int) Math.ceil(fWidth);
-        elementSize.height = (int) Math.ceil(fHeight);
-
-        size.width = elementSize.width * dendroData.getNumberOfColumns();
-        size.height = elementSize.height * dendroData.getNumberOfRows();
-
-        //if we have much more rows, we should use wider columns
-        if (size.height > size.width) {
-            elementSize.width = size.height / dendroData.getNumberOfColumns();
-            size.width = elementSize.width * dendroData.getNumberOfColumns();
-        }
-        //@TODO do the same with high dimensional data (-> stretch rows)
-        BufferedImage image = drawData(size);
-        if (image.getHeight() != height || image.getWidth() != width) {
-            image = Scalr.resize(image, Scalr.Method.SPEED,
-                    Scalr.Mode.FIT_EXACT, width, height, Scalr.OP_ANTIALIAS);
-        }
-        return image;
+        HeatmapRenderer r = createRenderer(width / (double) dendroData.getNumberOfColumns(),
+                height / (double) dendroData.getNumberOfRows());
+        return r.render(new Rectangle(0, 0, width, height));
     }
 
     @Override
     public void resetCache() {
         updateSize();
-        bufferedImage = drawData(size);
+        invalidateTiles();
         redraw();
     }
 
     @Override
     public void setColorScheme(ColorScheme scheme) {
         this.colorScheme = scheme;
+        invalidateTiles();
     }
 
     @Override
@@ -0,0 +1,305 @@
+package org.clueminer.dendrogram.gui;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import org.clueminer.clustering.api.dendrogram.ColorScheme;
+import org.clueminer.clustering.api.dendrogram.DendrogramMapping;
+import org.clueminer.clustering.gui.colors.ColorSchemeImpl;
+
+/**
+ * Renders heatmap cells directly into an int (ARGB) raster. Settings are
+ * fixed at construction time, therefore a renderer could be safely used from
+ * background threads.
+ *
+ * Cells might be smaller than a pixel, in such case all cells covered by a
+ * pixel are aggregated into a single value.
+ *
+ * @author Tomas Barton
+ */
+public class HeatmapRenderer {
+
+    public enum Aggregation {
+
+        MIN, MEAN, MAX
+    }
+
+    private static final int BORDER = Color.black.getRGB();
+    private static final int MASK = ColorSchemeImpl.maskColor.getRGB();
+    private final DendrogramMapping data;
+    private final ColorScheme scheme;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int rows;
+    private final int cols;
+    private final double min;
+    private final double mid;
+    private final double max;
+    private Aggregation aggregation = Aggregation.MEAN;
+    private boolean drawBorders = false;
+    private int firstRow = -1;
+    private int lastRow = -1;
+    private int firstColumn = -1;
+    private int lastColumn = -1;
+
+    /**
+     *
+     * @param data       heatmap data
+     * @param scheme     color scheme
+     * @param cellWidth  width of a cell in pixels (might be smaller than 1)
+     * @param cellHeight height of a cell in pixels (might be smaller than 1)
+     */
+    public HeatmapRenderer(DendrogramMapping data, ColorScheme scheme, double cellWidth, double cellHeight) {
+        if (cellWidth <= 0.0 || cellHeight <= 0.0) {
+            throw new IllegalArgumentException("cell size must be positive, got " + cellWidth + " x " + cellHeight);
+        }
+        this.data = data;
+        this.scheme = scheme;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.rows = data.getNumberOfRows();
+        this.cols = data.getNumberOfColumns();
+        this.min = data.getMinValue();
+        this.mid = data.getMidValue();
+        this.max = data.getMaxValue();
+    }
+
+    public HeatmapRenderer setAggregation(Aggregation aggregation) {
+        this.aggregation = aggregation;
+        return this;
+    }
+
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    /**
+     * Cell borders are drawn only when cells are at least 2px large
+     *
+     * @param drawBorders
+     * @return
+     */
+    public HeatmapRenderer setDrawBorders(boolean drawBorders) {
+        this.drawBorders = drawBorders;
+        return this;
+    }
+
+    /**
+     * Cells outside of selected range are masked
+     *
+     * @param firstRow    first selected row or -1
+     * @param lastRow     last selected row or -1
+     * @param firstColumn first selected column or -1
+     * @param lastColumn  last selected column or -1
+     * @return
+     */
+    public HeatmapRenderer setSelection(int firstRow, int lastRow, int firstColumn, int lastColumn) {
+        this.firstRow = firstRow;
+        this.lastRow = lastRow;
+        this.firstColumn = firstColumn;
+        this.lastColumn = lastColumn;
+        return this;
+    }
+
+    public double getCellWidth() {
+        return cellWidth;
+    }
+
+    public double getCellHeight() {
+        return cellHeight;
+    }
+
+    /**
+     * @return width of whole heatmap in pixels
+     */
+    public int getWidth() {
+        return (int) Math.ceil(cols * cellWidth);
+    }
+
+    /**
+     * @return height of whole heatmap in pixels
+     */
+    public int getHeight() {
+        return (int) Math.ceil(rows * cellHeight);
+    }
+
+    /**
+     * Render given area of the heatmap into a new image
+     *
+     * @param area region in heatmap pixel coordinates
+     * @return image of the same size as the area
+     */
+    public BufferedImage render(Rectangle area) {
+        BufferedImage image = new BufferedImage(area.width, area.height, BufferedImage.TYPE_INT_ARGB);
+        int[] raster = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        render(raster, 0, area.width, area.x, area.y, area.width, area.height);
+        return image;
+    }
+
+    /**
+     * Render given area of the heatmap into a raster. Pixels outside of the
+     * heatmap are left untouched.
+     *
+     * @param raster ARGB pixels
+     * @param offset index of upper left pixel of the area in the raster
+     * @param stride raster width
+     * @param x      left coordinate of the area (heatmap pixels)
+     * @param y      top coordinate of the area
+     * @param width  area width
+     * @param height area height
+     */
+    public void render(int[] raster, int offset, int stride, int x, int y, int width, int height) {
+        width = Math.min(width, getWidth() - x);
+        height = Math.min(height, getHeight() - y);
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        boolean rowBorders = drawBorders && cellHeight >= 2.0;
+        boolean colBorders = drawBorders && cellWidth >= 2.0;
+        //columns covered by each pixel of the area
+        int[] colLo = new int[width];
+        int[] colHi = new int[width];
+        boolean[] colEdge = new boolean[width];
+        int[] colMap = new int[cols];
+        for (int j = 0; j < cols; j++) {
+            colMap[j] = colIndex(j);
+        }
+        for (int i = 0; i < width; i++) {
+            colLo[i] = lo(x + i, cellWidth);
+            colHi[i] = hi(x + i, cellWidth, colLo[i], cols);
+            colEdge[i] = colBorders && isEdge(x + i, colLo[i], cellWidth);
+        }
+        int prevLo = -1, prevHi = -1;
+        boolean prevEdge = false;
+        int rowLo, rowHi, pos, color = 0;
+        boolean rowEdge;
+        for (int r = 0; r < height; r++) {
+            pos = offset + r * stride;
+            rowLo = lo(y + r, cellHeight);
+            rowHi = hi(y + r, cellHeight, rowLo, rows);
+            rowEdge = rowBorders && isEdge(y + r, rowLo, cellHeight);
+            if (rowLo == prevLo && rowHi == prevHi && rowEdge == prevEdge) {
+                //same cells as previous line
+                System.arraycopy(raster, pos - stride, raster, pos, width);
+                continue;
+            }
+            for (int i = 0; i < width; i++) {
+                if (i == 0 || colLo[i] != colLo[i - 1] || colHi[i] != colHi[i - 1]) {
+                    color = color(rowLo, rowHi, colLo[i], colHi[i], colMap);
+                }
+                raster[pos + i] = (rowEdge || colEdge[i]) ? BORDER : color;
+            }
+            prevLo = rowLo;
+            prevHi = rowHi;
+            prevEdge = rowEdge;
+        }
+    }
+
+    /**
+     * First cell covered by a pixel
+     */
+    private int lo(int pixel, double cell) {
+        return (int) (pixel / cell);
+    }
+
+    /**
+     * Last cell (exclusive) covered by a pixel
+     */
+    private int hi(int pixel, double cell, int lo, int limit) {
+        int hi = (int) ((pixel + 1) / cell);
+        if (hi <= lo) {
+            hi = lo + 1;
+        }
+        return hi > limit ? limit : hi;
+    }
+
+    /**
+     * Whether pixel is on the border of a cell (same as
+     * {@link java.awt.Graphics#drawRect} of the cell)
+     */
+    private boolean isEdge(int pixel, int cell, double size) {
+        return pixel == (int) (cell * size) || pixel == (int) ((cell + 1) * size) - 1;
+    }
+
+    private int color(int rowLo, int rowHi, int colLo, int colHi, int[] colMap) {
+        double value = aggregate(rowLo, rowHi, colLo, colHi, colMap);
+        int rgb = scheme.getColor(value, min, mid, max).getRGB();
+        if (isMasked(rowLo, colLo)) {
+            rgb = blend(rgb, MASK);
+        }
+        return rgb;
+    }
+
+    private double aggregate(int rowLo, int rowHi, int colLo, int colHi, int[] colMap) {
+        if (rowHi - rowLo == 1 && colHi - colLo == 1) {
+            return data.get(rowIndex(rowLo), colMap[colLo]);
+        }
+        double res = Double.NaN, value;
+        int cnt = 0;
+        int row;
+        for (int i = rowLo; i < rowHi; i++) {
+            row = rowIndex(i);
+            for (int j = colLo; j < colHi; j++) {
+                value = data.get(row, colMap[j]);
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                if (cnt == 0) {
+                    res = value;
+                } else {
+                    switch (aggregation) {
+                        case MIN:
+                            res = Math.min(res, value);
+                            break;
+                        case MAX:
+                            res = Math.max(res, value);
+                            break;
+                        default:
+                            res += value;
+                    }
+                }
+                cnt++;
+            }
+        }
+        if (aggregation == Aggregation.MEAN && cnt > 0) {
+            res /= cnt;
+        }
+        return res;
+    }
+
+    private boolean isMasked(int row, int column) {
+        boolean mask = firstRow >= 0 && lastRow >= 0 && (row < firstRow || row > lastRow);
+        return mask || firstColumn >= 0 && lastColumn >= 0 && (column < firstColumn || column > lastColumn);
+    }
+
+    /**
+     * Same result as painting translucent color over an opaque one
+     */
+    private int blend(int rgb, int over) {
+        int alpha = over >>> 24;
+        int res = 0xff000000;
+        int src, dst;
+        for (int shift = 0; shift < 24; shift += 8) {
+            src = (over >> shift) & 0xff;
+            dst = (rgb >> shift) & 0xff;
+            res |= ((src * alpha + dst * (255 - alpha)) / 255) << shift;
+        }
+        return res;
+    }
+
+    private int rowIndex(int row) {
+        if (data.hasRowsClustering()) {
+            return data.getRowsResult().getMappedIndex(row);
+        }
+        return row;
+    }
+
+    private int colIndex(int column) {
+        if (data.hasColumnsClustering()) {
+            return data.getColsResult().getMappedIndex(column);
+        }
+        return column;
+    }
+
+}
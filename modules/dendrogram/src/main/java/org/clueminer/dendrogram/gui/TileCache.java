@@ -0,0 +1,128 @@
+package org.clueminer.dendrogram.gui;
+
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of rendered heatmap tiles. Tiles of different zoom
+ * levels are kept together, so that returning to previous zoom doesn't require
+ * rendering again. Capacity is given in pixels.
+ *
+ * @author Tomas Barton
+ */
+public class TileCache {
+
+    private final LinkedHashMap<Key, BufferedImage> tiles;
+    private final long capacity;
+    private long used = 0;
+
+    /**
+     *
+     * @param capacity max number of pixels of all cached tiles
+     */
+    public TileCache(long capacity) {
+        this.capacity = capacity;
+        //access order
+        tiles = new LinkedHashMap<>(64, 0.75f, true);
+    }
+
+    public synchronized BufferedImage get(Key key) {
+        return tiles.get(key);
+    }
+
+    public synchronized void put(Key key, BufferedImage tile) {
+        BufferedImage prev = tiles.put(key, tile);
+        if (prev != null) {
+            used -= pixels(prev);
+        }
+        used += pixels(tile);
+        Iterator<Map.Entry<Key, BufferedImage>> it = tiles.entrySet().iterator();
+        Map.Entry<Key, BufferedImage> eldest;
+        //always keep the most recent tile
+        while (used > capacity && tiles.size() > 1) {
+            eldest = it.next();
+            used -= pixels(eldest.getValue());
+            it.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        tiles.clear();
+        used = 0;
+    }
+
+    public synchronized int size() {
+        return tiles.size();
+    }
+
+    /**
+     * @return number of cached pixels
+     */
+    public synchronized long getUsed() {
+        return used;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    private long pixels(BufferedImage img) {
+        return (long) img.getWidth() * img.getHeight();
+    }
+
+    /**
+     * Tile position on a zoom level (given by cell size)
+     */
+    public static class Key {
+
+        private final int column;
+        private final int row;
+        private final double cellWidth;
+        private final double cellHeight;
+
+        public Key(int column, int row, double cellWidth, double cellHeight) {
+            this.column = column;
+            this.row = row;
+            this.cellWidth = cellWidth;
+            this.cellHeight = cellHeight;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 59 * hash + column;
+            hash = 59 * hash + row;
+            long bits = Double.doubleToLongBits(cellWidth);
+            hash = 59 * hash + (int) (bits ^ (bits >>> 32));
+            bits = Double.doubleToLongBits(cellHeight);
+            hash = 59 * hash + (int) (bits ^ (bits >>> 32));
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return column == other.column && row == other.row
+                    && Double.doubleToLongBits(cellWidth) == Double.doubleToLongBits(other.cellWidth)
+                    && Double.doubleToLongBits(cellHeight) == Double.doubleToLongBits(other.cellHeight);
+        }
+
+        @Override
+        public String toString() {
+            return "tile [" + column + ", " + row + "] @ " + cellWidth + "x" + cellHeight;
+        }
+    }
+}
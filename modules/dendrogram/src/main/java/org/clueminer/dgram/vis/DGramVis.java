@@ -32,6 +32,26 @@ public class DGramVis<E extends Instance, C extends Cluster<E>> {
     private static final RequestProcessor RP = new RequestProcessor("Clustering");
 
     public Image generate(final Clustering<E, C> clustering, final int width, final int height, final DendrogramVisualizationListener listener) {
+        return generate(clustering, width, height, listener, ImageFactory.PRIORITY_NORMAL);
+    }
+
+    /**
+     * Returns cached preview or schedules rendering (listener will be notified)
+     *
+     * @param clustering
+     * @param width
+     * @param height
+     * @param listener
+     * @param priority   see {@link ImageFactory#PRIORITY_VISIBLE}
+     * @return preview or loading icon
+     */
+    public Image generate(final Clustering<E, C> clustering, final int width, final int height,
+            final DendrogramVisualizationListener listener, int priority) {
+        ImageFactory<E, C> factory = ImageFactory.getInstance();
+        Image img = factory.getCached(clustering, width, height);
+        if (img != null) {
+            return img;
+        }
         final DendrogramMapping mapping = clustering.getLookup().lookup(DendrogramMapping.class);
         if (mapping == null) {
             log.warning("missing mapping, can't generate preview");
@@ -60,7 +80,7 @@ public class DGramVis<E extends Instance, C extends Cluster<E>> {
 
              }*/
             //add task to queue
-            ImageFactory.getInstance().generateImage(clustering, width, height, listener, mapping);
+            factory.generateImage(clustering, width, height, listener, mapping, priority);
 
             return loading();
         }
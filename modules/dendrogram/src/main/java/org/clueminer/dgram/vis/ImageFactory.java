@@ -1,7 +1,13 @@
 package org.clueminer.dgram.vis;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.awt.Image;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.clueminer.clustering.api.Cluster;
@@ -12,6 +18,16 @@ import org.clueminer.dataset.api.Instance;
 import org.openide.util.RequestProcessor;
 
 /**
+ * Queue of preview requests processed by a bounded number of workers.
+ *
+ * Requests for the same clustering and size are coalesced, rendered previews
+ * are kept in a cache limited by memory. Requests with higher priority (e.g.
+ * visible items) are rendered first, requests with the same priority starting
+ * with the most recent one. Requests which are no longer needed could be
+ * cancelled, the shared instance drops requests which were not repeated for
+ * {@link #DEFAULT_MAX_AGE} ms (visible items request their previews again). Cache keys reference clusterings, previews of a
+ * clustering which is no longer used should be removed by
+ * {@link #evict(Clustering)}.
  *
  * @author Tomas Barton
  * @param <E>
@@ -19,33 +35,85 @@ import org.openide.util.RequestProcessor;
  */
 public class ImageFactory<E extends Instance, C extends Cluster<E>> {
 
+    public static final int PRIORITY_BACKGROUND = 0;
+    public static final int PRIORITY_NORMAL = 5;
+    public static final int PRIORITY_VISIBLE = 10;
+    /**
+     * max age of requests (ms) in the shared instance
+     */
+    public static final long DEFAULT_MAX_AGE = 10000;
+    /**
+     * each worker has its own GUI components, more workers than cores would
+     * only consume memory
+     */
+    public static final int MAX_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors());
     private ImageWorker[] workers;
     private static ImageFactory instance;
-    private BlockingQueue<ImageTask> queue;
-    private static final RequestProcessor RP = new RequestProcessor("Dendrogram image preview");
+    private final PriorityBlockingQueue<ImageTask> queue;
+    /**
+     * queued or rendered tasks
+     */
+    private final Map<ImageKey, ImageTask> waiting;
+    private final LinkedHashMap<ImageKey, Image> cache;
+    private final long cacheCapacity;
+    private long cacheUsed = 0;
+    /**
+     * requests older than this (ms) are dropped, 0 means never
+     */
+    private volatile long maxAge = 0;
+    private static final RequestProcessor RP = new RequestProcessor("Dendrogram image preview", MAX_WORKERS);
     private static final Logger logger = Logger.getLogger(ImageFactory.class.getName());
     private int workerCnt = 0;
+    /**
+     * start a worker with first request
+     */
+    private final boolean autoStart;
+    private long sequence = 0;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong rendered = new AtomicLong();
+    private final AtomicLong renderTime = new AtomicLong();
 
     public static ImageFactory getInstance() {
         if (instance == null) {
-            instance = new ImageFactory(5);
+            //about 32MB of ARGB previews
+            instance = new ImageFactory(5, 32L * 1024 * 1024);
+            instance.setMaxAge(DEFAULT_MAX_AGE);
         }
-        //TODO: ensure scaling workers upto requested count
         return instance;
     }
 
-    private ImageFactory(int workers) {
+    /**
+     *
+     * @param workers       initial number of workers, when 0 workers have to
+     *                      be started by {@link #ensure(int)}
+     * @param cacheCapacity max size of cached images in bytes
+     */
+    ImageFactory(int workers, long cacheCapacity) {
+        this.autoStart = workers > 0;
+        this.queue = new PriorityBlockingQueue<>();
+        this.waiting = new HashMap<>();
+        this.cache = new LinkedHashMap<>(64, 0.75f, true);
+        this.cacheCapacity = cacheCapacity;
         initWorkers(workers);
     }
 
     private void initWorkers(int numWorkers) {
-        queue = new LinkedBlockingQueue<>();
         workers = new ImageWorker[numWorkers];
         logger.log(Level.INFO, "intializing {0} workers", numWorkers);
         ensure(numWorkers);
     }
 
-    public ImageFactory ensure(int workersNum) {
+    /**
+     * Ensure given number of workers, at most {@link #MAX_WORKERS} are started
+     *
+     * @param workersNum
+     * @return
+     */
+    public synchronized ImageFactory ensure(int workersNum) {
+        workersNum = Math.min(workersNum, MAX_WORKERS);
         if (workerCnt < workersNum) {
             setCapacity(workersNum);
             if (workerCnt < 0) {
@@ -58,7 +126,7 @@ public class ImageFactory<E extends Instance, C extends Cluster<E>> {
                 workerCnt++;
             }
         }
-        return instance;
+        return this;
     }
 
     private void setCapacity(int capacity) {
@@ -74,13 +142,200 @@ public class ImageFactory<E extends Instance, C extends Cluster<E>> {
     }
 
     public void generateImage(Clustering<E, C> clustering, int width, int height, DendrogramVisualizationListener listener, DendrogramMapping mapping) {
-        //ensure at least one worker
-        ensure(1);
-        ImageTask task = new ImageTask(clustering, width, height, listener, mapping);
+        generateImage(clustering, width, height, listener, mapping, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Request a preview, listener is notified once the image is ready (from
+     * cache immediately)
+     *
+     * @param clustering
+     * @param width
+     * @param height
+     * @param listener
+     * @param mapping
+     * @param priority   tasks with higher priority are rendered first
+     */
+    public void generateImage(Clustering<E, C> clustering, int width, int height, DendrogramVisualizationListener listener,
+            DendrogramMapping mapping, int priority) {
+        if (autoStart) {
+            //ensure at least one worker
+            ensure(1);
+        }
+        requests.incrementAndGet();
+        ImageKey key = new ImageKey(clustering, width, height);
+        Image img;
+        //finished tasks are cached before leaving waiting, while holding the
+        //lock, a request can't miss both
+        synchronized (waiting) {
+            img = getCached(key);
+            if (img == null) {
+                enqueue(key, clustering, width, height, listener, mapping, priority);
+                return;
+            }
+        }
+        notify(listener, clustering, img);
+    }
+
+    /**
+     * Coalesce request with a pending one or create a new task, caller must
+     * hold lock of {@code waiting}
+     */
+    private void enqueue(ImageKey key, Clustering<E, C> clustering, int width, int height,
+            DendrogramVisualizationListener listener, DendrogramMapping mapping, int priority) {
+        ImageTask task = waiting.get(key);
+        if (task != null) {
+            coalesced.incrementAndGet();
+            task.addListener(listener);
+            //repeated request moves the task in front of others with the same priority
+            if (queue.remove(task)) {
+                task.touch(sequence++);
+                task.setPriority(Math.max(priority, task.getPriority()));
+                queue.add(task);
+            } else {
+                task.touch(sequence++);
+            }
+            return;
+        }
+        task = new ImageTask(clustering, width, height, listener, mapping, priority, sequence++);
+        waiting.put(key, task);
         queue.add(task);
-        if (workers.length == 0) {
-            throw new RuntimeException("no workers are running");
+    }
+
+    /**
+     * Cached preview
+     *
+     * @param clustering
+     * @param width
+     * @param height
+     * @return null when image is not cached
+     */
+    public Image getCached(Clustering<E, C> clustering, int width, int height) {
+        return getCached(new ImageKey(clustering, width, height));
+    }
+
+    private Image getCached(ImageKey key) {
+        Image img;
+        synchronized (cache) {
+            img = cache.get(key);
+        }
+        if (img != null) {
+            cacheHits.incrementAndGet();
+        }
+        return img;
+    }
+
+    private void cache(ImageKey key, Image img) {
+        synchronized (cache) {
+            Image prev = cache.put(key, img);
+            if (prev != null) {
+                cacheUsed -= bytes(prev);
+            }
+            cacheUsed += bytes(img);
+            Iterator<Map.Entry<ImageKey, Image>> it = cache.entrySet().iterator();
+            Map.Entry<ImageKey, Image> eldest;
+            while (cacheUsed > cacheCapacity && cache.size() > 1) {
+                eldest = it.next();
+                cacheUsed -= bytes(eldest.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    private long bytes(Image img) {
+        //ARGB
+        return 4L * Math.max(0, img.getWidth(null)) * Math.max(0, img.getHeight(null));
+    }
+
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+            cacheUsed = 0;
+        }
+    }
+
+    /**
+     * Remove all cached previews of given clustering
+     *
+     * @param clustering
+     * @return number of removed images
+     */
+    public int evict(Clustering<E, C> clustering) {
+        int cnt = 0;
+        synchronized (cache) {
+            Iterator<Map.Entry<ImageKey, Image>> it = cache.entrySet().iterator();
+            Map.Entry<ImageKey, Image> entry;
+            while (it.hasNext()) {
+                entry = it.next();
+                if (entry.getKey().getClustering() == clustering) {
+                    cacheUsed -= bytes(entry.getValue());
+                    it.remove();
+                    cnt++;
+                }
+            }
+        }
+        return cnt;
+    }
+
+    /**
+     * Drop all pending requests for given clustering (e.g. when it's no longer
+     * visible)
+     *
+     * @param clustering
+     * @return number of cancelled requests
+     */
+    public int cancel(Clustering<E, C> clustering) {
+        int cnt = 0;
+        synchronized (waiting) {
+            Iterator<Map.Entry<ImageKey, ImageTask>> it = waiting.entrySet().iterator();
+            ImageTask task;
+            while (it.hasNext()) {
+                task = it.next().getValue();
+                if (task.getClustering() == clustering) {
+                    cancel(task);
+                    it.remove();
+                    cnt++;
+                }
+            }
+        }
+        return cnt;
+    }
+
+    /**
+     * Drop all pending requests
+     *
+     * @return number of cancelled requests
+     */
+    public int cancelAll() {
+        int cnt;
+        synchronized (waiting) {
+            cnt = waiting.size();
+            for (ImageTask task : waiting.values()) {
+                cancel(task);
+            }
+            waiting.clear();
         }
+        return cnt;
+    }
+
+    private void cancel(ImageTask task) {
+        task.cancel();
+        queue.remove(task);
+        cancelled.incrementAndGet();
+    }
+
+    /**
+     * Requests which were not repeated for given time are considered to be
+     * stale and won't be rendered.
+     *
+     * @param maxAge time in ms, 0 disables dropping stale requests
+     */
+    public void setMaxAge(long maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public long getMaxAge() {
+        return maxAge;
     }
 
     protected boolean hasWork() {
@@ -94,14 +349,153 @@ public class ImageFactory<E extends Instance, C extends Cluster<E>> {
      * @throws InterruptedException
      */
     protected ImageTask getTask() throws InterruptedException {
-        return queue.take();
+        ImageTask task;
+        do {
+            task = queue.take();
+        } while (!accept(task));
+        return task;
+    }
+
+    /**
+     * Waits at most given time for a task
+     *
+     * @param timeout in ms
+     * @return next task or null
+     * @throws InterruptedException
+     */
+    protected ImageTask pollTask(long timeout) throws InterruptedException {
+        ImageTask task;
+        do {
+            task = queue.poll(timeout, TimeUnit.MILLISECONDS);
+        } while (task != null && !accept(task));
+        return task;
+    }
+
+    private boolean accept(ImageTask task) {
+        if (task.isCancelled()) {
+            return false;
+        }
+        if (maxAge > 0 && System.currentTimeMillis() - task.getRequested() > maxAge) {
+            synchronized (waiting) {
+                if (waiting.get(task.getKey()) == task) {
+                    waiting.remove(task.getKey());
+                }
+            }
+            task.cancel();
+            cancelled.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Called by worker when image was rendered
+     *
+     * @param task
+     * @param img
+     * @param nanos rendering time
+     */
+    protected void finished(ImageTask task, Image img, long nanos) {
+        rendered.incrementAndGet();
+        renderTime.addAndGet(nanos);
+        synchronized (waiting) {
+            //image is cached before the task leaves waiting, new requests
+            //are served from cache and can't add listeners to the task
+            if (!task.isCancelled()) {
+                cache(task.getKey(), img);
+            }
+            if (waiting.get(task.getKey()) == task) {
+                waiting.remove(task.getKey());
+            }
+        }
+        if (task.isCancelled()) {
+            return;
+        }
+        for (DendrogramVisualizationListener listener : (Iterable<DendrogramVisualizationListener>) task.getListeners()) {
+            notify(listener, task.getClustering(), img);
+        }
+    }
+
+    /**
+     * Rendering failed, request could be submitted again
+     *
+     * @param task
+     */
+    protected void failed(ImageTask task) {
+        synchronized (waiting) {
+            if (waiting.get(task.getKey()) == task) {
+                waiting.remove(task.getKey());
+            }
+        }
+    }
+
+    private void notify(DendrogramVisualizationListener listener, Clustering clustering, Image img) {
+        if (listener != null) {
+            listener.clusteringFinished(clustering);
+            listener.previewUpdated(img);
+        }
+    }
+
+    /**
+     * @return number of tasks waiting for a worker
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * @return number of requests merged with an existing one
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCancelledCount() {
+        return cancelled.get();
+    }
+
+    public long getRenderedCount() {
+        return rendered.get();
+    }
+
+    /**
+     * @return total rendering time in ms
+     */
+    public double getRenderTime() {
+        return renderTime.get() / 1e6;
+    }
+
+    /**
+     * @return average rendering time of a preview in ms
+     */
+    public double getAvgRenderTime() {
+        long cnt = rendered.get();
+        return cnt > 0 ? getRenderTime() / cnt : 0.0;
+    }
+
+    /**
+     * @return size of cached images in bytes
+     */
+    public long getCacheUsed() {
+        synchronized (cache) {
+            return cacheUsed;
+        }
     }
 
     /**
-     * Stop workers and free resources
+     * Stop workers (once the queue is empty) and free resources
      */
-    public void shutdown() {
-        logger.log(Level.INFO, "stopping {0} workers", workerCnt);
+    public synchronized void shutdown() {
+        logger.log(Level.INFO, "stopping {0} workers, rendered {1} previews in {2} ms on average",
+                new Object[]{workerCnt, rendered.get(), getAvgRenderTime()});
         if (workerCnt > 0) {
             for (ImageWorker worker : workers) {
                 if (worker != null) {
@@ -0,0 +1,60 @@
+package org.clueminer.dgram.vis;
+
+import org.clueminer.clustering.api.Clustering;
+
+/**
+ * Identifies a preview: clustering (its id and instance) and image size.
+ * Clusterings are compared by reference, computing hash of whole clustering
+ * would be too expensive (and ids are not always unique).
+ *
+ * @author Tomas Barton
+ */
+public class ImageKey {
+
+    private final Clustering clustering;
+    private final int width;
+    private final int height;
+
+    public ImageKey(Clustering clustering, int width, int height) {
+        this.clustering = clustering;
+        this.width = width;
+        this.height = height;
+    }
+
+    public Clustering getClustering() {
+        return clustering;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 3;
+        hash = 47 * hash + clustering.getId();
+        hash = 47 * hash + System.identityHashCode(clustering);
+        hash = 47 * hash + width;
+        hash = 47 * hash + height;
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final ImageKey other = (ImageKey) obj;
+        return clustering == other.clustering && width == other.width && height == other.height;
+    }
+
+    @Override
+    public String toString() {
+        return "ImageKey{" + clustering.getId() + ", " + width + "x" + height + "}";
+    }
+
+}
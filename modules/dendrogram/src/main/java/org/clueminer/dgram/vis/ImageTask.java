@@ -1,5 +1,7 @@
 package org.clueminer.dgram.vis;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.clueminer.clustering.api.Cluster;
 import org.clueminer.clustering.api.Clustering;
 import org.clueminer.clustering.api.dendrogram.DendrogramMapping;
@@ -7,25 +9,48 @@ import org.clueminer.clustering.api.dendrogram.DendrogramVisualizationListener;
 import org.clueminer.dataset.api.Instance;
 
 /**
+ * Request for a preview. Identical requests are coalesced into a single task,
+ * which notifies all listeners.
+ *
+ * Tasks with higher priority are processed first, tasks with same priority
+ * starting with the most recent request (e.g. items which were scrolled into
+ * view recently).
  *
  * @author Tomas Barton
  * @param <E>
  * @param <C>
  */
-public class ImageTask<E extends Instance, C extends Cluster<E>> {
+public class ImageTask<E extends Instance, C extends Cluster<E>> implements Comparable<ImageTask> {
 
     private final Clustering<E, C> clustering;
     private final int width;
     private final int height;
-    private final DendrogramVisualizationListener listener;
+    private final List<DendrogramVisualizationListener> listeners = new ArrayList<>(1);
     private final DendrogramMapping mapping;
+    private final ImageKey key;
+    private volatile long sequence;
+    private volatile int priority;
+    /**
+     * time of the last request (ms)
+     */
+    private volatile long requested;
+    private volatile boolean cancelled = false;
 
     public ImageTask(Clustering<E, C> clustering, int width, int height, DendrogramVisualizationListener listener, DendrogramMapping mapping) {
+        this(clustering, width, height, listener, mapping, ImageFactory.PRIORITY_NORMAL, 0);
+    }
+
+    public ImageTask(Clustering<E, C> clustering, int width, int height, DendrogramVisualizationListener listener,
+            DendrogramMapping mapping, int priority, long sequence) {
         this.clustering = clustering;
         this.width = width;
         this.height = height;
-        this.listener = listener;
         this.mapping = mapping;
+        this.priority = priority;
+        this.sequence = sequence;
+        this.key = new ImageKey(clustering, width, height);
+        this.requested = System.currentTimeMillis();
+        addListener(listener);
     }
 
     public Clustering<E, C> getClustering() {
@@ -40,12 +65,71 @@ public class ImageTask<E extends Instance, C extends Cluster<E>> {
         return height;
     }
 
-    public DendrogramVisualizationListener getListener() {
-        return listener;
+    /**
+     * @return listener of the first request
+     */
+    public synchronized DendrogramVisualizationListener getListener() {
+        return listeners.isEmpty() ? null : listeners.get(0);
+    }
+
+    /**
+     * @return copy of all listeners waiting for this preview
+     */
+    public synchronized List<DendrogramVisualizationListener> getListeners() {
+        return new ArrayList<>(listeners);
+    }
+
+    public final synchronized void addListener(DendrogramVisualizationListener listener) {
+        if (listener != null && !listeners.contains(listener)) {
+            listeners.add(listener);
+        }
     }
 
     public DendrogramMapping getMapping() {
         return mapping;
     }
 
+    public ImageKey getKey() {
+        return key;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    public long getRequested() {
+        return requested;
+    }
+
+    /**
+     * Same preview was requested again, task must not be in a queue while its
+     * sequence changes
+     *
+     * @param sequence order of the request
+     */
+    void touch(long sequence) {
+        this.sequence = sequence;
+        requested = System.currentTimeMillis();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public int compareTo(ImageTask o) {
+        if (priority != o.priority) {
+            return priority > o.priority ? -1 : 1;
+        }
+        return sequence > o.sequence ? -1 : (sequence == o.sequence ? 0 : 1);
+    }
+
 }
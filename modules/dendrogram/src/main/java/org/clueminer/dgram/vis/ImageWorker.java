@@ -3,7 +3,6 @@ package org.clueminer.dgram.vis;
 import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
-import org.clueminer.clustering.api.dendrogram.DendrogramVisualizationListener;
 import org.clueminer.dendrogram.gui.Heatmap;
 import org.clueminer.dgram.eval.SilhouettePlot;
 import org.openide.util.Exceptions;
@@ -19,7 +18,8 @@ public class ImageWorker implements Runnable {
 
     private final Heatmap heatmap;
     private final SilhouettePlot silhoulette;
-    private boolean running = true;
+    private volatile boolean running = true;
+    private static final long POLL_TIMEOUT = 500;
     private final ImageFactory factory;
 
     public ImageWorker(ImageFactory imgFactory) {
@@ -28,7 +28,7 @@ public class ImageWorker implements Runnable {
         this.factory = imgFactory;
     }
 
-    public void generateImage(ImageTask task) {
+    public Image generateImage(ImageTask task) {
         heatmap.setData(task.getMapping());
         silhoulette.setClustering(task.getClustering());
 
@@ -44,22 +44,35 @@ public class ImageWorker implements Runnable {
         g.drawImage(img, 0, 0, null);
         // 1px to separate silhoulette from heatmap
         g.drawImage(imgSil, dendroWidth + space, 0, null);
-
-        DendrogramVisualizationListener listener = task.getListener();
-        if (listener != null) {
-            listener.clusteringFinished(task.getClustering());
-            listener.previewUpdated(combined);
-        }
+        g.dispose();
+        return combined;
     }
 
     @Override
     public void run() {
-        while (isRunning()) {
+        ImageTask task;
+        long start;
+        //when stopped, finish remaining tasks first
+        while (true) {
             try {
-                ImageTask task = factory.getTask();
-                generateImage(task);
+                task = factory.pollTask(POLL_TIMEOUT);
+                if (task == null) {
+                    if (!isRunning()) {
+                        return;
+                    }
+                    continue;
+                }
+                start = System.nanoTime();
+                try {
+                    Image img = generateImage(task);
+                    factory.finished(task, img, System.nanoTime() - start);
+                } catch (RuntimeException ex) {
+                    factory.failed(task);
+                    Exceptions.printStackTrace(ex);
+                }
             } catch (InterruptedException ex) {
                 Exceptions.printStackTrace(ex);
+                return;
             }
         }
     }
@@ -69,7 +82,7 @@ public class ImageWorker implements Runnable {
     }
 
     public void stop() {
-        this.running = true;
+        this.running = false;
     }
 
 }
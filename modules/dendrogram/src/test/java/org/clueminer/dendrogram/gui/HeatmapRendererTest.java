@@ -0,0 +1,129 @@
+package org.clueminer.dendrogram.gui;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import org.clueminer.attributes.BasicAttrType;
+import org.clueminer.clustering.api.dendrogram.ColorScheme;
+import org.clueminer.clustering.gui.colors.ColorSchemeImpl;
+import org.clueminer.clustering.struct.DendrogramData;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class HeatmapRendererTest {
+
+    private static final int ROWS = 6;
+    private static final int COLS = 8;
+    private DendrogramData data;
+    private ColorScheme scheme;
+
+    @Before
+    public void setUp() {
+        Dataset<Instance> dataset = new ArrayDataset<>(ROWS, COLS);
+        for (int j = 0; j < COLS; j++) {
+            dataset.attributeBuilder().create("a" + j, BasicAttrType.NUMERIC);
+        }
+        for (int i = 0; i < ROWS; i++) {
+            double[] row = new double[COLS];
+            for (int j = 0; j < COLS; j++) {
+                row[j] = i * COLS + j;
+            }
+            dataset.builder().create(row);
+        }
+        data = new DendrogramData(dataset, dataset.asMatrix(), null);
+        scheme = new ColorSchemeImpl(false);
+    }
+
+    private int rgb(double value) {
+        return scheme.getColor(value, data.getMinValue(), data.getMidValue(), data.getMaxValue()).getRGB();
+    }
+
+    @Test
+    public void testCells() {
+        HeatmapRenderer r = new HeatmapRenderer(data, scheme, 3, 2);
+        assertEquals(3 * COLS, r.getWidth());
+        assertEquals(2 * ROWS, r.getHeight());
+        BufferedImage img = r.render(new Rectangle(0, 0, r.getWidth(), r.getHeight()));
+        for (int y = 0; y < img.getHeight(); y++) {
+            for (int x = 0; x < img.getWidth(); x++) {
+                assertEquals(rgb(data.get(y / 2, x / 3)), img.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testArea() {
+        HeatmapRenderer r = new HeatmapRenderer(data, scheme, 10, 10);
+        //area partially outside of the heatmap
+        BufferedImage img = r.render(new Rectangle(65, 45, 30, 30));
+        assertEquals(rgb(data.get(4, 6)), img.getRGB(0, 0));
+        assertEquals(rgb(data.get(5, 7)), img.getRGB(10, 10));
+        assertEquals(0, img.getRGB(20, 20));
+    }
+
+    @Test
+    public void testBorders() {
+        HeatmapRenderer r = new HeatmapRenderer(data, scheme, 4, 4).setDrawBorders(true);
+        BufferedImage img = r.render(new Rectangle(0, 0, r.getWidth(), r.getHeight()));
+        int black = Color.black.getRGB();
+        assertEquals(black, img.getRGB(4, 5));
+        assertEquals(black, img.getRGB(7, 5));
+        assertEquals(black, img.getRGB(5, 7));
+        assertEquals(rgb(data.get(1, 1)), img.getRGB(5, 5));
+    }
+
+    @Test
+    public void testDownsampling() {
+        //2x2 cells per pixel
+        HeatmapRenderer r = new HeatmapRenderer(data, scheme, 0.5, 0.5);
+        assertEquals(COLS / 2, r.getWidth());
+        assertEquals(ROWS / 2, r.getHeight());
+        Rectangle all = new Rectangle(0, 0, r.getWidth(), r.getHeight());
+        //pixel (1, 1) covers rows 2-3, columns 2-3
+        double min = data.get(2, 2);
+        double max = data.get(3, 3);
+        double mean = (data.get(2, 2) + data.get(2, 3) + data.get(3, 2) + data.get(3, 3)) / 4;
+        assertEquals(rgb(mean), r.render(all).getRGB(1, 1));
+        r.setAggregation(HeatmapRenderer.Aggregation.MIN);
+        assertEquals(rgb(min), r.render(all).getRGB(1, 1));
+        r.setAggregation(HeatmapRenderer.Aggregation.MAX);
+        assertEquals(rgb(max), r.render(all).getRGB(1, 1));
+    }
+
+    @Test
+    public void testSelection() {
+        HeatmapRenderer r = new HeatmapRenderer(data, scheme, 1, 1).setSelection(0, 2, -1, -1);
+        BufferedImage img = r.render(new Rectangle(0, 0, COLS, ROWS));
+        assertEquals(rgb(data.get(1, 1)), img.getRGB(1, 1));
+        //masked rows are lighter
+        Color masked = new Color(img.getRGB(1, 4));
+        Color orig = new Color(rgb(data.get(4, 1)));
+        assertTrue(masked.getRed() >= orig.getRed() && masked.getGreen() > orig.getGreen());
+    }
+
+    @Test
+    public void testTileCache() {
+        TileCache cache = new TileCache(3 * 16);
+        for (int i = 0; i < 3; i++) {
+            cache.put(new TileCache.Key(i, 0, 1.0, 1.0), new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB));
+        }
+        assertEquals(3, cache.size());
+        //touch the oldest tile
+        cache.get(new TileCache.Key(0, 0, 1.0, 1.0));
+        cache.put(new TileCache.Key(0, 0, 2.0, 2.0), new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB));
+        assertEquals(3, cache.size());
+        assertNull(cache.get(new TileCache.Key(1, 0, 1.0, 1.0)));
+        assertTrue(cache.get(new TileCache.Key(0, 0, 1.0, 1.0)) != null);
+        assertEquals(48, cache.getUsed());
+    }
+}
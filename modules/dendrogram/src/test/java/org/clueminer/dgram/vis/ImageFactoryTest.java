@@ -0,0 +1,178 @@
+package org.clueminer.dgram.vis;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import org.clueminer.clustering.api.Clustering;
+import org.clueminer.clustering.api.dendrogram.DendrogramVisualizationListener;
+import org.clueminer.clustering.struct.ClusterList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class ImageFactoryTest {
+
+    private ImageFactory factory;
+
+    @Before
+    public void setUp() {
+        //no workers, tasks are processed manually
+        factory = new ImageFactory(0, 4 * 10 * 10 * 2);
+    }
+
+    private Image image() {
+        return new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private ImageTask render() throws InterruptedException {
+        ImageTask task = factory.pollTask(10);
+        if (task != null) {
+            factory.finished(task, image(), 1000);
+        }
+        return task;
+    }
+
+    @Test
+    public void testCoalescing() throws InterruptedException {
+        Clustering clustering = new ClusterList();
+        Listener a = new Listener();
+        Listener b = new Listener();
+        factory.generateImage(clustering, 10, 10, a, null);
+        factory.generateImage(clustering, 10, 10, b, null);
+        factory.generateImage(clustering, 10, 10, a, null);
+        assertEquals(1, factory.getQueueDepth());
+        assertEquals(2, factory.getCoalescedCount());
+
+        render();
+        assertEquals(1, a.updated);
+        assertEquals(1, b.updated);
+        assertEquals(1, factory.getRenderedCount());
+        assertEquals(400, factory.getCacheUsed());
+
+        //served from cache
+        factory.generateImage(clustering, 10, 10, b, null);
+        assertEquals(2, b.updated);
+        assertEquals(0, factory.getQueueDepth());
+        assertEquals(1, factory.getCacheHits());
+        //different size is another request
+        factory.generateImage(clustering, 20, 20, b, null);
+        assertEquals(1, factory.getQueueDepth());
+    }
+
+    @Test
+    public void testPriority() throws InterruptedException {
+        Clustering c1 = new ClusterList();
+        Clustering c2 = new ClusterList();
+        Clustering c3 = new ClusterList();
+        factory.generateImage(c1, 10, 10, null, null, ImageFactory.PRIORITY_BACKGROUND);
+        factory.generateImage(c2, 10, 10, null, null, ImageFactory.PRIORITY_NORMAL);
+        factory.generateImage(c3, 10, 10, null, null, ImageFactory.PRIORITY_NORMAL);
+        //repeated request for visible item
+        factory.generateImage(c1, 10, 10, null, null, ImageFactory.PRIORITY_VISIBLE);
+        assertEquals(3, factory.getQueueDepth());
+        assertSame(c1, render().getClustering());
+        //most recent request first
+        assertSame(c3, render().getClustering());
+        assertSame(c2, render().getClustering());
+    }
+
+    @Test
+    public void testMostRecentFirst() throws InterruptedException {
+        Clustering c1 = new ClusterList();
+        Clustering c2 = new ClusterList();
+        Clustering c3 = new ClusterList();
+        //items are scrolled out of view, first one is visible again
+        factory.generateImage(c1, 10, 10, null, null, ImageFactory.PRIORITY_VISIBLE);
+        factory.generateImage(c2, 10, 10, null, null, ImageFactory.PRIORITY_VISIBLE);
+        factory.generateImage(c3, 10, 10, null, null, ImageFactory.PRIORITY_VISIBLE);
+        factory.generateImage(c1, 10, 10, null, null, ImageFactory.PRIORITY_VISIBLE);
+        assertSame(c1, render().getClustering());
+        assertSame(c3, render().getClustering());
+
+        //requests which were not repeated are dropped
+        factory.setMaxAge(50);
+        Thread.sleep(100);
+        factory.generateImage(c3, 10, 10, null, null, ImageFactory.PRIORITY_VISIBLE);
+        factory.generateImage(c1, 20, 20, null, null, ImageFactory.PRIORITY_VISIBLE);
+        assertSame(c1, render().getClustering());
+        assertEquals(0, factory.getCancelledCount());
+        assertNull(render());
+        assertEquals(1, factory.getCancelledCount());
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        Clustering c1 = new ClusterList();
+        Clustering c2 = new ClusterList();
+        Listener a = new Listener();
+        factory.generateImage(c1, 10, 10, a, null);
+        factory.generateImage(c1, 20, 20, a, null);
+        factory.generateImage(c2, 10, 10, a, null);
+        assertEquals(2, factory.cancel(c1));
+        assertEquals(1, factory.getQueueDepth());
+        assertSame(c2, render().getClustering());
+        assertNull(render());
+        assertEquals(1, a.updated);
+
+        //stale requests are dropped
+        factory.setMaxAge(1);
+        factory.generateImage(c1, 10, 10, a, null);
+        Thread.sleep(20);
+        assertNull(render());
+        assertEquals(3, factory.getCancelledCount());
+        //could be requested again
+        factory.setMaxAge(0);
+        factory.generateImage(c1, 10, 10, a, null);
+        assertSame(c1, render().getClustering());
+    }
+
+    @Test
+    public void testCacheLimit() throws InterruptedException {
+        Clustering c1 = new ClusterList();
+        for (int i = 0; i < 3; i++) {
+            factory.generateImage(c1, 10 + i, 10, null, null);
+            render();
+        }
+        //only 2 images fits into cache
+        assertNull(factory.getCached(c1, 10, 10));
+        assertEquals(800, factory.getCacheUsed());
+    }
+
+    @Test
+    public void testEvict() throws InterruptedException {
+        Clustering c1 = new ClusterList();
+        Clustering c2 = new ClusterList();
+        factory.generateImage(c1, 10, 10, null, null);
+        factory.generateImage(c2, 10, 10, null, null);
+        render();
+        render();
+        assertEquals(800, factory.getCacheUsed());
+        assertEquals(1, factory.evict(c1));
+        assertNull(factory.getCached(c1, 10, 10));
+        assertEquals(400, factory.getCacheUsed());
+        assertEquals(0, factory.evict(c1));
+        //not cached anymore, has to be rendered again
+        factory.generateImage(c1, 10, 10, null, null);
+        assertEquals(1, factory.getQueueDepth());
+    }
+
+    private static class Listener implements DendrogramVisualizationListener {
+
+        private int updated = 0;
+
+        @Override
+        public void clusteringFinished(Clustering clustering) {
+            //nothing to do
+        }
+
+        @Override
+        public void previewUpdated(Image preview) {
+            updated++;
+        }
+    }
+}
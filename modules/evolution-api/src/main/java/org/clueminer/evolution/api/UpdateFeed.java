@@ -31,4 +31,12 @@ public interface UpdateFeed extends EventListener {
      */
     void individualCreated(int runId, Individual individual);
 
+    /**
+     * Triggered when evolution finishes, listener should persist all pending
+     * results before returning
+     *
+     * @param runId
+     */
+    void finished(int runId);
+
 }
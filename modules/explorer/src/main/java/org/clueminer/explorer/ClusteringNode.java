@@ -3,10 +3,10 @@ package org.clueminer.explorer;
 import java.awt.Image;
 import java.awt.datatransfer.Transferable;
 import java.awt.dnd.DnDConstants;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 import java.util.Map.Entry;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.Action;
@@ -19,6 +19,7 @@ import org.clueminer.clustering.api.dendrogram.DendrogramVisualizationListener;
 import org.clueminer.dataset.api.Dataset;
 import org.clueminer.dataset.api.Instance;
 import org.clueminer.dgram.vis.DGramVis;
+import org.clueminer.dgram.vis.ImageFactory;
 import org.clueminer.eval.utils.HashEvaluationTable;
 import org.clueminer.utils.Props;
 import org.openide.actions.NewAction;
@@ -44,9 +45,7 @@ public class ClusteringNode<E extends Instance, C extends Cluster<E>> extends Ab
 
     private Image image;
     DendrogramMapping mapping;
-    private boolean rendering = false;
     private static final Logger logger = Logger.getLogger(ClusteringNode.class.getName());
-    private final ReentrantLock lock = new ReentrantLock();
 
     public ClusteringNode(Clustering<E, C> clusters) {
         super(Children.LEAF, Lookups.singleton(clusters));
@@ -63,27 +62,23 @@ public class ClusteringNode<E extends Instance, C extends Cluster<E>> extends Ab
      */
     @Override
     public Image getIcon(int type) {
-        if (image == null && rendering == false) {
-            lock.lock();
-            try {
-                Clustering clustering = getClustering();
-                //ensure that for each clustering we submit exatctly one task
-                rendering = true;
-                //image should be updated asynchronously when image is generated
-                DGramVis dg = new DGramVis();
-                dg.generate(clustering, 64, 64, this);
-                //image is rendering, wait for it...
-                return DGramVis.loading();
-            } finally {
-                lock.unlock();
-            }
-        }
         if (image == null) {
-            return DGramVis.loading();
+            //identical requests are coalesced, image will be updated
+            //asynchronously once it's generated
+            DGramVis dg = new DGramVis();
+            return dg.generate(getClustering(), 64, 64, this, ImageFactory.PRIORITY_VISIBLE);
         }
         return image;
     }
 
+    @Override
+    public void destroy() throws IOException {
+        //preview is not needed anymore
+        ImageFactory.getInstance().cancel(getClustering());
+        ImageFactory.getInstance().evict(getClustering());
+        super.destroy();
+    }
+
     public Clustering<E, C> getClustering() {
         return getLookup().lookup(Clustering.class);
     }
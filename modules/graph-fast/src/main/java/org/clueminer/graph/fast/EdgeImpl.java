@@ -74,6 +74,9 @@ public class EdgeImpl extends ElementImpl implements Edge {
     @Override
     public void setWeight(double weight) {
         this.weight = weight;
+        if (graphStore != null) {
+            graphStore.updateWeight(this);
+        }
     }
 
 }
@@ -16,7 +16,16 @@
  */
 package org.clueminer.graph.fast;
 
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.clueminer.distance.EuclideanDistance;
+import org.clueminer.distance.api.Distance;
 import org.clueminer.graph.api.Edge;
 import org.clueminer.graph.api.EdgeIterable;
 import org.clueminer.graph.api.Graph;
@@ -26,20 +35,88 @@ import org.clueminer.graph.api.NodeIterable;
 import org.openide.util.Lookup;
 import org.openide.util.lookup.AbstractLookup;
 import org.openide.util.lookup.InstanceContent;
+import org.openide.util.lookup.ServiceProvider;
 
 /**
+ * Graph stored in compressed sparse row (CSR) format. Edges are kept in
+ * primitive arrays (endpoints, weights, ids), the adjacency index consists of
+ * {@code offsets} (one entry per node + 1), {@code targets} and
+ * {@code weights}, each edge is stored in rows of both its endpoints (a self
+ * loop only once). Rows are sorted by target index, so that an edge between
+ * two nodes is found by binary search.
+ *
+ * The index is rebuilt lazily on the first query after a modification, the
+ * storage is therefore best suited for graphs which are built once (e.g.
+ * {@link #addEdgesFromNeigborArray(int[][], int)}) and queried many times.
+ * {@link Edge} objects are created only when requested.
+ *
+ * There's at most one edge between a pair of nodes, when adding a duplicate
+ * edge the first one is kept. Edge types are not supported, all methods with
+ * {@code type} parameter ignore it.
  *
  * @author deric
  */
+@ServiceProvider(service = Graph.class)
 public class FastGraph implements Graph {
 
     private static final String name = "Fast Graph";
+    private static final double EPS = 1e-6;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Node[] nodes;
+    private int nodeCount;
+    private final Long2IntOpenHashMap idToIndex;
+
+    //edge list, CSR index is derived from it
+    private int[] edgeSource;
+    private int[] edgeTarget;
+    private double[] edgeWeight;
+    private long[] edgeIds;
+    private final BitSet directed;
+    /**
+     * edge objects are created lazily
+     */
+    private Edge[] edgeObjects;
+    private int edgeCount;
+
+    //CSR index
+    private int[] offsets;
+    private int[] targets;
+    private double[] weights;
+    /**
+     * edge index of each position in {@code targets}
+     */
+    private int[] slotEdge;
+    private boolean dirty;
+    private Long2IntOpenHashMap edgeIdToIndex;
+
+    private Distance dm;
+    private final GraphFactoryImpl factory;
 
     //Lookup
     private final transient InstanceContent instanceContent;
     private final transient AbstractLookup lookup;
 
     public FastGraph() {
+        this(INITIAL_CAPACITY, EuclideanDistance.getInstance());
+    }
+
+    public FastGraph(int size) {
+        this(size, EuclideanDistance.getInstance());
+    }
+
+    public FastGraph(int size, Distance dm) {
+        this.dm = dm;
+        nodes = new Node[Math.max(size, 1)];
+        idToIndex = new Long2IntOpenHashMap(nodes.length);
+        idToIndex.defaultReturnValue(-1);
+        edgeSource = new int[INITIAL_CAPACITY];
+        edgeTarget = new int[INITIAL_CAPACITY];
+        edgeWeight = new double[INITIAL_CAPACITY];
+        edgeIds = new long[INITIAL_CAPACITY];
+        directed = new BitSet();
+        dirty = true;
+        factory = new GraphFactoryImpl(this);
         instanceContent = new InstanceContent();
         lookup = new AbstractLookup(instanceContent);
     }
@@ -49,229 +126,771 @@ public class FastGraph implements Graph {
         return name;
     }
 
+    public Distance getDistanceMeasure() {
+        return dm;
+    }
+
+    /**
+     * Distance used for computing edge weights in
+     * {@link #addEdgesFromNeigborArray(int[][], int)}
+     *
+     * @param dm
+     */
+    public void setDistanceMeasure(Distance dm) {
+        this.dm = dm;
+    }
+
+    /**
+     * Unlike other storages existing nodes and edges are kept, only the node
+     * array is enlarged when needed.
+     *
+     * @param size expected number of nodes
+     */
+    @Override
+    public void ensureCapacity(int size) {
+        if (size > nodes.length) {
+            nodes = Arrays.copyOf(nodes, size);
+        }
+    }
+
+    private void ensureEdgeCapacity(int size) {
+        if (size > edgeSource.length) {
+            int cap = Math.max(size, edgeSource.length + (edgeSource.length >> 1));
+            edgeSource = Arrays.copyOf(edgeSource, cap);
+            edgeTarget = Arrays.copyOf(edgeTarget, cap);
+            edgeWeight = Arrays.copyOf(edgeWeight, cap);
+            edgeIds = Arrays.copyOf(edgeIds, cap);
+            if (edgeObjects != null) {
+                edgeObjects = Arrays.copyOf(edgeObjects, cap);
+            }
+        }
+    }
+
+    private void appendEdge(int source, int target, double weight, long id, boolean isDirected, Edge edge) {
+        ensureEdgeCapacity(edgeCount + 1);
+        edgeSource[edgeCount] = source;
+        edgeTarget[edgeCount] = target;
+        edgeWeight[edgeCount] = weight;
+        edgeIds[edgeCount] = id;
+        directed.set(edgeCount, isDirected);
+        if (edge != null) {
+            if (edgeObjects == null) {
+                edgeObjects = new Edge[edgeSource.length];
+            }
+            edgeObjects[edgeCount] = edge;
+        } else if (edgeObjects != null) {
+            edgeObjects[edgeCount] = null;
+        }
+        edgeCount++;
+        dirty = true;
+    }
+
+    /**
+     * Rebuild CSR index if the graph was modified
+     */
+    private void index() {
+        if (dirty) {
+            if (buildIndex()) {
+                //duplicate edges were removed
+                buildIndex();
+            }
+            edgeIdToIndex = null;
+            dirty = false;
+        }
+    }
+
+    /**
+     * Build CSR index from the edge list
+     *
+     * @return true when duplicate edges were found (and removed)
+     */
+    private boolean buildIndex() {
+        offsets = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            offsets[edgeSource[e] + 1]++;
+            if (edgeSource[e] != edgeTarget[e]) {
+                offsets[edgeTarget[e] + 1]++;
+            }
+        }
+        int maxDegree = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            maxDegree = Math.max(maxDegree, offsets[i + 1]);
+            offsets[i + 1] += offsets[i];
+        }
+        int slots = offsets[nodeCount];
+        targets = new int[slots];
+        slotEdge = new int[slots];
+        weights = new double[slots];
+        int[] pos = Arrays.copyOf(offsets, nodeCount);
+        int s, t;
+        for (int e = 0; e < edgeCount; e++) {
+            s = edgeSource[e];
+            t = edgeTarget[e];
+            targets[pos[s]] = t;
+            slotEdge[pos[s]++] = e;
+            if (s != t) {
+                targets[pos[t]] = s;
+                slotEdge[pos[t]++] = e;
+            }
+        }
+        //sort each row by (target, edge index), both are non-negative ints
+        long[] buf = new long[maxDegree];
+        boolean[] duplicate = null;
+        int from, len;
+        for (int i = 0; i < nodeCount; i++) {
+            from = offsets[i];
+            len = offsets[i + 1] - from;
+            for (int j = 0; j < len; j++) {
+                buf[j] = ((long) targets[from + j] << 32) | slotEdge[from + j];
+            }
+            Arrays.sort(buf, 0, len);
+            for (int j = 0; j < len; j++) {
+                targets[from + j] = (int) (buf[j] >>> 32);
+                slotEdge[from + j] = (int) buf[j];
+                if (j > 0 && targets[from + j] == targets[from + j - 1]) {
+                    if (duplicate == null) {
+                        duplicate = new boolean[edgeCount];
+                    }
+                    //keep the edge which was added first
+                    duplicate[slotEdge[from + j]] = true;
+                }
+            }
+        }
+        if (duplicate != null) {
+            compactEdges(duplicate);
+            return true;
+        }
+        for (int j = 0; j < slots; j++) {
+            weights[j] = edgeWeight[slotEdge[j]];
+        }
+        return false;
+    }
+
+    /**
+     * Remove marked edges while preserving order of the remaining ones
+     *
+     * @param remove
+     */
+    private void compactEdges(boolean[] remove) {
+        int k = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            if (!remove[e]) {
+                if (k != e) {
+                    edgeSource[k] = edgeSource[e];
+                    edgeTarget[k] = edgeTarget[e];
+                    edgeWeight[k] = edgeWeight[e];
+                    edgeIds[k] = edgeIds[e];
+                    directed.set(k, directed.get(e));
+                    if (edgeObjects != null) {
+                        edgeObjects[k] = edgeObjects[e];
+                    }
+                }
+                k++;
+            }
+        }
+        directed.clear(k, edgeCount);
+        if (edgeObjects != null) {
+            Arrays.fill(edgeObjects, k, edgeCount, null);
+        }
+        edgeCount = k;
+        dirty = true;
+    }
+
+    /**
+     * Find edge connecting nodes with given indexes (regardless of its
+     * direction)
+     *
+     * @param i
+     * @param j
+     * @return edge index or -1
+     */
+    private int findEdge(int i, int j) {
+        int low = offsets[i];
+        int high = offsets[i + 1] - 1;
+        int mid;
+        while (low <= high) {
+            mid = (low + high) >>> 1;
+            if (targets[mid] < j) {
+                low = mid + 1;
+            } else if (targets[mid] > j) {
+                high = mid - 1;
+            } else {
+                return slotEdge[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Edge index of given edge, edge is matched by its endpoints and id
+     *
+     * @param edge
+     * @return -1 when edge is not in the graph
+     */
+    private int edgeIndex(Edge edge) {
+        int i = getIndex(edge.getSource());
+        int j = getIndex(edge.getTarget());
+        if (i < 0 || j < 0) {
+            return -1;
+        }
+        index();
+        int e = findEdge(i, j);
+        if (e >= 0 && edgeIds[e] == edge.getId()) {
+            return e;
+        }
+        return -1;
+    }
+
+    private Edge edge(int e) {
+        if (edgeObjects == null) {
+            edgeObjects = new Edge[edgeSource.length];
+        }
+        if (edgeObjects[e] == null) {
+            edgeObjects[e] = new EdgeImpl(edgeIds[e], this, nodes[edgeSource[e]],
+                    nodes[edgeTarget[e]], edgeWeight[e], directed.get(e));
+        }
+        return edgeObjects[e];
+    }
+
+    /**
+     * Propagate weight change of an edge object created by this graph
+     *
+     * @param edge
+     */
+    void updateWeight(Edge edge) {
+        int e = edgeIndex(edge);
+        if (e >= 0) {
+            edgeWeight[e] = edge.getWeight();
+            int i = edgeSource[e], j = edgeTarget[e];
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                if (slotEdge[k] == e) {
+                    weights[k] = edgeWeight[e];
+                }
+            }
+            for (int k = offsets[j]; k < offsets[j + 1]; k++) {
+                if (slotEdge[k] == e) {
+                    weights[k] = edgeWeight[e];
+                }
+            }
+        }
+    }
+
+    /**
+     * Weight is copied from the edge, later changes of the edge object won't
+     * be reflected (unless the edge was created by this graph's factory).
+     *
+     * @param edge
+     * @return false when edge's nodes are not in the graph
+     */
     @Override
     public boolean addEdge(Edge edge) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        int source = getIndex(edge.getSource());
+        int target = getIndex(edge.getTarget());
+        if (source < 0 || target < 0) {
+            return false;
+        }
+        appendEdge(source, target, edge.getWeight(), edge.getId(), edge.isDirected(), edge);
+        return true;
     }
 
     @Override
     public boolean addNode(Node node) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        if (idToIndex.containsKey(node.getId())) {
+            return false;
+        }
+        if (nodeCount == nodes.length) {
+            nodes = Arrays.copyOf(nodes, nodes.length + (nodes.length >> 1) + 1);
+        }
+        idToIndex.put(node.getId(), nodeCount);
+        nodes[nodeCount++] = node;
+        dirty = true;
+        return true;
     }
 
     @Override
     public boolean addAllEdges(Collection<? extends Edge> edges) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        ensureEdgeCapacity(edgeCount + edges.size());
+        boolean success = true;
+        for (Edge edge : edges) {
+            if (!addEdge(edge)) {
+                success = false;
+            }
+        }
+        return success;
     }
 
     @Override
     public boolean addAllNodes(Collection<? extends Node> nodes) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        ensureCapacity(nodeCount + nodes.size());
+        boolean success = true;
+        for (Node node : nodes) {
+            if (!addNode(node)) {
+                success = false;
+            }
+        }
+        return success;
     }
 
     @Override
     public boolean removeEdge(Edge edge) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        int e = edgeIndex(edge);
+        if (e < 0) {
+            return false;
+        }
+        boolean[] remove = new boolean[edgeCount];
+        remove[e] = true;
+        compactEdges(remove);
+        return true;
     }
 
     @Override
     public boolean removeNode(Node node) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        List<Node> list = new ArrayList<>(1);
+        list.add(node);
+        return removeAllNodes(list);
     }
 
     @Override
     public boolean removeAllEdges(Collection<? extends Edge> edges) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        boolean[] remove = new boolean[edgeCount];
+        boolean success = true;
+        int e;
+        for (Edge edge : edges) {
+            e = edgeIndex(edge);
+            if (e < 0) {
+                success = false;
+            } else {
+                remove[e] = true;
+            }
+        }
+        compactEdges(remove);
+        return success;
     }
 
     @Override
     public boolean removeAllNodes(Collection<? extends Node> nodes) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        boolean[] remove = new boolean[nodeCount];
+        boolean success = true;
+        int idx;
+        for (Node node : nodes) {
+            idx = getIndex(node);
+            if (idx < 0) {
+                success = false;
+            } else {
+                remove[idx] = true;
+            }
+        }
+        //remove incident edges
+        boolean[] removeEdge = new boolean[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            removeEdge[e] = remove[edgeSource[e]] || remove[edgeTarget[e]];
+        }
+        compactEdges(removeEdge);
+        //shift remaining nodes
+        int[] mapping = new int[nodeCount];
+        int k = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            if (remove[i]) {
+                idToIndex.remove(this.nodes[i].getId());
+                mapping[i] = -1;
+            } else {
+                mapping[i] = k;
+                if (k != i) {
+                    this.nodes[k] = this.nodes[i];
+                    idToIndex.put(this.nodes[k].getId(), k);
+                }
+                k++;
+            }
+        }
+        Arrays.fill(this.nodes, k, nodeCount, null);
+        nodeCount = k;
+        for (int e = 0; e < edgeCount; e++) {
+            edgeSource[e] = mapping[edgeSource[e]];
+            edgeTarget[e] = mapping[edgeTarget[e]];
+        }
+        dirty = true;
+        return success;
     }
 
     @Override
     public boolean contains(Node node) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return getIndex(node) >= 0;
     }
 
     @Override
     public boolean contains(Edge edge) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return edgeIndex(edge) >= 0;
     }
 
     @Override
     public Node getNode(long id) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        int idx = idToIndex.get(id);
+        if (idx < 0) {
+            return null;
+        }
+        return nodes[idx];
+    }
+
+    /**
+     * @param index
+     * @return node with given index (in order of insertion)
+     */
+    public Node getNodeAt(int index) {
+        if (index >= nodeCount) {
+            throw new IndexOutOfBoundsException("index " + index + " is out of bounds, node count: " + nodeCount);
+        }
+        return nodes[index];
     }
 
     @Override
     public Edge getEdge(long id) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        index();
+        if (edgeIdToIndex == null) {
+            edgeIdToIndex = new Long2IntOpenHashMap(edgeCount);
+            edgeIdToIndex.defaultReturnValue(-1);
+            for (int e = 0; e < edgeCount; e++) {
+                edgeIdToIndex.put(edgeIds[e], e);
+            }
+        }
+        int e = edgeIdToIndex.get(id);
+        if (e < 0) {
+            return null;
+        }
+        return edge(e);
     }
 
+    /**
+     * {@inheritDoc }
+     *
+     * Directed edge is returned only when {@code node1} is its source.
+     */
     @Override
     public Edge getEdge(Node node1, Node node2) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        int e = edgeBetween(node1, node2);
+        if (e < 0) {
+            return null;
+        }
+        return edge(e);
+    }
+
+    private int edgeBetween(Node node1, Node node2) {
+        int i = getIndex(node1);
+        int j = getIndex(node2);
+        if (i < 0 || j < 0) {
+            return -1;
+        }
+        index();
+        int e = findEdge(i, j);
+        if (e >= 0 && directed.get(e) && edgeSource[e] != i) {
+            return -1;
+        }
+        return e;
     }
 
     @Override
     public Edge getEdge(Node node1, Node node2, int type) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return getEdge(node1, node2);
     }
 
     @Override
     public NodeIterable getNodes() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return new NodeIterableImpl(null, 0, nodeCount);
     }
 
     @Override
     public EdgeIterable getEdges() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        index();
+        return new EdgeIterableImpl(null, 0, edgeCount);
     }
 
     @Override
     public EdgeIterable getSelfLoops() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        index();
+        int[] loops = new int[edgeCount];
+        int k = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            if (edgeSource[e] == edgeTarget[e]) {
+                loops[k++] = e;
+            }
+        }
+        return new EdgeIterableImpl(loops, 0, k);
     }
 
     @Override
     public NodeIterable getNeighbors(Node node) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        int i = getIndex(node);
+        if (i < 0) {
+            return NodeIterable.EMPTY;
+        }
+        index();
+        return new NodeIterableImpl(targets, offsets[i], offsets[i + 1]);
     }
 
     @Override
     public NodeIterable getNeighbors(Node node, int type) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return getNeighbors(node);
     }
 
     @Override
     public EdgeIterable getEdges(Node node) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        int i = getIndex(node);
+        if (i < 0) {
+            return EdgeIterable.EMPTY;
+        }
+        index();
+        return new EdgeIterableImpl(slotEdge, offsets[i], offsets[i + 1]);
     }
 
     @Override
     public EdgeIterable getEdges(Node node, int type) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return getEdges(node);
     }
 
     @Override
     public int getNodeCount() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return nodeCount;
     }
 
     @Override
     public int getEdgeCount() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        index();
+        return edgeCount;
     }
 
     @Override
     public int getEdgeCount(int type) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return getEdgeCount();
     }
 
     @Override
     public Node getOpposite(Node node, Edge edge) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        if (edge.getSource().getId() == node.getId()) {
+            return edge.getTarget();
+        } else if (edge.getTarget().getId() == node.getId()) {
+            return edge.getSource();
+        }
+        throw new IllegalArgumentException("node " + node.getId() + " is not incident to edge " + edge.getId());
     }
 
     @Override
     public int getDegree(Node node) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        int i = getIndex(node);
+        if (i < 0) {
+            return 0;
+        }
+        index();
+        return offsets[i + 1] - offsets[i];
     }
 
     @Override
     public boolean isSelfLoop(Edge edge) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return edge.getSource().getId() == edge.getTarget().getId();
     }
 
     @Override
     public boolean isDirected(Edge edge) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return edge.isDirected();
     }
 
     @Override
     public boolean isAdjacent(Node node1, Node node2) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return edgeBetween(node1, node2) >= 0;
     }
 
     @Override
     public boolean isAdjacent(Node node1, Node node2, int type) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return isAdjacent(node1, node2);
     }
 
     @Override
     public boolean isIncident(Edge edge1, Edge edge2) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return isIncident(edge1.getSource(), edge2) || isIncident(edge1.getTarget(), edge2);
     }
 
     @Override
     public boolean isIncident(Node node, Edge edge) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return edge.getSource().getId() == node.getId() || edge.getTarget().getId() == node.getId();
     }
 
     @Override
     public void clearEdges(Node node) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        int i = getIndex(node);
+        if (i >= 0) {
+            boolean[] remove = new boolean[edgeCount];
+            for (int e = 0; e < edgeCount; e++) {
+                remove[e] = edgeSource[e] == i || edgeTarget[e] == i;
+            }
+            compactEdges(remove);
+        }
     }
 
     @Override
     public void clearEdges(Node node, int type) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        clearEdges(node);
     }
 
     @Override
     public void clear() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        clearEdges();
+        Arrays.fill(nodes, 0, nodeCount, null);
+        nodeCount = 0;
+        idToIndex.clear();
     }
 
     @Override
     public void clearEdges() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        edgeCount = 0;
+        edgeObjects = null;
+        directed.clear();
+        dirty = true;
     }
 
     @Override
     public boolean isDirected() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        index();
+        return edgeCount > 0 && directed.cardinality() == edgeCount;
     }
 
     @Override
     public boolean isUndirected() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        index();
+        return directed.isEmpty();
     }
 
     @Override
     public boolean isMixed() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return !isDirected() && !isUndirected();
     }
 
     @Override
     public GraphFactory getFactory() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return factory;
     }
 
+    /**
+     * {@inheritDoc }
+     *
+     * Undirected edges are created directly in primitive arrays (without
+     * allocating {@link Edge} objects), weight of an edge is an inverse
+     * distance of its nodes' instances. Symmetric neighbors are connected by
+     * a single edge and self loops are skipped.
+     *
+     * @param nearests k nearest neighbors of each node (node indexes)
+     * @param k
+     * @return false when there's not enough nodes
+     */
     @Override
     public boolean addEdgesFromNeigborArray(int[][] nearests, int k) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        if (k > nodeCount || nearests.length < nodeCount) {
+            return false;
+        }
+        long[] keys = new long[nodeCount * k];
+        int m = 0;
+        int t;
+        for (int i = 0; i < nodeCount; i++) {
+            for (int j = 0; j < k; j++) {
+                t = nearests[i][j];
+                if (t != i) {
+                    keys[m++] = i < t ? ((long) i << 32) | t : ((long) t << 32) | i;
+                }
+            }
+        }
+        Arrays.sort(keys, 0, m);
+        int unique = 0;
+        for (int i = 0; i < m; i++) {
+            if (i == 0 || keys[i] != keys[i - 1]) {
+                keys[unique++] = keys[i];
+            }
+        }
+        ensureEdgeCapacity(edgeCount + unique);
+        long firstId = factory.EDGE_IDS.getAndAdd(unique);
+        int s;
+        double distance;
+        for (int i = 0; i < unique; i++) {
+            s = (int) (keys[i] >>> 32);
+            t = (int) keys[i];
+            distance = dm.measure(nodes[s].getInstance(), nodes[t].getInstance());
+            if (distance < EPS) {
+                distance = EPS;
+            }
+            appendEdge(s, t, 1 / distance, firstId + i, false, null);
+        }
+        return true;
     }
 
     @Override
     public int getIndex(Node node) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return idToIndex.get(node.getId());
     }
 
-    @Override
-    public void ensureCapacity(int size) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    /**
+     * Row offsets of the CSR index, neighbors of node {@code i} are stored in
+     * {@code getTargets()} between {@code offsets[i]} (inclusive) and
+     * {@code offsets[i + 1]} (exclusive). Returned arrays must not be
+     * modified and are valid until the graph is modified.
+     *
+     * @return array of size node count + 1
+     */
+    public int[] getOffsets() {
+        index();
+        return offsets;
+    }
+
+    /**
+     * @return indexes of neighbor nodes, each row sorted in ascending order
+     */
+    public int[] getTargets() {
+        index();
+        return targets;
+    }
+
+    /**
+     * @return weights of edges in the same order as {@link #getTargets()}
+     */
+    public double[] getWeights() {
+        index();
+        return weights;
     }
 
     @Override
     public String metisExport(boolean weighted) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        index();
+        StringBuilder sb = new StringBuilder();
+        sb.append(nodeCount).append(" ").append(edgeCount);
+        if (weighted) {
+            //METIS supports only integer weights
+            sb.append(" 001");
+        }
+        sb.append("\n");
+        for (int i = 0; i < nodeCount; i++) {
+            String space = "";
+            for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+                sb.append(space).append(targets[j] + 1);
+                if (weighted) {
+                    sb.append(" ").append(Math.max(1, Math.round(weights[j])));
+                }
+                space = " ";
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
     }
 
     @Override
     public String hMetisExport(boolean weighted) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        index();
+        StringBuilder sb = new StringBuilder();
+        //same number of nodes as hyperedges - a hyperedge is formed by node's neighbourhood
+        sb.append(nodeCount).append(" ").append(nodeCount).append("\n");
+        for (int i = 0; i < nodeCount; i++) {
+            String space = "";
+            for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+                sb.append(space).append(targets[j] + 1);
+                space = " ";
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
     }
 
     @Override
@@ -289,4 +908,144 @@ public class FastGraph implements Graph {
         instanceContent.remove(instance);
     }
 
+    /**
+     * Iterates over a range of node indexes (or over positions when the
+     * index array is null)
+     */
+    private class NodeIterableImpl implements NodeIterable {
+
+        private final int[] idx;
+        private final int from;
+        private final int to;
+
+        public NodeIterableImpl(int[] idx, int from, int to) {
+            this.idx = idx;
+            this.from = from;
+            this.to = to;
+        }
+
+        private Node get(int i) {
+            return nodes[idx == null ? i : idx[i]];
+        }
+
+        @Override
+        public Iterator<Node> iterator() {
+            return new Iterator<Node>() {
+                private int i = from;
+
+                @Override
+                public boolean hasNext() {
+                    return i < to;
+                }
+
+                @Override
+                public Node next() {
+                    if (i >= to) {
+                        throw new NoSuchElementException();
+                    }
+                    return get(i++);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("Not supported.");
+                }
+            };
+        }
+
+        @Override
+        public Node[] toArray() {
+            Node[] res = new Node[to - from];
+            for (int i = from; i < to; i++) {
+                res[i - from] = get(i);
+            }
+            return res;
+        }
+
+        @Override
+        public Collection<Node> toCollection() {
+            return new ArrayList<>(Arrays.asList(toArray()));
+        }
+
+        @Override
+        public void doBreak() {
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+    }
+
+    /**
+     * Iterates over a range of edge indexes (or over positions when the
+     * index array is null)
+     */
+    private class EdgeIterableImpl implements EdgeIterable {
+
+        private final int[] idx;
+        private final int from;
+        private final int to;
+
+        public EdgeIterableImpl(int[] idx, int from, int to) {
+            this.idx = idx;
+            this.from = from;
+            this.to = to;
+        }
+
+        private Edge get(int i) {
+            return edge(idx == null ? i : idx[i]);
+        }
+
+        @Override
+        public Iterator<Edge> iterator() {
+            return new Iterator<Edge>() {
+                private int i = from;
+
+                @Override
+                public boolean hasNext() {
+                    return i < to;
+                }
+
+                @Override
+                public Edge next() {
+                    if (i >= to) {
+                        throw new NoSuchElementException();
+                    }
+                    return get(i++);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("Not supported.");
+                }
+            };
+        }
+
+        @Override
+        public Edge[] toArray() {
+            Edge[] res = new Edge[to - from];
+            for (int i = from; i < to; i++) {
+                res[i - from] = get(i);
+            }
+            return res;
+        }
+
+        @Override
+        public Collection<Edge> toCollection() {
+            return new ArrayList<>(Arrays.asList(toArray()));
+        }
+
+        @Override
+        public void doBreak() {
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+    }
+
 }
@@ -41,52 +41,74 @@ public class GraphFactoryImpl implements GraphFactory {
 
     @Override
     public Edge newEdge(Node source, Node target) {
-        return new EdgeImpl(EDGE_IDS.getAndIncrement(), store, source, target, 1.0, true);
+        return newEdge(source, target, false);
     }
 
     @Override
     public Edge newEdge(Node source, Node target, boolean directed) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return newEdge(source, target, 0, 1.0, directed);
     }
 
     @Override
     public Edge newEdge(Node source, Node target, int type, boolean directed) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return newEdge(source, target, type, 1.0, directed);
     }
 
     @Override
     public Edge newEdge(Node source, Node target, int type, double weight, boolean directed) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return new EdgeImpl(EDGE_IDS.getAndIncrement(), store, source, target, weight, directed);
     }
 
     @Override
     public Edge newEdge(Object id, Node source, Node target, int type, double weight, boolean directed) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return new EdgeImpl((Long) id, store, source, target, weight, directed);
     }
 
     @Override
     public Node newNode() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return new NodeImpl(NODE_IDS.getAndIncrement(), store);
     }
 
     @Override
     public Node newNode(Object label) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        NodeImpl node = new NodeImpl(NODE_IDS.getAndIncrement(), store);
+        node.setLabel(label);
+        return node;
     }
 
     @Override
     public Node newNode(Instance i) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        NodeImpl node = new NodeImpl(NODE_IDS.getAndIncrement(), store);
+        node.setInstance(i);
+        return node;
     }
 
     @Override
     public ArrayList<Node> createNodesFromInput(Dataset<? extends Instance> input) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        ArrayList<Node> nodes = new ArrayList<>(input.size());
+        for (Instance inst : input) {
+            nodes.add(newNode(inst));
+        }
+        return nodes;
     }
 
+    /**
+     * {@inheritDoc }
+     *
+     * @param input
+     * @param graph
+     */
     @Override
     public Long[] createNodesFromInput(Dataset<? extends Instance> input, Graph graph) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        Long[] mapping = new Long[input.size()];
+        graph.ensureCapacity(graph.getNodeCount() + input.size());
+        Node curr;
+        for (Instance inst : input) {
+            curr = newNode(inst);
+            graph.addNode(curr);
+            mapping[inst.getIndex()] = curr.getId();
+        }
+        return mapping;
     }
 
 }
@@ -45,6 +45,10 @@ public class NodeImpl extends ElementImpl implements Node {
         return attributes[FastGraphConfig.ELEMENT_LABEL_INDEX];
     }
 
+    public void setLabel(Object label) {
+        attributes[FastGraphConfig.ELEMENT_LABEL_INDEX] = label;
+    }
+
     @Override
     public void setInstance(Instance i) {
         this.instance = i;
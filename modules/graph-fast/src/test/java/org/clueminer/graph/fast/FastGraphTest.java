@@ -0,0 +1,222 @@
+package org.clueminer.graph.fast;
+
+import java.util.Collection;
+import java.util.Random;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import org.clueminer.distance.EuclideanDistance;
+import org.clueminer.graph.api.Edge;
+import org.clueminer.graph.api.GraphFactory;
+import org.clueminer.graph.api.Node;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class FastGraphTest {
+
+    private static final double delta = 1e-9;
+
+    private FastGraph g;
+    private Node n1, n2, n3, n4;
+    private Edge e1, e2;
+
+    private void buildSimpleGraph() {
+        g = new FastGraph(3);
+        GraphFactory f = g.getFactory();
+        n1 = f.newNode();
+        n2 = f.newNode();
+        n3 = f.newNode();
+        n4 = f.newNode();
+        e1 = f.newEdge(n1, n2, 1, 2, false);
+        e2 = f.newEdge(n3, n2, 1, 3, false);
+        g.addNode(n1);
+        g.addNode(n2);
+        g.addNode(n3);
+        g.addEdge(e1);
+        g.addEdge(e2);
+    }
+
+    @Test
+    public void testSimpleGraph() {
+        buildSimpleGraph();
+        assertEquals(3, g.getNodeCount());
+        assertEquals(2, g.getEdgeCount());
+        assertEquals(0, g.getIndex(n1));
+        assertEquals(2, g.getIndex(n3));
+        assertEquals(-1, g.getIndex(n4));
+        assertEquals(2, g.getEdge(n1, n2).getWeight(), delta);
+        assertEquals(3, g.getEdge(n2, n3).getWeight(), delta);
+        assertSame(e1, g.getEdge(n2, n1));
+        assertNull(g.getEdge(n1, n3));
+        assertTrue(g.contains(n1));
+        assertFalse(g.contains(n4));
+        assertTrue(g.contains(e1));
+        assertTrue(g.isAdjacent(n3, n2));
+        assertFalse(g.isAdjacent(n1, n3));
+        assertEquals(1, g.getDegree(n1));
+        assertEquals(2, g.getDegree(n2));
+        assertSame(e2, g.getEdge(e2.getId()));
+        assertSame(n3, g.getOpposite(n2, e2));
+        assertTrue(g.isUndirected());
+
+        Collection<Node> nodes = g.getNeighbors(n2).toCollection();
+        assertEquals(2, nodes.size());
+        assertTrue(nodes.contains(n1) && nodes.contains(n3));
+        assertEquals(2, g.getEdges().size());
+        assertEquals(1, g.getEdges(n3).size());
+
+        //duplicate edge is ignored
+        g.addEdge(g.getFactory().newEdge(n2, n1));
+        assertEquals(2, g.getEdgeCount());
+        assertSame(e1, g.getEdge(n1, n2));
+        //unknown node
+        assertFalse(g.addEdge(g.getFactory().newEdge(n1, n4)));
+    }
+
+    @Test
+    public void testRemove() {
+        buildSimpleGraph();
+        assertTrue(g.removeEdge(e1));
+        assertEquals(1, g.getEdgeCount());
+        assertFalse(g.isAdjacent(n1, n2));
+        assertFalse(g.removeEdge(e1));
+
+        g.addEdge(e1);
+        assertTrue(g.removeNode(n1));
+        assertEquals(2, g.getNodeCount());
+        assertEquals(1, g.getEdgeCount());
+        assertEquals(0, g.getIndex(n2));
+        assertSame(e2, g.getEdge(n2, n3));
+        assertNull(g.getNode(n1.getId()));
+
+        g.clearEdges(n2);
+        assertEquals(0, g.getEdgeCount());
+        g.clear();
+        assertEquals(0, g.getNodeCount());
+    }
+
+    @Test
+    public void testDirected() {
+        g = new FastGraph();
+        GraphFactory f = g.getFactory();
+        n1 = f.newNode();
+        n2 = f.newNode();
+        g.addNode(n1);
+        g.addNode(n2);
+        g.addEdge(f.newEdge(n1, n2, true));
+        assertTrue(g.isDirected());
+        assertNotNull(g.getEdge(n1, n2));
+        assertNull(g.getEdge(n2, n1));
+        assertEquals(1, g.getDegree(n2));
+    }
+
+    @Test
+    public void testSetWeight() {
+        buildSimpleGraph();
+        g.getEdge(n1, n2).setWeight(5.0);
+        int i = g.getIndex(n1);
+        int[] offsets = g.getOffsets();
+        assertEquals(1, offsets[i + 1] - offsets[i]);
+        assertEquals(5.0, g.getWeights()[offsets[i]], delta);
+    }
+
+    @Test
+    public void testMetisExport() {
+        g = new FastGraph();
+        GraphFactory f = g.getFactory();
+        Node[] n = new Node[7];
+        for (int i = 0; i < n.length; i++) {
+            n[i] = f.newNode();
+            g.addNode(n[i]);
+        }
+        int[][] edges = {{0, 1}, {0, 2}, {0, 6}, {1, 5}, {2, 3}, {2, 4}, {3, 4}, {3, 5}, {3, 6}, {4, 6}, {5, 6}};
+        for (int[] e : edges) {
+            g.addEdge(f.newEdge(n[e[0]], n[e[1]]));
+        }
+        assertEquals("7 11\n2 3 7\n1 6\n1 4 5\n3 5 6 7\n3 4 7\n2 4 7\n1 4 5 6\n", g.metisExport(false));
+    }
+
+    @Test
+    public void testNeighborArray() {
+        Random rand = new Random(42);
+        int n = 200, k = 5;
+        double[][] data = new double[n][2];
+        for (int i = 0; i < n; i++) {
+            data[i][0] = rand.nextGaussian();
+            data[i][1] = rand.nextGaussian();
+        }
+        Dataset<Instance> dataset = new ArrayDataset<>(data);
+        EuclideanDistance dm = EuclideanDistance.getInstance();
+        //brute force k-NN
+        int[][] nearests = new int[n][k];
+        for (int i = 0; i < n; i++) {
+            double[] dist = new double[n];
+            for (int j = 0; j < n; j++) {
+                dist[j] = i == j ? Double.MAX_VALUE : dm.measure(dataset.get(i), dataset.get(j));
+            }
+            for (int l = 0; l < k; l++) {
+                int best = 0;
+                for (int j = 1; j < n; j++) {
+                    if (dist[j] < dist[best]) {
+                        best = j;
+                    }
+                }
+                nearests[i][l] = best;
+                dist[best] = Double.MAX_VALUE;
+            }
+        }
+        g = new FastGraph();
+        g.ensureCapacity(n);
+        g.addAllNodes(g.getFactory().createNodesFromInput(dataset));
+        assertTrue(g.addEdgesFromNeigborArray(nearests, k));
+
+        boolean[][] adj = new boolean[n][n];
+        int cnt = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j : nearests[i]) {
+                if (!adj[i][j]) {
+                    cnt++;
+                }
+                adj[i][j] = adj[j][i] = true;
+            }
+        }
+        assertEquals(cnt, g.getEdgeCount());
+        int[] offsets = g.getOffsets();
+        int[] targets = g.getTargets();
+        double[] weights = g.getWeights();
+        for (int i = 0; i < n; i++) {
+            Node node = g.getNodeAt(i);
+            int deg = 0;
+            for (int j = 0; j < n; j++) {
+                if (adj[i][j]) {
+                    deg++;
+                    Edge e = g.getEdge(node, g.getNodeAt(j));
+                    assertNotNull(e);
+                    assertEquals(1 / dm.measure(dataset.get(i), dataset.get(j)), e.getWeight(), delta);
+                }
+            }
+            assertEquals(deg, g.getDegree(node));
+            for (int s = offsets[i]; s < offsets[i + 1]; s++) {
+                assertTrue(adj[i][targets[s]]);
+                assertEquals(g.getEdge(node, g.getNodeAt(targets[s])).getWeight(), weights[s], delta);
+                if (s > offsets[i]) {
+                    assertTrue(targets[s - 1] < targets[s]);
+                }
+            }
+        }
+        //edges are shared by both endpoints
+        Edge[] edges = g.getEdges().toArray();
+        assertEquals(cnt, edges.length);
+        assertSame(edges[0], g.getEdge(edges[0].getTarget(), edges[0].getSource()));
+    }
+
+}
@@ -4,11 +4,12 @@ import java.util.ArrayList;
 import org.clueminer.dataset.api.Dataset;
 import org.clueminer.dataset.api.Instance;
 import org.clueminer.distance.EuclideanDistance;
+import org.clueminer.distance.ProximityMatrixBuilder;
 import org.clueminer.distance.api.Distance;
 import org.clueminer.graph.api.Graph;
 import org.clueminer.graph.api.GraphFactory;
 import org.clueminer.graph.api.Node;
-import org.clueminer.math.matrix.SymmetricMatrix;
+import org.clueminer.math.Matrix;
 
 /**
  *
@@ -26,18 +27,54 @@ public class KNNGraphBuilder {
     /**
      * Triangular distance matrix
      */
-    private SymmetricMatrix distance;
+    private Matrix distance;
 
     private Dataset<? extends Instance> input;
 
     private Distance dm;
 
+    /**
+     * when not null, neighbors are found approximately without computing
+     * distance matrix
+     */
+    private NNDescent approx;
+
     public KNNGraphBuilder() {
         dm = new EuclideanDistance();
     }
 
     public void setDistanceMeasure(Distance dm) {
         this.dm = dm;
+        if (approx != null) {
+            approx.setDistanceMeasure(dm);
+        }
+    }
+
+    /**
+     * Use NN-Descent instead of exact search, memory requirements are O(n * k)
+     * instead of O(n^2)
+     *
+     * @param approximate
+     */
+    public void setApproximate(boolean approximate) {
+        if (approximate) {
+            if (approx == null) {
+                approx = new NNDescent(dm);
+            }
+        } else {
+            approx = null;
+        }
+    }
+
+    public boolean isApproximate() {
+        return approx != null;
+    }
+
+    /**
+     * @return approximate builder or null when exact search is used
+     */
+    public NNDescent getApproximate() {
+        return approx;
     }
 
     /**
@@ -51,6 +88,10 @@ public class KNNGraphBuilder {
         if (k >= input.size()) {
             throw new RuntimeException("Too many neighbours, not enough nodes in dataset");
         }
+        if (approx != null) {
+            nearests = approx.getNeighborArray(dataset, k);
+            return nearests;
+        }
         buildDistanceMatrix();
         nearests = new int[input.size()][k];
         for (int i = 0; i < input.size(); i++) {
@@ -99,12 +140,7 @@ public class KNNGraphBuilder {
     }
 
     private void buildDistanceMatrix() {
-        distance = new SymmetricMatrix(input.size(), input.size());
-        for (int i = 0; i < input.size(); i++) {
-            for (int j = i + 1; j < input.size(); j++) {
-                distance.set(i, j, dm.measure(input.instance(i), input.instance(j)));
-            }
-        }
+        distance = new ProximityMatrixBuilder(dm).instances(input);
     }
 
     public int[][] getNeighborArray(Dataset<? extends Instance> dataset, int k) {
@@ -0,0 +1,471 @@
+package org.clueminer.graph.GraphBuilder;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.distance.EuclideanDistance;
+import org.clueminer.distance.ProximityMatrixBuilder;
+import org.clueminer.distance.api.Distance;
+import org.clueminer.graph.api.Graph;
+import org.clueminer.graph.api.GraphFactory;
+import org.clueminer.graph.api.Node;
+
+/**
+ * Approximate k-NN graph construction by NN-Descent (W. Dong, M. Charikar,
+ * K. Li: Efficient k-nearest neighbor graph construction for generic
+ * similarity measures, WWW 2011).
+ *
+ * Starting from random neighbors, each iteration compares pairs of
+ * neighbors (and reverse neighbors) of every point, because a neighbor of a
+ * neighbor is likely to be a neighbor as well. Only O(n * k) memory is used,
+ * distance matrix is never computed. Local joins run in parallel on a
+ * {@link ForkJoinPool}.
+ *
+ * @author Tomas Barton
+ */
+public class NNDescent {
+
+    /**
+     * number of points processed by a single task
+     */
+    private static final int CHUNK = 64;
+    /**
+     * number of locks guarding neighbor heaps, must be a power of 2
+     */
+    private static final int LOCKS = 1024;
+
+    private Distance dm;
+    private ForkJoinPool pool;
+    /**
+     * fraction of new neighbors used in local join
+     */
+    private double sampleRate = 1.0;
+    /**
+     * iteration stops when fewer than delta * n * k updates were made
+     */
+    private double delta = 0.001;
+    private int maxIterations = 30;
+    private long seed = 42;
+    private int iterations;
+
+    public NNDescent() {
+        this(EuclideanDistance.getInstance());
+    }
+
+    public NNDescent(Distance dm) {
+        this.dm = dm;
+    }
+
+    public void setDistanceMeasure(Distance dm) {
+        this.dm = dm;
+    }
+
+    public Distance getDistanceMeasure() {
+        return dm;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public void setDelta(double delta) {
+        this.delta = delta;
+    }
+
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return number of iterations of the last run
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Find (approximately) k neighbors of all items in the dataset
+     *
+     * @param dataset
+     * @param k
+     * @return indexes of neighbors of each instance sorted by distance
+     */
+    public int[][] getNeighborArray(Dataset<? extends Instance> dataset, int k) {
+        if (k >= dataset.size()) {
+            throw new RuntimeException("Too many neighbours, not enough nodes in dataset");
+        }
+        Heaps heaps = new Heaps(dataset, k);
+        Random rand = new Random(seed);
+        heaps.init(rand);
+        ForkJoinPool fjp = pool != null ? pool : ProximityMatrixBuilder.getPool();
+        int n = dataset.size();
+        int sample = Math.max(1, (int) Math.ceil(sampleRate * k));
+        iterations = 0;
+        int updates;
+        do {
+            iterations++;
+            int[][] news = new int[n][];
+            int[][] olds = new int[n][];
+            heaps.candidates(news, olds, sample, rand);
+            updates = fjp.invoke(new JoinTask(heaps, news, olds, 0, n));
+        } while (updates > delta * n * k && iterations < maxIterations);
+        return heaps.sorted();
+    }
+
+    /**
+     * Create graph where connected nodes are (approximate) neighbors
+     *
+     * @param dataset input dataset
+     * @param g       graph where output will be stored
+     * @param k
+     * @return neighbor graph
+     */
+    public Graph getNeighborGraph(Dataset<? extends Instance> dataset, Graph g, int k) {
+        int[][] nearests = getNeighborArray(dataset, k);
+        GraphFactory f = g.getFactory();
+        ArrayList<Node> nodes = f.createNodesFromInput(dataset);
+        g.addAllNodes(nodes);
+        g.addEdgesFromNeigborArray(nearests, k);
+        return g;
+    }
+
+    /**
+     * Fraction of correctly found neighbors. Neighbor is correct when it's
+     * not further than the k-th exact neighbor (so that ties don't matter).
+     *
+     * @param dataset
+     * @param approx  approximate neighbors
+     * @param exact   exact neighbors (sorted by distance)
+     * @return recall from [0, 1]
+     */
+    public double recall(Dataset<? extends Instance> dataset, int[][] approx, int[][] exact) {
+        long hits = 0, total = 0;
+        int k;
+        double limit;
+        for (int i = 0; i < exact.length; i++) {
+            k = exact[i].length;
+            limit = dm.measure(dataset.get(i), dataset.get(exact[i][k - 1]));
+            for (int j = 0; j < k; j++) {
+                if (dm.measure(dataset.get(i), dataset.get(approx[i][j])) <= limit) {
+                    hits++;
+                }
+            }
+            total += k;
+        }
+        return hits / (double) total;
+    }
+
+    /**
+     * k nearest neighbors of each point stored as max-heaps (by distance) in
+     * flat arrays, heap of point i starts at i * k.
+     */
+    private class Heaps {
+
+        private final Dataset<? extends Instance> dataset;
+        private final int n;
+        private final int k;
+        private final int[] idx;
+        private final double[] dist;
+        private final boolean[] isNew;
+        private final Object[] locks;
+
+        Heaps(Dataset<? extends Instance> dataset, int k) {
+            this.dataset = dataset;
+            this.n = dataset.size();
+            this.k = k;
+            idx = new int[n * k];
+            dist = new double[n * k];
+            isNew = new boolean[n * k];
+            locks = new Object[LOCKS];
+            for (int i = 0; i < LOCKS; i++) {
+                locks[i] = new Object();
+            }
+        }
+
+        double distance(int i, int j) {
+            return dm.measure(dataset.get(i), dataset.get(j));
+        }
+
+        /**
+         * Random distinct neighbors
+         */
+        void init(Random rand) {
+            int j, base;
+            for (int i = 0; i < n; i++) {
+                base = i * k;
+                int cnt = 0;
+                while (cnt < k) {
+                    j = rand.nextInt(n);
+                    if (j != i && !contains(base, cnt, j)) {
+                        idx[base + cnt] = j;
+                        dist[base + cnt] = distance(i, j);
+                        isNew[base + cnt] = true;
+                        siftUp(base, cnt);
+                        cnt++;
+                    }
+                }
+            }
+        }
+
+        private boolean contains(int base, int size, int j) {
+            for (int l = 0; l < size; l++) {
+                if (idx[base + l] == j) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void swap(int a, int b) {
+            int ti = idx[a];
+            idx[a] = idx[b];
+            idx[b] = ti;
+            double td = dist[a];
+            dist[a] = dist[b];
+            dist[b] = td;
+            boolean tn = isNew[a];
+            isNew[a] = isNew[b];
+            isNew[b] = tn;
+        }
+
+        private void siftUp(int base, int pos) {
+            int parent;
+            while (pos > 0) {
+                parent = (pos - 1) >>> 1;
+                if (dist[base + parent] >= dist[base + pos]) {
+                    break;
+                }
+                swap(base + parent, base + pos);
+                pos = parent;
+            }
+        }
+
+        private void siftDown(int base, int size) {
+            int pos = 0, child;
+            while ((child = 2 * pos + 1) < size) {
+                if (child + 1 < size && dist[base + child + 1] > dist[base + child]) {
+                    child++;
+                }
+                if (dist[base + pos] >= dist[base + child]) {
+                    break;
+                }
+                swap(base + pos, base + child);
+                pos = child;
+            }
+        }
+
+        /**
+         * Try to insert j into neighbors of i
+         *
+         * @return 1 when heap was updated, 0 otherwise
+         */
+        int update(int i, int j, double d) {
+            int base = i * k;
+            synchronized (locks[i & (LOCKS - 1)]) {
+                if (d >= dist[base] || contains(base, k, j)) {
+                    return 0;
+                }
+                idx[base] = j;
+                dist[base] = d;
+                isNew[base] = true;
+                siftDown(base, k);
+            }
+            return 1;
+        }
+
+        /**
+         * Prepare candidates for local join: sampled new neighbors (which are
+         * marked as old afterwards), old neighbors and sampled reverse
+         * neighbors of both kinds.
+         */
+        void candidates(int[][] news, int[][] olds, int sample, Random rand) {
+            IntList[] newList = new IntList[n];
+            IntList[] oldList = new IntList[n];
+            IntList[] newRev = new IntList[n];
+            IntList[] oldRev = new IntList[n];
+            for (int i = 0; i < n; i++) {
+                newList[i] = new IntList(sample);
+                oldList[i] = new IntList(k);
+                newRev[i] = new IntList(sample);
+                oldRev[i] = new IntList(sample);
+            }
+            int base, j;
+            for (int i = 0; i < n; i++) {
+                base = i * k;
+                int newCnt = 0;
+                for (int l = 0; l < k; l++) {
+                    if (isNew[base + l]) {
+                        newCnt++;
+                    }
+                }
+                for (int l = 0; l < k; l++) {
+                    j = idx[base + l];
+                    if (isNew[base + l]) {
+                        //reservoir-like sampling of new neighbors
+                        if (rand.nextInt(newCnt) < sample) {
+                            newList[i].add(j);
+                            newRev[j].sample(i, sample, rand);
+                            isNew[base + l] = false;
+                        }
+                    } else {
+                        oldList[i].add(j);
+                        oldRev[j].sample(i, sample, rand);
+                    }
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                newList[i].addAllDistinct(newRev[i]);
+                oldList[i].addAllDistinct(oldRev[i]);
+                news[i] = newList[i].toArray();
+                olds[i] = oldList[i].toArray();
+            }
+        }
+
+        /**
+         * Compare new candidates with each other and with old ones
+         *
+         * @return number of updates
+         */
+        int join(int[] nw, int[] old) {
+            int updates = 0;
+            int u, v;
+            double d;
+            for (int a = 0; a < nw.length; a++) {
+                u = nw[a];
+                for (int b = a + 1; b < nw.length; b++) {
+                    v = nw[b];
+                    if (u != v) {
+                        d = distance(u, v);
+                        updates += update(u, v, d) + update(v, u, d);
+                    }
+                }
+                for (int b = 0; b < old.length; b++) {
+                    v = old[b];
+                    if (u != v) {
+                        d = distance(u, v);
+                        updates += update(u, v, d) + update(v, u, d);
+                    }
+                }
+            }
+            return updates;
+        }
+
+        int[][] sorted() {
+            int[][] res = new int[n][k];
+            int base;
+            for (int i = 0; i < n; i++) {
+                base = i * k;
+                //heap sort, largest distance goes last
+                for (int size = k; size > 0; size--) {
+                    res[i][size - 1] = idx[base];
+                    swap(base, base + size - 1);
+                    siftDown(base, size - 1);
+                }
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Minimal growable list of ints
+     */
+    private static class IntList {
+
+        private int[] data;
+        private int size;
+        /**
+         * number of items offered to {@link #sample}
+         */
+        private int seen;
+
+        IntList(int capacity) {
+            data = new int[Math.max(capacity, 1)];
+        }
+
+        void add(int v) {
+            if (size == data.length) {
+                data = java.util.Arrays.copyOf(data, 2 * size);
+            }
+            data[size++] = v;
+        }
+
+        /**
+         * Reservoir sampling of at most max items
+         */
+        void sample(int v, int max, Random rand) {
+            seen++;
+            if (size < max) {
+                add(v);
+            } else {
+                int r = rand.nextInt(seen);
+                if (r < max) {
+                    data[r] = v;
+                }
+            }
+        }
+
+        void addAllDistinct(IntList other) {
+            for (int i = 0; i < other.size; i++) {
+                boolean found = false;
+                for (int j = 0; j < size; j++) {
+                    if (data[j] == other.data[i]) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    add(other.data[i]);
+                }
+            }
+        }
+
+        int[] toArray() {
+            return java.util.Arrays.copyOf(data, size);
+        }
+    }
+
+    private class JoinTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 4428164327345212384L;
+        private final Heaps heaps;
+        private final int[][] news;
+        private final int[][] olds;
+        private final int from;
+        private final int to;
+
+        JoinTask(Heaps heaps, int[][] news, int[][] olds, int from, int to) {
+            this.heaps = heaps;
+            this.news = news;
+            this.olds = olds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= CHUNK) {
+                int updates = 0;
+                for (int i = from; i < to; i++) {
+                    updates += heaps.join(news[i], olds[i]);
+                }
+                return updates;
+            }
+            int mid = (from + to) >>> 1;
+            JoinTask left = new JoinTask(heaps, news, olds, from, mid);
+            left.fork();
+            int right = new JoinTask(heaps, news, olds, mid, to).compute();
+            return right + left.join();
+        }
+    }
+}
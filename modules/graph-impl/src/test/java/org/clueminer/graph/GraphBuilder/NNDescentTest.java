@@ -0,0 +1,114 @@
+package org.clueminer.graph.GraphBuilder;
+
+import java.io.IOException;
+import java.util.Random;
+import org.clueminer.attributes.BasicAttrType;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import org.clueminer.dataset.plugin.SampleDataset;
+import org.clueminer.distance.EuclideanDistance;
+import org.clueminer.fixtures.CommonFixture;
+import org.clueminer.io.FileHandler;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class NNDescentTest {
+
+    private Dataset<? extends Instance> blobs(int n, int d, long seed) {
+        Random rand = new Random(seed);
+        Dataset<Instance> data = new ArrayDataset<>(n, d);
+        for (int j = 0; j < d; j++) {
+            data.attributeBuilder().create("a" + j, BasicAttrType.NUMERIC);
+        }
+        double[] row;
+        for (int i = 0; i < n; i++) {
+            row = new double[d];
+            for (int j = 0; j < d; j++) {
+                row[j] = 10 * (i % 5) + rand.nextGaussian();
+            }
+            data.builder().create(row);
+        }
+        return data;
+    }
+
+    private void assertSorted(Dataset<? extends Instance> data, int[][] a, int k) {
+        EuclideanDistance dm = new EuclideanDistance();
+        for (int i = 0; i < data.size(); i++) {
+            assertEquals(k, a[i].length);
+            for (int j = 0; j < k; j++) {
+                assertTrue(i != a[i][j]);
+                if (j > 0) {
+                    assertTrue(dm.measure(data.get(i), data.get(a[i][j]))
+                            >= dm.measure(data.get(i), data.get(a[i][j - 1])));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRecall() {
+        Dataset<? extends Instance> data = blobs(2000, 5, 1);
+        int k = 10;
+        NNDescent subject = new NNDescent();
+        int[][] approx = subject.getNeighborArray(data, k);
+        assertSorted(data, approx, k);
+        int[][] exact = new KNNGraphBuilder().getNeighborArray(data, k);
+        double recall = subject.recall(data, approx, exact);
+        assertTrue("recall " + recall, recall > 0.95);
+        assertEquals(1.0, subject.recall(data, exact, exact), 0.0);
+    }
+
+    @Test
+    public void testSampleRate() {
+        Dataset<? extends Instance> data = blobs(300, 3, 2);
+        int[][] exact = new KNNGraphBuilder().getNeighborArray(data, 5);
+        NNDescent subject = new NNDescent();
+        subject.setSeed(7);
+        subject.setSampleRate(0.5);
+        assertTrue(subject.recall(data, subject.getNeighborArray(data, 5), exact) > 0.9);
+        subject.setSampleRate(1.0);
+        assertTrue(subject.recall(data, subject.getNeighborArray(data, 5), exact) > 0.95);
+    }
+
+    @Test
+    public void testApproximateBuilder() {
+        Dataset<? extends Instance> data = blobs(50, 2, 3);
+        KNNGraphBuilder knn = new KNNGraphBuilder();
+        int[][] exact = knn.getNeighborArray(data, 3);
+        knn.setApproximate(true);
+        int[][] approx = knn.getNeighborArray(data, 3);
+        assertTrue(knn.getApproximate().recall(data, approx, exact) > 0.9);
+        knn.setApproximate(false);
+        assertArrayEquals(exact, knn.getNeighborArray(data, 3));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testTooManyNeighbors() {
+        new NNDescent().getNeighborArray(blobs(5, 2, 4), 5);
+    }
+
+    @Test
+    public void testIris() throws IOException {
+        CommonFixture tf = new CommonFixture();
+        Dataset data = new SampleDataset();
+        data.attributeBuilder().create("sepal length", BasicAttrType.NUMERICAL);
+        data.attributeBuilder().create("sepal width", BasicAttrType.NUMERICAL);
+        data.attributeBuilder().create("petal length", BasicAttrType.NUMERICAL);
+        data.attributeBuilder().create("petal width", BasicAttrType.NUMERICAL);
+        FileHandler.loadDataset(tf.irisData(), data, 4, ",");
+
+        int k = 5;
+        NNDescent subject = new NNDescent();
+        int[][] approx = subject.getNeighborArray(data, k);
+        assertSorted(data, approx, k);
+        int[][] exact = new KNNGraphBuilder().getNeighborArray(data, k);
+        assertTrue(subject.recall(data, approx, exact) > 0.95);
+    }
+}
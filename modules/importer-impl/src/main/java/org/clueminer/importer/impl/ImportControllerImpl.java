@@ -45,6 +45,11 @@ public class ImportControllerImpl implements ImportController {
     private MimeHelper helper;
     private static final Logger log = Logger.getLogger(ImportControllerImpl.class.getName());
     private final HashMap<String, Container> containers;
+    /**
+     * large delimited files are imported by {@link ParallelImporter}
+     */
+    private boolean parallel = true;
+    private long parallelThreshold = 64L * 1024 * 1024;
 
     public ImportControllerImpl() {
         this.containers = new HashMap<>();
@@ -66,15 +71,7 @@ public class ImportControllerImpl implements ImportController {
                 importer = getMatchingImporter(helper.detectMIME(file));
             }
             if (fileObject != null && importer != null) {
-                Container c = importFile(fileObject, fileObject.getInputStream(), importer, false);
-                if (fileObject.getPath().startsWith(System.getProperty("java.io.tmpdir"))) {
-                    try {
-                        fileObject.delete();
-                    } catch (IOException ex) {
-                        Exceptions.printStackTrace(ex);
-                    }
-                }
-                return c;
+                return importFile(fileObject, importer);
             }
         }
         return null;
@@ -86,26 +83,77 @@ public class ImportControllerImpl implements ImportController {
         if (fileObject != null) {
             fileObject = getArchivedFile(fileObject);   //Unzip and return content file
             if (fileObject != null) {
-                Container c = importFile(fileObject, fileObject.getInputStream(), importer, false);
-                if (fileObject.getPath().startsWith(System.getProperty("java.io.tmpdir"))) {
-                    try {
-                        fileObject.delete();
-                    } catch (IOException ex) {
-                        Exceptions.printStackTrace(ex);
-                    }
-                }
-                return c;
+                return importFile(fileObject, importer);
             }
         }
         return null;
     }
 
-    @Override
-    public Container importFile(FileObject file, Reader reader, FileImporter importer, boolean reload) {
-        //Create Container
+    private Container importFile(FileObject fileObject, FileImporter importer) throws FileNotFoundException {
+        Container c;
+        File file = FileUtil.toFile(fileObject);
+        if (isParallel(file, importer)) {
+            c = importParallel(fileObject, file, importer);
+        } else {
+            c = importFile(fileObject, fileObject.getInputStream(), importer, false);
+        }
+        if (fileObject.getPath().startsWith(System.getProperty("java.io.tmpdir"))) {
+            try {
+                fileObject.delete();
+            } catch (IOException ex) {
+                Exceptions.printStackTrace(ex);
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Check whether given file should be imported in parallel
+     *
+     * @param file
+     * @param importer
+     * @return true for large CSV or ARFF files
+     */
+    protected boolean isParallel(File file, FileImporter importer) {
+        return parallel && file != null && file.length() >= parallelThreshold
+                && (importer instanceof CsvImporter || importer instanceof ArffImporter);
+    }
+
+    /**
+     * Data are split into chunks which are parsed on multiple threads, the
+     * dataset is created directly (without instance drafts)
+     *
+     * @param fileObject
+     * @param file
+     * @param importer   sequential importer, its settings are used
+     * @return container with loaded dataset
+     */
+    protected Container importParallel(FileObject fileObject, File file, FileImporter importer) {
+        Container container = getContainer(fileObject);
+        Report report = new Report();
+        container.setReport(report);
+        ParallelImporter pi = new ParallelImporter();
+        if (importer instanceof CsvImporter) {
+            CsvImporter csv = (CsvImporter) importer;
+            pi.setSeparator(csv.getSeparator());
+            pi.setQuotechar(csv.getQuotechar());
+            pi.setHasHeader(csv.isHasHeader() || csv.isSkipHeader());
+        }
+        try {
+            boolean success = pi.execute(container, file);
+            report.append(pi.getReport());
+            if (success) {
+                return container;
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        return null;
+    }
+
+    private Container getContainer(FileObject file) {
         Container container;
         String path = file.getPath();
-        log.log(Level.INFO, "reload {0}, file: {1}", new Object[]{reload, path});
         // unique container for path
         if (containers.containsKey(path)) {
             container = containers.get(path);
@@ -115,6 +163,18 @@ public class ImportControllerImpl implements ImportController {
             containers.put(path, container);
             container.setFile(file);
         }
+        return container;
+    }
+
+    @Override
+    public Container importFile(FileObject file, Reader reader, FileImporter importer, boolean reload) {
+        log.log(Level.INFO, "reload {0}, file: {1}", new Object[]{reload, file.getPath()});
+        File f = FileUtil.toFile(file);
+        if (isParallel(f, importer)) {
+            //file is read directly, reader is not needed
+            return importParallel(file, f, importer);
+        }
+        Container container = getContainer(file);
 
         //container = Lookup.getDefault().lookup(Container.class);
         log.log(Level.INFO, "importer contr num attr: {0}", container.getLoader().getAttributeCount());
@@ -140,6 +200,13 @@ public class ImportControllerImpl implements ImportController {
 
     @Override
     public Container importFile(FileObject file, InputStream stream, FileImporter importer, boolean reload) {
+        File f = FileUtil.toFile(file);
+        if (isParallel(f, importer)) {
+            Container container = importParallel(file, f, importer);
+            //callers might compute a digest of the stream
+            drain(stream);
+            return container;
+        }
         try {
             Reader reader = ImportUtils.getTextReader(stream);
             return importFile(file, reader, importer, reload);
@@ -148,6 +215,17 @@ public class ImportControllerImpl implements ImportController {
         }
     }
 
+    private void drain(InputStream stream) {
+        byte[] buf = new byte[1 << 16];
+        try {
+            while (stream.read(buf) >= 0) {
+                //nothing to do
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
     @Override
     public FileImporter getFileImporter(File file) {
         FileObject fileObject = FileUtil.toFileObject(file);
@@ -250,6 +328,32 @@ public class ImportControllerImpl implements ImportController {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
     }
 
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Enable parallel import of large CSV and ARFF files
+     *
+     * @param parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public long getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Files larger than threshold are imported in parallel (when enabled)
+     *
+     * @param parallelThreshold size in bytes
+     */
+    public void setParallelThreshold(long parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
     private FileObject getArchivedFile(FileObject fileObject) {
         if (fileObject == null) {
             return null;
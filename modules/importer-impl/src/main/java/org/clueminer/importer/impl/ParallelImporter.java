@@ -0,0 +1,640 @@
+package org.clueminer.importer.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.clueminer.attributes.BasicAttrRole;
+import org.clueminer.attributes.BasicAttrType;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.api.InstanceBuilder;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import org.clueminer.importer.Issue;
+import org.clueminer.io.CsvLineParser;
+import org.clueminer.io.importer.api.AttributeDraft;
+import org.clueminer.io.importer.api.Container;
+import org.clueminer.io.importer.api.ContainerLoader;
+import org.clueminer.io.importer.api.Report;
+import org.clueminer.utils.progress.Progress;
+import org.clueminer.utils.progress.ProgressTicket;
+import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Imports large delimited files (CSV, TSV or data section of an ARFF file) on
+ * multiple threads. Data section is split at line boundaries into byte ranges,
+ * chunks are parsed in parallel and rows are appended to the dataset in the
+ * original order.
+ *
+ * Values are written directly into a {@link Dataset} (no instance drafts are
+ * created), therefore only numeric attributes and a class label are
+ * supported; id, meta and other non-numeric columns are skipped. Quoted
+ * values can't contain line breaks.
+ *
+ * @author Tomas Barton
+ */
+public class ParallelImporter {
+
+    public static final int MAX_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+    public static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+    /**
+     * issues after this limit are only counted
+     */
+    private static final int MAX_ISSUES = 1000;
+    private static final RequestProcessor RP = new RequestProcessor("Parallel import", MAX_THREADS);
+    private static final Pattern arffAttr = Pattern.compile("^@attribute\\s+(?:'([^']*)'|\"([^\"]*)\"|(\\S+))\\s+(.*)$", Pattern.CASE_INSENSITIVE);
+    private static final Logger logger = Logger.getLogger(ParallelImporter.class.getName());
+    private static final byte NUMERIC = 0;
+    private static final byte CLASS = 1;
+    private static final byte SKIP = 2;
+
+    private char separator = ',';
+    private char quotechar = '"';
+    private boolean hasHeader = true;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int threads = MAX_THREADS;
+    private int sampleSize = 100;
+    private Report report;
+    private ProgressTicket progressTicket;
+    private volatile boolean cancel = false;
+    //schema
+    private boolean arff;
+    private byte comment;
+    private char quote;
+    private byte[] kind;
+    private int[] target;
+    private int numeric;
+    private int classCol;
+    private String[] names;
+    private ArrayList<String> arffTypes;
+    //statistics
+    private int rows;
+    private int chunks;
+    private int issues;
+    private long bytes;
+    private long elapsed;
+
+    /**
+     * Result of parsing a byte range
+     */
+    private static class Chunk {
+
+        private int rows;
+        /**
+         * all lines including empty ones and comments
+         */
+        private int lines;
+        private double[] values;
+        private String[] labels;
+        private final ArrayList<ChunkIssue> issues = new ArrayList<>();
+        private int skippedIssues;
+    }
+
+    private static class ChunkIssue {
+
+        private final int line;
+        private final int column;
+        private final String value;
+
+        ChunkIssue(int line, int column, String value) {
+            this.line = line;
+            this.column = column;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Import data into the container. Attribute drafts are created in the
+     * container's loader, the dataset is available via
+     * {@link ContainerLoader#getDataset()}.
+     *
+     * @param container
+     * @param file
+     * @return true when data were imported
+     * @throws IOException
+     */
+    public boolean execute(Container container, File file) throws IOException {
+        long start = System.nanoTime();
+        cancel = false;
+        rows = 0;
+        chunks = 0;
+        issues = 0;
+        report = new Report();
+        ContainerLoader loader = container.getLoader();
+        loader.reset();
+        loader.resetAttributes();
+        loader.setDataset(null);
+        arff = file.getName().toLowerCase().endsWith(".arff");
+        comment = (byte) (arff ? '%' : '#');
+        quote = arff ? '\'' : quotechar;
+        logger.log(Level.INFO, "importing file {0} using {1} threads", new Object[]{file.getName(), threads});
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            bytes = channel.size();
+            //header and sample of data lines
+            ArrayList<byte[]> sample = new ArrayList<>(sampleSize);
+            int[] headerLines = new int[1];
+            long dataStart = readHeader(channel, sample, headerLines);
+            if (dataStart < 0) {
+                report.logIssue(new Issue("no data found in " + file.getName(), Issue.Level.SEVERE));
+                return false;
+            }
+            if (arff && sample.get(0).length > 0 && sample.get(0)[0] == '{') {
+                report.logIssue(new Issue("sparse ARFF format is not supported", Issue.Level.SEVERE));
+                return false;
+            }
+            Dataset<? extends Instance> dataset = createDataset(loader, sample, file);
+
+            long[] bounds = split(channel, dataStart);
+            chunks = bounds.length - 1;
+            Progress.start(progressTicket, chunks);
+            int window = 2 * threads;
+            ArrayList<Future<Chunk>> futures = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                futures.add(null);
+            }
+            for (int i = 0; i < Math.min(window, chunks); i++) {
+                futures.set(i, submit(channel, bounds[i], bounds[i + 1]));
+            }
+            int line = headerLines[0];
+            InstanceBuilder builder = dataset.builder();
+            double[] row = new double[numeric];
+            Chunk chunk;
+            for (int i = 0; i < chunks && !cancel; i++) {
+                chunk = get(futures.get(i));
+                futures.set(i, null);
+                //keep the pool busy while rows are being appended
+                if (i + window < chunks) {
+                    futures.set(i + window, submit(channel, bounds[i + window], bounds[i + window + 1]));
+                }
+                append(builder, chunk, row);
+                logIssues(chunk, line);
+                line += chunk.lines;
+                Progress.progress(progressTicket, i + 1);
+            }
+            if (cancel) {
+                for (Future<Chunk> f : futures) {
+                    if (f != null) {
+                        f.cancel(true);
+                    }
+                }
+            }
+            loader.setNumberOfLines(line);
+            loader.setDataset(dataset);
+        } finally {
+            Progress.finish(progressTicket);
+        }
+        if (issues > MAX_ISSUES) {
+            report.logIssue(new Issue((issues - MAX_ISSUES) + " more issues not listed", Issue.Level.WARNING));
+        }
+        elapsed = System.nanoTime() - start;
+        logger.log(Level.INFO, "imported {0} rows in {1} chunks, {2} MB/s",
+                new Object[]{rows, chunks, String.format("%.1f", getThroughput())});
+        return !cancel;
+    }
+
+    /**
+     * Read header (CSV header line or ARFF declarations) and a sample of data
+     * lines
+     *
+     * @param channel
+     * @param sample      output for sample lines
+     * @param headerLines number of lines before data section
+     * @return offset of data section, -1 when not found
+     * @throws IOException
+     */
+    private long readHeader(FileChannel channel, ArrayList<byte[]> sample, int[] headerLines) throws IOException {
+        int len = (int) Math.min(bytes, Math.max(chunkSize, 1 << 16));
+        byte[] buf = new byte[len];
+        len = read(channel, buf, 0, len);
+        ArrayList<String> attrs = new ArrayList<>();
+        ArrayList<String> types = new ArrayList<>();
+        names = null;
+        long dataStart = arff ? -1 : 0;
+        boolean header = arff || hasHeader;
+        int pos = 0, end, lineEnd, lines = 0;
+        String str;
+        Matcher m;
+        while (pos < len && sample.size() < sampleSize) {
+            end = indexOf(buf, (byte) '\n', pos, len);
+            if (end < 0) {
+                if (len < bytes) {
+                    //incomplete line
+                    break;
+                }
+                end = len;
+            }
+            lineEnd = trimCr(buf, pos, end);
+            lines++;
+            if (lineEnd > pos && buf[pos] != comment) {
+                if (header) {
+                    str = new String(buf, pos, lineEnd - pos, StandardCharsets.UTF_8).trim();
+                    if (!arff) {
+                        CsvLineParser parser = new CsvLineParser(separator, quote);
+                        names = new String[parser.split(buf, pos, lineEnd)];
+                        for (int i = 0; i < names.length; i++) {
+                            names[i] = parser.getString(i);
+                        }
+                        header = false;
+                        dataStart = end + 1;
+                        headerLines[0] = lines;
+                    } else if ((m = arffAttr.matcher(str)).matches()) {
+                        attrs.add(m.group(1) != null ? m.group(1) : (m.group(2) != null ? m.group(2) : m.group(3)));
+                        types.add(m.group(4).trim());
+                    } else if (str.toLowerCase().startsWith("@data")) {
+                        header = false;
+                        dataStart = end + 1;
+                        headerLines[0] = lines;
+                    }
+                } else {
+                    sample.add(Arrays.copyOfRange(buf, pos, lineEnd));
+                }
+            }
+            pos = end + 1;
+        }
+        if (arff) {
+            names = attrs.toArray(new String[attrs.size()]);
+            arffTypes = types;
+        }
+        if (header || sample.isEmpty()) {
+            return -1;
+        }
+        return dataStart;
+    }
+
+    private Dataset<? extends Instance> createDataset(ContainerLoader loader, ArrayList<byte[]> sample, File file) {
+        CsvLineParser parser = new CsvLineParser(separator, quote);
+        int cols = names != null ? names.length : 0;
+        boolean[] isNumeric;
+        if (arff) {
+            isNumeric = new boolean[cols];
+            String type;
+            for (int i = 0; i < cols; i++) {
+                type = arffTypes.get(i).toLowerCase();
+                isNumeric[i] = type.startsWith("numeric") || type.startsWith("real") || type.startsWith("integer");
+            }
+        } else {
+            isNumeric = parser.numericColumns(sample, cols);
+            cols = isNumeric.length;
+        }
+        String[] colNames = new String[cols];
+        for (int i = 0; i < cols; i++) {
+            colNames[i] = names != null && i < names.length ? names[i] : "attr_" + i;
+        }
+        names = colNames;
+        kind = new byte[cols];
+        target = new int[cols];
+        numeric = 0;
+        classCol = -1;
+        String lower;
+        for (int i = 0; i < cols; i++) {
+            lower = colNames[i].toLowerCase();
+            //same guesses as in CSV importer
+            if (lower.startsWith("!") || (arff && lower.equals("class"))) {
+                classCol = i;
+            }
+        }
+        if (classCol < 0) {
+            for (int i = cols - 1; i >= 0; i--) {
+                if (!isNumeric[i]) {
+                    classCol = i;
+                    break;
+                }
+            }
+        }
+        AttributeDraft draft;
+        for (int i = 0; i < cols; i++) {
+            lower = colNames[i].toLowerCase();
+            draft = loader.createAttribute(i, colNames[i]);
+            if (i == classCol) {
+                kind[i] = CLASS;
+                draft.setRole(BasicAttrRole.CLASS);
+                draft.setType(String.class);
+            } else if (!arff && (lower.startsWith("meta_") || lower.startsWith("id"))) {
+                kind[i] = SKIP;
+                draft.setRole(lower.startsWith("id") ? BasicAttrRole.ID : BasicAttrRole.META);
+            } else if (!isNumeric[i]) {
+                kind[i] = SKIP;
+                draft.setRole(BasicAttrRole.META);
+                draft.setType(String.class);
+                report.logIssue(new Issue("skipping non-numeric attribute " + colNames[i], Issue.Level.INFO));
+            } else {
+                kind[i] = NUMERIC;
+                draft.setType(Double.class);
+                target[i] = numeric++;
+            }
+        }
+        long sampleBytes = 0;
+        for (byte[] line : sample) {
+            sampleBytes += line.length + 1;
+        }
+        long estimate = sample.size() * bytes / Math.max(1, sampleBytes);
+        Dataset<? extends Instance> dataset = new ArrayDataset((int) Math.min(Integer.MAX_VALUE - 8, estimate + estimate / 20 + 1), numeric);
+        for (int i = 0; i < cols; i++) {
+            if (kind[i] == NUMERIC) {
+                dataset.attributeBuilder().create(colNames[i], BasicAttrType.NUMERIC);
+            }
+        }
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        dataset.setName(dot > 0 ? name.substring(0, dot) : name);
+        return dataset;
+    }
+
+    /**
+     * Split data section into chunks of approximately {@link #chunkSize}
+     * bytes, each boundary is moved to the beginning of the next line
+     *
+     * @param channel
+     * @param dataStart
+     * @return chunk boundaries
+     * @throws IOException
+     */
+    private long[] split(FileChannel channel, long dataStart) throws IOException {
+        ArrayList<Long> bounds = new ArrayList<>();
+        bounds.add(dataStart);
+        byte[] buf = new byte[4096];
+        long pos = dataStart + chunkSize;
+        int len, nl;
+        while (pos < bytes) {
+            len = read(channel, buf, pos, buf.length);
+            nl = indexOf(buf, (byte) '\n', 0, len);
+            if (nl < 0) {
+                //no line end in this block
+                pos += len;
+                continue;
+            }
+            pos += nl + 1;
+            if (pos < bytes) {
+                bounds.add(pos);
+            }
+            pos += chunkSize;
+        }
+        bounds.add(bytes);
+        long[] res = new long[bounds.size()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = bounds.get(i);
+        }
+        return res;
+    }
+
+    private Future<Chunk> submit(final FileChannel channel, final long from, final long to) {
+        return RP.submit(new Callable<Chunk>() {
+            @Override
+            public Chunk call() throws Exception {
+                return parse(channel, from, to);
+            }
+        });
+    }
+
+    private Chunk get(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            cancel = true;
+            throw new IOException(ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    /**
+     * Parse byte range [from, to), which starts at the beginning of a line
+     */
+    private Chunk parse(FileChannel channel, long from, long to) throws IOException {
+        int len = (int) (to - from);
+        byte[] buf = new byte[len];
+        read(channel, buf, from, len);
+        Chunk chunk = new Chunk();
+        int cnt = 0;
+        for (int i = 0; i < len; i++) {
+            if (buf[i] == '\n') {
+                cnt++;
+            }
+        }
+        if (len > 0 && buf[len - 1] != '\n') {
+            cnt++;
+        }
+        chunk.values = new double[cnt * numeric];
+        if (classCol >= 0) {
+            chunk.labels = new String[cnt];
+        }
+        CsvLineParser parser = new CsvLineParser(separator, quote);
+        int pos = 0, end, lineEnd, fields, cols, off;
+        while (pos < len && !cancel) {
+            end = indexOf(buf, (byte) '\n', pos, len);
+            if (end < 0) {
+                end = len;
+            }
+            lineEnd = trimCr(buf, pos, end);
+            chunk.lines++;
+            if (lineEnd > pos && buf[pos] != comment) {
+                fields = parser.split(buf, pos, lineEnd);
+                if (fields != kind.length) {
+                    addIssue(chunk, -1, null);
+                }
+                cols = Math.min(fields, kind.length);
+                off = chunk.rows * numeric;
+                Arrays.fill(chunk.values, off, off + numeric, Double.NaN);
+                for (int i = 0; i < cols; i++) {
+                    if (kind[i] == NUMERIC) {
+                        chunk.values[off + target[i]] = parser.getDouble(i);
+                        if (parser.isInvalid()) {
+                            addIssue(chunk, i, parser.getString(i));
+                        }
+                    } else if (kind[i] == CLASS) {
+                        chunk.labels[chunk.rows] = parser.getLabel(i);
+                    }
+                }
+                chunk.rows++;
+            }
+            pos = end + 1;
+        }
+        return chunk;
+    }
+
+    private void addIssue(Chunk chunk, int column, String value) {
+        if (chunk.issues.size() < MAX_ISSUES) {
+            chunk.issues.add(new ChunkIssue(chunk.lines, column, value));
+        } else {
+            chunk.skippedIssues++;
+        }
+    }
+
+    private void append(InstanceBuilder builder, Chunk chunk, double[] row) {
+        for (int r = 0; r < chunk.rows; r++) {
+            System.arraycopy(chunk.values, r * numeric, row, 0, numeric);
+            if (chunk.labels != null) {
+                builder.create(row, chunk.labels[r]);
+            } else {
+                builder.create(row);
+            }
+        }
+        rows += chunk.rows;
+    }
+
+    /**
+     * Issues are reported in the same way as by {@link CsvImporter}
+     *
+     * @param chunk
+     * @param offset number of lines before the chunk
+     */
+    private void logIssues(Chunk chunk, int offset) {
+        String msg;
+        for (ChunkIssue issue : chunk.issues) {
+            if (++issues > MAX_ISSUES) {
+                //only count the rest
+                continue;
+            }
+            if (issue.column < 0) {
+                msg = NbBundle.getMessage(CsvImporter.class, "CsvImporter_error_differentLineLength", offset + issue.line);
+            } else {
+                msg = NbBundle.getMessage(CsvImporter.class, "CsvImporter_invalidType", offset + issue.line,
+                        issue.column < names.length ? names[issue.column] : issue.column, issue.value);
+            }
+            report.logIssue(new Issue(msg, Issue.Level.WARNING));
+        }
+        issues += chunk.skippedIssues;
+    }
+
+    private static int read(FileChannel channel, byte[] buf, long position, int len) throws IOException {
+        ByteBuffer bb = ByteBuffer.wrap(buf, 0, len);
+        int n;
+        while (bb.hasRemaining()) {
+            n = channel.read(bb, position + bb.position());
+            if (n < 0) {
+                break;
+            }
+        }
+        return bb.position();
+    }
+
+    private static int indexOf(byte[] buf, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int trimCr(byte[] buf, int start, int end) {
+        if (end > start && buf[end - 1] == '\r') {
+            return end - 1;
+        }
+        return end;
+    }
+
+    public void cancel() {
+        cancel = true;
+    }
+
+    public Report getReport() {
+        return report;
+    }
+
+    public void setProgressTicket(ProgressTicket progressTicket) {
+        this.progressTicket = progressTicket;
+    }
+
+    public char getSeparator() {
+        return separator;
+    }
+
+    public void setSeparator(char separator) {
+        this.separator = separator;
+    }
+
+    public char getQuotechar() {
+        return quotechar;
+    }
+
+    public void setQuotechar(char quotechar) {
+        this.quotechar = quotechar;
+    }
+
+    public boolean isHasHeader() {
+        return hasHeader;
+    }
+
+    public void setHasHeader(boolean hasHeader) {
+        this.hasHeader = hasHeader;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Approximate size of a chunk parsed by a single thread
+     *
+     * @param chunkSize in bytes
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(1024, chunkSize);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Number of chunks being parsed at the same time
+     *
+     * @param threads at most {@link #MAX_THREADS}
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, Math.min(threads, MAX_THREADS));
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * Number of data lines used for detecting types of columns
+     *
+     * @param sampleSize
+     */
+    public void setSampleSize(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * @return number of rows imported by last call
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return number of chunks in last import
+     */
+    public int getChunks() {
+        return chunks;
+    }
+
+    /**
+     * @return throughput of last import in MB/s
+     */
+    public double getThroughput() {
+        return elapsed > 0 ? bytes / 1e6 / (elapsed / 1e9) : 0.0;
+    }
+
+}
@@ -73,10 +73,27 @@ public abstract class AbstractProcessor implements Processor {
      */
     protected abstract Map<Integer, Integer> attributeMapping(ArrayList<AttributeDraft> inputAttr);
 
+    /**
+     * Dataset might be created directly by an importer (e.g. parallel import
+     * of large files), then there are no drafts to convert
+     *
+     * @return true when the container holds already loaded dataset
+     */
+    protected boolean isPreloaded() {
+        return container.getDataset() != null && container.getInstanceCount() == 0;
+    }
+
     /**
      * Method which can be run during tests without workspace
      */
     protected void run() {
+        if (isPreloaded()) {
+            //adopt loaded dataset
+            dataset = (Dataset<Instance>) container.getDataset();
+            logger.log(Level.INFO, "dataset {0} already loaded", dataset.getName());
+            setName();
+            return;
+        }
         logger.log(Level.INFO, "importing dataset");
         //basic numeric dataset
 
@@ -105,17 +122,20 @@ public abstract class AbstractProcessor implements Processor {
         //actual data import
         processInstances(inputMap);
 
+        setName();
+        container.setDataset(dataset);
+        //import finished - clean preloaded data
+        container.reset();
+        container.resetAttributes();
+    }
+
+    private void setName() {
         if (dataset.getName() == null) {
             FileObject f = container.getFile();
             if (f != null && f.getName() != null) {
                 dataset.setName(f.getName());
             }
-
         }
-        container.setDataset(dataset);
-        //import finished - clean preloaded data
-        container.reset();
-        container.resetAttributes();
     }
 
     protected void processInstances(Map<Integer, Integer> inputMap) {
@@ -15,10 +15,12 @@ import org.openide.util.NbBundle;
 import org.openide.util.lookup.ServiceProvider;
 
 /**
+ * Imports numerical data into {@link ArrayDataset}. It's the default processor
+ * (has the lowest position).
  *
  * @author Tomas Barton
  */
-@ServiceProvider(service = Processor.class)
+@ServiceProvider(service = Processor.class, position = 100)
 public class DefaultProcessor extends AbstractProcessor implements Processor {
 
     private static final Logger logger = Logger.getLogger(DefaultProcessor.class.getName());
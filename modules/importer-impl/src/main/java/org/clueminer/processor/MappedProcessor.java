@@ -0,0 +1,32 @@
+package org.clueminer.processor;
+
+import java.util.ArrayList;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.MappedDataset;
+import org.clueminer.io.importer.api.AttributeDraft;
+import org.clueminer.processor.spi.Processor;
+import org.openide.util.NbBundle;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Imports numerical data into {@link MappedDataset} - values are stored in a
+ * memory mapped (temporary) file, suitable for datasets which don't fit into
+ * heap.
+ *
+ * @author Tomas Barton
+ */
+@ServiceProvider(service = Processor.class, position = 300)
+public class MappedProcessor extends DefaultProcessor implements Processor {
+
+    @Override
+    public String getDisplayName() {
+        return NbBundle.getMessage(MappedProcessor.class, "MappedProcessor.displayName");
+    }
+
+    @Override
+    protected Dataset<? extends Instance> createDataset(ArrayList<AttributeDraft> inputAttr) {
+        return new MappedDataset(container.getInstanceCount(), inputAttr.size());
+    }
+
+}
@@ -0,0 +1,31 @@
+package org.clueminer.processor;
+
+import java.util.ArrayList;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.PackedDataset;
+import org.clueminer.io.importer.api.AttributeDraft;
+import org.clueminer.processor.spi.Processor;
+import org.openide.util.NbBundle;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Imports numerical data into {@link PackedDataset} - all values are stored
+ * in one contiguous array, suitable for large datasets.
+ *
+ * @author Tomas Barton
+ */
+@ServiceProvider(service = Processor.class, position = 200)
+public class PackedProcessor extends DefaultProcessor implements Processor {
+
+    @Override
+    public String getDisplayName() {
+        return NbBundle.getMessage(PackedProcessor.class, "PackedProcessor.displayName");
+    }
+
+    @Override
+    protected Dataset<? extends Instance> createDataset(ArrayList<AttributeDraft> inputAttr) {
+        return new PackedDataset(container.getInstanceCount(), inputAttr.size());
+    }
+
+}
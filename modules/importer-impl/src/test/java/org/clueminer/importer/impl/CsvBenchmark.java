@@ -0,0 +1,130 @@
+package org.clueminer.importer.impl;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.Random;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import org.clueminer.fixtures.CommonFixture;
+import org.clueminer.io.CsvLoader;
+import org.clueminer.io.NumericCsvLoader;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Compares throughput (MB/s) of CSV importer (line based, creates instance
+ * drafts), {@link CsvLoader} (opencsv), {@link NumericCsvLoader} (parses
+ * bytes directly) and {@link ParallelImporter} (parses chunks on all cores).
+ *
+ * @author deric
+ */
+public class CsvBenchmark {
+
+    private static final CommonFixture fixtures = new CommonFixture();
+    private static final int repeat = 5;
+
+    private long importer(File file, boolean header) throws IOException {
+        CsvImporter importer = new CsvImporter();
+        importer.setHasHeader(header);
+        ImportContainerImpl container = new ImportContainerImpl();
+        try (Reader reader = new FileReader(file)) {
+            importer.execute(container, reader);
+        }
+        return container.getLoader().getInstanceCount();
+    }
+
+    private long opencsv(File file, boolean header) throws IOException {
+        CsvLoader loader = new CsvLoader();
+        loader.setHasHeader(header);
+        Dataset<? extends Instance> data = new ArrayDataset(10, 10);
+        loader.load(file, data);
+        return data.size();
+    }
+
+    private long numeric(File file, boolean header) throws IOException {
+        NumericCsvLoader loader = new NumericCsvLoader();
+        loader.setHasHeader(header);
+        Dataset<? extends Instance> data = new ArrayDataset(10, 10);
+        loader.load(file, data);
+        return data.size();
+    }
+
+    private long parallel(File file, boolean header) throws IOException {
+        ParallelImporter importer = new ParallelImporter();
+        importer.setHasHeader(header);
+        //smaller chunks, so that even small files are split
+        importer.setChunkSize((int) Math.max(file.length() / (2 * ParallelImporter.MAX_THREADS), 1));
+        importer.execute(new ImportContainerImpl(), file);
+        return importer.getRows();
+    }
+
+    private double throughput(int method, File file, boolean header, long[] rows) throws IOException {
+        long best = Long.MAX_VALUE;
+        long start;
+        for (int r = 0; r < repeat; r++) {
+            start = System.nanoTime();
+            switch (method) {
+                case 0:
+                    rows[method] = importer(file, header);
+                    break;
+                case 1:
+                    rows[method] = opencsv(file, header);
+                    break;
+                case 2:
+                    rows[method] = numeric(file, header);
+                    break;
+                default:
+                    rows[method] = parallel(file, header);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return file.length() / 1e6 / (best / 1e9);
+    }
+
+    private void benchmark(String name, File file, boolean header) throws IOException {
+        long[] rows = new long[4];
+        double[] mbs = new double[4];
+        for (int m = 0; m < 4; m++) {
+            //warm up
+            throughput(m, file, header, rows);
+            mbs[m] = throughput(m, file, header, rows);
+        }
+        assertEquals(rows[0], rows[2]);
+        assertEquals(rows[1], rows[2]);
+        assertEquals(rows[2], rows[3]);
+        System.out.println(String.format("%-20s %8d rows, importer: %8.2f MB/s, opencsv: %8.2f MB/s, numeric: %8.2f MB/s, parallel: %8.2f MB/s",
+                name, rows[2], mbs[0], mbs[1], mbs[2], mbs[3]));
+    }
+
+    @Test
+    public void fixtures() throws IOException {
+        benchmark("iris", fixtures.irisData(), false);
+        benchmark("well separated", fixtures.wellSeparatedCsv(), true);
+    }
+
+    @Test
+    public void generated() throws IOException {
+        Random rand = new Random(42);
+        File file = File.createTempFile("benchmark", ".csv");
+        file.deleteOnExit();
+        int dim = 20;
+        try (PrintWriter out = new PrintWriter(file)) {
+            for (int j = 0; j < dim; j++) {
+                out.print("attr" + j + ",");
+            }
+            out.println("class");
+            for (int i = 0; i < 20000; i++) {
+                for (int j = 0; j < dim; j++) {
+                    out.print(Math.round(rand.nextGaussian() * 1e4) / 1e4);
+                    out.print(',');
+                }
+                out.println("c" + rand.nextInt(5));
+            }
+        }
+        benchmark("generated", file, true);
+    }
+}
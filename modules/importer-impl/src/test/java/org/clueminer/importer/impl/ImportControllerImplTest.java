@@ -1,9 +1,16 @@
 package org.clueminer.importer.impl;
 
+import java.beans.PropertyVetoException;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
 import java.util.Collection;
 import org.clueminer.fixtures.ImageFixture;
 import org.clueminer.fixtures.MLearnFixture;
+import org.clueminer.io.importer.api.Container;
+import org.clueminer.io.importer.api.ContainerLoader;
 import org.clueminer.spi.FileImporter;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -11,6 +18,9 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import static org.junit.Assert.*;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.filesystems.LocalFileSystem;
 
 /**
  *
@@ -68,6 +78,46 @@ public class ImportControllerImplTest {
     public void testImportFile_InputStream_FileImporter() {
     }
 
+    @Test
+    public void testParallelThreshold() throws IOException, PropertyVetoException {
+        File file = File.createTempFile("controller", ".csv");
+        file.deleteOnExit();
+        int n = 200;
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("x,y,class");
+            for (int i = 0; i < n; i++) {
+                out.println(i + "," + (i * 0.5) + ",c" + (i % 3));
+            }
+        }
+        LocalFileSystem fs = new LocalFileSystem();
+        fs.setRootDirectory(file.getParentFile());
+        FileObject fo = fs.findResource(file.getName());
+        assertNotNull(FileUtil.toFile(fo));
+        ImportControllerImpl controller = new ImportControllerImpl();
+        controller.setParallel(true);
+
+        //file is larger than threshold, dataset is created directly
+        controller.setParallelThreshold(1);
+        Container container;
+        try (InputStream in = new FileInputStream(file)) {
+            container = controller.importFile(fo, in, new CsvImporter(), false);
+            //whole stream is consumed
+            assertEquals(-1, in.read());
+        }
+        ContainerLoader loader = container.getLoader();
+        assertNotNull(loader.getDataset());
+        assertEquals(n, loader.getDataset().size());
+        assertEquals(0, loader.getInstanceCount());
+
+        //small file, sequential import creates drafts
+        controller.setParallelThreshold(file.length() + 1);
+        try (InputStream in = new FileInputStream(file)) {
+            container = controller.importFile(fo, in, new CsvImporter(), true);
+        }
+        loader = container.getLoader();
+        assertEquals(n, loader.getInstanceCount());
+    }
+
     /**
      * Test of getFileImporter method, of class ImportControllerImpl.
      */
@@ -0,0 +1,119 @@
+package org.clueminer.importer.impl;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Random;
+import org.clueminer.attributes.BasicAttrRole;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import org.clueminer.importer.Issue;
+import org.clueminer.io.NumericCsvLoader;
+import org.clueminer.io.importer.api.ContainerLoader;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class ParallelImporterTest {
+
+    private final ParallelImporter subject = new ParallelImporter();
+
+    private File write(String suffix, String content) throws IOException {
+        File file = File.createTempFile("parallel", suffix);
+        file.deleteOnExit();
+        try (FileWriter out = new FileWriter(file)) {
+            out.write(content);
+        }
+        return file;
+    }
+
+    @Test
+    public void testSameAsSequential() throws IOException {
+        Random rand = new Random(42);
+        File file = File.createTempFile("parallel", ".csv");
+        file.deleteOnExit();
+        int n = 5000;
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("id,x,y,z,!class");
+            for (int i = 0; i < n; i++) {
+                out.print(i + "," + rand.nextGaussian() + "," + rand.nextInt(100) + "," + rand.nextDouble() * 1e-5);
+                out.println(",c" + rand.nextInt(3));
+            }
+        }
+        ImportContainerImpl container = new ImportContainerImpl();
+        subject.setChunkSize(4096);
+        subject.setThreads(4);
+        assertTrue(subject.execute(container, file));
+        assertTrue(subject.getChunks() > 10);
+        assertEquals(n, subject.getRows());
+        ContainerLoader loader = container.getLoader();
+        assertEquals(5, loader.getAttributeCount());
+        assertEquals(BasicAttrRole.ID, loader.getAttribute(0).getRole());
+        assertEquals(BasicAttrRole.CLASS, loader.getAttribute(4).getRole());
+        Dataset<? extends Instance> data = loader.getDataset();
+        assertEquals(n, data.size());
+        assertEquals(3, data.attributeCount());
+        assertEquals("x", data.getAttribute(0).getName());
+        assertEquals(0, subject.getReport().getIssues().size());
+
+        NumericCsvLoader seq = new NumericCsvLoader();
+        seq.skip(0);
+        seq.setClassIndex(4);
+        Dataset<? extends Instance> expected = new ArrayDataset(n, 3);
+        assertTrue(seq.load(file, expected));
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < 3; j++) {
+                assertEquals(expected.get(i, j), data.get(i, j), 0.0);
+            }
+            assertEquals(expected.get(i).classValue(), data.get(i).classValue());
+        }
+    }
+
+    @Test
+    public void testIssues() throws IOException {
+        File file = write(".csv", "a,b\n1,2\n\n3,x\n4\n5,6\n");
+        ImportContainerImpl container = new ImportContainerImpl();
+        subject.setSampleSize(1);
+        assertTrue(subject.execute(container, file));
+        Dataset<? extends Instance> data = container.getLoader().getDataset();
+        assertEquals(4, data.size());
+        assertTrue(Double.isNaN(data.get(1, 1)));
+        assertTrue(Double.isNaN(data.get(2, 1)));
+        assertEquals(6.0, data.get(3, 1), 0.0);
+        List<Issue> issues = subject.getReport().getIssues();
+        assertEquals(2, issues.size());
+        assertTrue(issues.get(0).getMessage().contains("'4'"));
+        assertTrue(issues.get(1).getMessage().contains("'5'"));
+    }
+
+    @Test
+    public void testArff() throws IOException {
+        File file = write(".arff", "% comment\n"
+                + "@relation test\n\n"
+                + "@attribute 'sepal length' numeric\n"
+                + "@attribute width REAL\n"
+                + "@attribute class {a,b}\n\n"
+                + "@data\n"
+                + "1.0,2.0,a\n"
+                + "% another comment\n"
+                + "3.0,?,'b'\n");
+        ImportContainerImpl container = new ImportContainerImpl();
+        assertTrue(subject.execute(container, file));
+        Dataset<? extends Instance> data = container.getLoader().getDataset();
+        assertEquals(2, data.size());
+        assertEquals(2, data.attributeCount());
+        assertEquals("sepal length", data.getAttribute(0).getName());
+        assertEquals(3.0, data.get(1, 0), 0.0);
+        assertTrue(Double.isNaN(data.get(1, 1)));
+        assertEquals("b", data.get(1).classValue());
+        assertEquals(0, subject.getReport().getIssues().size());
+    }
+
+}
@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.io.Reader;
 import org.clueminer.dataset.api.Dataset;
 import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
 import org.clueminer.fixtures.CommonFixture;
 import org.clueminer.importer.impl.ArffImporter;
 import org.clueminer.importer.impl.ImportContainerImpl;
@@ -15,6 +16,7 @@ import org.clueminer.io.importer.api.Container;
 import org.clueminer.io.importer.api.ContainerLoader;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import org.junit.Test;
 
 /**
@@ -57,6 +59,25 @@ public class DefaultProcessorTest {
         //assertEquals(3, dataset.getClasses().size());
     }
 
+    @Test
+    public void testPreloaded() {
+        Container container = new ImportContainerImpl();
+        ContainerLoader loader = container.getLoader();
+        Dataset<? extends Instance> data = new ArrayDataset(2, 1);
+        data.attributeBuilder().create("x", "NUMERIC");
+        data.builder().create(new double[]{1.0});
+        data.builder().create(new double[]{2.0});
+        loader.setDataset(data);
+        DefaultProcessor subject = new DefaultProcessor();
+
+        subject.setContainer(loader);
+        //dataset without drafts is kept as it is
+        subject.run();
+
+        assertSame(data, loader.getDataset());
+        assertEquals(2, loader.getDataset().size());
+    }
+
     @Test
     public void testVehicle() throws IOException {
         File vehicle = fixtures.vehicleArff();
@@ -0,0 +1,29 @@
+package org.clueminer.math;
+
+/**
+ * Vector which stores its values in a primitive {@code double} array. Values
+ * of the vector are stored at positions
+ * {@code arrayOffset() ... arrayOffset() + size() - 1}.
+ *
+ * The array is not a copy, therefore it allows algorithms (especially distance
+ * functions) to read values without boxing, bounds checking and virtual calls
+ * to {@link #get(int)}. The array must be treated as read-only.
+ *
+ * @author Tomas Barton
+ */
+public interface ArrayVector extends Vector<Double> {
+
+    /**
+     * Backing array of this vector (not a copy!)
+     *
+     * @return array containing values of this vector
+     */
+    double[] array();
+
+    /**
+     * Index of the first value of this vector in the backing array
+     *
+     * @return offset of first element
+     */
+    int arrayOffset();
+}
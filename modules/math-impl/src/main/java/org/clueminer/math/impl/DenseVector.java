@@ -2,6 +2,7 @@ package org.clueminer.math.impl;
 
 import java.io.Serializable;
 import java.util.Arrays;
+import org.clueminer.math.ArrayVector;
 import org.clueminer.math.DoubleEntry;
 import org.clueminer.math.DoubleVector;
 import org.clueminer.math.SparseDoubleVector;
@@ -15,7 +16,7 @@ import org.clueminer.math.Vector;
  * @author Keith Stevens
  * @author Tomas Barton
  */
-public class DenseVector extends AbstractDoubleVector implements Serializable {
+public class DenseVector extends AbstractDoubleVector implements ArrayVector, Serializable {
 
     private static final long serialVersionUID = 8381939903992766044L;
     /**
@@ -143,6 +144,21 @@ public class DenseVector extends AbstractDoubleVector implements Serializable {
         return Arrays.copyOf(vector, vector.length);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @return
+     */
+    @Override
+    public double[] array() {
+        return vector;
+    }
+
+    @Override
+    public int arrayOffset() {
+        return 0;
+    }
+
     /**
      * {@inheritDoc}
      *
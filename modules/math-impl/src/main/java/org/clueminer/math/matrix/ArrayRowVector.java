@@ -0,0 +1,44 @@
+package org.clueminer.math.matrix;
+
+import org.clueminer.math.ArrayVector;
+import org.clueminer.math.Matrix;
+
+/**
+ * Row of a matrix which stores rows in primitive arrays (e.g. {@link JMatrix}
+ * or a row-major flat array), values could be read directly from the array.
+ *
+ * @author Tomas Barton
+ */
+public class ArrayRowVector extends MatrixRowVector implements ArrayVector {
+
+    private final double[] row;
+    private final int offset;
+
+    public ArrayRowVector(Matrix mat, int i, double[] row) {
+        this(mat, i, row, 0);
+    }
+
+    /**
+     *
+     * @param mat
+     * @param i row index
+     * @param data array containing the row
+     * @param offset position of row's first element in the array
+     */
+    public ArrayRowVector(Matrix mat, int i, double[] data, int offset) {
+        super(mat, i);
+        this.row = data;
+        this.offset = offset;
+    }
+
+    @Override
+    public double[] array() {
+        return row;
+    }
+
+    @Override
+    public int arrayOffset() {
+        return offset;
+    }
+
+}
@@ -843,7 +843,7 @@ public class JMatrix extends AbstractMatrix implements Cloneable, java.io.Serial
 
     @Override
     public MatrixVector getRowVector(int i) {
-        return new MatrixRowVector(this, i);
+        return new ArrayRowVector(this, i, A[i]);
     }
 
     @Override
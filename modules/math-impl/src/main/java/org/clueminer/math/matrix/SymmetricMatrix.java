@@ -112,9 +112,17 @@ public class SymmetricMatrix extends AbstractMatrix implements Matrix {
         return triangleSize(i) + j;
     }
 
+    /**
+     * Deep copy of the matrix
+     *
+     * @return
+     */
     @Override
     public Matrix copy() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        SymmetricMatrix X = new SymmetricMatrix(n, n);
+        System.arraycopy(A, 0, X.A, 0, A.length);
+        X.diagonalValue = diagonalValue;
+        return X;
     }
 
     /**
@@ -87,6 +87,20 @@ public class SymmetricMatrixTest {
     public void tearDown() {
     }
 
+    @Test
+    public void testCopy() {
+        A.set(0, 1, 2.0);
+        A.set(0, 2, 3.0);
+        A.set(1, 2, 4.0);
+        Matrix copy = A.copy();
+        assertEquals(A.rowsCount(), copy.rowsCount());
+        assertEquals(4.0, copy.get(2, 1), eps);
+        //deep copy
+        copy.set(1, 2, 5.0);
+        assertEquals(4.0, A.get(1, 2), eps);
+        assertEquals(5.0, copy.get(2, 1), eps);
+    }
+
     /**
      * Test of getArray method, of class SymmetricMatrix.
      */
@@ -1,11 +1,15 @@
 package org.clueminer.meta.h2;
 
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.clueminer.evolution.api.Evolution;
 import org.clueminer.evolution.api.Individual;
 import org.clueminer.evolution.api.UpdateFeed;
 import org.openide.util.lookup.ServiceProvider;
 
 /**
+ * Stores results of evolution. By default results are written asynchronously
+ * (write-behind), so that the evolution doesn't have to wait for the disk.
  *
  * @author Tomas Barton
  */
@@ -13,7 +17,10 @@ import org.openide.util.lookup.ServiceProvider;
 public class H2Listener implements UpdateFeed {
 
     private H2Store store;
+    private H2Writer writer;
+    private boolean async = true;
     public static final String name = "H2 store";
+    private static final Logger logger = Logger.getLogger(H2Listener.class.getName());
 
     @Override
     public String getName() {
@@ -21,14 +28,56 @@ public class H2Listener implements UpdateFeed {
     }
 
     @Override
-    public int started(Evolution evolution) {
+    public synchronized int started(Evolution evolution) {
         store = H2Store.getInstance();
+        if (async && writer == null) {
+            writer = new H2Writer(store);
+        }
         return store.registerRun(evolution);
     }
 
     @Override
     public void individualCreated(int runId, Individual individual) {
-        store.add(runId, individual.getClustering());
+        if (writer != null) {
+            //snapshot is taken in the evolution thread
+            writer.add(runId, new ResultRow(individual.getClustering()));
+        } else {
+            store.add(runId, individual.getClustering());
+        }
+    }
+
+    @Override
+    public void finished(int runId) {
+        if (writer != null) {
+            writer.flush();
+            logger.log(Level.INFO, "run {0} stored: {1}", new Object[]{runId, writer});
+        }
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * When enabled, results are queued and written in batches by a background
+     * thread
+     *
+     * @param async
+     */
+    public synchronized void setAsync(boolean async) {
+        this.async = async;
+        if (!async && writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    /**
+     * @return background writer, null in synchronous mode (or before
+     *         evolution started)
+     */
+    public H2Writer getWriter() {
+        return writer;
     }
 
 }
@@ -3,17 +3,21 @@ package org.clueminer.meta.h2;
 import java.io.File;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Logger;
 import javax.sql.DataSource;
-import org.clueminer.clustering.api.AgglParams;
 import org.clueminer.clustering.api.Cluster;
 import org.clueminer.clustering.api.ClusterEvaluation;
 import org.clueminer.clustering.api.Clustering;
-import org.clueminer.clustering.api.EvaluationTable;
 import org.clueminer.clustering.api.factory.EvaluationFactory;
 import org.clueminer.dataset.api.Dataset;
 import org.clueminer.dataset.api.Instance;
@@ -28,13 +32,15 @@ import org.clueminer.meta.h2.dao.ResultModel;
 import org.clueminer.meta.h2.dao.RunModel;
 import org.clueminer.meta.h2.dao.TemplateModel;
 import org.clueminer.utils.FileUtils;
-import org.clueminer.utils.Props;
 import org.h2.jdbcx.JdbcConnectionPool;
 import org.openide.util.Exceptions;
 import org.openide.util.lookup.ServiceProvider;
 import org.skife.jdbi.v2.DBI;
 import org.skife.jdbi.v2.GeneratedKeys;
 import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.PreparedBatch;
+import org.skife.jdbi.v2.PreparedBatchPart;
+import org.skife.jdbi.v2.ResultIterator;
 import org.skife.jdbi.v2.tweak.HandleCallback;
 
 /**
@@ -50,8 +56,15 @@ public class H2Store<E extends Instance, C extends Cluster<E>> implements MetaSt
     private DBI dbi;
     private static final String name = "H2 store";
     private static final Logger logger = Logger.getLogger(H2Store.class.getName());
+    /**
+     * score columns in results table
+     */
+    private List<String> scoreColumns;
+    private final ConcurrentMap<String, Integer> algorithms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> templates = new ConcurrentHashMap<>();
+    private final PartitioningIndex partitionings = new PartitioningIndex();
 
-    public static H2Store getInstance() {
+    public static synchronized H2Store getInstance() {
         if (instance == null) {
             instance = new H2Store();
         }
@@ -87,7 +100,7 @@ public class H2Store<E extends Instance, C extends Cluster<E>> implements MetaSt
         return db(dbName);
     }
 
-    public DBI db(String db) {
+    public synchronized DBI db(String db) {
         if (dbi == null) {
             DataSource ds = JdbcConnectionPool.create("jdbc:h2:" + getDbDir() + File.separatorChar + db, "sa", "");
             dbi = new DBI(ds);
@@ -134,6 +147,8 @@ public class H2Store<E extends Instance, C extends Cluster<E>> implements MetaSt
 
             PartitioningModel pt = dh.attach(PartitioningModel.class);
             pt.createTable();
+            pt.addHashColumn();
+            pt.createHashIndex();
             dh.commit();
 
             //base algorithms
@@ -147,14 +162,18 @@ public class H2Store<E extends Instance, C extends Cluster<E>> implements MetaSt
 
             ResultModel rt = dh.attach(ResultModel.class);
             rt.createTable();
+            rt.createPartitioningIndex();
             dh.commit();
 
             //update score names
             EvaluationFactory ef = EvaluationFactory.getInstance();
+            List<String> columns = new ArrayList<>();
             for (String eval : ef.getProviders()) {
                 //evaluators are in quotes, therefore names are case sensitive
                 dh.execute("ALTER TABLE results ADD COLUMN IF NOT EXISTS \"" + eval + "\" DOUBLE");
+                columns.add(eval);
             }
+            scoreColumns = columns;
 
             dh.commit();
 
@@ -195,54 +214,101 @@ public class H2Store<E extends Instance, C extends Cluster<E>> implements MetaSt
      *
      * @param datasetId
      * @param clustering
+     * @param runId
      */
     public void addClustering(int datasetId, Clustering<E, C> clustering, int runId) {
-        int partitionId = fetchPartitioning(datasetId, clustering);
-        Props p = clustering.getParams();
-        int algId = fetchAlgorithm(p.get(AgglParams.ALG, "UNKNOWN"));
-        int templateId = fetchTemplate(algId, p.toString());
+        addAll(datasetId, runId, Collections.singletonList(new ResultRow(clustering)));
+    }
 
-        try (Handle h = db().open()) {
-            ResultModel rm = h.attach(ResultModel.class);
-            int rId;
-            if (runId > 0) {
-                rId = rm.insert(templateId, partitionId, datasetId, runId);
-            } else {
-                rId = rm.insert(templateId, partitionId, datasetId);
-            }
-            EvaluationTable<E, C> evalTable = clustering.getEvaluationTable();
-            if (evalTable != null) {
-                StringBuilder sb = new StringBuilder("UPDATE results SET ");
-                double val;
-                int i = 0;
-                for (Entry<String, Double> entry : evalTable.getAll().entrySet()) {
-                    val = entry.getValue();
-                    if (!Double.isNaN(val)) {
-                        if (Double.isInfinite(val)) {
-                            if (Double.compare(val, Double.POSITIVE_INFINITY) == 0) {
-                                val = Double.MAX_VALUE;
-                            } else if (Double.compare(val, Double.NEGATIVE_INFINITY) == 0) {
-                                val = Double.MIN_VALUE;
-                            } else {
-                                throw new RuntimeException("bad, bad double");
-                            }
-                        }
-                        //evaluators are in quotes, therefore names are case sensitive
-                        if (i > 0) {
-                            sb.append(",");
+    /**
+     * Inserts results of given run in a single transaction
+     *
+     * @param runId
+     * @param rows
+     */
+    public void addAll(int runId, List<ResultRow> rows) {
+        addAll(findRunsDataset(runId), runId, rows);
+    }
+
+    /**
+     * Inserts results in a single transaction, all scores are inserted within
+     * the same batched prepared statement.
+     *
+     * @param datasetId
+     * @param runId     when not positive, results are not assigned to any run
+     * @param rows
+     */
+    public void addAll(int datasetId, int runId, List<ResultRow> rows) {
+        DBI dbi = db();
+        List<String> columns = scoreColumns;
+        if (columns == null) {
+            throw new RuntimeException("meta-storage wasn't initialized, can't store results");
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO results (template_id, partitioning_id, dataset_id, run_id");
+        for (String col : columns) {
+            sql.append(", ").append(quoteVar(col));
+        }
+        sql.append(") VALUES (?, ?, ?, ?");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(", ?");
+        }
+        sql.append(")");
+
+        //IDs inserted within the transaction are published after commit
+        Map<String, Integer> newAlgorithms = new HashMap<>();
+        Map<String, Integer> newTemplates = new HashMap<>();
+        try (Handle h = dbi.open()) {
+            h.begin();
+            try {
+                PreparedBatch batch = h.prepareBatch(sql.toString());
+                PreparedBatchPart part;
+                int pos;
+                Double val;
+                for (ResultRow row : rows) {
+                    part = batch.add();
+                    part.bind(0, fetchTemplate(h, fetchAlgorithm(h, row.getAlgorithm(), newAlgorithms),
+                            row.getTemplate(), newTemplates));
+                    part.bind(1, fetchPartitioning(h, datasetId, row));
+                    part.bind(2, datasetId);
+                    if (runId > 0) {
+                        part.bind(3, runId);
+                    } else {
+                        part.bindNull(3, Types.INTEGER);
+                    }
+                    pos = 4;
+                    for (String col : columns) {
+                        val = row.getScores().get(col);
+                        if (val == null || Double.isNaN(val)) {
+                            part.bindNull(pos++, Types.DOUBLE);
+                        } else {
+                            part.bind(pos++, finite(val));
                         }
-                        sb.append("\"").append(entry.getKey()).append("\"='").append(val).append("'");
-                        i++;
                     }
                 }
-                if (i > 0) {
-                    sb.append(" WHERE id = ").append(rId);
-                    h.execute(sb.toString());
+                if (batch.size() > 0) {
+                    batch.execute();
                 }
+                h.commit();
+                algorithms.putAll(newAlgorithms);
+                templates.putAll(newTemplates);
+            } catch (RuntimeException ex) {
+                h.rollback();
+                //cached IDs might not exist anymore
+                partitionings.clear();
+                throw ex;
+            }
+        }
+    }
+
+    private double finite(double val) {
+        if (Double.isInfinite(val)) {
+            if (Double.compare(val, Double.POSITIVE_INFINITY) == 0) {
+                return Double.MAX_VALUE;
             } else {
-                logger.severe("missing evaltable");
+                return Double.MIN_VALUE;
             }
         }
+        return val;
     }
 
     public int fetchDataset(String name) throws SQLException {
@@ -292,39 +358,118 @@ public class H2Store<E extends Instance, C extends Cluster<E>> implements MetaSt
         return id;
     }
 
-    protected int findPartitioning(Clustering<E, C> clustering) {
-        int id;
+    /**
+     * Finds ID of stored partitioning
+     *
+     * @param datasetId
+     * @param clustering
+     * @return ID or -1 when partitioning wasn't stored yet
+     */
+    protected int findPartitioning(int datasetId, Clustering<E, C> clustering) {
         try (Handle h = db().open()) {
-            PartitioningModel pt = h.attach(PartitioningModel.class);
-            id = pt.find(clustering.size(), clustering.hashCode());
+            return findPartitioning(h, datasetId, PartitionHash.hash(clustering));
         }
-        return id;
     }
 
     protected int fetchPartitioning(int datasetId, Clustering<E, C> clustering) {
-        int id = findPartitioning(clustering);
+        try (Handle h = db().open()) {
+            return fetchPartitioning(h, datasetId, clustering.size(), clustering.hashCode(),
+                    clustering.fingerprint(), PartitionHash.hash(clustering));
+        }
+    }
 
-        if (id <= 0) {
-            try (Handle h = db().open()) {
+    /**
+     * Lookup is answered from memory whenever possible, database is queried
+     * only when the Bloom filter can't rule out the partitioning.
+     *
+     * @param h
+     * @param datasetId
+     * @param phash     partition hash
+     * @return ID or -1
+     */
+    private int findPartitioning(Handle h, int datasetId, long phash) {
+        Integer id = partitionings.get(datasetId, phash);
+        if (id != null) {
+            return id;
+        }
+        PartitioningModel pm = h.attach(PartitioningModel.class);
+        if (!partitionings.isLoaded(datasetId)) {
+            loadPartitionings(pm, datasetId);
+        }
+        if (partitionings.mightContain(datasetId, phash)) {
+            id = pm.findByHash(datasetId, phash);
+            if (id != null && id > 0) {
+                partitionings.put(datasetId, phash, id);
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private int fetchPartitioning(Handle h, int datasetId, ResultRow row) {
+        return fetchPartitioning(h, datasetId, row.getK(), row.getHash(), row.getFingerprint(), row.getPartitionHash());
+    }
+
+    private int fetchPartitioning(Handle h, int datasetId, int k, int hash, String fingerprint, long phash) {
+        synchronized (partitionings) {
+            int id = findPartitioning(h, datasetId, phash);
+            if (id <= 0) {
                 PartitioningModel pm = h.attach(PartitioningModel.class);
-                id = pm.insert(clustering.size(), clustering.hashCode(), clustering.fingerprint(), datasetId);
+                id = pm.insert(k, hash, fingerprint, datasetId, phash);
+                partitionings.put(datasetId, phash, id);
             }
+            return id;
+        }
+    }
+
+    /**
+     * Populate Bloom filter with hashes of all partitionings stored for given
+     * dataset
+     *
+     * @param pm
+     * @param datasetId
+     */
+    private void loadPartitionings(PartitioningModel pm, int datasetId) {
+        synchronized (partitionings) {
+            if (partitionings.isLoaded(datasetId)) {
+                return;
+            }
+            try (ResultIterator<Long> it = pm.hashes(datasetId)) {
+                while (it.hasNext()) {
+                    partitionings.add(datasetId, it.next());
+                }
+            }
+            partitionings.setLoaded(datasetId);
         }
-        return id;
     }
 
+    /**
+     * {@inheritDoc }
+     *
+     * @return score or NaN when clustering (or its score) wasn't stored
+     */
     @Override
     public double findScore(Dataset<E> dataset, Clustering<E, C> clustering, ClusterEvaluation<E, C> eval) {
-        double res;
         int datasetId = fetchDataset(dataset);
-        int partitioningId = fetchPartitioning(datasetId, clustering);
+        long phash = PartitionHash.hash(clustering);
 
         try (Handle h = db().open()) {
-            ResultModel rt = h.attach(ResultModel.class);
-            res = rt.score(eval.getName(), partitioningId, datasetId);
+            int partitioningId = findPartitioning(h, datasetId, phash);
+            if (partitioningId <= 0) {
+                return Double.NaN;
+            }
+            Double res = h.createQuery("SELECT " + quoteVar(eval.getName()) + " FROM results"
+                    + " WHERE partitioning_id = :pid AND dataset_id = :did AND "
+                    + quoteVar(eval.getName()) + " IS NOT NULL LIMIT 1")
+                    .bind("pid", partitioningId)
+                    .bind("did", datasetId)
+                    .mapTo(Double.class).first();
+            return res == null ? Double.NaN : res;
         }
+    }
 
-        return res;
+    public PartitioningIndex getPartitioningIndex() {
+        return partitionings;
     }
 
     protected int fetchAlgorithm(String name) {
@@ -340,6 +485,45 @@ public class H2Store<E extends Instance, C extends Cluster<E>> implements MetaSt
         return id;
     }
 
+    /**
+     * @param h
+     * @param name
+     * @param pending IDs found within current transaction
+     * @return algorithm ID
+     */
+    private int fetchAlgorithm(Handle h, String name, Map<String, Integer> pending) {
+        Integer id = algorithms.get(name);
+        if (id == null) {
+            id = pending.get(name);
+        }
+        if (id == null) {
+            AlgorithmModel am = h.attach(AlgorithmModel.class);
+            id = am.find(name);
+            if (id <= 0) {
+                id = am.insert(name);
+            }
+            pending.put(name, id);
+        }
+        return id;
+    }
+
+    private int fetchTemplate(Handle h, int algId, String template, Map<String, Integer> pending) {
+        String key = algId + ":" + template;
+        Integer id = templates.get(key);
+        if (id == null) {
+            id = pending.get(key);
+        }
+        if (id == null) {
+            TemplateModel tm = h.attach(TemplateModel.class);
+            id = tm.find(algId, template);
+            if (id <= 0) {
+                id = tm.insert(algId, template);
+            }
+            pending.put(key, id);
+        }
+        return id;
+    }
+
     protected int fetchTemplate(int algId, String template) {
         int id;
         try (Handle h = db().open()) {
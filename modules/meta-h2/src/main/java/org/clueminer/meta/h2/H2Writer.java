@@ -0,0 +1,255 @@
+package org.clueminer.meta.h2;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Write-behind buffer for the H2 meta-store. Results are queued by the
+ * evolution and inserted by a single background thread, each batch (up to
+ * <code>batchSize</code> results) is stored within one transaction.
+ *
+ * The queue is bounded, when the database can't keep up with the evolution,
+ * producers are blocked until there's some space in the queue (back-pressure).
+ *
+ * @author Tomas Barton
+ */
+public class H2Writer {
+
+    public static final int DEFAULT_CAPACITY = 1000;
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final Logger logger = Logger.getLogger(H2Writer.class.getName());
+
+    private final H2Store store;
+    private final BlockingQueue<Entry> queue;
+    private final int batchSize;
+    private final Thread worker;
+    /**
+     * cached mapping run ID -> dataset ID, accessed by worker thread only
+     */
+    private final Map<Integer, Integer> runs = new LinkedHashMap<>();
+    /**
+     * guarded by this
+     */
+    private long pending;
+    private long written;
+    private long batches;
+    private long failed;
+    private int maxQueueDepth;
+    private volatile boolean closed = false;
+
+    private static final Entry POISON = new Entry(-1, null);
+
+    public H2Writer(H2Store store) {
+        this(store, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public H2Writer(H2Store store, int capacity, int batchSize) {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("capacity and batch size must be positive");
+        }
+        this.store = store;
+        this.batchSize = batchSize;
+        queue = new LinkedBlockingQueue<>(capacity);
+        worker = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                process();
+            }
+        }, "h2-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Enqueue result for writing, blocks when the queue is full
+     *
+     * @param runId
+     * @param row
+     */
+    public void add(int runId, ResultRow row) {
+        if (closed) {
+            throw new IllegalStateException("writer was already closed");
+        }
+        synchronized (this) {
+            pending++;
+        }
+        try {
+            queue.put(new Entry(runId, row));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            synchronized (this) {
+                pending--;
+                notifyAll();
+            }
+            throw new RuntimeException(ex);
+        }
+        int depth = queue.size();
+        synchronized (this) {
+            if (depth > maxQueueDepth) {
+                maxQueueDepth = depth;
+            }
+        }
+    }
+
+    /**
+     * Blocks until all queued results are written (or failed)
+     */
+    public synchronized void flush() {
+        try {
+            while (pending > 0) {
+                wait();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes all queued results and stops the writer thread
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flush();
+        try {
+            queue.put(POISON);
+            worker.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        Entry e;
+        try {
+            while (true) {
+                e = queue.take();
+                if (e == POISON) {
+                    return;
+                }
+                batch.add(e);
+                queue.drainTo(batch, batchSize - 1);
+                boolean stop = batch.remove(POISON);
+                write(batch);
+                batch.clear();
+                if (stop) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        //group results by run, usually there's just one
+        Map<Integer, List<ResultRow>> byRun = new LinkedHashMap<>();
+        List<ResultRow> rows;
+        for (Entry e : batch) {
+            rows = byRun.get(e.runId);
+            if (rows == null) {
+                rows = new ArrayList<>();
+                byRun.put(e.runId, rows);
+            }
+            rows.add(e.row);
+        }
+        for (Map.Entry<Integer, List<ResultRow>> run : byRun.entrySet()) {
+            rows = run.getValue();
+            boolean ok = false;
+            try {
+                store.addAll(datasetId(run.getKey()), run.getKey(), rows);
+                ok = true;
+            } catch (RuntimeException ex) {
+                logger.log(Level.SEVERE, "failed to store " + rows.size() + " results of run " + run.getKey(), ex);
+            }
+            synchronized (this) {
+                if (ok) {
+                    written += rows.size();
+                    batches++;
+                } else {
+                    failed += rows.size();
+                }
+                pending -= rows.size();
+                notifyAll();
+            }
+        }
+    }
+
+    private int datasetId(int runId) {
+        Integer id = runs.get(runId);
+        if (id == null) {
+            id = store.findRunsDataset(runId);
+            runs.put(runId, id);
+        }
+        return id;
+    }
+
+    /**
+     * @return number of results waiting in the queue
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return highest observed queue depth
+     */
+    public synchronized int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * @return number of results which were queued but not written yet
+     */
+    public synchronized long getPending() {
+        return pending;
+    }
+
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    /**
+     * @return number of committed transactions
+     */
+    public synchronized long getBatches() {
+        return batches;
+    }
+
+    public synchronized long getFailed() {
+        return failed;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "H2Writer{queue=" + queue.size() + ", maxQueue=" + maxQueueDepth + ", written=" + written
+                + ", batches=" + batches + ", failed=" + failed + "}";
+    }
+
+    private static class Entry {
+
+        private final int runId;
+        private final ResultRow row;
+
+        Entry(int runId, ResultRow row) {
+            this.runId = runId;
+            this.row = row;
+        }
+    }
+
+}
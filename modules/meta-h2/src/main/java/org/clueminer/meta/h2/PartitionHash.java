@@ -0,0 +1,94 @@
+package org.clueminer.meta.h2;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.util.Arrays;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.Clustering;
+import org.clueminer.dataset.api.Instance;
+
+/**
+ * Compact canonical fingerprint of a partitioning. The assignment vector
+ * (instance index -> cluster) is relabeled by order of first occurrence, thus
+ * two clusterings which differ only in order (or names) of clusters have the
+ * same hash.
+ *
+ * @author Tomas Barton
+ */
+public class PartitionHash {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+    /**
+     * label of instances which are not assigned to any cluster
+     */
+    private static final int NOISE = -1;
+
+    private PartitionHash() {
+
+    }
+
+    /**
+     * Canonical assignment vector, clusters are numbered in order in which
+     * they first appear (when ordered by instance index)
+     *
+     * @param clustering
+     * @return
+     */
+    public static int[] canonical(Clustering<?, ?> clustering) {
+        int n = 0;
+        for (Cluster<? extends Instance> c : clustering) {
+            for (Instance inst : c) {
+                if (inst.getIndex() < 0) {
+                    throw new IllegalArgumentException("instance without index " + inst);
+                }
+                n = Math.max(n, inst.getIndex() + 1);
+            }
+        }
+        int[] assign = new int[n];
+        Arrays.fill(assign, NOISE);
+        int k = 0;
+        for (Cluster<? extends Instance> c : clustering) {
+            for (Instance inst : c) {
+                assign[inst.getIndex()] = k;
+            }
+            k++;
+        }
+        int[] relabel = new int[k];
+        Arrays.fill(relabel, NOISE);
+        int next = 0;
+        for (int i = 0; i < n; i++) {
+            if (assign[i] != NOISE) {
+                if (relabel[assign[i]] == NOISE) {
+                    relabel[assign[i]] = next++;
+                }
+                assign[i] = relabel[assign[i]];
+            }
+        }
+        return assign;
+    }
+
+    /**
+     * 64-bit hash of canonical assignment vector
+     *
+     * @param clustering
+     * @return
+     */
+    public static long hash(Clustering<?, ?> clustering) {
+        return hash(canonical(clustering));
+    }
+
+    /**
+     * @param canonical assignment vector already in canonical form
+     * @return
+     */
+    public static long hash(int[] canonical) {
+        Hasher h = HASH.newHasher(4 * canonical.length + 4);
+        h.putInt(canonical.length);
+        for (int label : canonical) {
+            h.putInt(label);
+        }
+        return h.hash().asLong();
+    }
+
+}
@@ -0,0 +1,195 @@
+package org.clueminer.meta.h2;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.PrimitiveSink;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory front of the partitionings table. A Bloom filter answers "this
+ * partitioning was never stored" without touching the database, recently
+ * used partitionings are kept in a LRU map (partition hash -> row ID).
+ *
+ * Bloom filter has to be populated with all stored hashes of a dataset before
+ * it can be trusted, see {@link #isLoaded(int)}.
+ *
+ * @author Tomas Barton
+ */
+public class PartitioningIndex {
+
+    public static final int DEFAULT_CAPACITY = 100000;
+    public static final int DEFAULT_EXPECTED = 1000000;
+
+    private final int capacity;
+    private final int expected;
+    private final double fpp;
+    private BloomFilter<Key> bloom;
+    private final Set<Integer> loaded = new HashSet<>();
+    private final LinkedHashMap<Key, Integer> lru;
+    private long hits;
+    private long negatives;
+    private long lookups;
+
+    public PartitioningIndex() {
+        this(DEFAULT_CAPACITY, DEFAULT_EXPECTED, 0.01);
+    }
+
+    /**
+     *
+     * @param capacity maximum number of cached IDs
+     * @param expected expected number of stored partitionings
+     * @param fpp      desired false positive probability of Bloom filter
+     */
+    public PartitioningIndex(int capacity, int expected, double fpp) {
+        this.capacity = capacity;
+        this.expected = expected;
+        this.fpp = fpp;
+        bloom = BloomFilter.create(KeyFunnel.INSTANCE, expected, fpp);
+        lru = new LinkedHashMap<Key, Integer>(1024, 0.75f, true) {
+
+            private static final long serialVersionUID = 6193650120936624542L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Integer> eldest) {
+                return size() > PartitioningIndex.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * @param datasetId
+     * @return true when all stored hashes of given dataset were added to the
+     *         filter
+     */
+    public synchronized boolean isLoaded(int datasetId) {
+        return loaded.contains(datasetId);
+    }
+
+    public synchronized void setLoaded(int datasetId) {
+        loaded.add(datasetId);
+    }
+
+    /**
+     * Cached ID of a partitioning
+     *
+     * @param datasetId
+     * @param hash      partition hash
+     * @return null when ID is not cached
+     */
+    public synchronized Integer get(int datasetId, long hash) {
+        lookups++;
+        Integer id = lru.get(new Key(datasetId, hash));
+        if (id != null) {
+            hits++;
+        }
+        return id;
+    }
+
+    /**
+     * @param datasetId
+     * @param hash
+     * @return false when partitioning is definitely not stored
+     */
+    public synchronized boolean mightContain(int datasetId, long hash) {
+        boolean res = bloom.mightContain(new Key(datasetId, hash));
+        if (!res) {
+            negatives++;
+        }
+        return res;
+    }
+
+    /**
+     * Add hash to Bloom filter
+     *
+     * @param datasetId
+     * @param hash
+     */
+    public synchronized void add(int datasetId, long hash) {
+        bloom.put(new Key(datasetId, hash));
+    }
+
+    /**
+     * Add hash to Bloom filter and cache its ID
+     *
+     * @param datasetId
+     * @param hash
+     * @param id
+     */
+    public synchronized void put(int datasetId, long hash, int id) {
+        Key key = new Key(datasetId, hash);
+        bloom.put(key);
+        lru.put(key, id);
+    }
+
+    /**
+     * Forget everything, e.g. after a rollback
+     */
+    public synchronized void clear() {
+        bloom = BloomFilter.create(KeyFunnel.INSTANCE, expected, fpp);
+        loaded.clear();
+        lru.clear();
+    }
+
+    public synchronized int size() {
+        return lru.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return number of lookups which were answered by the Bloom filter
+     */
+    public synchronized long getNegatives() {
+        return negatives;
+    }
+
+    public synchronized long getLookups() {
+        return lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PartitioningIndex{size=" + lru.size() + ", lookups=" + lookups + ", hits=" + hits
+                + ", negatives=" + negatives + "}";
+    }
+
+    private static class Key {
+
+        private final int datasetId;
+        private final long hash;
+
+        Key(int datasetId, long hash) {
+            this.datasetId = datasetId;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * datasetId + (int) (hash ^ (hash >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return datasetId == other.datasetId && hash == other.hash;
+        }
+    }
+
+    private enum KeyFunnel implements Funnel<Key> {
+
+        INSTANCE;
+
+        @Override
+        public void funnel(Key from, PrimitiveSink into) {
+            into.putInt(from.datasetId).putLong(from.hash);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.clueminer.meta.h2;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+import org.clueminer.clustering.api.AgglParams;
+import org.clueminer.clustering.api.Clustering;
+import org.clueminer.clustering.api.EvaluationTable;
+import org.clueminer.utils.Props;
+
+/**
+ * Immutable snapshot of a clustering result which is going to be stored in
+ * the results table. Snapshot is taken in the thread which produced the
+ * clustering, thus it could be safely written by another thread.
+ *
+ * @author Tomas Barton
+ */
+public class ResultRow {
+
+    private static final Logger logger = Logger.getLogger(ResultRow.class.getName());
+
+    private final int k;
+    private final int hash;
+    private final String fingerprint;
+    private final long partitionHash;
+    private final String algorithm;
+    private final String template;
+    private final Map<String, Double> scores;
+
+    public ResultRow(Clustering<?, ?> clustering) {
+        k = clustering.size();
+        hash = clustering.hashCode();
+        fingerprint = clustering.fingerprint();
+        partitionHash = PartitionHash.hash(clustering);
+        Props p = clustering.getParams();
+        algorithm = p.get(AgglParams.ALG, "UNKNOWN");
+        template = p.toString();
+        EvaluationTable evalTable = clustering.getEvaluationTable();
+        if (evalTable != null) {
+            scores = Collections.unmodifiableMap(new HashMap<String, Double>(evalTable.getAll()));
+        } else {
+            logger.severe("missing evaltable");
+            scores = Collections.emptyMap();
+        }
+    }
+
+    /**
+     * @return number of clusters
+     */
+    public int getK() {
+        return k;
+    }
+
+    public int getHash() {
+        return hash;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return canonical hash of assignments
+     */
+    public long getPartitionHash() {
+        return partitionHash;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return evaluator name -> score
+     */
+    public Map<String, Double> getScores() {
+        return scores;
+    }
+
+}
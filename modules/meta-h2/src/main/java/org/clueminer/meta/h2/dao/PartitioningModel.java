@@ -1,5 +1,6 @@
 package org.clueminer.meta.h2.dao;
 
+import org.skife.jdbi.v2.ResultIterator;
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.GetGeneratedKeys;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
@@ -22,16 +23,38 @@ public interface PartitioningModel {
             + ")")
     void createTable();
 
+    /**
+     * Canonical hash of assignments, see PartitionHash
+     */
+    @SqlUpdate("ALTER TABLE partitionings ADD COLUMN IF NOT EXISTS phash BIGINT")
+    void addHashColumn();
+
+    @SqlUpdate("CREATE INDEX IF NOT EXISTS idx_partitionings_phash ON partitionings(dataset_id, phash)")
+    void createHashIndex();
+
     @SqlQuery("select hash from partitionings where id = :id")
     int findHash(@Bind("id") int id);
 
     @SqlQuery("SELECT id from partitionings WHERE k = :k AND hash=:hash")
     int find(@Bind("k") int k, @Bind("hash") int hash);
 
+    @SqlQuery("SELECT id FROM partitionings WHERE dataset_id = :dataset_id AND phash = :phash")
+    Integer findByHash(@Bind("dataset_id") int datasetId, @Bind("phash") long phash);
+
+    @SqlQuery("SELECT phash FROM partitionings WHERE dataset_id = :dataset_id AND phash IS NOT NULL")
+    ResultIterator<Long> hashes(@Bind("dataset_id") int datasetId);
+
     @SqlUpdate("insert into partitionings (k, hash, fingerprint, num_occur, dataset_id)"
             + " values (:k, :hash, :fingerprint, 1, :dataset_id)")
     @GetGeneratedKeys
     int insert(@Bind("k") int k, @Bind("hash") int hash,
             @Bind("fingerprint") String fingerprint, @Bind("dataset_id") int datasetId);
 
+    @SqlUpdate("insert into partitionings (k, hash, fingerprint, num_occur, dataset_id, phash)"
+            + " values (:k, :hash, :fingerprint, 1, :dataset_id, :phash)")
+    @GetGeneratedKeys
+    int insert(@Bind("k") int k, @Bind("hash") int hash,
+            @Bind("fingerprint") String fingerprint, @Bind("dataset_id") int datasetId,
+            @Bind("phash") long phash);
+
 }
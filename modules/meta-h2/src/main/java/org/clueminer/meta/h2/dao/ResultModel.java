@@ -28,6 +28,9 @@ public interface ResultModel {
             + ")")
     void createTable();
 
+    @SqlUpdate("CREATE INDEX IF NOT EXISTS idx_results_partitioning ON results(partitioning_id, dataset_id)")
+    void createPartitioningIndex();
+
     @SqlQuery("SELECT :score from results WHERE partitioning_id = :pid AND dataset_id = :did")
     double score(@Bind("score") String score, @Bind("pid") int partitionId, @Bind("did") int datasetId);
 
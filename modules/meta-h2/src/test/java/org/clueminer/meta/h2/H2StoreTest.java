@@ -7,6 +7,7 @@ import org.clueminer.clustering.api.ClusterEvaluation;
 import org.clueminer.clustering.api.Clustering;
 import org.clueminer.clustering.api.EvaluationTable;
 import org.clueminer.clustering.api.factory.EvaluationFactory;
+import org.clueminer.dataset.api.Dataset;
 import org.clueminer.dataset.api.Instance;
 import org.clueminer.eval.external.Precision;
 import org.clueminer.eval.utils.HashEvaluationTable;
@@ -16,6 +17,7 @@ import org.clueminer.meta.api.MetaResult;
 import org.junit.After;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
 import org.openide.util.Exceptions;
@@ -117,4 +119,25 @@ public class H2StoreTest {
         subject.addClustering(datasetId, c, -1);
     }
 
+    @Test
+    public void testFindStoredScore() {
+        Dataset<Instance> data = FakeClustering.wine();
+        data.setName("wine");
+        Clustering<Instance, Cluster<Instance>> c = FakeClustering.wineClustering();
+        c.lookupAdd(data);
+        EvaluationTable et = new HashEvaluationTable(c, data);
+        Precision eval = new Precision();
+        double score = et.getScore(eval);
+        c.setEvaluationTable(et);
+        subject.add(data, c);
+        assertEquals(score, subject.findScore(data, c, eval), 1e-9);
+        //same partitioning stored just once
+        int datasetId = subject.fetchDataset(data);
+        assertEquals(subject.findPartitioning(datasetId, c), subject.fetchPartitioning(datasetId, c));
+        //unknown partitioning is rejected by Bloom filter
+        long negatives = subject.getPartitioningIndex().getNegatives();
+        assertTrue(Double.isNaN(subject.findScore(data, FakeClustering.wineCorrect(), eval)));
+        assertTrue(subject.getPartitioningIndex().getNegatives() > negatives);
+    }
+
 }
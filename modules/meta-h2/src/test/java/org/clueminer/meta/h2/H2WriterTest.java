@@ -0,0 +1,123 @@
+package org.clueminer.meta.h2;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.Clustering;
+import org.clueminer.clustering.api.EvaluationTable;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.eval.external.Precision;
+import org.clueminer.eval.external.Recall;
+import org.clueminer.eval.utils.HashEvaluationTable;
+import org.clueminer.fixtures.clustering.FakeClustering;
+import org.clueminer.meta.h2.dao.RunModel;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import org.openide.util.Exceptions;
+import org.skife.jdbi.v2.Handle;
+
+/**
+ *
+ * @author deric
+ */
+public class H2WriterTest {
+
+    private H2Store store;
+    private static final String testDb = "unit-test";
+
+    @Before
+    public void setUp() {
+        store = H2Store.getInstance();
+        store.db(testDb);
+    }
+
+    @After
+    public void tearDown() {
+        try {
+            store.close();
+            store.deleteDb(testDb);
+        } catch (SQLException ex) {
+            Exceptions.printStackTrace(ex);
+        }
+    }
+
+    private int createRun() {
+        Dataset<Instance> data = FakeClustering.wine();
+        data.setName("wine");
+        int datasetId = store.fetchDataset(data);
+        int evoId = store.fetchEvolution("writer-test");
+        try (Handle h = store.db().open()) {
+            return h.attach(RunModel.class).insert(evoId, datasetId);
+        }
+    }
+
+    private int countResults(int runId) {
+        try (Handle h = store.db().open()) {
+            return h.createQuery("SELECT COUNT(*) FROM results WHERE run_id = :run")
+                    .bind("run", runId).mapTo(Integer.class).first();
+        }
+    }
+
+    private ResultRow row() {
+        Clustering<Instance, Cluster<Instance>> c = FakeClustering.wineClustering();
+        c.lookupAdd(FakeClustering.wine());
+        EvaluationTable et = new HashEvaluationTable(c, FakeClustering.wine());
+        et.getScore(new Precision());
+        et.getScore(new Recall());
+        c.setEvaluationTable(et);
+        return new ResultRow(c);
+    }
+
+    @Test
+    public void testAddAll() {
+        int runId = createRun();
+        List<ResultRow> rows = new ArrayList<>();
+        ResultRow r = row();
+        for (int i = 0; i < 5; i++) {
+            rows.add(r);
+        }
+        store.addAll(runId, rows);
+        assertEquals(5, countResults(runId));
+        try (Handle h = store.db().open()) {
+            double score = h.createQuery("SELECT \"" + new Precision().getName() + "\" FROM results WHERE run_id = :run")
+                    .bind("run", runId).mapTo(Double.class).first();
+            assertEquals(r.getScores().get(new Precision().getName()), score, 1e-9);
+        }
+    }
+
+    @Test
+    public void testWriteBehind() {
+        int runId = createRun();
+        H2Writer subject = new H2Writer(store, 8, 4);
+        ResultRow r = row();
+        int n = 50;
+        for (int i = 0; i < n; i++) {
+            subject.add(runId, r);
+        }
+        subject.flush();
+        assertEquals(0, subject.getPending());
+        assertEquals(n, subject.getWritten());
+        assertEquals(0, subject.getFailed());
+        //results are written in batches
+        assertTrue(subject.getBatches() < n);
+        assertTrue(subject.getMaxQueueDepth() <= 8);
+        assertEquals(n, countResults(runId));
+        subject.close();
+        assertTrue(subject.isClosed());
+    }
+
+    @Test
+    public void testMissingRun() {
+        H2Writer subject = new H2Writer(store);
+        subject.add(99999, row());
+        subject.close();
+        assertEquals(1, subject.getFailed());
+        assertEquals(0, subject.getWritten());
+    }
+
+}
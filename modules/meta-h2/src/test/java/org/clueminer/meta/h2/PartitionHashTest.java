@@ -0,0 +1,81 @@
+package org.clueminer.meta.h2;
+
+import org.clueminer.attributes.BasicAttrType;
+import org.clueminer.clustering.api.Cluster;
+import org.clueminer.clustering.api.Clustering;
+import org.clueminer.clustering.struct.BaseCluster;
+import org.clueminer.clustering.struct.ClusterList;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.fixtures.clustering.FakeClustering;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class PartitionHashTest {
+
+    /**
+     * Same partitioning of wine dataset as wineCorrect, with clusters in
+     * reversed order and different names
+     *
+     * @return
+     */
+    private Clustering<Instance, Cluster<Instance>> wineReversed() {
+        Dataset<Instance> data = FakeClustering.wine();
+        Clustering<Instance, Cluster<Instance>> clustering = new ClusterList(3);
+        int[][] ranges = new int[][]{{22, 27}, {13, 22}, {0, 13}};
+        for (int[] r : ranges) {
+            Cluster<Instance> c = new BaseCluster<>(r[1] - r[0]);
+            c.setName("c" + r[0]);
+            c.attributeBuilder().create("x", BasicAttrType.INTEGER);
+            for (int i = r[0]; i < r[1]; i++) {
+                c.add(data.instance(i));
+            }
+            clustering.add(c);
+        }
+        return clustering;
+    }
+
+    @Test
+    public void testCanonical() {
+        int[] assign = PartitionHash.canonical(wineReversed());
+        assertEquals(27, assign.length);
+        assertEquals(0, assign[0]);
+        assertEquals(1, assign[13]);
+        assertEquals(2, assign[26]);
+        assertArrayEquals(PartitionHash.canonical(FakeClustering.wineCorrect()), assign);
+    }
+
+    @Test
+    public void testPermutationInvariant() {
+        assertEquals(PartitionHash.hash(FakeClustering.wineCorrect()), PartitionHash.hash(wineReversed()));
+        assertFalse(PartitionHash.hash(FakeClustering.wineCorrect()) == PartitionHash.hash(FakeClustering.wineClustering()));
+    }
+
+    @Test
+    public void testIndex() {
+        PartitioningIndex index = new PartitioningIndex(2, 100, 0.01);
+        long h = PartitionHash.hash(wineReversed());
+        assertFalse(index.mightContain(1, h));
+        assertEquals(null, index.get(1, h));
+        index.put(1, h, 7);
+        assertTrue(index.mightContain(1, h));
+        assertEquals(7, (int) index.get(1, h));
+        //different dataset
+        assertEquals(null, index.get(2, h));
+        index.put(1, 1L, 8);
+        index.put(1, 2L, 9);
+        //least recently used was evicted, but still known to Bloom filter
+        assertEquals(2, index.size());
+        assertEquals(null, index.get(1, h));
+        assertTrue(index.mightContain(1, h));
+        index.clear();
+        assertFalse(index.mightContain(1, h));
+    }
+}
@@ -0,0 +1,721 @@
+package org.clueminer.partitioning.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.PriorityQueue;
+import java.util.Random;
+import org.clueminer.graph.api.Edge;
+import org.clueminer.graph.api.Graph;
+import org.clueminer.graph.api.GraphFactory;
+import org.clueminer.graph.api.Node;
+import org.clueminer.partitioning.api.Bisection;
+import org.clueminer.partitioning.api.Partitioning;
+import org.openide.util.Exceptions;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * In-process multilevel k-way partitioning (a pure Java replacement of METIS
+ * binaries). The graph is split by recursive bisection, each bisection is
+ * multilevel:
+ *
+ * <ol>
+ * <li>coarsening - graph is repeatedly contracted using heavy edge matching
+ * until it has only a few dozens of vertices</li>
+ * <li>initial bisection of the coarsest graph - computed by configured
+ * {@link Bisection} (Fiduccia-Mattheyses by default) and by greedy graph
+ * growing from random seeds, the best cut is kept</li>
+ * <li>uncoarsening - the bisection is projected back to finer graphs and
+ * refined on each level by weighted Fiduccia-Mattheyses passes respecting
+ * balance of vertex weights</li>
+ * </ol>
+ *
+ * Working data are kept in local primitive arrays, instance holds only
+ * configuration, therefore several graphs might be partitioned concurrently.
+ *
+ * @author Tomas Barton
+ */
+@ServiceProvider(service = Partitioning.class)
+public class MultilevelPartitioning implements Partitioning {
+
+    /**
+     * coarsening stops when graph has fewer vertices
+     */
+    private static final int COARSEST_SIZE = 40;
+    /**
+     * number of graph growing initial bisections
+     */
+    private static final int GROWING_TRIALS = 4;
+    private static final int REFINE_PASSES = 8;
+    /**
+     * FM pass is stopped after given number of moves without improvement
+     */
+    private static final int FM_MOVES_LIMIT = 50;
+    private static final double EPS = 1e-9;
+
+    private Bisection bisection;
+    /**
+     * allowed imbalance of partitions' weights
+     */
+    private double imbalance = 0.05;
+    private boolean weighted = true;
+    private long seed = 42;
+
+    public MultilevelPartitioning() {
+        this(new FiducciaMattheyses());
+    }
+
+    public MultilevelPartitioning(Bisection bisection) {
+        this.bisection = bisection;
+    }
+
+    @Override
+    public String getName() {
+        return "Multilevel partitioning";
+    }
+
+    /**
+     * Bisection used for initial partitioning of the coarsest graph, might be
+     * null (only graph growing will be used)
+     *
+     * @param bisection
+     */
+    @Override
+    public void setBisection(Bisection bisection) {
+        this.bisection = bisection;
+    }
+
+    public double getImbalance() {
+        return imbalance;
+    }
+
+    /**
+     * @param imbalance allowed relative overweight of a partition (e.g. 0.05)
+     */
+    public void setImbalance(double imbalance) {
+        this.imbalance = imbalance;
+    }
+
+    public boolean isWeighted() {
+        return weighted;
+    }
+
+    /**
+     * @param weighted when false all edges are considered to have unit weight
+     */
+    public void setWeighted(boolean weighted) {
+        this.weighted = weighted;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public ArrayList<LinkedList<Node>> partition(int maxPartitionSize, Graph g) {
+        int k = (int) Math.ceil(g.getNodeCount() / (double) maxPartitionSize);
+        if (k <= 1) {
+            ArrayList<LinkedList<Node>> nodes = new ArrayList<>();
+            nodes.add(new LinkedList<>(g.getNodes().toCollection()));
+            return nodes;
+        }
+        Node[] nodes = createMapping(g);
+        int[] part = partition(g, nodes, k);
+        ArrayList<LinkedList<Node>> clusters = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            clusters.add(new LinkedList<Node>());
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            clusters.get(part[i]).add(nodes[i]);
+        }
+        Graph clusteredGraph = new EdgeRemover().removeEdges(g, clusters);
+        FloodFill f = new FloodFill();
+        return f.findSubgraphs(clusteredGraph);
+    }
+
+    /**
+     * Split graph into k parts with minimal weight of cut edges
+     *
+     * @param g
+     * @param k number of partitions
+     * @return partition index (0 to k-1) for each node index
+     */
+    public int[] kway(Graph g, int k) {
+        return partition(g, createMapping(g), k);
+    }
+
+    private Node[] createMapping(Graph graph) {
+        Node[] nodeMapping = new Node[graph.getNodeCount()];
+        for (Node node : graph.getNodes()) {
+            nodeMapping[graph.getIndex(node)] = node;
+        }
+        return nodeMapping;
+    }
+
+    private int[] partition(Graph g, Node[] nodes, int k) {
+        Level level = Level.fromGraph(g, nodes, weighted);
+        int[] ids = new int[level.n];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i;
+        }
+        int[] part = new int[level.n];
+        //imbalance accumulates with each level of recursion
+        int depth = 32 - Integer.numberOfLeadingZeros(k - 1);
+        double ub = Math.pow(1 + imbalance, 1.0 / depth) - 1;
+        recursiveBisection(level, ids, k, 0, part, new Random(seed), ub, g);
+        return part;
+    }
+
+    private void recursiveBisection(Level level, int[] ids, int k, int offset, int[] part, Random rand,
+            double ub, Graph template) {
+        if (k == 1 || level.n <= k) {
+            for (int i = 0; i < level.n; i++) {
+                part[ids[i]] = k == 1 ? offset : offset + i;
+            }
+            return;
+        }
+        int k0 = k / 2;
+        int[] where = bisect(level, k0 / (double) k, ub, rand, template);
+        for (int s = 0; s < 2; s++) {
+            int[] subIds = new int[level.n];
+            Level sub = level.subgraph(where, s, ids, subIds);
+            recursiveBisection(sub, Arrays.copyOf(subIds, sub.n), s == 0 ? k0 : k - k0,
+                    s == 0 ? offset : offset + k0, part, rand, ub, template);
+        }
+    }
+
+    /**
+     * Multilevel bisection
+     *
+     * @param level
+     * @param fraction target weight of first partition (relative)
+     * @param ub       allowed imbalance
+     * @param rand
+     * @param template graph which class will be used for the initial
+     *                 bisection
+     * @return side (0 or 1) of each vertex
+     */
+    private int[] bisect(Level level, double fraction, double ub, Random rand, Graph template) {
+        ArrayList<Level> levels = new ArrayList<>();
+        levels.add(level);
+        Level curr = level;
+        int maxVertexWeight = (int) Math.max(1, 1.5 * level.totalWeight / COARSEST_SIZE);
+        while (curr.n > COARSEST_SIZE) {
+            Level coarse = curr.coarsen(rand, maxVertexWeight);
+            if (coarse.n > 0.95 * curr.n) {
+                //matching doesn't reduce the graph anymore
+                break;
+            }
+            levels.add(coarse);
+            curr = coarse;
+        }
+        int[] where = initialBisection(curr, fraction, ub, rand, template);
+        for (int l = levels.size() - 2; l >= 0; l--) {
+            Level fine = levels.get(l);
+            int[] projected = new int[fine.n];
+            for (int v = 0; v < fine.n; v++) {
+                projected[v] = where[fine.cmap[v]];
+            }
+            where = projected;
+            balance(fine, where, fraction, ub);
+            refine(fine, where, fraction, ub);
+        }
+        return where;
+    }
+
+    private int[] initialBisection(Level level, double fraction, double ub, Random rand, Graph template) {
+        int[] best = null;
+        double bestCut = Double.MAX_VALUE;
+        int[] where;
+        for (int t = 0; t <= GROWING_TRIALS; t++) {
+            if (t == 0) {
+                if (bisection == null) {
+                    continue;
+                }
+                where = bisectionOf(level, template);
+                if (where == null) {
+                    continue;
+                }
+            } else {
+                where = growBisection(level, fraction, rand);
+            }
+            balance(level, where, fraction, ub);
+            refine(level, where, fraction, ub);
+            double cut = level.cut(where);
+            if (cut < bestCut - EPS) {
+                bestCut = cut;
+                best = where;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Bisection of the (coarse) graph by configured {@link Bisection}, the
+     * coarse graph is converted to the same graph storage as the original
+     * one.
+     *
+     * @param level
+     * @param template
+     * @return side of each vertex or null when graph can't be created
+     */
+    private int[] bisectionOf(Level level, Graph template) {
+        Graph graph;
+        try {
+            graph = template.getClass().newInstance();
+        } catch (InstantiationException | IllegalAccessException ex) {
+            Exceptions.printStackTrace(ex);
+            return null;
+        }
+        graph.ensureCapacity(level.n);
+        GraphFactory f = graph.getFactory();
+        Node[] nodes = new Node[level.n];
+        //factories and bisections are not thread-safe
+        synchronized (f) {
+            for (int v = 0; v < level.n; v++) {
+                nodes[v] = f.newNode();
+                graph.addNode(nodes[v]);
+            }
+            for (int v = 0; v < level.n; v++) {
+                for (int j = level.xadj[v]; j < level.xadj[v + 1]; j++) {
+                    if (v < level.adjncy[j]) {
+                        graph.addEdge(f.newEdge(nodes[v], nodes[level.adjncy[j]], 0, level.adjwgt[j], false));
+                    }
+                }
+            }
+        }
+        ArrayList<LinkedList<Node>> res;
+        synchronized (bisection) {
+            res = bisection.bisect(graph);
+        }
+        int[] where = new int[level.n];
+        for (Node node : res.get(1)) {
+            where[graph.getIndex(node)] = 1;
+        }
+        return where;
+    }
+
+    /**
+     * Greedy graph growing, first partition is grown by breadth first search
+     * from a random vertex until it reaches its target weight.
+     */
+    private int[] growBisection(Level level, double fraction, Random rand) {
+        int[] where = new int[level.n];
+        Arrays.fill(where, 1);
+        boolean[] visited = new boolean[level.n];
+        int[] queue = new int[level.n];
+        int head = 0, tail = 0;
+        double target = fraction * level.totalWeight;
+        int weight = 0;
+        int start = rand.nextInt(level.n);
+        int next = 0;
+        queue[tail++] = start;
+        visited[start] = true;
+        int v, u;
+        while (weight < target) {
+            if (head == tail) {
+                //disconnected graph, continue from another component
+                while (next < level.n && visited[next]) {
+                    next++;
+                }
+                if (next == level.n) {
+                    break;
+                }
+                queue[tail++] = next;
+                visited[next] = true;
+            }
+            v = queue[head++];
+            where[v] = 0;
+            weight += level.vwgt[v];
+            for (int j = level.xadj[v]; j < level.xadj[v + 1]; j++) {
+                u = level.adjncy[j];
+                if (!visited[u]) {
+                    visited[u] = true;
+                    queue[tail++] = u;
+                }
+            }
+        }
+        return where;
+    }
+
+    private double[] maxWeights(Level level, double fraction, double ub) {
+        double[] max = new double[2];
+        double target = fraction * level.totalWeight;
+        max[0] = Math.max(target * (1 + ub), target + 1);
+        target = level.totalWeight - target;
+        max[1] = Math.max(target * (1 + ub), target + 1);
+        return max;
+    }
+
+    private int[] partWeights(Level level, int[] where) {
+        int[] pw = new int[2];
+        for (int v = 0; v < level.n; v++) {
+            pw[where[v]] += level.vwgt[v];
+        }
+        return pw;
+    }
+
+    /**
+     * gain of moving each vertex to the other side
+     */
+    private double[] gains(Level level, int[] where) {
+        double[] gain = new double[level.n];
+        for (int v = 0; v < level.n; v++) {
+            for (int j = level.xadj[v]; j < level.xadj[v + 1]; j++) {
+                if (where[level.adjncy[j]] != where[v]) {
+                    gain[v] += level.adjwgt[j];
+                } else {
+                    gain[v] -= level.adjwgt[j];
+                }
+            }
+        }
+        return gain;
+    }
+
+    private void updateGains(Level level, int[] where, double[] gain, boolean[] locked, int v,
+            PriorityQueue<Move> queue) {
+        int u;
+        for (int j = level.xadj[v]; j < level.xadj[v + 1]; j++) {
+            u = level.adjncy[j];
+            if (locked == null || !locked[u]) {
+                if (where[u] == where[v]) {
+                    gain[u] -= 2 * level.adjwgt[j];
+                } else {
+                    gain[u] += 2 * level.adjwgt[j];
+                }
+                if (queue != null) {
+                    queue.add(new Move(u, gain[u]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Move vertices with highest gain from overweight partition until both
+     * partitions respect maximal weight.
+     */
+    private void balance(Level level, int[] where, double fraction, double ub) {
+        double[] max = maxWeights(level, fraction, ub);
+        int[] pw = partWeights(level, where);
+        int heavy = pw[0] > max[0] ? 0 : (pw[1] > max[1] ? 1 : -1);
+        if (heavy < 0) {
+            return;
+        }
+        int light = 1 - heavy;
+        double[] gain = gains(level, where);
+        PriorityQueue<Move> queue = new PriorityQueue<>();
+        for (int v = 0; v < level.n; v++) {
+            if (where[v] == heavy) {
+                queue.add(new Move(v, gain[v]));
+            }
+        }
+        Move m;
+        while (pw[heavy] > max[heavy] && !queue.isEmpty()) {
+            m = queue.poll();
+            if (where[m.vertex] != heavy || m.gain != gain[m.vertex]
+                    || pw[light] + level.vwgt[m.vertex] > max[light]) {
+                continue;
+            }
+            where[m.vertex] = light;
+            pw[heavy] -= level.vwgt[m.vertex];
+            pw[light] += level.vwgt[m.vertex];
+            gain[m.vertex] = -gain[m.vertex];
+            updateGains(level, where, gain, null, m.vertex, queue);
+        }
+    }
+
+    /**
+     * Weighted Fiduccia-Mattheyses refinement, in each pass vertices are moved
+     * (at most once) in order of their gains, then the best prefix of moves
+     * is kept.
+     */
+    private void refine(Level level, int[] where, double fraction, double ub) {
+        double[] max = maxWeights(level, fraction, ub);
+        double target = fraction * level.totalWeight;
+        int[] pw = partWeights(level, where);
+        int[] moves = new int[level.n];
+        boolean[] locked = new boolean[level.n];
+        for (int pass = 0; pass < REFINE_PASSES; pass++) {
+            double[] gain = gains(level, where);
+            PriorityQueue<Move> queue = new PriorityQueue<>();
+            for (int v = 0; v < level.n; v++) {
+                if (isBoundary(level, where, v)) {
+                    queue.add(new Move(v, gain[v]));
+                }
+            }
+            Arrays.fill(locked, false);
+            int moved = 0, bestMoves = 0;
+            double total = 0.0, best = 0.0;
+            double bestBalance = Math.abs(pw[0] - target);
+            int from, to;
+            Move m;
+            while (!queue.isEmpty()) {
+                m = queue.poll();
+                if (locked[m.vertex] || m.gain != gain[m.vertex]) {
+                    continue;
+                }
+                from = where[m.vertex];
+                to = 1 - from;
+                if (pw[to] + level.vwgt[m.vertex] > max[to]) {
+                    continue;
+                }
+                where[m.vertex] = to;
+                pw[from] -= level.vwgt[m.vertex];
+                pw[to] += level.vwgt[m.vertex];
+                locked[m.vertex] = true;
+                moves[moved++] = m.vertex;
+                total += m.gain;
+                updateGains(level, where, gain, locked, m.vertex, queue);
+                if (total > best + EPS || (total > best - EPS && Math.abs(pw[0] - target) < bestBalance)) {
+                    best = total;
+                    bestMoves = moved;
+                    bestBalance = Math.abs(pw[0] - target);
+                } else if (moved - bestMoves > FM_MOVES_LIMIT) {
+                    break;
+                }
+            }
+            //roll back moves after the best prefix
+            int v;
+            for (int i = moved - 1; i >= bestMoves; i--) {
+                v = moves[i];
+                pw[where[v]] -= level.vwgt[v];
+                where[v] = 1 - where[v];
+                pw[where[v]] += level.vwgt[v];
+            }
+            if (bestMoves == 0) {
+                break;
+            }
+        }
+    }
+
+    private boolean isBoundary(Level level, int[] where, int v) {
+        for (int j = level.xadj[v]; j < level.xadj[v + 1]; j++) {
+            if (where[level.adjncy[j]] != where[v]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Candidate move, higher gain first
+     */
+    private static class Move implements Comparable<Move> {
+
+        final int vertex;
+        final double gain;
+
+        Move(int vertex, double gain) {
+            this.vertex = vertex;
+            this.gain = gain;
+        }
+
+        @Override
+        public int compareTo(Move o) {
+            return Double.compare(o.gain, gain);
+        }
+    }
+
+    /**
+     * Graph in compressed sparse row format with weighted vertices (a level
+     * of the multilevel hierarchy)
+     */
+    static class Level {
+
+        int n;
+        int[] xadj;
+        int[] adjncy;
+        double[] adjwgt;
+        int[] vwgt;
+        int totalWeight;
+        /**
+         * mapping of vertices to the coarser level
+         */
+        int[] cmap;
+
+        Level(int n, int[] xadj, int[] adjncy, double[] adjwgt, int[] vwgt) {
+            this.n = n;
+            this.xadj = xadj;
+            this.adjncy = adjncy;
+            this.adjwgt = adjwgt;
+            this.vwgt = vwgt;
+            for (int v = 0; v < n; v++) {
+                totalWeight += vwgt[v];
+            }
+        }
+
+        static Level fromGraph(Graph g, Node[] nodes, boolean weighted) {
+            int n = nodes.length;
+            int[] xadj = new int[n + 1];
+            int[] adjncy = new int[16];
+            double[] adjwgt = new double[16];
+            int m = 0;
+            Node other;
+            int j;
+            for (int i = 0; i < n; i++) {
+                for (Edge e : g.getEdges(nodes[i])) {
+                    other = e.getSource().getId() == nodes[i].getId() ? e.getTarget() : e.getSource();
+                    j = g.getIndex(other);
+                    if (j == i) {
+                        continue;
+                    }
+                    if (m == adjncy.length) {
+                        adjncy = Arrays.copyOf(adjncy, 2 * m);
+                        adjwgt = Arrays.copyOf(adjwgt, 2 * m);
+                    }
+                    adjncy[m] = j;
+                    adjwgt[m++] = weighted ? e.getWeight() : 1.0;
+                }
+                xadj[i + 1] = m;
+            }
+            int[] vwgt = new int[n];
+            Arrays.fill(vwgt, 1);
+            return new Level(n, xadj, adjncy, adjwgt, vwgt);
+        }
+
+        double cut(int[] where) {
+            double cut = 0.0;
+            for (int v = 0; v < n; v++) {
+                for (int j = xadj[v]; j < xadj[v + 1]; j++) {
+                    if (where[adjncy[j]] != where[v]) {
+                        cut += adjwgt[j];
+                    }
+                }
+            }
+            return cut / 2;
+        }
+
+        /**
+         * Contract the graph using heavy edge matching, vertices are visited
+         * in random order and matched with unmatched neighbor connected by
+         * the heaviest edge.
+         *
+         * @param rand
+         * @param maxVertexWeight
+         * @return coarser graph
+         */
+        Level coarsen(Random rand, int maxVertexWeight) {
+            int[] perm = new int[n];
+            for (int i = 0; i < n; i++) {
+                perm[i] = i;
+            }
+            int tmp, r;
+            for (int i = n - 1; i > 0; i--) {
+                r = rand.nextInt(i + 1);
+                tmp = perm[i];
+                perm[i] = perm[r];
+                perm[r] = tmp;
+            }
+            int[] match = new int[n];
+            Arrays.fill(match, -1);
+            cmap = new int[n];
+            //first vertex of each coarse vertex
+            int[] coarse = new int[n];
+            int cn = 0;
+            int v, u, best;
+            double bestWeight;
+            for (int i = 0; i < n; i++) {
+                v = perm[i];
+                if (match[v] >= 0) {
+                    continue;
+                }
+                best = v;
+                bestWeight = -Double.MAX_VALUE;
+                for (int j = xadj[v]; j < xadj[v + 1]; j++) {
+                    u = adjncy[j];
+                    if (match[u] < 0 && u != v && adjwgt[j] > bestWeight
+                            && vwgt[v] + vwgt[u] <= maxVertexWeight) {
+                        best = u;
+                        bestWeight = adjwgt[j];
+                    }
+                }
+                match[v] = best;
+                match[best] = v;
+                cmap[v] = cmap[best] = cn;
+                coarse[cn++] = v;
+            }
+            int[] cvwgt = new int[cn];
+            for (v = 0; v < n; v++) {
+                cvwgt[cmap[v]] += vwgt[v];
+            }
+            int[] cxadj = new int[cn + 1];
+            int[] cadjncy = new int[adjncy.length];
+            double[] cadjwgt = new double[adjncy.length];
+            int[] htable = new int[cn];
+            Arrays.fill(htable, -1);
+            int m = 0, start, cu, pos;
+            for (int c = 0; c < cn; c++) {
+                start = m;
+                v = coarse[c];
+                for (int k = 0; k < 2; k++) {
+                    if (k == 1) {
+                        if (match[v] == v) {
+                            break;
+                        }
+                        v = match[v];
+                    }
+                    for (int j = xadj[v]; j < xadj[v + 1]; j++) {
+                        cu = cmap[adjncy[j]];
+                        if (cu == c) {
+                            continue;
+                        }
+                        pos = htable[cu];
+                        if (pos < 0) {
+                            htable[cu] = m;
+                            cadjncy[m] = cu;
+                            cadjwgt[m++] = adjwgt[j];
+                        } else {
+                            cadjwgt[pos] += adjwgt[j];
+                        }
+                    }
+                }
+                for (int j = start; j < m; j++) {
+                    htable[cadjncy[j]] = -1;
+                }
+                cxadj[c + 1] = m;
+            }
+            return new Level(cn, cxadj, Arrays.copyOf(cadjncy, m), Arrays.copyOf(cadjwgt, m), cvwgt);
+        }
+
+        /**
+         * Induced subgraph of vertices on given side
+         *
+         * @param where  side of each vertex
+         * @param side
+         * @param ids    original index of each vertex
+         * @param subIds output, original indexes of subgraph's vertices
+         * @return
+         */
+        Level subgraph(int[] where, int side, int[] ids, int[] subIds) {
+            int[] map = new int[n];
+            int sn = 0;
+            for (int v = 0; v < n; v++) {
+                if (where[v] == side) {
+                    subIds[sn] = ids[v];
+                    map[v] = sn++;
+                } else {
+                    map[v] = -1;
+                }
+            }
+            int[] sxadj = new int[sn + 1];
+            int[] sadjncy = new int[adjncy.length];
+            double[] sadjwgt = new double[adjncy.length];
+            int[] svwgt = new int[sn];
+            int m = 0;
+            for (int v = 0; v < n; v++) {
+                if (map[v] >= 0) {
+                    for (int j = xadj[v]; j < xadj[v + 1]; j++) {
+                        if (map[adjncy[j]] >= 0) {
+                            sadjncy[m] = map[adjncy[j]];
+                            sadjwgt[m++] = adjwgt[j];
+                        }
+                    }
+                    sxadj[map[v] + 1] = m;
+                    svwgt[map[v]] = vwgt[v];
+                }
+            }
+            return new Level(sn, sxadj, Arrays.copyOf(sadjncy, m), Arrays.copyOf(sadjwgt, m), svwgt);
+        }
+    }
+
+}
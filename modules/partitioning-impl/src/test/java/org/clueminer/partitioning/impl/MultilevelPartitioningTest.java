@@ -0,0 +1,142 @@
+package org.clueminer.partitioning.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.clueminer.dataset.api.Dataset;
+import org.clueminer.dataset.api.Instance;
+import org.clueminer.dataset.plugin.ArrayDataset;
+import org.clueminer.graph.GraphBuilder.KNNGraphBuilder;
+import org.clueminer.graph.adjacencyList.AdjListGraph;
+import org.clueminer.graph.adjacencyMatrix.AdjMatrixGraph;
+import org.clueminer.graph.api.Edge;
+import org.clueminer.graph.api.Graph;
+import org.clueminer.graph.api.Node;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author deric
+ */
+public class MultilevelPartitioningTest extends PartitioningTest {
+
+    private final MultilevelPartitioning subject = new MultilevelPartitioning();
+
+    private Dataset<? extends Instance> blobs(int n, int k, long seed) {
+        Random rand = new Random(seed);
+        double[][] data = new double[n][2];
+        for (int i = 0; i < n; i++) {
+            data[i][0] = 10 * (i % k) + rand.nextGaussian();
+            data[i][1] = 3 * (i % 2) + rand.nextGaussian();
+        }
+        return new ArrayDataset<>(data);
+    }
+
+    private Graph knnGraph(Dataset<? extends Instance> dataset, Graph g, int k) {
+        return new KNNGraphBuilder().getNeighborGraph(dataset, g, k);
+    }
+
+    private double cut(Graph g, int[] part) {
+        double cut = 0.0;
+        for (Edge e : g.getEdges()) {
+            if (part[g.getIndex(e.getSource())] != part[g.getIndex(e.getTarget())]) {
+                cut += e.getWeight();
+            }
+        }
+        return cut;
+    }
+
+    @Test
+    public void testSimpleGraph() {
+        Dataset<? extends Instance> dataset = twoDistinctNeighbors();
+        Graph g = knnGraph(dataset, new AdjMatrixGraph(dataset.size()), 3);
+        ArrayList<LinkedList<Node>> res = subject.partition(4, g);
+        assertEquals(2, res.size());
+        for (LinkedList<Node> cluster : res) {
+            assertEquals(4, cluster.size());
+            //both points in a cluster come from the same square
+            double x = cluster.getFirst().getInstance().get(0);
+            for (Node node : cluster) {
+                assertEquals(x < 3, node.getInstance().get(0) < 3);
+            }
+        }
+    }
+
+    @Test
+    public void testKway() {
+        Dataset<? extends Instance> dataset = blobs(600, 4, 1);
+        Graph g = knnGraph(dataset, new AdjListGraph(dataset.size()), 8);
+        int[] part = subject.kway(g, 4);
+        int[] sizes = new int[4];
+        for (int p : part) {
+            sizes[p]++;
+        }
+        for (int size : sizes) {
+            assertTrue("unbalanced partition " + size, size >= 150 * (1 - subject.getImbalance()) - 1
+                    && size <= 150 * (1 + subject.getImbalance()) + 1);
+        }
+        //blobs are separated, kNN graph has almost no edges between them
+        double total = 0.0;
+        for (Edge e : g.getEdges()) {
+            total += e.getWeight();
+        }
+        assertTrue(cut(g, part) < 0.01 * total);
+
+        ArrayList<LinkedList<Node>> res = subject.partition(150, g);
+        assertTrue(res.size() >= 4);
+        int cnt = 0;
+        for (LinkedList<Node> cluster : res) {
+            cnt += cluster.size();
+        }
+        assertEquals(dataset.size(), cnt);
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        final Dataset<? extends Instance> dataset = blobs(400, 3, 2);
+        int[] expected = subject.kway(knnGraph(dataset, new AdjMatrixGraph(dataset.size()), 6), 5);
+        ExecutorService exec = Executors.newFixedThreadPool(4);
+        try {
+            ArrayList<Future<int[]>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(exec.submit(new Callable<int[]>() {
+
+                    @Override
+                    public int[] call() throws Exception {
+                        Graph g;
+                        synchronized (dataset) {
+                            //graph factories are not thread-safe
+                            g = knnGraph(dataset, new AdjMatrixGraph(dataset.size()), 6);
+                        }
+                        return subject.kway(g, 5);
+                    }
+                }));
+            }
+            for (Future<int[]> res : results) {
+                assertArrayEquals(expected, res.get());
+            }
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    @Test
+    public void testKernighanLin() {
+        Dataset<? extends Instance> dataset = blobs(300, 2, 3);
+        Graph g = knnGraph(dataset, new AdjMatrixGraph(dataset.size()), 5);
+        MultilevelPartitioning ml = new MultilevelPartitioning(new KernighanLin());
+        int[] part = ml.kway(g, 2);
+        int[] sizes = new int[2];
+        for (int p : part) {
+            sizes[p]++;
+        }
+        assertTrue(Math.abs(sizes[0] - sizes[1]) <= 0.1 * dataset.size());
+    }
+}